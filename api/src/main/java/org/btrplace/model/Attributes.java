@@ -18,6 +18,9 @@
 
 package org.btrplace.model;
 
+import gnu.trove.map.TIntDoubleMap;
+import gnu.trove.map.TIntIntMap;
+
 import java.util.Set;
 
 /**
@@ -113,6 +116,32 @@ public interface Attributes extends Cloneable {
      */
     Integer getInteger(Element e, String k);
 
+    /**
+     * Get the integer values of an attribute for a kind of element.
+     *
+     * @param type the kind of element, either {@link VM} or {@link Node}
+     * @param k    the attribute identifier
+     * @return a read-only map of the values, indexed by element identifier. {@code null} if the attribute
+     * is not only made of integers or if the implementation does not store its values by column.
+     * The map must not be used after a modification of the attributes
+     */
+    default TIntIntMap getIntColumn(Class<? extends Element> type, String k) {
+        return null;
+    }
+
+    /**
+     * Get the double values of an attribute for a kind of element.
+     *
+     * @param type the kind of element, either {@link VM} or {@link Node}
+     * @param k    the attribute identifier
+     * @return a read-only map of the values, indexed by element identifier. {@code null} if the attribute
+     * is not only made of doubles or if the implementation does not store its values by column.
+     * The map must not be used after a modification of the attributes
+     */
+    default TIntDoubleMap getDoubleColumn(Class<? extends Element> type, String k) {
+        return null;
+    }
+
     /**
      * Check if an attribute is set for a given element.
      *
@@ -149,7 +178,7 @@ public interface Attributes extends Cloneable {
      * Get all the attributes keys that are registered.
      *
      * @param e the element
-     * @return a set that may be empty
+     * @return a set that may be empty. It may be read-only
      */
     Set<String> getKeys(Element e);
 
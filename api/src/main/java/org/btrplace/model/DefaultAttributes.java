@@ -18,128 +18,118 @@
 
 package org.btrplace.model;
 
+import gnu.trove.TCollections;
+import gnu.trove.impl.Constants;
+import gnu.trove.iterator.TIntIterator;
+import gnu.trove.map.TIntDoubleMap;
+import gnu.trove.map.TIntIntMap;
+import gnu.trove.map.hash.TIntByteHashMap;
+import gnu.trove.map.hash.TIntDoubleHashMap;
+import gnu.trove.map.hash.TIntIntHashMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.set.hash.TIntHashSet;
+
 import java.util.*;
 
 /**
  * Default implementation for {@link Attributes}.
+ * <p>
+ * The attributes are stored by column: for each kind of element and each key, the values are stored in a
+ * primitive map indexed by the element identifiers. A column holding integers, doubles or booleans only
+ * does not box its values. A column becomes a column of objects once it holds values of different types.
+ * Use {@link #getIntColumn(Class, String)} and {@link #getDoubleColumn(Class, String)} to browse
+ * a column without any per-element lookup on the keys.
+ * <p>
+ * {@link #clone()} is copy-on-write: the clone shares the columns of this instance.
+ * The first modification of a column then copies that column only.
  *
  * @author Fabien Hermenier
  */
 public class DefaultAttributes implements Attributes, Cloneable {
 
-    private Map<VM, Map<String, Object>> vmAttrs;
-    private Map<Node, Map<String, Object>> nodeAttrs;
+    private Store vmAttrs;
+
+    private Store nodeAttrs;
 
     /**
      * Make a new empty list of attributes.
      */
     public DefaultAttributes() {
-        vmAttrs = new HashMap<>();
-        nodeAttrs = new HashMap<>();
+        vmAttrs = new Store();
+        nodeAttrs = new Store();
     }
 
-    private boolean putObject(Element e, String k, Object v) {
-        Map<String, Object> m;
+    private Store store(Element e) {
         if (e instanceof VM) {
-            m = vmAttrs.get(e);
-            if (m == null) {
-                m = new HashMap<>();
-                vmAttrs.put((VM) e, m);
-            }
+            return vmAttrs;
         } else if (e instanceof Node) {
-            m = nodeAttrs.get(e);
-            if (m == null) {
-                m = new HashMap<>();
-                nodeAttrs.put((Node) e, m);
-            }
-        } else {
+            return nodeAttrs;
+        }
+        return null;
+    }
+
+    private Store store(Class<? extends Element> type) {
+        if (VM.class.equals(type)) {
+            return vmAttrs;
+        } else if (Node.class.equals(type)) {
+            return nodeAttrs;
+        }
+        return null;
+    }
+
+    private boolean putObject(Element e, String k, Object v) {
+        Store st = store(e);
+        if (st == null) {
             return false;
         }
-        return m.put(k, v) != null;
+        boolean had = st.isSet(e.id(), k);
+        ((ObjectColumn) st.writable(k, ObjectColumn.class, e.id())).values.put(e.id(), v);
+        return had;
     }
 
     @Override
     public Object get(Element e, String k) {
-        Map<String, Object> m;
-        if (e instanceof Node) {
-            m = nodeAttrs.get(e);
-        } else if (e instanceof VM) {
-            m = vmAttrs.get(e);
-        } else {
-            return null;
-        }
-        return m == null ? null : m.get(k);
+        Store st = store(e);
+        return st == null ? null : st.get(e.id(), k);
     }
 
     @Override
     public boolean isSet(Element e, String k) {
-        Map<String, Object> m;
-        if (e instanceof Node) {
-            m = nodeAttrs.get(e);
-        } else if (e instanceof VM) {
-            m = vmAttrs.get(e);
-        } else {
-            return false;
-        }
-        return m != null && m.containsKey(k);
+        Store st = store(e);
+        return st != null && st.isSet(e.id(), k);
     }
 
     @Override
     public boolean unset(Element e, String k) {
-        Map<String, Object> m;
-        if (e instanceof Node) {
-            m = nodeAttrs.get(e);
-        } else if (e instanceof VM) {
-            m = vmAttrs.get(e);
-        } else {
-            return false;
-        }
-        return m != null && m.remove(k) != null;
+        Store st = store(e);
+        return st != null && st.unset(e.id(), k);
     }
 
     @Override
     public Attributes clone() {
         DefaultAttributes cpy = new DefaultAttributes();
-        for (Map.Entry<VM, Map<String, Object>> e : vmAttrs.entrySet()) {
-            cpy.vmAttrs.put(e.getKey(), new HashMap<>(e.getValue()));
-        }
-
-        for (Map.Entry<Node, Map<String, Object>> e : nodeAttrs.entrySet()) {
-            cpy.nodeAttrs.put(e.getKey(), new HashMap<>(e.getValue()));
-        }
-
+        cpy.vmAttrs = vmAttrs.copy();
+        cpy.nodeAttrs = nodeAttrs.copy();
         return cpy;
     }
 
     @Override
     public String toString() {
         StringBuilder b = new StringBuilder();
-        for (Map.Entry<VM, Map<String, Object>> e : vmAttrs.entrySet()) {
-            b.append(e.getKey());
-            b.append(':');
-            b.append(stringify(e.getValue()));
-            b.append('\n');
-        }
-        for (Map.Entry<Node, Map<String, Object>> e : nodeAttrs.entrySet()) {
-            b.append(e.getKey());
+        for (Element e : getDefined()) {
+            b.append(e);
             b.append(':');
-            b.append(stringify(e.getValue()));
-            b.append('\n');
-        }
-        return b.toString();
-    }
-
-    private String stringify(Map<String, Object> map) {
-        StringBuilder b = new StringBuilder();
-        for (Map.Entry<String, Object> attr : map.entrySet()) {
-            b.append(" <").append(attr.getKey()).append(',');
-            Object val = attr.getValue();
-            if (val instanceof String) {
-                b.append('"').append(val).append('"');
-            } else {
-                b.append(val);
+            for (String k : getKeys(e)) {
+                b.append(" <").append(k).append(',');
+                Object val = get(e, k);
+                if (val instanceof String) {
+                    b.append('"').append(val).append('"');
+                } else {
+                    b.append(val);
+                }
+                b.append('>');
             }
-            b.append('>');
+            b.append('\n');
         }
         return b.toString();
     }
@@ -166,26 +156,54 @@ public class DefaultAttributes implements Attributes, Cloneable {
 
     @Override
     public Set<Element> getDefined() {
-        Set<Element> s = new HashSet<>(vmAttrs.size() + nodeAttrs.size());
-        s.addAll(vmAttrs.keySet());
-        s.addAll(nodeAttrs.keySet());
+        Set<Element> s = new HashSet<>();
+        TIntIterator ite = vmAttrs.defined().iterator();
+        while (ite.hasNext()) {
+            s.add(new VM(ite.next()));
+        }
+        ite = nodeAttrs.defined().iterator();
+        while (ite.hasNext()) {
+            s.add(new Node(ite.next()));
+        }
         return s;
     }
 
     @Override
     public void clear() {
-        this.vmAttrs.clear();
-        this.nodeAttrs.clear();
+        vmAttrs = new Store();
+        nodeAttrs = new Store();
     }
 
     @Override
     public boolean put(Element e, String k, boolean b) {
-        return putObject(e, k, b);
+        Store st = store(e);
+        if (st == null) {
+            return false;
+        }
+        boolean had = st.isSet(e.id(), k);
+        Column c = st.writable(k, BooleanColumn.class, e.id());
+        if (c instanceof BooleanColumn) {
+            ((BooleanColumn) c).values.put(e.id(), (byte) (b ? 1 : 0));
+        } else {
+            ((ObjectColumn) c).values.put(e.id(), b);
+        }
+        return had;
     }
 
     @Override
     public boolean put(Element e, String k, int n) {
-        return putObject(e, k, n);
+        Store st = store(e);
+        if (st == null) {
+            return false;
+        }
+        boolean had = st.isSet(e.id(), k);
+        Column c = st.writable(k, IntColumn.class, e.id());
+        if (c instanceof IntColumn) {
+            ((IntColumn) c).values.put(e.id(), n);
+        } else {
+            ((ObjectColumn) c).values.put(e.id(), n);
+        }
+        return had;
     }
 
     @Override
@@ -195,7 +213,18 @@ public class DefaultAttributes implements Attributes, Cloneable {
 
     @Override
     public boolean put(Element e, String k, double d) {
-        return putObject(e, k, d);
+        Store st = store(e);
+        if (st == null) {
+            return false;
+        }
+        boolean had = st.isSet(e.id(), k);
+        Column c = st.writable(k, DoubleColumn.class, e.id());
+        if (c instanceof DoubleColumn) {
+            ((DoubleColumn) c).values.put(e.id(), d);
+        } else {
+            ((ObjectColumn) c).values.put(e.id(), d);
+        }
+        return had;
     }
 
     @Override
@@ -219,17 +248,24 @@ public class DefaultAttributes implements Attributes, Cloneable {
         return (Integer) get(e, k);
     }
 
+    @Override
+    public TIntIntMap getIntColumn(Class<? extends Element> type, String k) {
+        Store st = store(type);
+        Column c = st == null ? null : st.columns.get(k);
+        return c instanceof IntColumn ? ((IntColumn) c).view : null;
+    }
+
+    @Override
+    public TIntDoubleMap getDoubleColumn(Class<? extends Element> type, String k) {
+        Store st = store(type);
+        Column c = st == null ? null : st.columns.get(k);
+        return c instanceof DoubleColumn ? ((DoubleColumn) c).view : null;
+    }
+
     @Override
     public Set<String> getKeys(Element e) {
-        Map<String, Object> m;
-        if (e instanceof Node) {
-            m = nodeAttrs.get(e);
-        } else if (e instanceof VM) {
-            m = vmAttrs.get(e);
-        } else {
-            return Collections.emptySet();
-        }
-        return m == null ? Collections.<String>emptySet() : m.keySet();
+        Store st = store(e);
+        return st == null ? Collections.emptySet() : st.keys(e.id());
     }
 
     @Override
@@ -255,10 +291,470 @@ public class DefaultAttributes implements Attributes, Cloneable {
 
     @Override
     public void clear(Element e) {
-        if (e instanceof VM) {
-            this.vmAttrs.remove(e);
-        } else if (e instanceof Node) {
-            this.nodeAttrs.remove(e);
+        Store st = store(e);
+        if (st != null) {
+            st.clear(e.id());
+        }
+    }
+
+    /**
+     * The columns of one kind of element, by key.
+     */
+    private static class Store {
+
+        private Map<String, Column> columns;
+
+        /**
+         * The keys set for each element. The sets are read-only and interned in {@link #keySets}
+         * so the elements having the same keys share a single set.
+         */
+        private TIntObjectHashMap<Set<String>> keys;
+
+        /**
+         * The interned key sets. Shared with the copies as the sets are never modified.
+         */
+        private Map<Set<String>, Set<String>> keySets;
+
+        /**
+         * {@code true} iff {@link #columns} and {@link #keys} are shared with a copy.
+         */
+        private boolean shared;
+
+        /**
+         * The columns that are not shared with a copy.
+         */
+        private Set<Column> owned;
+
+        Store() {
+            columns = new HashMap<>();
+            keys = new TIntObjectHashMap<>();
+            keySets = new HashMap<>();
+            owned = Collections.newSetFromMap(new IdentityHashMap<>());
+        }
+
+        /**
+         * Make a copy that shares all the columns.
+         *
+         * @return the copy
+         */
+        Store copy() {
+            Store cpy = new Store();
+            cpy.columns = columns;
+            cpy.keys = keys;
+            cpy.keySets = keySets;
+            cpy.shared = true;
+            shared = true;
+            owned.clear();
+            return cpy;
+        }
+
+        boolean isSet(int id, String k) {
+            Column c = columns.get(k);
+            return c != null && c.contains(id);
+        }
+
+        Object get(int id, String k) {
+            Column c = columns.get(k);
+            return c == null ? null : c.get(id);
+        }
+
+        boolean unset(int id, String k) {
+            Column c = columns.get(k);
+            if (c == null || !c.contains(id)) {
+                return false;
+            }
+            writable(k, c.getClass(), id).remove(id);
+            Set<String> ks = keys.get(id);
+            if (ks.size() == 1) {
+                keys.remove(id);
+            } else {
+                Set<String> next = new HashSet<>(ks);
+                next.remove(k);
+                keys.put(id, intern(next));
+            }
+            return true;
+        }
+
+        /**
+         * Remove all the values of an element.
+         *
+         * @param id the element identifier
+         */
+        void clear(int id) {
+            Set<String> ks = keys.get(id);
+            if (ks == null) {
+                return;
+            }
+            for (String k : ks) {
+                writable(k, columns.get(k).getClass(), id).remove(id);
+            }
+            keys.remove(id);
+        }
+
+        /**
+         * Get the keys set for an element.
+         *
+         * @param id the element identifier
+         * @return a read-only set that may be empty
+         */
+        Set<String> keys(int id) {
+            Set<String> ks = keys.get(id);
+            return ks == null ? Collections.emptySet() : ks;
+        }
+
+        private Set<String> intern(Set<String> ks) {
+            Set<String> i = keySets.get(ks);
+            if (i == null) {
+                i = Collections.unmodifiableSet(ks);
+                keySets.put(ks, i);
+            }
+            return i;
+        }
+
+        /**
+         * Get the column of a key, ready to be modified to store a value of a given type.
+         * A shared column is copied first. When the column stores other values of another type, it is turned
+         * into a column of objects. The key is then considered as set for the element.
+         *
+         * @param k    the key
+         * @param type the type of the column that fits the value
+         * @param id   the element that will be modified
+         * @return a column of the given type or a column of objects
+         */
+        Column writable(String k, Class<? extends Column> type, int id) {
+            if (shared) {
+                columns = new HashMap<>(columns);
+                keys = new TIntObjectHashMap<>(keys);
+                shared = false;
+            }
+            Set<String> ks = keys.get(id);
+            if (ks == null || !ks.contains(k)) {
+                Set<String> next = ks == null ? new HashSet<>() : new HashSet<>(ks);
+                next.add(k);
+                keys.put(id, intern(next));
+            }
+            Column c = columns.get(k);
+            Column res;
+            if (c == null || c.size() == 0 || (c.size() == 1 && c.contains(id) && c.getClass() != type)) {
+                res = Column.newColumn(type);
+            } else if (c.getClass() == type || c instanceof ObjectColumn) {
+                if (owned.contains(c)) {
+                    return c;
+                }
+                res = c.copy();
+            } else {
+                res = new ObjectColumn(c);
+            }
+            owned.remove(c);
+            owned.add(res);
+            columns.put(k, res);
+            return res;
+        }
+
+        /**
+         * Get the elements having at least one attribute.
+         *
+         * @return the element identifiers
+         */
+        TIntHashSet defined() {
+            return new TIntHashSet(keys.keys());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Store that = (Store) o;
+            Set<String> keys = nonEmptyKeys();
+            if (!keys.equals(that.nonEmptyKeys())) {
+                return false;
+            }
+            for (String k : keys) {
+                if (!columns.get(k).sameValues(that.columns.get(k))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int h = 0;
+            for (Map.Entry<String, Column> e : columns.entrySet()) {
+                if (e.getValue().size() > 0) {
+                    h += e.getKey().hashCode() ^ e.getValue().valuesHashCode();
+                }
+            }
+            return h;
+        }
+
+        private Set<String> nonEmptyKeys() {
+            Set<String> keys = new HashSet<>();
+            for (Map.Entry<String, Column> e : columns.entrySet()) {
+                if (e.getValue().size() > 0) {
+                    keys.add(e.getKey());
+                }
+            }
+            return keys;
+        }
+    }
+
+    /**
+     * The values of a key for one kind of element, indexed by element identifier.
+     */
+    private abstract static class Column {
+
+        abstract boolean contains(int id);
+
+        /**
+         * Get a value.
+         *
+         * @param id the element identifier
+         * @return the boxed value, {@code null} if there is none
+         */
+        abstract Object get(int id);
+
+        abstract void remove(int id);
+
+        abstract int size();
+
+        abstract int[] ids();
+
+        abstract Column copy();
+
+        static Column newColumn(Class<? extends Column> type) {
+            if (type == IntColumn.class) {
+                return new IntColumn();
+            } else if (type == DoubleColumn.class) {
+                return new DoubleColumn();
+            } else if (type == BooleanColumn.class) {
+                return new BooleanColumn();
+            }
+            return new ObjectColumn();
+        }
+
+        boolean sameValues(Column c) {
+            if (c.size() != size()) {
+                return false;
+            }
+            for (int id : ids()) {
+                if (!Objects.equals(get(id), c.get(id))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int valuesHashCode() {
+            int h = 0;
+            for (int id : ids()) {
+                h += 31 * id + get(id).hashCode();
+            }
+            return h;
+        }
+    }
+
+    /**
+     * A column of integers.
+     */
+    private static class IntColumn extends Column {
+
+        private final TIntIntHashMap values;
+
+        private final TIntIntMap view;
+
+        IntColumn() {
+            this(new TIntIntHashMap(Constants.DEFAULT_CAPACITY, Constants.DEFAULT_LOAD_FACTOR, -1, Integer.MIN_VALUE));
+        }
+
+        private IntColumn(TIntIntHashMap values) {
+            this.values = values;
+            view = TCollections.unmodifiableMap(values);
+        }
+
+        @Override
+        boolean contains(int id) {
+            return values.containsKey(id);
+        }
+
+        @Override
+        Object get(int id) {
+            int v = values.get(id);
+            return v != values.getNoEntryValue() || values.containsKey(id) ? v : null;
+        }
+
+        @Override
+        void remove(int id) {
+            values.remove(id);
+        }
+
+        @Override
+        int size() {
+            return values.size();
+        }
+
+        @Override
+        int[] ids() {
+            return values.keys();
+        }
+
+        @Override
+        Column copy() {
+            return new IntColumn(new TIntIntHashMap(values));
+        }
+    }
+
+    /**
+     * A column of doubles.
+     */
+    private static class DoubleColumn extends Column {
+
+        private final TIntDoubleHashMap values;
+
+        private final TIntDoubleMap view;
+
+        DoubleColumn() {
+            this(new TIntDoubleHashMap(Constants.DEFAULT_CAPACITY, Constants.DEFAULT_LOAD_FACTOR, -1, Double.NaN));
+        }
+
+        private DoubleColumn(TIntDoubleHashMap values) {
+            this.values = values;
+            view = TCollections.unmodifiableMap(values);
+        }
+
+        @Override
+        boolean contains(int id) {
+            return values.containsKey(id);
+        }
+
+        @Override
+        Object get(int id) {
+            double v = values.get(id);
+            return !Double.isNaN(v) || values.containsKey(id) ? v : null;
+        }
+
+        @Override
+        void remove(int id) {
+            values.remove(id);
+        }
+
+        @Override
+        int size() {
+            return values.size();
+        }
+
+        @Override
+        int[] ids() {
+            return values.keys();
+        }
+
+        @Override
+        Column copy() {
+            return new DoubleColumn(new TIntDoubleHashMap(values));
+        }
+    }
+
+    /**
+     * A column of booleans, stored as bytes.
+     */
+    private static class BooleanColumn extends Column {
+
+        private final TIntByteHashMap values;
+
+        BooleanColumn() {
+            this(new TIntByteHashMap());
+        }
+
+        private BooleanColumn(TIntByteHashMap values) {
+            this.values = values;
+        }
+
+        @Override
+        boolean contains(int id) {
+            return values.containsKey(id);
+        }
+
+        @Override
+        Object get(int id) {
+            return values.containsKey(id) ? values.get(id) != 0 : null;
+        }
+
+        @Override
+        void remove(int id) {
+            values.remove(id);
+        }
+
+        @Override
+        int size() {
+            return values.size();
+        }
+
+        @Override
+        int[] ids() {
+            return values.keys();
+        }
+
+        @Override
+        Column copy() {
+            return new BooleanColumn(new TIntByteHashMap(values));
+        }
+    }
+
+    /**
+     * A column of boxed values, for strings and for values of different types.
+     */
+    private static class ObjectColumn extends Column {
+
+        private final TIntObjectHashMap<Object> values;
+
+        ObjectColumn() {
+            values = new TIntObjectHashMap<>();
+        }
+
+        /**
+         * Make a column of objects from another column.
+         *
+         * @param c the column to copy
+         */
+        ObjectColumn(Column c) {
+            values = new TIntObjectHashMap<>(Math.max(c.size(), 10));
+            for (int id : c.ids()) {
+                values.put(id, c.get(id));
+            }
+        }
+
+        @Override
+        boolean contains(int id) {
+            return values.containsKey(id);
+        }
+
+        @Override
+        Object get(int id) {
+            return values.get(id);
+        }
+
+        @Override
+        void remove(int id) {
+            values.remove(id);
+        }
+
+        @Override
+        int size() {
+            return values.size();
+        }
+
+        @Override
+        int[] ids() {
+            return values.keys();
+        }
+
+        @Override
+        Column copy() {
+            return new ObjectColumn(this);
         }
     }
 }
@@ -18,9 +18,7 @@
 
 package org.btrplace.model;
 
-import gnu.trove.map.hash.TIntIntHashMap;
-import gnu.trove.map.hash.TIntObjectHashMap;
-import gnu.trove.procedure.TIntObjectProcedure;
+import gnu.trove.procedure.TIntProcedure;
 import gnu.trove.set.hash.THashSet;
 
 import java.util.*;
@@ -28,94 +26,120 @@ import java.util.*;
 /**
  * Default implementation of {@link Mapping}.
  * <p>
- * Methods {@link #getRunningVMs()}, {@link #getSleepingVMs()}, {@link #getAllVMs()}, {@link #getAllNodes()},
+ * The VMs and the nodes are stored in {@link PagedTable}s indexed by their identifiers,
+ * so methods {@link #getRunningVMs()}, {@link #getSleepingVMs()}, {@link #getReadyVMs()}, {@link #getAllVMs()},
+ * {@link #getOnlineNodes()}, {@link #getOfflineNodes()} and {@link #getAllNodes()} have a O(1) complexity:
+ * they return unmodifiable views that reflect the subsequent changes of the mapping. Methods
  * {@link #getRunningVMs(Collection)}, {@link #getSleepingVMs(java.util.Collection)} have a O(n) complexity.
  * <p>
  * Methods {@code is*()} have a O(1) complexity.
+ * <p>
+ * {@link #clone()} is copy-on-write and has a O(1) complexity: the clone shares the storage of this mapping.
+ * A modification then copies a page of the tables and the VMs hosted by the concerned nodes only.
+ * <p>
+ * The identifiers of the elements must be non-negative, otherwise adding the element throws
+ * an {@link IllegalArgumentException}. The storage is the most compact when the identifiers are
+ * contiguous and start from 0, as with the elements made by a {@link Model}.
  *
  * @author Fabien Hermenier
  */
 public class DefaultMapping implements Mapping, Cloneable {
 
-    private static final int RUNNING_STATE = 0;
+    private static final byte RUNNING_STATE = 0;
 
-    private static final int SLEEPING_STATE = 1;
+    private static final byte SLEEPING_STATE = 1;
 
-    private static final int READY_STATE = 2;
+    private static final byte READY_STATE = 2;
 
-    private static final int ONLINE_STATE = 0;
+    private static final byte ONLINE_STATE = 0;
 
-    private static final int OFFLINE_STATE = 1;
+    private static final byte OFFLINE_STATE = 1;
 
     /**
-     * The node by states (online, offline)
+     * Column of the elements, in both tables.
      */
-    private Set<Node>[] nodeState;
+    private static final int ELEMENT_COL = 0;
 
     /**
-     * The state of each VM.
+     * Column of the VM hosts.
      */
-    private TIntIntHashMap st;
+    private static final int HOST_COL = 1;
 
     /**
-     * The current location of the VMs.
+     * The VMs, by identifier. The state of a row is the VM state.
      */
-    private TIntObjectHashMap<Node> place;
+    private PagedTable vms;
 
     /**
-     * The VMs that are in the ready state.
+     * The nodes, by identifier. The state of a row is the node state.
+     * Column {@code 1 + s} contains the VMs in state {@code s} (running or sleeping) on the node.
      */
-    private Set<VM> vmReady;
+    private PagedTable nodes;
 
     /**
-     * The VMs hosted by each node, by state (running or sleeping)
+     * The number of VMs by state.
      */
-    private TIntObjectHashMap<Set<VM>>[] host;
+    private int[] nbVMs;
 
     /**
-     * Create a new mapping.
+     * The number of nodes by state.
      */
-    @SuppressWarnings("unchecked")
-    public DefaultMapping() {
+    private int[] nbNodes;
 
-        nodeState = new Set[2];
-        nodeState[ONLINE_STATE] = new THashSet<>();
-        nodeState[OFFLINE_STATE] = new THashSet<>();
+    private Set<VM>[] vmStateView;
 
-        vmReady = new THashSet<>();
+    private Set<Node>[] nodeStateView;
 
-        place = new TIntObjectHashMap<>();
+    private Set<VM> allVMs;
 
-        host = new TIntObjectHashMap[2];
-        host[RUNNING_STATE] = new TIntObjectHashMap<>();
-        host[SLEEPING_STATE] = new TIntObjectHashMap<>();
+    private Set<Node> allNodes;
 
-        st = new TIntIntHashMap(100, 0.5f, -1, -1);
+    /**
+     * Create a new mapping.
+     */
+    @SuppressWarnings("unchecked")
+    public DefaultMapping() {
+        vms = new PagedTable(2);
+        nodes = new PagedTable(3);
+        nbVMs = new int[3];
+        nbNodes = new int[2];
+
+        vmStateView = new Set[3];
+        for (int i = 0; i < vmStateView.length; i++) {
+            vmStateView[i] = new StateView<>(true, 1 << i);
+        }
+        allVMs = new StateView<>(true, 1 << RUNNING_STATE | 1 << SLEEPING_STATE | 1 << READY_STATE);
+
+        nodeStateView = new Set[2];
+        for (int i = 0; i < nodeStateView.length; i++) {
+            nodeStateView[i] = new StateView<>(false, 1 << i);
+        }
+        allNodes = new StateView<>(false, 1 << ONLINE_STATE | 1 << OFFLINE_STATE);
     }
 
     @Override
     public boolean isRunning(VM v) {
-        return st.get(v.id()) == RUNNING_STATE;
+        return vms.state(v.id()) == RUNNING_STATE;
     }
 
     @Override
     public boolean isSleeping(VM v) {
-        return st.get(v.id()) == SLEEPING_STATE;
+        return vms.state(v.id()) == SLEEPING_STATE;
     }
 
     @Override
     public boolean isReady(VM v) {
-        return st.get(v.id()) == READY_STATE;
+        return vms.state(v.id()) == READY_STATE;
     }
 
     @Override
     public boolean isOnline(Node n) {
-        return nodeState[ONLINE_STATE].contains(n);
+        return nodes.state(n.id()) == ONLINE_STATE;
     }
 
     @Override
     public boolean isOffline(Node n) {
-        return nodeState[OFFLINE_STATE].contains(n);
+        return nodes.state(n.id()) == OFFLINE_STATE;
     }
 
     /**
@@ -130,330 +154,303 @@ public class DefaultMapping implements Mapping, Cloneable {
 
     @Override
     public boolean addRunningVM(VM vm, Node n) {
-        if (!nodeState[ONLINE_STATE].contains(n)) {
-            return false;
-        }
-        Node old;
-
-        int vmId = vm.id();
-        int nId = n.id();
-        Set<VM> on = host[RUNNING_STATE].get(nId);
-        if (on == null) {
-            on = new THashSet<>();
-            host[RUNNING_STATE].put(nId, on);
-        }
-        switch (st.get(vmId)) {
-            case RUNNING_STATE:
-                old = place.put(vmId, n);
-                if (!old.equals(n)) {
-                    host[RUNNING_STATE].get(old.id()).remove(vm);
-                    on.add(vm);
-                }
-                break;
-            case SLEEPING_STATE:
-                old = place.put(vmId, n);
-                host[SLEEPING_STATE].get(old.id()).remove(vm);
-                on.add(vm);
-                st.put(vmId, RUNNING_STATE);
-                break;
-            case READY_STATE:
-                place.put(vmId, n);
-                on.add(vm);
-                vmReady.remove(vm);
-                st.put(vmId, RUNNING_STATE);
-                break;
-            default:
-                place.put(vmId, n);
-                on.add(vm);
-                st.put(vmId, RUNNING_STATE);
-        }
-        return true;
+        return place(vm, n, RUNNING_STATE);
     }
 
     @Override
     public boolean addSleepingVM(VM vm, Node n) {
-        if (!nodeState[ONLINE_STATE].contains(n)) {
+        return place(vm, n, SLEEPING_STATE);
+    }
+
+    /**
+     * Put a VM on a node.
+     *
+     * @param vm    the VM
+     * @param n     the online node
+     * @param state the new VM state. Either running or sleeping
+     * @return {@code true} iff the node is online
+     */
+    private boolean place(VM vm, Node n, byte state) {
+        if (nodes.state(n.id()) != ONLINE_STATE) {
             return false;
         }
-        int nId = n.id();
-        int vmId = vm.id();
-        Set<VM> on = host[SLEEPING_STATE].get(nId);
-        if (on == null) {
-            on = new THashSet<>();
-            host[SLEEPING_STATE].put(nId, on);
-        }
-        Node old;
-        switch (st.get(vmId)) {
-            case RUNNING_STATE:
-                //If was running, sync the state
-                old = place.put(vmId, n);
-                host[RUNNING_STATE].get(old.id()).remove(vm);
-                on.add(vm);
-                st.put(vmId, SLEEPING_STATE);
-                break;
-            case SLEEPING_STATE:
-                //If was sleeping, sync the state
-                old = place.put(vmId, n);
-                if (!old.equals(n)) {
-                    host[SLEEPING_STATE].get(old.id()).remove(vm);
-                    on.add(vm);
-                }
-                break;
-            case READY_STATE:
-                place.put(vmId, n);
-                on.add(vm);
-                vmReady.remove(vm);
-                st.put(vmId, SLEEPING_STATE);
-                break;
-            default:
-                //it's a new VM
-                place.put(vmId, n);
-                host[SLEEPING_STATE].get(nId).add(vm);
-                st.put(vmId, SLEEPING_STATE);
-        }
-        st.put(vm.id(), SLEEPING_STATE);
+        int id = vm.id();
+        byte cur = vms.state(id);
+        if (cur == RUNNING_STATE || cur == SLEEPING_STATE) {
+            Node old = (Node) vms.get(id, HOST_COL);
+            if (cur == state && old.equals(n)) {
+                return true;
+            }
+            hosted(old.id(), cur).remove(vm);
+        }
+        setVMState(vm, cur, state);
+        vms.set(id, HOST_COL, n);
+        hosted(n.id(), state).add(vm);
         return true;
     }
 
     @Override
     public boolean addReadyVM(VM vm) {
+        int id = vm.id();
+        byte cur = vms.state(id);
+        if (cur == RUNNING_STATE || cur == SLEEPING_STATE) {
+            Node old = (Node) vms.get(id, HOST_COL);
+            hosted(old.id(), cur).remove(vm);
+            vms.set(id, HOST_COL, null);
+        }
+        setVMState(vm, cur, READY_STATE);
+        return true;
+    }
 
-        Node n = place.remove(vm.id());
-        switch (st.get(vm.id())) {
-            case RUNNING_STATE:
-                //If was running, sync the state
-                host[RUNNING_STATE].get(n.id()).remove(vm);
-                break;
-            case SLEEPING_STATE:
-                //If was sleeping, sync the state
-                host[SLEEPING_STATE].get(n.id()).remove(vm);
-                break;
+    private void setVMState(VM vm, byte cur, byte state) {
+        if (cur != state) {
+            if (cur != PagedTable.NONE) {
+                nbVMs[cur]--;
+            } else {
+                checkId(vm);
+            }
+            nbVMs[state]++;
+            vms.setState(vm.id(), state);
+            vms.set(vm.id(), ELEMENT_COL, vm);
         }
+    }
 
-        st.put(vm.id(), READY_STATE);
-        vmReady.add(vm);
-        return true;
+    private static void checkId(Element e) {
+        if (e.id() < 0) {
+            throw new IllegalArgumentException("Invalid identifier for '" + e + "': must be non-negative");
+        }
+    }
+
+    /**
+     * Get the VMs in a given state on a node, ready to be modified.
+     * The set is created, or copied if it is shared with another mapping.
+     *
+     * @param nId   the node identifier
+     * @param state the VM state. Either running or sleeping
+     * @return the set of VMs
+     */
+    private VMSet hosted(int nId, byte state) {
+        Object owner = nodes.owner();
+        VMSet s = (VMSet) nodes.get(nId, 1 + state);
+        if (s == null) {
+            s = new VMSet(owner);
+            nodes.set(nId, 1 + state, s);
+        } else if (s.owner != owner) {
+            s = new VMSet(owner, s);
+            nodes.set(nId, 1 + state, s);
+        }
+        return s;
+    }
+
+    private Set<VM> getHosted(Node n, byte state) {
+        VMSet s = (VMSet) nodes.get(n.id(), 1 + state);
+        return s == null ? Collections.<VM>emptySet() : s.view;
     }
 
     @Override
     public boolean remove(VM vm) {
-        if (place.containsKey(vm.id())) {
-            Node n = this.place.remove(vm.id());
-            //The VM exists and is already placed
-            if (st.get(vm.id()) == RUNNING_STATE) {
-                host[RUNNING_STATE].get(n.id()).remove(vm);
-            } else if (st.get(vm.id()) == SLEEPING_STATE) {
-                host[SLEEPING_STATE].get(n.id()).remove(vm);
-            }
-            st.remove(vm.id());
-            return true;
-        } else if (st.get(vm.id()) == READY_STATE) {
-
-            vmReady.remove(vm);
-            st.remove(vm.id());
-            return true;
+        int id = vm.id();
+        byte cur = vms.state(id);
+        if (cur == PagedTable.NONE) {
+            return false;
+        }
+        if (cur == RUNNING_STATE || cur == SLEEPING_STATE) {
+            Node n = (Node) vms.get(id, HOST_COL);
+            hosted(n.id(), cur).remove(vm);
         }
-        return false;
+        nbVMs[cur]--;
+        vms.remove(id);
+        return true;
     }
 
     @Override
     public boolean remove(Node n) {
-        if (nodeState[ONLINE_STATE].contains(n)) {
-            int nId = n.id();
-            Set<VM> on = host[RUNNING_STATE].get(nId);
-            if (on != null) {
-                if (!on.isEmpty()) {
-                    return false;
-                }
-                host[RUNNING_STATE].remove(nId);
-            }
-
-            on = host[SLEEPING_STATE].get(nId);
-            if (on != null) {
-                if (!on.isEmpty()) {
-                    return false;
-                }
-                host[SLEEPING_STATE].remove(nId);
-            }
-            return nodeState[ONLINE_STATE].remove(n);
+        byte cur = nodes.state(n.id());
+        if (cur == PagedTable.NONE || !isEmpty(n)) {
+            return false;
         }
+        nbNodes[cur]--;
+        nodes.remove(n.id());
+        return true;
+    }
 
-        return nodeState[OFFLINE_STATE].remove(n);
+    private boolean isEmpty(Node n) {
+        return getHosted(n, RUNNING_STATE).isEmpty() && getHosted(n, SLEEPING_STATE).isEmpty();
     }
 
     @Override
     public boolean addOnlineNode(Node n) {
-        nodeState[OFFLINE_STATE].remove(n);
-        nodeState[ONLINE_STATE].add(n);
+        setNodeState(n, ONLINE_STATE);
         return true;
     }
 
     @Override
     public boolean addOfflineNode(Node n) {
-        int nId = n.id();
-        if (nodeState[ONLINE_STATE].contains(n)) {
-            Set<VM> on = host[SLEEPING_STATE].get(nId);
-            if (on != null && !on.isEmpty()) {
-                return false;
-            }
-            on = host[RUNNING_STATE].get(nId);
-            if (on != null && !on.isEmpty()) {
-                return false;
-            }
-            nodeState[ONLINE_STATE].remove(n);
+        if (!isEmpty(n)) {
+            return false;
+        }
+        if (nodes.state(n.id()) == ONLINE_STATE) {
+            nodes.set(n.id(), 1 + RUNNING_STATE, null);
+            nodes.set(n.id(), 1 + SLEEPING_STATE, null);
         }
-        nodeState[OFFLINE_STATE].add(n);
+        setNodeState(n, OFFLINE_STATE);
         return true;
     }
 
+    private void setNodeState(Node n, byte state) {
+        byte cur = nodes.state(n.id());
+        if (cur != state) {
+            if (cur != PagedTable.NONE) {
+                nbNodes[cur]--;
+            } else {
+                checkId(n);
+            }
+            nbNodes[state]++;
+            nodes.setState(n.id(), state);
+            nodes.set(n.id(), ELEMENT_COL, n);
+        }
+    }
+
     @Override
     public Set<Node> getOnlineNodes() {
-        return nodeState[ONLINE_STATE];
+        return nodeStateView[ONLINE_STATE];
     }
 
     @Override
     public Set<Node> getOfflineNodes() {
-        return nodeState[OFFLINE_STATE];
+        return nodeStateView[OFFLINE_STATE];
     }
 
     @Override
     public Set<VM> getRunningVMs() {
-        return getRunningVMs(getOnlineNodes());
+        return vmStateView[RUNNING_STATE];
     }
 
     @Override
     public Set<VM> getSleepingVMs() {
-        return getSleepingVMs(getOnlineNodes());
+        return vmStateView[SLEEPING_STATE];
     }
 
     @Override
     public Set<VM> getSleepingVMs(Node n) {
-        Set<VM> in = host[SLEEPING_STATE].get(n.id());
-        if (in == null) {
-            return Collections.emptySet();
-        }
-        return in;
+        return getHosted(n, SLEEPING_STATE);
     }
 
     @Override
     public Set<VM> getRunningVMs(Node n) {
-        Set<VM> in = host[RUNNING_STATE].get(n.id());
-        if (in == null) {
-            return Collections.emptySet();
-        }
-        return in;
+        return getHosted(n, RUNNING_STATE);
     }
 
     @Override
     public Set<VM> getReadyVMs() {
-        return vmReady;
+        return vmStateView[READY_STATE];
     }
 
     @Override
     public Set<VM> getAllVMs() {
-        final Set<VM> s = new HashSet<>(vmReady);
-        host[RUNNING_STATE].forEachEntry(new TIntObjectProcedure<Set<VM>>() {
-            @Override
-            public boolean execute(int a, Set<VM> b) {
-                s.addAll(b);
-                return true;
-            }
-        });
-        host[SLEEPING_STATE].forEachEntry(new TIntObjectProcedure<Set<VM>>() {
-            @Override
-            public boolean execute(int a, Set<VM> b) {
-                s.addAll(b);
-                return true;
-            }
-        });
-        return s;
+        return allVMs;
     }
 
     @Override
     public Set<Node> getAllNodes() {
-        Set<Node> ns = new THashSet<>(
-                nodeState[OFFLINE_STATE].size() +
-                        nodeState[ONLINE_STATE].size()
-        );
-        ns.addAll(nodeState[OFFLINE_STATE]);
-        ns.addAll(nodeState[ONLINE_STATE]);
-        return ns;
+        return allNodes;
+    }
+
+    @Override
+    public boolean forEachRunningVM(TIntProcedure p) {
+        return forEach(RUNNING_STATE, p);
+    }
+
+    @Override
+    public boolean forEachSleepingVM(TIntProcedure p) {
+        return forEach(SLEEPING_STATE, p);
+    }
+
+    @Override
+    public boolean forEachReadyVM(TIntProcedure p) {
+        return forEach(READY_STATE, p);
+    }
+
+    private boolean forEach(byte state, TIntProcedure p) {
+        for (int id = vms.next(0, 1 << state); id >= 0; id = vms.next(id + 1, 1 << state)) {
+            if (!p.execute(id)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
     public Node getVMLocation(VM vm) {
-        return place.get(vm.id());
+        return (Node) vms.get(vm.id(), HOST_COL);
     }
 
     @Override
     public Set<VM> getRunningVMs(Collection<Node> ns) {
-        Set<VM> vms = new THashSet<>();
+        Set<VM> res = new THashSet<>();
         for (Node n : ns) {
-            vms.addAll(getRunningVMs(n));
+            res.addAll(getRunningVMs(n));
         }
-        return vms;
+        return res;
     }
 
     @Override
     public Set<VM> getSleepingVMs(Collection<Node> ns) {
-        Set<VM> vms = new THashSet<>();
+        Set<VM> res = new THashSet<>();
         for (Node n : ns) {
-            vms.addAll(getSleepingVMs(n));
+            res.addAll(getSleepingVMs(n));
         }
-        return vms;
+        return res;
     }
 
     @Override
     public Mapping clone() {
-        return new DefaultMapping(this);
+        DefaultMapping c = new DefaultMapping();
+        c.vms = vms.copy();
+        c.nodes = nodes.copy();
+        c.nbVMs = nbVMs.clone();
+        c.nbNodes = nbNodes.clone();
+        return c;
     }
 
     @Override
     public boolean contains(Node n) {
-        return nodeState[OFFLINE_STATE].contains(n) || nodeState[ONLINE_STATE].contains(n);
+        return nodes.state(n.id()) != PagedTable.NONE;
     }
 
     @Override
     public boolean contains(VM vm) {
-        return st.get(vm.id()) >= 0;
+        return vms.state(vm.id()) != PagedTable.NONE;
     }
 
     @Override
     public void clear() {
-        for (Set<Node> s : nodeState) {
-            s.clear();
-        }
-        st.clear();
-        vmReady.clear();
-        place.clear();
-        for (TIntObjectHashMap<Set<VM>> h : host) {
-            h.clear();
-        }
+        vms.clear();
+        nodes.clear();
+        Arrays.fill(nbVMs, 0);
+        Arrays.fill(nbNodes, 0);
     }
 
     @Override
     public void clearNode(Node u) {
-        //Get the VMs on the node
-        for (TIntObjectHashMap<Set<VM>> h : host) {
-            Set<VM> s = h.get(u.id());
+        for (byte state = RUNNING_STATE; state <= SLEEPING_STATE; state++) {
+            VMSet s = (VMSet) nodes.get(u.id(), 1 + state);
             if (s != null) {
                 for (VM vm : s) {
-                    place.remove(vm.id());
-                    st.remove(vm.id());
+                    vms.remove(vm.id());
                 }
-                s.clear();
+                nbVMs[state] -= s.size();
+                nodes.set(u.id(), 1 + state, null);
             }
         }
     }
 
     @Override
     public void clearAllVMs() {
-        place.clear();
-        st.clear();
-        vmReady.clear();
-        for (TIntObjectHashMap<Set<VM>> h : host) {
-            h.clear();
-        }
+        vms.clear();
+        Arrays.fill(nbVMs, 0);
+        nodes.clearColumn(1 + RUNNING_STATE);
+        nodes.clearColumn(1 + SLEEPING_STATE);
     }
 
     @Override
@@ -495,7 +492,7 @@ public class DefaultMapping implements Mapping, Cloneable {
     public String toString() {
         StringBuilder buf = new StringBuilder();
 
-        for (Node n : nodeState[ONLINE_STATE]) {
+        for (Node n : getOnlineNodes()) {
             buf.append(n);
             buf.append(':');
             if (this.getRunningVMs(n).isEmpty() && this.getSleepingVMs(n).isEmpty()) {
@@ -510,7 +507,7 @@ public class DefaultMapping implements Mapping, Cloneable {
             buf.append('\n');
         }
 
-        for (Node n : nodeState[OFFLINE_STATE]) {
+        for (Node n : getOfflineNodes()) {
             buf.append('(').append(n).append(")\n");
         }
 
@@ -525,12 +522,12 @@ public class DefaultMapping implements Mapping, Cloneable {
 
     @Override
     public int getNbNodes() {
-        return nodeState[ONLINE_STATE].size() + nodeState[OFFLINE_STATE].size();
+        return nbNodes[ONLINE_STATE] + nbNodes[OFFLINE_STATE];
     }
 
     @Override
     public int getNbVMs() {
-        return st.size();
+        return nbVMs[RUNNING_STATE] + nbVMs[SLEEPING_STATE] + nbVMs[READY_STATE];
     }
 
     @Override
@@ -554,4 +551,111 @@ public class DefaultMapping implements Mapping, Cloneable {
         }
         return null;
     }
+
+    /**
+     * The VMs hosted by a node in a given state.
+     * A set can be modified in place only by the mapping that owns it.
+     */
+    private static class VMSet extends THashSet<VM> {
+
+        private final Object owner;
+
+        private final Set<VM> view = Collections.unmodifiableSet(this);
+
+        VMSet(Object owner) {
+            this.owner = owner;
+        }
+
+        VMSet(Object owner, VMSet s) {
+            super(s);
+            this.owner = owner;
+        }
+    }
+
+    /**
+     * An unmodifiable view over the elements of a table having some given states.
+     *
+     * @param <E> the element type
+     */
+    private class StateView<E extends Element> extends AbstractSet<E> {
+
+        private final boolean ofVMs;
+
+        private final int mask;
+
+        StateView(boolean ofVMs, int mask) {
+            this.ofVMs = ofVMs;
+            this.mask = mask;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            byte st;
+            if (ofVMs && o instanceof VM) {
+                st = vms.state(((VM) o).id());
+            } else if (!ofVMs && o instanceof Node) {
+                st = nodes.state(((Node) o).id());
+            } else {
+                return false;
+            }
+            return st != PagedTable.NONE && (mask & 1 << st) != 0;
+        }
+
+        @Override
+        public int size() {
+            int[] counts = ofVMs ? nbVMs : nbNodes;
+            int size = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if ((mask & 1 << i) != 0) {
+                    size += counts[i];
+                }
+            }
+            return size;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            final PagedTable t = ofVMs ? vms : nodes;
+            return new Iterator<E>() {
+
+                private int cur = t.next(0, mask);
+
+                @Override
+                public boolean hasNext() {
+                    return cur >= 0;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public E next() {
+                    if (cur < 0) {
+                        throw new NoSuchElementException();
+                    }
+                    E e = (E) t.get(cur, ELEMENT_COL);
+                    cur = t.next(cur + 1, mask);
+                    return e;
+                }
+            };
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean removeAll(Collection<?> c) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean retainAll(Collection<?> c) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void clear() {
+            throw new UnsupportedOperationException();
+        }
+    }
 }
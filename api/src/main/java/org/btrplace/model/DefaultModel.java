@@ -27,6 +27,9 @@ import java.util.Objects;
 
 /**
  * Default implementation for a {@link Model}.
+ * <p>
+ * {@link #clone()} relies on the copy-on-write clones of {@link DefaultMapping} and {@link DefaultAttributes},
+ * so its cost does not depend on the number of VMs.
  *
  * @author Fabien Hermenier
  */
@@ -133,7 +136,7 @@ public class DefaultModel implements Model, Cloneable {
     @Override
     public Model clone() {
         DefaultModel m = new DefaultModel(elemBuilder.clone());
-        MappingUtils.fill(cfg, m.cfg);
+        m.cfg = cfg.clone();
         for (ModelView rc : resources.values()) {
             m.attach(rc.clone());
         }
@@ -18,6 +18,8 @@
 
 package org.btrplace.model;
 
+import gnu.trove.procedure.TIntProcedure;
+
 import java.util.Collection;
 import java.util.Set;
 
@@ -108,6 +110,8 @@ public interface Mapping extends Cloneable {
 
     /**
      * Get the VMs that are running.
+     * The set may be a view that reflects the subsequent changes of the mapping and that
+     * cannot be modified. Copy it to get a snapshot.
      *
      * @return a set of VMs, may be empty
      */
@@ -155,6 +159,8 @@ public interface Mapping extends Cloneable {
 
     /**
      * Get the VMs that are sleeping.
+     * The set may be a view that reflects the subsequent changes of the mapping and that
+     * cannot be modified. Copy it to get a snapshot.
      *
      * @return a set of VMs, may be empty
      */
@@ -178,6 +184,8 @@ public interface Mapping extends Cloneable {
 
     /**
      * Get the VMs that are ready.
+     * The set may be a view that reflects the subsequent changes of the mapping and that
+     * cannot be modified. Copy it to get a snapshot.
      *
      * @return a set of VMs, may be empty
      */
@@ -185,6 +193,8 @@ public interface Mapping extends Cloneable {
 
     /**
      * Get all the VMs involved in the mapping.
+     * The set may be a view that reflects the subsequent changes of the mapping and that
+     * cannot be modified. Copy it to get a snapshot.
      *
      * @return a set of VMs, may be empty
      */
@@ -192,11 +202,38 @@ public interface Mapping extends Cloneable {
 
     /**
      * Get all the nodes involved in the mapping.
+     * The set may be a view that reflects the subsequent changes of the mapping and that
+     * cannot be modified. Copy it to get a snapshot.
      *
      * @return a set of nodes, may be empty
      */
     Set<Node> getAllNodes();
 
+    /**
+     * Execute a procedure on the identifier of each running VM.
+     * Contrary to an iteration over {@link #getRunningVMs()}, no collection has to be allocated.
+     *
+     * @param p the procedure. The iteration stops once it returns {@code false}
+     * @return {@code false} iff the iteration was stopped by the procedure
+     */
+    boolean forEachRunningVM(TIntProcedure p);
+
+    /**
+     * Execute a procedure on the identifier of each sleeping VM.
+     *
+     * @param p the procedure. The iteration stops once it returns {@code false}
+     * @return {@code false} iff the iteration was stopped by the procedure
+     */
+    boolean forEachSleepingVM(TIntProcedure p);
+
+    /**
+     * Execute a procedure on the identifier of each ready VM.
+     *
+     * @param p the procedure. The iteration stops once it returns {@code false}
+     * @return {@code false} iff the iteration was stopped by the procedure
+     */
+    boolean forEachReadyVM(TIntProcedure p);
+
     /**
      * Get the location of a running or a sleeping VM.
      *
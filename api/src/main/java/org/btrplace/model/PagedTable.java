@@ -0,0 +1,355 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.model;
+
+import gnu.trove.map.hash.TIntObjectHashMap;
+
+import java.util.Arrays;
+
+/**
+ * A table indexed by element identifiers that is cheap to copy.
+ * <p>
+ * Each row has a state and a fixed number of columns. Rows are grouped into fixed-size pages.
+ * A copy shares all the pages with its origin, so {@link #copy()} has a O(1) complexity.
+ * Afterwards, a page is copied the first time it is modified, either by the copy or by its origin.
+ * The cost of a modification is then bounded by the page size.
+ * <p>
+ * Identifiers must be non-negative. The first {@value #DENSE_PAGES} pages are indexed by an array,
+ * the farther ones are stored in a hash table. A large identifier then does not allocate a directory
+ * proportional to its value.
+ *
+ * @see DefaultMapping
+ */
+final class PagedTable {
+
+    /**
+     * The state of a row that is not in the table.
+     */
+    static final byte NONE = -1;
+
+    private static final int SHIFT = 8;
+
+    private static final int PAGE_SIZE = 1 << SHIFT;
+
+    private static final int MASK = PAGE_SIZE - 1;
+
+    /**
+     * The number of pages that can be indexed by the directory array.
+     */
+    static final int DENSE_PAGES = 1 << 12;
+
+    private static final Page[] NO_PAGES = new Page[0];
+
+    private static final int[] NO_KEYS = new int[0];
+
+    private final int nbColumns;
+
+    private Page[] pages;
+
+    /**
+     * The pages beyond {@link #DENSE_PAGES}, by page index. {@code null} if there is none.
+     */
+    private TIntObjectHashMap<Page> sparse;
+
+    /**
+     * The indexes of the sparse pages, in increasing order.
+     */
+    private int[] sparseKeys;
+
+    /**
+     * {@code true} iff the page directories are not shared with another table.
+     */
+    private boolean ownDirectory;
+
+    /**
+     * The token identifying the pages this table can modify in place.
+     */
+    private Object owner;
+
+    /**
+     * Make a new empty table.
+     *
+     * @param nbColumns the number of columns of each row
+     */
+    PagedTable(int nbColumns) {
+        this.nbColumns = nbColumns;
+        pages = NO_PAGES;
+        sparseKeys = NO_KEYS;
+        ownDirectory = true;
+        owner = new Object();
+    }
+
+    /**
+     * Make a copy of this table.
+     * Both tables lose the ownership of their pages.
+     *
+     * @return a table that shares its pages with this one
+     */
+    PagedTable copy() {
+        PagedTable t = new PagedTable(nbColumns);
+        t.pages = pages;
+        t.sparse = sparse;
+        t.sparseKeys = sparseKeys;
+        t.ownDirectory = false;
+        ownDirectory = false;
+        owner = new Object();
+        return t;
+    }
+
+    /**
+     * Get the token identifying the current owner of this table.
+     * It changes every time the table is copied.
+     *
+     * @return the token
+     */
+    Object owner() {
+        return owner;
+    }
+
+    /**
+     * Get the state of a row.
+     *
+     * @param id the row identifier
+     * @return the state, {@link #NONE} if the row is not in the table
+     */
+    byte state(int id) {
+        Page p = page(id);
+        return p == null ? NONE : p.states[id & MASK];
+    }
+
+    /**
+     * Get a value of a row.
+     *
+     * @param id  the row identifier
+     * @param col the column
+     * @return the value, {@code null} if the row is not in the table
+     */
+    Object get(int id, int col) {
+        Page p = page(id);
+        return p == null ? null : p.refs[(id & MASK) * nbColumns + col];
+    }
+
+    /**
+     * Set the state of a row.
+     *
+     * @param id the row identifier
+     * @param st the state to set. Must not be {@link #NONE}
+     */
+    void setState(int id, byte st) {
+        Page p = writable(id);
+        int i = id & MASK;
+        if (p.states[i] == NONE) {
+            p.size++;
+        }
+        p.states[i] = st;
+    }
+
+    /**
+     * Set a value of a row.
+     *
+     * @param id  the row identifier
+     * @param col the column
+     * @param v   the value to set
+     */
+    void set(int id, int col, Object v) {
+        writable(id).refs[(id & MASK) * nbColumns + col] = v;
+    }
+
+    /**
+     * Remove a row.
+     *
+     * @param id the row identifier
+     */
+    void remove(int id) {
+        if (state(id) == NONE) {
+            return;
+        }
+        Page p = writable(id);
+        int i = id & MASK;
+        p.states[i] = NONE;
+        Arrays.fill(p.refs, i * nbColumns, (i + 1) * nbColumns, null);
+        p.size--;
+    }
+
+    /**
+     * Set a column to {@code null} for every row.
+     *
+     * @param col the column
+     */
+    void clearColumn(int col) {
+        for (int p = 0; p < pages.length; p++) {
+            Page pg = pages[p];
+            if (pg == null || pg.size == 0) {
+                continue;
+            }
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                if (pg.refs[i * nbColumns + col] != null) {
+                    set((p << SHIFT) | i, col, null);
+                    pg = pages[p];
+                }
+            }
+        }
+        for (int p : sparseKeys) {
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                if (sparse.get(p).refs[i * nbColumns + col] != null) {
+                    set((p << SHIFT) | i, col, null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove all the rows.
+     */
+    void clear() {
+        pages = NO_PAGES;
+        sparse = null;
+        sparseKeys = NO_KEYS;
+        ownDirectory = true;
+    }
+
+    /**
+     * Get the next row having one of the given states.
+     *
+     * @param from the first identifier to consider
+     * @param mask the states to look for. State {@code s} is selected iff bit {@code 1 << s} is set
+     * @return the smallest identifier greater or equal to {@code from}, {@code -1} if there is none
+     */
+    int next(int from, int mask) {
+        if (from < 0) {
+            return -1;
+        }
+        int first = from >>> SHIFT;
+        for (int p = first; p < pages.length; p++) {
+            int id = next(pages[p], p, p == first ? from & MASK : 0, mask);
+            if (id >= 0) {
+                return id;
+            }
+        }
+        int k = Arrays.binarySearch(sparseKeys, first);
+        for (k = k < 0 ? -k - 1 : k; k < sparseKeys.length; k++) {
+            int p = sparseKeys[k];
+            int id = next(sparse.get(p), p, p == first ? from & MASK : 0, mask);
+            if (id >= 0) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    private static int next(Page pg, int p, int from, int mask) {
+        if (pg == null || pg.size == 0) {
+            return -1;
+        }
+        for (int i = from; i < PAGE_SIZE; i++) {
+            byte s = pg.states[i];
+            if (s != NONE && (mask & (1 << s)) != 0) {
+                return (p << SHIFT) | i;
+            }
+        }
+        return -1;
+    }
+
+    private Page page(int id) {
+        int p = id >>> SHIFT;
+        if (p < pages.length) {
+            return pages[p];
+        }
+        return p >= DENSE_PAGES && sparse != null ? sparse.get(p) : null;
+    }
+
+    /**
+     * Get the page of a row, ready to be modified.
+     * The directory and the page are copied if they are shared.
+     */
+    private Page writable(int id) {
+        int p = id >>> SHIFT;
+        if (!ownDirectory) {
+            pages = pages.clone();
+            if (sparse != null) {
+                sparse = new TIntObjectHashMap<>(sparse);
+            }
+            ownDirectory = true;
+        }
+        if (p >= DENSE_PAGES) {
+            return writableSparse(p);
+        }
+        if (p >= pages.length) {
+            pages = Arrays.copyOf(pages, Math.min(DENSE_PAGES, Math.max(p + 1, pages.length * 2)));
+        }
+        Page pg = pages[p];
+        if (pg == null) {
+            pg = new Page(owner, nbColumns);
+            pages[p] = pg;
+        } else if (pg.owner != owner) {
+            pg = new Page(owner, pg);
+            pages[p] = pg;
+        }
+        return pg;
+    }
+
+    private Page writableSparse(int p) {
+        if (sparse == null) {
+            sparse = new TIntObjectHashMap<>();
+        }
+        Page pg = sparse.get(p);
+        if (pg == null) {
+            pg = new Page(owner, nbColumns);
+            sparse.put(p, pg);
+            int k = -Arrays.binarySearch(sparseKeys, p) - 1;
+            int[] keys = new int[sparseKeys.length + 1];
+            System.arraycopy(sparseKeys, 0, keys, 0, k);
+            keys[k] = p;
+            System.arraycopy(sparseKeys, k, keys, k + 1, sparseKeys.length - k);
+            sparseKeys = keys;
+        } else if (pg.owner != owner) {
+            pg = new Page(owner, pg);
+            sparse.put(p, pg);
+        }
+        return pg;
+    }
+
+    /**
+     * A page of rows, that can be modified in place by its owner only.
+     */
+    private static final class Page {
+
+        private final Object owner;
+
+        private final byte[] states;
+
+        private final Object[] refs;
+
+        private int size;
+
+        Page(Object owner, int nbColumns) {
+            this.owner = owner;
+            states = new byte[PAGE_SIZE];
+            Arrays.fill(states, NONE);
+            refs = new Object[PAGE_SIZE * nbColumns];
+        }
+
+        Page(Object owner, Page p) {
+            this.owner = owner;
+            states = p.states.clone();
+            refs = p.refs.clone();
+            size = p.size;
+        }
+    }
+}
@@ -19,6 +19,7 @@
 package org.btrplace.model;
 
 import gnu.trove.map.hash.TIntIntHashMap;
+import gnu.trove.procedure.TIntProcedure;
 import gnu.trove.set.hash.THashSet;
 
 import java.util.Collection;
@@ -183,6 +184,40 @@ public class SubMapping implements Mapping {
         return scope;
     }
 
+    @Override
+    public boolean forEachRunningVM(TIntProcedure p) {
+        for (Node n : scope) {
+            for (VM vm : parent.getRunningVMs(n)) {
+                if (!p.execute(vm.id())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean forEachSleepingVM(TIntProcedure p) {
+        for (Node n : scope) {
+            for (VM vm : parent.getSleepingVMs(n)) {
+                if (!p.execute(vm.id())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean forEachReadyVM(TIntProcedure p) {
+        for (VM vm : ready) {
+            if (!p.execute(vm.id())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public Node getVMLocation(VM vm) {
         Node n = parent.getVMLocation(vm);
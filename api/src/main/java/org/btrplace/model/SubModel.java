@@ -20,10 +20,7 @@ package org.btrplace.model;
 
 import org.btrplace.model.view.ModelView;
 
-import java.util.Collection;
-import java.util.Collections;
-import java.util.Objects;
-import java.util.Set;
+import java.util.*;
 
 /**
  * Define a model that is a sub-model of a bigger one.
@@ -33,7 +30,9 @@ import java.util.Set;
  * <ul>
  * <li>Elements created in a sub-model are integrated automatically into the
  * parent component</li>
- * <li>It is not allowed to attach/detach/clear views</li>
+ * <li>The views are the parent ones, unless a view having the same identifier
+ * is attached to the sub-model. Detaching or clearing only concerns the views
+ * attached to the sub-model</li>
  * <li>It is not possible to set the attributes</li>
  * </ul>
  *
@@ -49,6 +48,11 @@ public class SubModel implements Model {
 
     private ElementBuilder eb;
 
+    /**
+     * The views attached to this sub-model, that hide the parent ones.
+     */
+    private Map<String, ModelView> views;
+
     /**
      * Make a new sub-model with an empty scope for ready VMs.
      *
@@ -73,6 +77,7 @@ public class SubModel implements Model {
         this.parent = p;
         this.eb = b;
         sm = new SubMapping(p.getMapping(), scope, vmReady);
+        views = new LinkedHashMap<>();
     }
 
     /**
@@ -86,36 +91,54 @@ public class SubModel implements Model {
 
     @Override
     public ModelView getView(String id) {
-        return parent.getView(id);
+        ModelView v = views.get(id);
+        return v != null ? v : parent.getView(id);
     }
 
     @Override
     public Collection<ModelView> getViews() {
-        return parent.getViews();
+        if (views.isEmpty()) {
+            return parent.getViews();
+        }
+        Map<String, ModelView> all = new LinkedHashMap<>();
+        for (ModelView v : parent.getViews()) {
+            all.put(v.getIdentifier(), v);
+        }
+        all.putAll(views);
+        return all.values();
     }
 
     /**
-     * Unsupported.
+     * Attach a view to this sub-model only.
+     * It hides the parent view having the same identifier, if any.
+     *
+     * @param v the view to attach
+     * @return {@code true} iff no view with the same identifier was already attached to the sub-model
      */
     @Override
     public boolean attach(ModelView v) {
-        throw new UnsupportedOperationException();
+        return views.putIfAbsent(v.getIdentifier(), v) == null;
     }
 
     /**
-     * Unsupported.
+     * Detach a view attached to this sub-model.
+     * The parent views cannot be detached.
+     *
+     * @param v the view to detach
+     * @return {@code true} iff the view was attached to the sub-model
      */
     @Override
     public boolean detach(ModelView v) {
-        throw new UnsupportedOperationException();
+        return views.remove(v.getIdentifier()) != null;
     }
 
     /**
-     * Unsupported.
+     * Detach the views attached to this sub-model.
+     * The parent views are kept.
      */
     @Override
     public void clearViews() {
-        throw new UnsupportedOperationException();
+        views.clear();
     }
 
     /**
@@ -150,7 +173,7 @@ public class SubModel implements Model {
     public Model clone() {
         DefaultModel m = new DefaultModel(eb.clone());
         MappingUtils.fill(sm, m.getMapping());
-        for (ModelView rc : parent.getViews()) {
+        for (ModelView rc : getViews()) {
             m.attach(rc.clone());
         }
         m.setAttributes(this.getAttributes().clone());
@@ -212,7 +235,7 @@ public class SubModel implements Model {
         b.append("\nAttributes:\n");
         b.append(getAttributes());
         b.append("\nViews:\n");
-        for (ModelView entry : parent.getViews()) {
+        for (ModelView entry : getViews()) {
             b.append(entry.getIdentifier()).append(": ");
             b.append(entry.toString()).append("\n");
         }
@@ -245,7 +268,7 @@ public class SubModel implements Model {
 
     @Override
     public int hashCode() {
-        return Objects.hash(sm, parent.getViews(), parent.getAttributes());
+        return Objects.hash(sm, getViews(), parent.getAttributes());
     }
 }
 
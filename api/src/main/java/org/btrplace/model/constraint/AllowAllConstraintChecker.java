@@ -257,6 +257,18 @@ public abstract class AllowAllConstraintChecker<C extends SatConstraint> impleme
         return vms;
     }
 
+    /**
+     * Indicate if the checker only cares about the actions and the events involving
+     * its VMs (see {@link #getVMs()}) or its nodes (see {@link #getNodes()}).
+     * A {@link org.btrplace.plan.ReconfigurationPlanChecker} does not notify a local checker
+     * about the other actions. {@link SubstitutedVMEvent} events are always notified.
+     *
+     * @return {@code true} by default
+     */
+    public boolean isLocal() {
+        return true;
+    }
+
     /**
      * Get the nodes involved in the constraint.
      *
@@ -94,6 +94,16 @@ public class LonelyChecker extends AllowAllConstraintChecker<Lonely> {
         return true;
     }
 
+    /**
+     * The placement of any VM must be checked, as well as the booted nodes.
+     *
+     * @return {@code false}
+     */
+    @Override
+    public boolean isLocal() {
+        return false;
+    }
+
     @Override
     public boolean start(BootNode a) {
         return idleNodes.add(a.getNode());
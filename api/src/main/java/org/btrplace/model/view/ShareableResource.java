@@ -41,6 +41,8 @@ import java.util.*;
  * <p>
  * By default, if there is no {@link org.btrplace.model.constraint.Overbook} constraint for a node, a conservative ratio
  * of <b>1</b> is used. This means one unit of virtual resources consumes one unit of physical resources.
+ * <p>
+ * {@link #clone()} is copy-on-write: the values are copied by the first modification of either the view or its clone.
  *
  * @author Fabien Hermenier
  */
@@ -55,6 +57,11 @@ public class ShareableResource implements ModelView, Cloneable {
     private Map<VM, Integer> vmsConsumption;
     private Map<Node, Integer> nodesCapacity;
 
+    /**
+     * {@code true} iff the maps are shared with a clone.
+     */
+    private boolean shared;
+
     private int vmsNoValue;
     private int nodesNoValue;
 
@@ -171,6 +178,7 @@ public class ShareableResource implements ModelView, Cloneable {
      * @return the current resource
      */
     public ShareableResource setConsumption(VM vm, int val) {
+        unshare();
         vmsConsumption.put(vm, val);
         return this;
     }
@@ -183,6 +191,7 @@ public class ShareableResource implements ModelView, Cloneable {
      * @return the current resource
      */
     public ShareableResource setCapacity(Node n, int val) {
+        unshare();
         nodesCapacity.put(n, val);
         return this;
     }
@@ -194,6 +203,7 @@ public class ShareableResource implements ModelView, Cloneable {
      * @return {@code true} iff a value was previously defined for {@code n}.
      */
     public boolean unset(VM vm) {
+        unshare();
         return vmsConsumption.remove(vm) != null;
     }
 
@@ -204,6 +214,7 @@ public class ShareableResource implements ModelView, Cloneable {
      * @return {@code true} iff a value was previously defined for {@code n}.
      */
     public boolean unset(Node n) {
+        unshare();
         return nodesCapacity.remove(n) != null;
     }
 
@@ -292,15 +303,24 @@ public class ShareableResource implements ModelView, Cloneable {
     @Override
     public ShareableResource clone() {
         ShareableResource rc = new ShareableResource(rcId, nodesNoValue, vmsNoValue);
-        for (Map.Entry<VM, Integer> e : vmsConsumption.entrySet()) {
-            rc.vmsConsumption.put(e.getKey(), e.getValue());
-        }
-        for (Map.Entry<Node, Integer> e : nodesCapacity.entrySet()) {
-            rc.nodesCapacity.put(e.getKey(), e.getValue());
-        }
+        rc.vmsConsumption = vmsConsumption;
+        rc.nodesCapacity = nodesCapacity;
+        rc.shared = true;
+        shared = true;
         return rc;
     }
 
+    /**
+     * Copy the maps if they are shared with a clone.
+     */
+    private void unshare() {
+        if (shared) {
+            vmsConsumption = new HashMap<>(vmsConsumption);
+            nodesCapacity = new HashMap<>(nodesCapacity);
+            shared = false;
+        }
+    }
+
     @Override
     public String toString() {
         StringBuilder buf = new StringBuilder("rc:").append(rcId).append(':');
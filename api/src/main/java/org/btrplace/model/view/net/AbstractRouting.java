@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.model.view.net;
+
+import gnu.trove.map.hash.TLongIntHashMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import org.btrplace.model.Node;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A routing that memorizes the paths and their maximal bandwidth.
+ * Each path is computed once per (source, destination) couple of nodes
+ * using {@link #computePath(Node, Node)}. The memorized values are dropped
+ * when the topology of the network changes or by calling {@link #invalidate()}.
+ */
+public abstract class AbstractRouting implements Routing {
+
+    protected NetworkView net;
+
+    private TLongObjectHashMap<List<Port>> paths;
+
+    private TLongIntHashMap maxBWs;
+
+    /**
+     * The topology version the memorized values refer to.
+     */
+    private int version = -1;
+
+    /**
+     * Make a new routing.
+     */
+    public AbstractRouting() {
+        paths = new TLongObjectHashMap<>();
+        maxBWs = new TLongIntHashMap(10, 0.5f, -1L, -1);
+    }
+
+    @Override
+    public void setNetwork(NetworkView net) {
+        this.net = net;
+        invalidate();
+    }
+
+    @Override
+    public synchronized List<Port> getPath(Node n1, Node n2) {
+        if (net == null) {
+            return Collections.emptyList();
+        }
+        refresh();
+        long k = key(n1, n2);
+        List<Port> path = paths.get(k);
+        if (path == null) {
+            path = Collections.unmodifiableList(computePath(n1, n2));
+            paths.put(k, path);
+        }
+        return path;
+    }
+
+    @Override
+    public synchronized int getMaxBW(Node n1, Node n2) {
+        if (net != null) {
+            refresh();
+        }
+        long k = key(n1, n2);
+        int bw = maxBWs.get(k);
+        if (bw == maxBWs.getNoEntryValue()) {
+            bw = computeMaxBW(n1, n2);
+            maxBWs.put(k, bw);
+        }
+        return bw;
+    }
+
+    /**
+     * Compute the path between two nodes.
+     *
+     * @param n1 the source node
+     * @param n2 the destination node
+     * @return the ordered list of ports that make the path. May be empty
+     */
+    protected abstract List<Port> computePath(Node n1, Node n2);
+
+    /**
+     * Compute the maximal bandwidth available between two nodes.
+     * By default, this is the bandwidth of the bottleneck port on the path.
+     *
+     * @param n1 the source node
+     * @param n2 the destination node
+     * @return the bandwidth
+     */
+    protected int computeMaxBW(Node n1, Node n2) {
+        int max = Integer.MAX_VALUE;
+        for (Port inf : getPath(n1, n2)) {
+            if (inf.getBandwidth() < max) {
+                max = inf.getBandwidth();
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Drop all the memorized paths and bandwidths.
+     */
+    public synchronized void invalidate() {
+        paths.clear();
+        maxBWs.clear();
+        version = net == null ? -1 : net.getTopologyVersion();
+    }
+
+    private void refresh() {
+        if (version != net.getTopologyVersion()) {
+            invalidate();
+        }
+    }
+
+    private static long key(Node n1, Node n2) {
+        return ((long) n1.id() << 32) | (n2.id() & 0xFFFFFFFFL);
+    }
+}
@@ -1,5 +1,7 @@
 package org.btrplace.model.view.net;
 
+import gnu.trove.list.array.TIntArrayList;
+import org.btrplace.model.Element;
 import org.btrplace.model.Node;
 
 import java.util.*;
@@ -7,70 +9,118 @@ import java.util.*;
 /**
  * Created by vkherbac on 12/12/14.
  */
-public class DefaultRouting implements Routing {
-
-    private NetworkView net;
+public class DefaultRouting extends AbstractRouting {
 
     public DefaultRouting() {}
 
     @Override
-    public void setNetwork(NetworkView net) {
-        this.net = net;
-    }
-
-    @Override
-    public List<Port> getPath(Node n1, Node n2) {
+    protected List<Port> computePath(Node n1, Node n2) {
 
-        if (net == null) { return Collections.emptyList(); }
+        Port inf = net.getSwitchInterface(n1);
+        if (inf == null) { return Collections.emptyList(); }
 
         // Return the first path found (ordered list of ports)
-        return getFirstPath(new ArrayList<>(Arrays.asList(net.getSwitchInterface(n1).getRemote(),
-                net.getSwitchInterface(n1))), n2);
-        //return getIndirectPath(net.getSwitchInterface(n1), net.getSwitchInterface(n2));
-    }
-
-    @Override
-    public int getMaxBW(Node n1, Node n2) {
-        int max = Integer.MAX_VALUE;
-        for (Port inf : getPath(n1, n2)) {
-            if (inf.getBandwidth() < max) {
-                max = inf.getBandwidth();
-            }
+        List<Port> path = new ArrayList<>(Arrays.asList(inf.getRemote(), inf));
+        if (getFirstPath(path, new HashSet<>(), n2)) {
+            return path;
         }
-        return max;
+        return Collections.emptyList();
+        //return getIndirectPath(net.getSwitchInterface(n1), net.getSwitchInterface(n2));
     }
 
     /**
-     * Get the first path found between two nodes
+     * Get the first path found between two nodes using a depth-first search.
      * @param currentPath the initial path, it typically contains the first port(s) => recursive function
+     * @param visited the switches already explored
      * @param dst the destination node
-     * @return the ordered list of ports that make the path
+     * @return {@code true} iff a path was found. In that case, {@code currentPath} is the ordered list of ports
      */
-    private List<Port> getFirstPath(List<Port> currentPath, Node dst) {
+    private boolean getFirstPath(List<Port> currentPath, Set<Switch> visited, Node dst) {
 
-        if (currentPath.get(currentPath.size()-1).getHost() instanceof Switch) {
-            for (Port p : ((Switch) currentPath.get(currentPath.size() - 1).getHost()).getPorts()) {
-                if (currentPath.contains(p)) {
-                    continue;
+        Port last = currentPath.get(currentPath.size() - 1);
+        if (!(last.getHost() instanceof Switch)) {
+            return false;
+        }
+        visited.add((Switch) last.getHost());
+
+        for (Port p : ((Switch) last.getHost()).getPorts()) {
+            if (p == last) {
+                continue;
+            }
+            Element remote = p.getRemote().getHost();
+            if (remote instanceof Node) {
+                if (remote.equals(dst)) {
+                    currentPath.add(p);
+                    currentPath.add(p.getRemote());
+                    return true;
                 }
+            } else if (!visited.contains(remote)) {
                 currentPath.add(p);
-                if (p.getRemote().getHost() instanceof Node) {
-                    if (p.getRemote().getHost().equals(dst)) {
-                        currentPath.add(p.getRemote());
-                        return currentPath;
-                    }
-                } else {
-                    currentPath.add(p.getRemote());
-                    return getFirstPath(currentPath, dst);
+                currentPath.add(p.getRemote());
+                if (getFirstPath(currentPath, visited, dst)) {
+                    return true;
                 }
                 currentPath.remove(currentPath.size() - 1);
+                currentPath.remove(currentPath.size() - 1);
             }
-            currentPath.remove(currentPath.size() - 1);
-            return getFirstPath(currentPath, dst);
+        }
+        return false;
+    }
 
-        } else {
-            return Collections.emptyList();
+    /**
+     * Get the paths from a node to several nodes using a single depth-first search.
+     * Each path is the one {@link #getPath(Node, Node)} returns, as the search explores the
+     * network in the same order, but the paths are not memorized.
+     *
+     * @param n1   the source node
+     * @param dsts the destination nodes
+     * @return the path to each destination that is reachable
+     */
+    public Map<Node, List<Port>> getPaths(Node n1, Collection<Node> dsts) {
+        Map<Node, List<Port>> res = new HashMap<>();
+        Port inf = net == null ? null : net.getSwitchInterface(n1);
+        if (inf == null) {
+            return res;
+        }
+        Set<Node> todo = new HashSet<>(dsts);
+        Set<Switch> visited = new HashSet<>();
+        visited.add((Switch) inf.getHost());
+        List<Port> path = new ArrayList<>(Arrays.asList(inf.getRemote(), inf));
+        //For each switch on the current path, the position of the next port to explore
+        TIntArrayList next = new TIntArrayList();
+        next.add(0);
+        while (!next.isEmpty() && !todo.isEmpty()) {
+            int depth = next.size() - 1;
+            Port last = path.get(path.size() - 1);
+            List<Port> ports = ((Switch) last.getHost()).getPorts();
+            int i = next.get(depth);
+            if (i == ports.size()) {
+                //Backtrack
+                next.removeAt(depth);
+                path.remove(path.size() - 1);
+                path.remove(path.size() - 1);
+                continue;
+            }
+            next.set(depth, i + 1);
+            Port p = ports.get(i);
+            if (p == last) {
+                continue;
+            }
+            Element remote = p.getRemote().getHost();
+            if (remote instanceof Node) {
+                if (todo.remove(remote)) {
+                    List<Port> found = new ArrayList<>(path);
+                    found.add(p);
+                    found.add(p.getRemote());
+                    res.put((Node) remote, found);
+                }
+            } else if (visited.add((Switch) remote)) {
+                path.add(p);
+                path.add(p.getRemote());
+                next.add(0);
+            }
         }
+        return res;
     }
 
     protected List<Port> getIndirectPath(Port srcPort, Port dstPort) {
@@ -1,5 +1,7 @@
 package org.btrplace.model.view.net;
 
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntObjectHashMap;
 import org.btrplace.model.Node;
 import org.btrplace.model.VM;
 import org.btrplace.model.view.ModelView;
@@ -9,6 +11,7 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.text.DecimalFormat;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Created by vkherbac on 08/12/14.
@@ -20,6 +23,33 @@ public class NetworkView implements ModelView, Cloneable {
     private String viewId;
     private SwitchBuilder swBuilder;
 
+    /**
+     * Incremented each time the topology changes. Shared with the clones and the switches.
+     */
+    private AtomicInteger topologyVersion;
+
+    /**
+     * The topology version the index refers to.
+     */
+    private int indexedVersion = -1;
+
+    /**
+     * The number of ports already indexed for each switch.
+     */
+    private TIntArrayList indexedPorts;
+
+    /**
+     * The switch port connected to each node, indexed by node identifier.
+     */
+    private TIntObjectHashMap<Port> nodePorts;
+
+    private List<Port> interfaces;
+    private Set<Port> indexedInterfaces;
+    private List<Node> nodes;
+
+    private List<Port> interfacesSnapshot;
+    private List<Node> nodesSnapshot;
+
     public static final String VIEW_ID = "NetworkView";
 
     public NetworkView() {  this(new DefaultRouting(), new DefaultSwitchBuilder()); }
@@ -32,21 +62,52 @@ public class NetworkView implements ModelView, Cloneable {
         this.viewId = VIEW_ID;
         switches = new ArrayList<>();
         swBuilder = sb;
+        topologyVersion = new AtomicInteger();
+        resetIndex();
         setRouting(routing);
     }
 
     public Switch newSwitch(int id, int capacity) {
         Switch s = swBuilder.newSwitch(id, capacity);
-        switches.add(s);
+        if (s != null) {
+            addSwitch(s);
+        }
         return s;
     }
 
     public Switch newSwitch(int capacity) {
         Switch s = swBuilder.newSwitch(capacity);
-        switches.add(s);
+        addSwitch(s);
         return s;
     }
 
+    private void addSwitch(Switch s) {
+        switches.add(s);
+        s.setTopologyVersion(topologyVersion);
+        topologyVersion.incrementAndGet();
+    }
+
+    private void resetIndex() {
+        indexedVersion = -1;
+        indexedPorts = new TIntArrayList();
+        nodePorts = new TIntObjectHashMap<>();
+        interfaces = new ArrayList<>();
+        indexedInterfaces = Collections.newSetFromMap(new IdentityHashMap<>());
+        nodes = new ArrayList<>();
+        interfacesSnapshot = null;
+        nodesSnapshot = null;
+    }
+
+    /**
+     * Get the current version of the topology.
+     * The version changes each time a switch is added or connected.
+     *
+     * @return the topology version
+     */
+    public int getTopologyVersion() {
+        return topologyVersion.get();
+    }
+
     public Switch newSwitch() {
         return newSwitch(-1);
     }
@@ -72,35 +133,67 @@ public class NetworkView implements ModelView, Cloneable {
     }
 
     public List<Port> getAllInterfaces() {
-        List<Port> list = new ArrayList<>();
-        for (Switch s : switches) {
-            for (Port si : s.getPorts()) {
-                if(!list.contains(si)) list.add(si);
-                if(!list.contains(si.getRemote())) list.add(si.getRemote());
+        synchronized (this) {
+            refreshIndex();
+            if (interfacesSnapshot == null) {
+                interfacesSnapshot = Collections.unmodifiableList(new ArrayList<>(interfaces));
             }
+            return interfacesSnapshot;
         }
-        return list;
     }
 
     public Port getSwitchInterface(Node n) {
-        for (Switch sw : switches) {
-            for (Port p : sw.getPorts()) {
-                if (p.getRemote().getHost().equals(n)) { return p; }
-            }
+        synchronized (this) {
+            refreshIndex();
+            return nodePorts.get(n.id());
         }
-        return null;
     }
 
     public List<Node> getConnectedNodes() {
-        List<Node> nodes = new ArrayList<>();
-        for (Switch sw : switches) {
-            for (Port p : sw.getPorts()) {
+        synchronized (this) {
+            refreshIndex();
+            if (nodesSnapshot == null) {
+                nodesSnapshot = Collections.unmodifiableList(new ArrayList<>(nodes));
+            }
+            return nodesSnapshot;
+        }
+    }
+
+    /**
+     * Index the ports that were added since the last call.
+     * Ports are only appended to the switches so only the new
+     * ports of each switch are browsed.
+     */
+    private void refreshIndex() {
+        if (indexedVersion == topologyVersion.get() && indexedPorts.size() == switches.size()) {
+            return;
+        }
+        for (int i = 0; i < switches.size(); i++) {
+            if (i == indexedPorts.size()) {
+                indexedPorts.add(0);
+            }
+            List<Port> ports = switches.get(i).getPorts();
+            for (int j = indexedPorts.get(i); j < ports.size(); j++) {
+                Port p = ports.get(j);
+                if (indexedInterfaces.add(p)) {
+                    interfaces.add(p);
+                }
+                if (indexedInterfaces.add(p.getRemote())) {
+                    interfaces.add(p.getRemote());
+                }
                 if (p.getRemote().getHost() instanceof Node) {
-                    if (!nodes.contains(p.getRemote().getHost())) nodes.add((Node) p.getRemote().getHost());
+                    Node n = (Node) p.getRemote().getHost();
+                    if (!nodePorts.containsKey(n.id())) {
+                        nodePorts.put(n.id(), p);
+                        nodes.add(n);
+                    }
                 }
             }
+            indexedPorts.set(i, ports.size());
         }
-        return nodes;
+        indexedVersion = topologyVersion.get();
+        interfacesSnapshot = null;
+        nodesSnapshot = null;
     }
 
     public boolean generateDot(String out, boolean fromLeftToRight) {
@@ -204,6 +297,7 @@ public class NetworkView implements ModelView, Cloneable {
         NetworkView net = new NetworkView(routing);
         net.getSwitches().addAll(switches);
         net.swBuilder = swBuilder.clone();
+        net.topologyVersion = topologyVersion;
         return net;
     }
 
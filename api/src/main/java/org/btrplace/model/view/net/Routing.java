@@ -28,5 +28,7 @@ public interface Routing {
             if (!(o instanceof NodesMap)) { return false; }
             return (((NodesMap)o).getSrc().equals(n1) && ((NodesMap)o).getDst().equals(n2));
         }
+        @Override
+        public int hashCode() { return 31 * n1.hashCode() + n2.hashCode(); }
     }
 }
@@ -15,9 +15,8 @@ import java.util.*;
 /**
  * Created by vkherbac on 08/01/15.
  */
-public class StaticRouting implements Routing {
+public class StaticRouting extends AbstractRouting {
 
-    protected NetworkView net;
     protected File xml;
 
     protected List<Switch> switches;
@@ -32,39 +31,21 @@ public class StaticRouting implements Routing {
     }
 
     @Override
-    public void setNetwork(NetworkView net) {
-        this.net = net;
-    }
-
-    @Override
-    public List<Port> getPath(Node n1, Node n2) {
-
-        NodesMap nodesMap = new NodesMap(n1, n2);
+    protected List<Port> computePath(Node n1, Node n2) {
 
         // Check for a static route
-        for (NodesMap nm : routes.keySet()) {
-            if (nm.equals(nodesMap)) {
-                return routes.get(nm);
-            }
+        List<Port> route = routes.get(new NodesMap(n1, n2));
+        if (route != null) {
+            return route;
         }
 
         // If not found, return the first path found
         return getFirstPath(new ArrayList<>(Collections.singletonList(net.getSwitchInterface(n1))), n2);
     }
 
-    @Override
-    public int getMaxBW(Node n1, Node n2) {
-        int max = Integer.MAX_VALUE;
-        for (Port inf : getPath(n1, n2)) {
-            if (inf.getBandwidth() < max) {
-                max = inf.getBandwidth();
-            }
-        }
-        return max;
-    }
-
     public void addStaticRoute(NodesMap nm, List<Port> ports) {
         routes.put(nm, ports);
+        invalidate();
     }
 
     public List<Node> importXML(Model mo, File xml) {
@@ -242,6 +223,8 @@ public class StaticRouting implements Routing {
             System.err.println("Error during XML import: " + e.toString());
             e.printStackTrace();
             return null;
+        } finally {
+            invalidate();
         }
 
         return nodes;
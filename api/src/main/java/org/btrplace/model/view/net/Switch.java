@@ -5,6 +5,7 @@ import org.btrplace.model.Node;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Created by vkherbac on 08/12/14.
@@ -14,6 +15,7 @@ public class Switch implements Element,NetworkElement {
     private int id;
     private int capacity;
     private List<Port> ports;
+    private AtomicInteger topologyVersion;
 
     /**
      * Make a new Switch.
@@ -43,6 +45,24 @@ public class Switch implements Element,NetworkElement {
 
         if (elt instanceof Switch) {
             ((NetworkElement)elt).getPorts().add(remote);
+            ((Switch) elt).topologyChanged();
+        }
+        topologyChanged();
+    }
+
+    /**
+     * Set the topology version of the network view the switch belongs to.
+     * It is incremented each time the switch is connected.
+     *
+     * @param v the version counter
+     */
+    void setTopologyVersion(AtomicInteger v) {
+        topologyVersion = v;
+    }
+
+    private void topologyChanged() {
+        if (topologyVersion != null) {
+            topologyVersion.incrementAndGet();
         }
     }
 
@@ -73,6 +93,11 @@ public class Switch implements Element,NetworkElement {
         return id == sw.id();
     }
 
+    @Override
+    public int hashCode() {
+        return id;
+    }
+
     @Override
     public int getCapacity() {
         return capacity;
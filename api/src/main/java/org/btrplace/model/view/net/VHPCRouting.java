@@ -7,9 +7,8 @@ import java.util.*;
 /**
  * Created by vkherbac on 08/01/15.
  */
-public class VHPCRouting implements Routing {
+public class VHPCRouting extends AbstractRouting {
 
-    private NetworkView net;
     private List<Node> srcNodes, dstNodes;
     private Switch srcSw, dstSw;
     private Map<NodesMap, Integer> useCable;
@@ -21,7 +20,7 @@ public class VHPCRouting implements Routing {
 
     @Override
     public void setNetwork(NetworkView net) {
-        this.net = net;
+        super.setNetwork(net);
 
         // Create the switches
         srcSw = net.newSwitch();
@@ -49,17 +48,16 @@ public class VHPCRouting implements Routing {
     }
 
     @Override
-    public List<Port> getPath(Node n1, Node n2) {
+    protected List<Port> computePath(Node n1, Node n2) {
 
         List<Port> path = new ArrayList<Port>();
 
         // From src to dst nodes only !
         if (srcNodes.contains(n1) && dstNodes.contains(n2)) {
             path.add(net.getSwitchInterface(n1));
-            for (NodesMap nm : useCable.keySet()) {
-                if (nm.equals(new NodesMap(n1, n2))) {
-                    path.add(srcSw.getPorts().get(useCable.get(nm)));
-                }
+            Integer cable = useCable.get(new NodesMap(n1, n2));
+            if (cable != null) {
+                path.add(srcSw.getPorts().get(cable));
             }
             path.add(path.get(path.size()-1).getRemote());
             path.add(net.getSwitchInterface(n2));
@@ -69,7 +67,7 @@ public class VHPCRouting implements Routing {
     }
 
     @Override
-    public int getMaxBW(Node n1, Node n2) {
+    protected int computeMaxBW(Node n1, Node n2) {
         return 1000;
     }
 
@@ -84,5 +82,7 @@ public class VHPCRouting implements Routing {
             if (!(o instanceof NodesMap)) { return false; }
             return (((NodesMap)o).getSrc().equals(n1) && ((NodesMap)o).getDst().equals(n2));
         }
+        @Override
+        public int hashCode() { return 31 * n1.hashCode() + n2.hashCode(); }
     }
 }
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.model.view.power;
+
+import java.util.*;
+
+/**
+ * The power budget over time, as a step function.
+ * The time-interval budgets are compiled into consecutive segments.
+ * Each segment {@code [getStart(k), getEnd(k))} has a constant budget
+ * and two consecutive segments have different budgets.
+ * Outside of the segments, the budget is the maximal power.
+ */
+public class BudgetProfile {
+
+    /**
+     * The segments bounds. Segment {@code k} is {@code [times[k], times[k + 1])}.
+     */
+    private int[] times;
+
+    /**
+     * The budget of each segment.
+     */
+    private int[] budgets;
+
+    private int maxPower;
+
+    /**
+     * Compile time-interval budgets.
+     *
+     * @param maxPower the maximal power, when no budget applies
+     * @param tibs     the time-interval budgets. The most restrictive one applies when they overlap
+     */
+    public BudgetProfile(int maxPower, Collection<EnergyView.TimeIntervalBudget> tibs) {
+        this.maxPower = maxPower;
+
+        // Empty intervals are ignored
+        List<EnergyView.TimeIntervalBudget> byStart = new ArrayList<>(tibs.size());
+        for (EnergyView.TimeIntervalBudget tib : tibs) {
+            if (tib.getStart() < tib.getEnd()) {
+                byStart.add(tib);
+            }
+        }
+        List<EnergyView.TimeIntervalBudget> byEnd = new ArrayList<>(byStart);
+        byStart.sort((t1, t2) -> t1.getStart() - t2.getStart());
+        byEnd.sort((t1, t2) -> t1.getEnd() - t2.getEnd());
+
+        // The sorted, distinct, bounds
+        int[] bounds = new int[byStart.size() * 2];
+        int nb = 0;
+        for (EnergyView.TimeIntervalBudget tib : byStart) {
+            bounds[nb++] = tib.getStart();
+            bounds[nb++] = tib.getEnd();
+        }
+        Arrays.sort(bounds);
+        int nbBounds = 0;
+        for (int i = 0; i < nb; i++) {
+            if (nbBounds == 0 || bounds[nbBounds - 1] != bounds[i]) {
+                bounds[nbBounds++] = bounds[i];
+            }
+        }
+
+        // Sweep the bounds, maintaining the number of active intervals per budget
+        TreeMap<Integer, Integer> active = new TreeMap<>();
+        times = new int[Math.max(nbBounds, 1)];
+        budgets = new int[Math.max(nbBounds - 1, 0)];
+        int nbSegments = 0;
+        int s = 0;
+        int e = 0;
+        for (int i = 0; i < nbBounds - 1; i++) {
+            int t = bounds[i];
+            while (e < byEnd.size() && byEnd.get(e).getEnd() <= t) {
+                remove(active, byEnd.get(e++).getBudget());
+            }
+            while (s < byStart.size() && byStart.get(s).getStart() <= t) {
+                active.merge(byStart.get(s++).getBudget(), 1, Integer::sum);
+            }
+            int b = active.isEmpty() ? maxPower : Math.min(maxPower, active.firstKey());
+            // Merge with the previous segment if the budget is the same
+            if (nbSegments == 0 || budgets[nbSegments - 1] != b) {
+                times[nbSegments] = t;
+                budgets[nbSegments++] = b;
+            }
+        }
+        if (nbBounds > 0) {
+            times[nbSegments] = bounds[nbBounds - 1];
+        }
+        times = Arrays.copyOf(times, nbSegments + 1);
+        budgets = Arrays.copyOf(budgets, nbSegments);
+    }
+
+    private static void remove(TreeMap<Integer, Integer> active, int budget) {
+        int nb = active.get(budget);
+        if (nb == 1) {
+            active.remove(budget);
+        } else {
+            active.put(budget, nb - 1);
+        }
+    }
+
+    /**
+     * Get the number of segments.
+     *
+     * @return a positive number
+     */
+    public int size() {
+        return budgets.length;
+    }
+
+    /**
+     * Get the start of a segment.
+     *
+     * @param k the segment index
+     * @return the moment the segment starts (inclusive)
+     */
+    public int getStart(int k) {
+        return times[k];
+    }
+
+    /**
+     * Get the end of a segment.
+     *
+     * @param k the segment index
+     * @return the moment the segment ends (exclusive)
+     */
+    public int getEnd(int k) {
+        return times[k + 1];
+    }
+
+    /**
+     * Get the budget of a segment.
+     *
+     * @param k the segment index
+     * @return the power budget
+     */
+    public int getBudget(int k) {
+        return budgets[k];
+    }
+
+    /**
+     * Get the budget at a given moment.
+     *
+     * @param t the moment
+     * @return the power budget
+     */
+    public int getBudgetAt(int t) {
+        if (budgets.length == 0 || t < times[0] || t >= times[times.length - 1]) {
+            return maxPower;
+        }
+        int idx = Arrays.binarySearch(times, t);
+        if (idx < 0) {
+            // The segment containing t starts before the insertion point
+            idx = -idx - 2;
+        }
+        return budgets[idx];
+    }
+}
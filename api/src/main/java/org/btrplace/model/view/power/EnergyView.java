@@ -35,6 +35,7 @@ public class EnergyView implements ModelView, Cloneable {
     Map<Node, Integer> nodeIdlePower;
     Map<VM, Integer> vmPower;
     private List<TimeIntervalBudget> tibList;
+    private BudgetProfile profile;
     private int boot_overhead = DEFAULT_BOOT_OVERHEAD;
     private MigrationEnergy migEnergyModel = new MigrationEnergy(MIGRATION_ENERGY_ALPHA, MIGRATION_ENERGY_BETA);
 
@@ -48,7 +49,20 @@ public class EnergyView implements ModelView, Cloneable {
     }
 
     public List<TimeIntervalBudget> getTibList() {
-        return tibList;
+        return Collections.unmodifiableList(tibList);
+    }
+
+    /**
+     * Get the power budget over time.
+     * The time-interval budgets are compiled once until a new one is added.
+     *
+     * @return the budget profile
+     */
+    public BudgetProfile getBudgetProfile() {
+        if (profile == null) {
+            profile = new BudgetProfile(maxPower, tibList);
+        }
+        return profile;
     }
 
     public void setMigEnergyModel(int a, int b) { migEnergyModel.setAlpha(a); migEnergyModel.setBeta(b); }
@@ -80,25 +94,12 @@ public class EnergyView implements ModelView, Cloneable {
     }
 
     public int getMaxPower(int t) {
-
-        int maxPower = getMaxPower();
-
-        tibList.sort((tib, tib2) -> (tib.getBudget() - tib2.getBudget()));
-
-        for (EnergyView.TimeIntervalBudget tib : tibList) {
-            if (tib.getStart() <= t && tib.getEnd() > t) {
-                if (maxPower > tib.getBudget()) {
-                    maxPower = tib.getBudget();
-                    break;
-                }
-            }
-        }
-
-        return maxPower;
+        return getBudgetProfile().getBudgetAt(t);
     }
 
     public void addBudget(int start, int end, int power) {
         tibList.add(new TimeIntervalBudget(start, end, power));
+        profile = null;
     }
 
     public boolean plotConsumption(ReconfigurationPlan p, String outputFile) {
@@ -139,8 +140,8 @@ public class EnergyView implements ModelView, Cloneable {
             int power;
 
             // Add initial power usage
-            Set<Node> nodes = p.getOrigin().getMapping().getOnlineNodes();
-            Set<VM> vms = p.getOrigin().getMapping().getRunningVMs();
+            Set<Node> nodes = new HashSet<>(p.getOrigin().getMapping().getOnlineNodes());
+            Set<VM> vms = new HashSet<>(p.getOrigin().getMapping().getRunningVMs());
 
             for (int t=-1; t<=duration; t++) {
 
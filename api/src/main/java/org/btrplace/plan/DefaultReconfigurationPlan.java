@@ -73,7 +73,8 @@ public class DefaultReconfigurationPlan implements ReconfigurationPlan {
     public boolean add(Action a) {
         boolean ret = this.actions.add(a);
         if (ret && depsExtractor != null) {
-            //We only track dependencies incrementally if already started
+            //We only track dependencies incrementally if already started.
+            //The dependencies computed so far are then invalidated
             a.visit(depsExtractor);
         }
         return ret;
@@ -18,10 +18,19 @@
 
 package org.btrplace.plan;
 
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
 import org.btrplace.model.Model;
 import org.btrplace.plan.event.Action;
 
-import java.util.*;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Simulated execution of a {@link ReconfigurationPlan}.
@@ -31,6 +40,11 @@ import java.util.*;
  * The dependencies are updated each time an action is committed, which means the action
  * have been successfully executed.
  * <p>
+ * The monitor can be used concurrently. Each action has a counter of unsatisfied
+ * dependencies that is decremented atomically, so committing an action does not require
+ * any global lock. Only the update of the current model is serialised: the actions to apply
+ * are queued and the thread that holds the model applies every queued action in one batch,
+ * so the other committers do not have to take the model in turn.
  *
  * @author Fabien Hermenier
  */
@@ -40,13 +54,36 @@ public class DefaultReconfigurationPlanMonitor implements ReconfigurationPlanMon
 
     private Model curModel;
 
-    private final Map<Action, Set<Dependency>> pre;
+    /**
+     * The identifier of each action, i.e. its position in {@link #actions}.
+     */
+    private final TObjectIntMap<Action> ids;
+
+    private Action[] actions;
+
+    /**
+     * For each action, the identifiers of the actions that depend on it.
+     */
+    private int[][] successors;
+
+    /**
+     * For each action, the number of dependencies not committed yet.
+     */
+    private AtomicIntegerArray remaining;
+
+    /**
+     * For each action, 1 once it is committed.
+     */
+    private AtomicIntegerArray committed;
 
-    private final Map<Action, Dependency> dependencies;
+    private final AtomicInteger nbCommitted;
 
-    private final Object lock;
+    /**
+     * The actions waiting to be applied on the current model.
+     */
+    private final ConcurrentLinkedQueue<PendingApply> toApply;
 
-    private int nbCommitted;
+    private final ReentrantLock modelLock;
 
     /**
      * Make a new monitor.
@@ -55,36 +92,40 @@ public class DefaultReconfigurationPlanMonitor implements ReconfigurationPlanMon
      */
     public DefaultReconfigurationPlanMonitor(ReconfigurationPlan p) {
         this.plan = p;
-
-        pre = new HashMap<>();
-        dependencies = new HashMap<>();
-        lock = new Object();
+        ids = new TObjectIntHashMap<>(p.getSize() * 2, 0.5f, -1);
+        nbCommitted = new AtomicInteger();
+        toApply = new ConcurrentLinkedQueue<>();
+        modelLock = new ReentrantLock();
         reset();
     }
 
     private void reset() {
-        synchronized (lock) {
-            curModel = plan.getOrigin().clone();
-            pre.clear();
-            nbCommitted = 0;
-            for (Action a : plan.getActions()) {
-                Set<Action> deps = plan.getDirectDependencies(a);
-                if (deps.isEmpty()) {
-                    this.dependencies.put(a, new Dependency(a, Collections.<Action>emptySet()));
-                } else {
-                    Dependency dep = new Dependency(a, deps);
-                    this.dependencies.put(a, dep);
-                    for (Action x : dep.getDependencies()) {
-                        Set<Dependency> pres = pre.get(x);
-                        if (pres == null) {
-                            pres = new HashSet<>();
-                            pre.put(x, pres);
-                        }
-                        pres.add(dep);
-                    }
+        curModel = plan.getOrigin().clone();
+        nbCommitted.set(0);
+        ids.clear();
+        actions = plan.getActions().toArray(new Action[plan.getSize()]);
+        for (int i = 0; i < actions.length; i++) {
+            ids.put(actions[i], i);
+        }
+
+        int[] counts = new int[actions.length];
+        TIntArrayList[] succs = new TIntArrayList[actions.length];
+        for (int i = 0; i < actions.length; i++) {
+            for (Action x : plan.getDirectDependencies(actions[i])) {
+                int d = ids.get(x);
+                if (succs[d] == null) {
+                    succs[d] = new TIntArrayList();
                 }
+                succs[d].add(i);
+                counts[i]++;
             }
         }
+        successors = new int[actions.length][];
+        for (int i = 0; i < actions.length; i++) {
+            successors[i] = succs[i] == null ? new int[0] : succs[i].toArray();
+        }
+        remaining = new AtomicIntegerArray(counts);
+        committed = new AtomicIntegerArray(actions.length);
     }
 
     @Override
@@ -92,47 +133,112 @@ public class DefaultReconfigurationPlanMonitor implements ReconfigurationPlanMon
         return curModel;
     }
 
+    /**
+     * Get the identifier of an action of the plan.
+     *
+     * @param a the action
+     * @return the identifier
+     * @throws IllegalArgumentException if the action is not part of the plan
+     */
+    private int id(Action a) {
+        int id = ids.get(a);
+        if (id < 0) {
+            throw new IllegalArgumentException("Action '" + a + "' is not part of the plan");
+        }
+        return id;
+    }
+
     @Override
     public Set<Action> commit(Action a) {
-        Set<Action> s = new HashSet<>();
-        synchronized (lock) {
-            boolean ret = a.apply(curModel);
-            if (!ret) {
-                return null;
+        int id = id(a);
+        if (!committed.compareAndSet(id, 0, 1)) {
+            //Already committed
+            return null;
+        }
+        if (!apply(a)) {
+            committed.set(id, 0);
+            return null;
+        }
+        nbCommitted.incrementAndGet();
+
+        //Each unblocked action is reported by the commit of its last dependency only
+        Set<Action> s = null;
+        for (int x : successors[id]) {
+            if (remaining.decrementAndGet(x) == 0) {
+                if (s == null) {
+                    s = new HashSet<>();
+                }
+                s.add(actions[x]);
             }
-            nbCommitted++;
-            //Browse all its dependencies for the action
-            Set<Dependency> deps = pre.get(a);
-            if (deps != null) {
-                for (Dependency dep : deps) {
-                    Set<Action> actions = dep.getDependencies();
-                    actions.remove(a);
-                    if (actions.isEmpty()) {
-                        Action x = dep.getAction();
-                        s.add(x);
+        }
+        return s == null ? Collections.<Action>emptySet() : s;
+    }
+
+    /**
+     * Apply an action on the current model.
+     * The action is queued, then applied either by this thread or by the thread
+     * currently holding the model, in a batch with the other queued actions.
+     *
+     * @param a the action to apply
+     * @return {@code true} iff the action has been applied
+     */
+    private boolean apply(Action a) {
+        PendingApply p = new PendingApply(a);
+        toApply.add(p);
+        while (!p.done) {
+            modelLock.lock();
+            try {
+                PendingApply x;
+                while ((x = toApply.poll()) != null) {
+                    try {
+                        x.ret = x.action.apply(curModel);
+                    } catch (RuntimeException ex) {
+                        x.error = ex;
                     }
+                    x.done = true;
                 }
+            } finally {
+                modelLock.unlock();
             }
         }
-        return s;
+        if (p.error != null) {
+            committed.set(id(a), 0);
+            throw p.error;
+        }
+        return p.ret;
     }
 
     @Override
     public int getNbCommitted() {
-        synchronized (lock) {
-            return nbCommitted;
-        }
+        return nbCommitted.get();
     }
 
     @Override
     public boolean isBlocked(Action a) {
-        synchronized (lock) {
-            return !dependencies.get(a).getDependencies().isEmpty();
-        }
+        return remaining.get(id(a)) > 0;
     }
 
     @Override
     public ReconfigurationPlan getReconfigurationPlan() {
         return plan;
     }
+
+    /**
+     * An action waiting to be applied, with the outcome of its application.
+     * The outcome is published through {@link #done}.
+     */
+    private static class PendingApply {
+
+        private final Action action;
+
+        private boolean ret;
+
+        private RuntimeException error;
+
+        private volatile boolean done;
+
+        PendingApply(Action a) {
+            action = a;
+        }
+    }
 }
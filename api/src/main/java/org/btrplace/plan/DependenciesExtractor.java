@@ -41,6 +41,11 @@ public class DependenciesExtractor implements ActionVisitor {
 
     private Model origin;
 
+    /**
+     * The dependencies of each demanding action. {@code null} when they must be computed again.
+     */
+    private Map<Action, Set<Action>> dependencies;
+
     /**
      * Make a new instance.
      *
@@ -54,6 +59,7 @@ public class DependenciesExtractor implements ActionVisitor {
     }
 
     private Set<Action> getFreeings(Node u) {
+        dependencies = null;
         Set<Action> actions = freeing.get(u);
         if (actions == null) {
             actions = new HashSet<>();
@@ -63,6 +69,7 @@ public class DependenciesExtractor implements ActionVisitor {
     }
 
     private Set<Action> getDemandings(Node u) {
+        dependencies = null;
         Set<Action> actions = demanding.get(u);
         if (actions == null) {
             actions = new HashSet<>();
@@ -158,23 +165,109 @@ public class DependenciesExtractor implements ActionVisitor {
 
     /**
      * Get the dependencies for an action.
+     * The dependencies of all the actions are computed at once on the first call,
+     * then cached until a new action is visited.
      *
      * @param a the action to check
-     * @return its dependencies, may be empty
+     * @return its dependencies, may be empty. The set is not modifiable
      */
     public Set<Action> getDependencies(Action a) {
-        if (!demandingNodes.containsKey(a)) {
-            return Collections.emptySet();
-        } else {
-            Node n = demandingNodes.get(a);
-            Set<Action> allActions = getFreeings(n);
-            Set<Action> pre = new HashSet<>();
-            for (Action action : allActions) {
-                if (!action.equals(a) && a.getStart() >= action.getEnd()) {
-                    pre.add(action);
+        if (dependencies == null) {
+            dependencies = extract();
+        }
+        Set<Action> pre = dependencies.get(a);
+        return pre == null ? Collections.<Action>emptySet() : pre;
+    }
+
+    /**
+     * Compute the dependencies of all the demanding actions in one sweep per node.
+     * The freeing actions are sorted by end time and the demanding actions by start time,
+     * so the dependencies of a demanding action are a prefix of the freeing actions.
+     */
+    private Map<Action, Set<Action>> extract() {
+        Map<Action, Set<Action>> res = new HashMap<>(demandingNodes.size() * 2);
+        for (Map.Entry<Node, Set<Action>> e : demanding.entrySet()) {
+            Set<Action> free = freeing.get(e.getKey());
+            if (free == null || free.isEmpty()) {
+                continue;
+            }
+            Action[] frees = free.toArray(new Action[free.size()]);
+            Arrays.sort(frees, (a1, a2) -> Integer.compare(a1.getEnd(), a2.getEnd()));
+            //The position of each freeing action, shared by all the prefixes of the node
+            Map<Action, Integer> positions = new HashMap<>(frees.length * 2);
+            for (int i = 0; i < frees.length; i++) {
+                positions.put(frees[i], i);
+            }
+            Action[] demands = e.getValue().toArray(new Action[e.getValue().size()]);
+            Arrays.sort(demands, (a1, a2) -> Integer.compare(a1.getStart(), a2.getStart()));
+
+            int k = 0;
+            for (Action a : demands) {
+                while (k < frees.length && frees[k].getEnd() <= a.getStart()) {
+                    k++;
+                }
+                if (k == 0) {
+                    continue;
                 }
+                Set<Action> pre = new Prefix(frees, positions, k);
+                if (a.getEnd() <= a.getStart() && free.contains(a)) {
+                    //The action cannot depend on itself
+                    pre = new HashSet<>(pre);
+                    pre.remove(a);
+                }
+                res.put(a, pre);
             }
-            return pre;
+        }
+        return res;
+    }
+
+    /**
+     * A read-only view over the first actions of an array.
+     * Membership is checked in constant time using the positions of the actions in the array.
+     */
+    private static class Prefix extends AbstractSet<Action> {
+
+        private final Action[] actions;
+
+        private final Map<Action, Integer> positions;
+
+        private final int size;
+
+        Prefix(Action[] actions, Map<Action, Integer> positions, int size) {
+            this.actions = actions;
+            this.positions = positions;
+            this.size = size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            Integer pos = positions.get(o);
+            return pos != null && pos < size;
+        }
+
+        @Override
+        public Iterator<Action> iterator() {
+            return new Iterator<Action>() {
+                private int i = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return i < size;
+                }
+
+                @Override
+                public Action next() {
+                    if (i >= size) {
+                        throw new NoSuchElementException();
+                    }
+                    return actions[i++];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
         }
     }
 }
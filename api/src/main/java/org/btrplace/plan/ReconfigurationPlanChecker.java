@@ -18,7 +18,12 @@
 
 package org.btrplace.plan;
 
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntObjectHashMap;
 import org.btrplace.model.Model;
+import org.btrplace.model.Node;
+import org.btrplace.model.VM;
+import org.btrplace.model.constraint.AllowAllConstraintChecker;
 import org.btrplace.model.constraint.SatConstraint;
 import org.btrplace.model.constraint.SatConstraintChecker;
 import org.btrplace.plan.event.*;
@@ -37,6 +42,10 @@ import java.util.PriorityQueue;
  * <p>
  * Actions start and end moment are notified in the increasing order of their associated moment with
  * a priority given to the end moments.
+ * <p>
+ * To scale with the number of checkers, the checkers are indexed by the VMs and the nodes they are
+ * interested in. An action is then only notified to the checkers that are concerned by its VM or its nodes,
+ * and to the checkers that must observe every action.
  *
  * @author Fabien Hermenier
  */
@@ -48,21 +57,45 @@ public class ReconfigurationPlanChecker implements ActionVisitor {
     private static final TimedBasedActionComparator ENDS_CMP = new TimedBasedActionComparator(false, true);
     private List<SatConstraintChecker<?>> checkers;
 
+    /**
+     * The checkers that must be notified for every action, by rank.
+     */
+    private TIntArrayList globals;
+
+    /**
+     * The local checkers that are notified for the actions involving a given VM, by rank.
+     */
+    private TIntObjectHashMap<TIntArrayList> byVM;
+
+    /**
+     * The local checkers that are notified for the actions involving a given node, by rank.
+     */
+    private TIntObjectHashMap<TIntArrayList> byNode;
+
     /**
      * Make a new instance.
      */
     public ReconfigurationPlanChecker() {
         checkers = new ArrayList<>();
+        globals = new TIntArrayList();
+        byVM = new TIntObjectHashMap<>();
+        byNode = new TIntObjectHashMap<>();
     }
 
     /**
      * Add an additional checker.
+     * A checker that is {@link AllowAllConstraintChecker#isLocal() local} will only be notified
+     * for the actions and the events involving its VMs or its nodes.
      *
      * @param c the checker to add
      * @return {@code true} iff the checker has been added
      */
     public boolean addChecker(SatConstraintChecker<?> c) {
-        return checkers.add(c);
+        if (!checkers.add(c)) {
+            return false;
+        }
+        register(c, checkers.size() - 1);
+        return true;
     }
 
     /**
@@ -72,12 +105,80 @@ public class ReconfigurationPlanChecker implements ActionVisitor {
      * @return {@code true} iff the checker was present
      */
     public boolean removeChecker(SatConstraintChecker<?> c) {
-        return checkers.remove(c);
+        if (!checkers.remove(c)) {
+            return false;
+        }
+        //The ranks have changed
+        globals.clear();
+        byVM.clear();
+        byNode.clear();
+        for (int i = 0; i < checkers.size(); i++) {
+            register(checkers.get(i), i);
+        }
+        return true;
+    }
+
+    private void register(SatConstraintChecker<?> c, int rank) {
+        if (c instanceof AllowAllConstraintChecker && ((AllowAllConstraintChecker<?>) c).isLocal()) {
+            AllowAllConstraintChecker<?> l = (AllowAllConstraintChecker<?>) c;
+            for (VM v : l.getVMs()) {
+                index(byVM, v.id(), rank);
+            }
+            for (Node n : l.getNodes()) {
+                index(byNode, n.id(), rank);
+            }
+        } else {
+            globals.add(rank);
+        }
+    }
+
+    private static void index(TIntObjectHashMap<TIntArrayList> idx, int id, int rank) {
+        TIntArrayList ranks = idx.get(id);
+        if (ranks == null) {
+            ranks = new TIntArrayList(2);
+            idx.put(id, ranks);
+        }
+        if (ranks.isEmpty() || ranks.get(ranks.size() - 1) != rank) {
+            ranks.add(rank);
+        }
+    }
+
+    /**
+     * Select the checkers to notify for an action or an event.
+     *
+     * @param vm    the involved VM, may be {@code null}
+     * @param nodes the involved nodes, some may be {@code null}
+     * @return the checkers, in their registration order
+     */
+    private List<SatConstraintChecker<?>> select(VM vm, Node... nodes) {
+        TIntArrayList ranks = new TIntArrayList(globals);
+        if (vm != null) {
+            TIntArrayList l = byVM.get(vm.id());
+            if (l != null) {
+                ranks.addAll(l);
+            }
+        }
+        for (Node n : nodes) {
+            if (n != null) {
+                TIntArrayList l = byNode.get(n.id());
+                if (l != null) {
+                    ranks.addAll(l);
+                }
+            }
+        }
+        ranks.sort();
+        List<SatConstraintChecker<?>> res = new ArrayList<>(ranks.size());
+        for (int i = 0; i < ranks.size(); i++) {
+            if (i == 0 || ranks.get(i) != ranks.get(i - 1)) {
+                res.add(checkers.get(ranks.get(i)));
+            }
+        }
+        return res;
     }
 
     @Override
     public SatConstraint visit(Allocate a) {
-        for (SatConstraintChecker<?> c : checkers) {
+        for (SatConstraintChecker<?> c : select(a.getVM(), a.getHost())) {
             if (startingEvent) {
                 if (!c.start(a)) {
                     return c.getConstraint();
@@ -91,7 +192,7 @@ public class ReconfigurationPlanChecker implements ActionVisitor {
 
     @Override
     public Object visit(AllocateEvent a) {
-        for (SatConstraintChecker<?> c : checkers) {
+        for (SatConstraintChecker<?> c : select(a.getVM())) {
             if (!c.consume(a)) {
                 return c.getConstraint();
             }
@@ -106,12 +207,19 @@ public class ReconfigurationPlanChecker implements ActionVisitor {
                 return c.getConstraint();
             }
         }
+        //The checkers of the substituted VM now consider the new VM
+        TIntArrayList ranks = byVM.get(a.getVM().id());
+        if (ranks != null) {
+            for (int i = 0; i < ranks.size(); i++) {
+                index(byVM, a.getNewVM().id(), ranks.get(i));
+            }
+        }
         return null;
     }
 
     @Override
     public SatConstraint visit(BootNode a) {
-        for (SatConstraintChecker<?> c : checkers) {
+        for (SatConstraintChecker<?> c : select(null, a.getNode())) {
             if (startingEvent) {
                 if (!c.start(a)) {
                     return c.getConstraint();
@@ -126,7 +234,7 @@ public class ReconfigurationPlanChecker implements ActionVisitor {
 
     @Override
     public SatConstraint visit(BootVM a) {
-        for (SatConstraintChecker<?> c : checkers) {
+        for (SatConstraintChecker<?> c : select(a.getVM(), a.getDestinationNode())) {
             if (startingEvent) {
                 if (!c.start(a)) {
                     return c.getConstraint();
@@ -141,7 +249,7 @@ public class ReconfigurationPlanChecker implements ActionVisitor {
 
     @Override
     public SatConstraint visit(ForgeVM a) {
-        for (SatConstraintChecker<?> c : checkers) {
+        for (SatConstraintChecker<?> c : select(a.getVM())) {
             if (startingEvent) {
                 if (!c.start(a)) {
                     return c.getConstraint();
@@ -156,7 +264,7 @@ public class ReconfigurationPlanChecker implements ActionVisitor {
 
     @Override
     public SatConstraint visit(KillVM a) {
-        for (SatConstraintChecker<?> c : checkers) {
+        for (SatConstraintChecker<?> c : select(a.getVM(), a.getNode())) {
             if (startingEvent) {
                 if (!c.start(a)) {
                     return c.getConstraint();
@@ -170,7 +278,7 @@ public class ReconfigurationPlanChecker implements ActionVisitor {
 
     @Override
     public SatConstraint visit(MigrateVM a) {
-        for (SatConstraintChecker<?> c : checkers) {
+        for (SatConstraintChecker<?> c : select(a.getVM(), a.getSourceNode(), a.getDestinationNode())) {
             if (startingEvent) {
                 if (!c.start(a)) {
                     return c.getConstraint();
@@ -184,7 +292,7 @@ public class ReconfigurationPlanChecker implements ActionVisitor {
 
     @Override
     public Object visit(ResumeVM a) {
-        for (SatConstraintChecker<?> c : checkers) {
+        for (SatConstraintChecker<?> c : select(a.getVM(), a.getSourceNode(), a.getDestinationNode())) {
             if (startingEvent) {
                 if (!c.start(a)) {
                     return c.getConstraint();
@@ -198,7 +306,7 @@ public class ReconfigurationPlanChecker implements ActionVisitor {
 
     @Override
     public Object visit(ShutdownNode a) {
-        for (SatConstraintChecker<?> c : checkers) {
+        for (SatConstraintChecker<?> c : select(null, a.getNode())) {
             if (startingEvent) {
                 if (!c.start(a)) {
                     return c.getConstraint();
@@ -212,7 +320,7 @@ public class ReconfigurationPlanChecker implements ActionVisitor {
 
     @Override
     public Object visit(ShutdownVM a) {
-        for (SatConstraintChecker<?> c : checkers) {
+        for (SatConstraintChecker<?> c : select(a.getVM(), a.getNode())) {
             if (startingEvent) {
                 if (!c.start(a)) {
                     return c.getConstraint();
@@ -226,7 +334,7 @@ public class ReconfigurationPlanChecker implements ActionVisitor {
 
     @Override
     public Object visit(SuspendVM a) {
-        for (SatConstraintChecker<?> c : checkers) {
+        for (SatConstraintChecker<?> c : select(a.getVM(), a.getSourceNode(), a.getDestinationNode())) {
             if (startingEvent) {
                 if (!c.start(a)) {
                     return c.getConstraint();
@@ -50,6 +50,7 @@ public interface ReconfigurationPlanMonitor {
      * @param a the action to commit
      * @return a set of unblocked actions that may be empty if the operation succeed.
      * {@code null} if the commit was not allowed because the action was not applyable
+     * @throws IllegalArgumentException if the action is not part of the plan
      */
     Set<Action> commit(Action a);
 
@@ -65,6 +66,7 @@ public interface ReconfigurationPlanMonitor {
      *
      * @param a the action to check
      * @return {@code true} iff the action is blocked
+     * @throws IllegalArgumentException if the action is not part of the plan
      */
     boolean isBlocked(Action a);
 
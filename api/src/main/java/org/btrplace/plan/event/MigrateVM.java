@@ -130,12 +130,13 @@ public class MigrateVM extends Action implements VMEvent, RunningVMPlacement {
         return this.vm.equals(that.vm) &&
                 this.src.equals(that.src) &&
                 this.dst.equals(that.dst) &&
-                (this.bw < 0 && that.bw < 0) ||(this.bw == that.bw);
+                ((this.bw < 0 && that.bw < 0) || this.bw == that.bw);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(getStart(), getEnd(), src, dst, vm, bw);
+        //Every negative bandwidth is equal to the others
+        return Objects.hash(getStart(), getEnd(), src, dst, vm, bw < 0 ? -1 : bw);
     }
 
     @Override
@@ -18,11 +18,14 @@
 
 package org.btrplace.model;
 
+import gnu.trove.map.TIntIntMap;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -134,6 +137,19 @@ public class DefaultAttributesTest {
 
         attrs2.unset(l.get(1), "1");
         Assert.assertEquals((int) attrs.getInteger(l.get(1), "1"), 1);
+
+        //Copy-on-write: the modifications are not visible in the other instance
+        attrs2.put(l.get(2), "2", "foo");
+        attrs2.put(l.get(2), "x", true);
+        Assert.assertEquals((int) attrs.getInteger(l.get(2), "2"), 2);
+        Assert.assertFalse(attrs.isSet(l.get(2), "x"));
+        attrs.clear(l.get(3));
+        Assert.assertEquals((int) attrs2.getInteger(l.get(3), "3"), 3);
+        Attributes attrs3 = attrs2.clone();
+        attrs2.clear();
+        Assert.assertEquals(attrs3.getString(l.get(2), "2"), "foo");
+        Assert.assertEquals((int) attrs3.getInteger(l.get(4), "4"), 4);
+        Assert.assertTrue(attrs2.getDefined().isEmpty());
     }
 
     @Test(dependsOnMethods = {"testInstantiation", "testUnset", "testClone"})
@@ -177,4 +193,73 @@ public class DefaultAttributesTest {
         Assert.assertEquals(attrs.getKeys(mo.newVM()).size(), 0);
         Assert.assertEquals(attrs.getKeys(mo.newNode()).size(), 0);
     }
+
+    @Test(dependsOnMethods = "testGetKeys")
+    public void testGetKeysAfterModifications() {
+        Attributes attrs = new DefaultAttributes();
+        VM u = vms.get(0);
+        attrs.put(u, "foo", 1);
+        attrs.put(u, "bar", "x");
+        attrs.put(vms.get(1), "foo", 2);
+        Attributes cpy = attrs.clone();
+
+        attrs.unset(u, "foo");
+        Assert.assertEquals(attrs.getKeys(u), Collections.singleton("bar"));
+        Assert.assertEquals(cpy.getKeys(u), new HashSet<>(Arrays.asList("foo", "bar")));
+
+        attrs.clear(u);
+        Assert.assertTrue(attrs.getKeys(u).isEmpty());
+        Assert.assertEquals(attrs.getDefined(), Collections.singleton(vms.get(1)));
+        Assert.assertEquals(cpy.getKeys(u).size(), 2);
+
+        cpy.put(u, "baz", 1.5);
+        Assert.assertEquals(cpy.getKeys(u), new HashSet<>(Arrays.asList("foo", "bar", "baz")));
+        Assert.assertTrue(attrs.getKeys(u).isEmpty());
+    }
+
+    @Test
+    public void testColumns() {
+        Attributes attrs = new DefaultAttributes();
+        attrs.put(vms.get(0), "mem", 5);
+        attrs.put(vms.get(1), "mem", 7);
+        attrs.put(nodes.get(0), "mem", 9);
+        attrs.put(vms.get(0), "rate", 1.5);
+
+        TIntIntMap mem = attrs.getIntColumn(VM.class, "mem");
+        Assert.assertEquals(mem.size(), 2);
+        Assert.assertEquals(mem.get(vms.get(0).id()), 5);
+        Assert.assertEquals(mem.get(vms.get(1).id()), 7);
+        Assert.assertEquals(attrs.getIntColumn(Node.class, "mem").get(nodes.get(0).id()), 9);
+        Assert.assertEquals(attrs.getDoubleColumn(VM.class, "rate").get(vms.get(0).id()), 1.5);
+        Assert.assertNull(attrs.getDoubleColumn(VM.class, "mem"));
+        Assert.assertNull(attrs.getIntColumn(VM.class, "foo"));
+
+        //Mixed types turn the column into a column of objects
+        attrs.put(vms.get(2), "mem", "big");
+        Assert.assertNull(attrs.getIntColumn(VM.class, "mem"));
+        Assert.assertEquals(attrs.getInteger(vms.get(1), "mem").intValue(), 7);
+        Assert.assertEquals(attrs.get(vms.get(2), "mem"), "big");
+        Assert.assertEquals(attrs.getKeys(vms.get(0)), new HashSet<>(Arrays.asList("mem", "rate")));
+
+        //Overriding the unique value does not mix the types
+        Assert.assertTrue(attrs.put(vms.get(0), "rate", 3));
+        Assert.assertNull(attrs.getDoubleColumn(VM.class, "rate"));
+        Assert.assertEquals(attrs.getIntColumn(VM.class, "rate").get(vms.get(0).id()), 3);
+    }
+
+    @Test
+    public void testEqualsAcrossColumnTypes() {
+        Attributes a1 = new DefaultAttributes();
+        Attributes a2 = new DefaultAttributes();
+        a1.put(vms.get(0), "foo", 1);
+        a1.put(vms.get(1), "foo", 2);
+        a2.put(vms.get(1), "foo", "x");
+        a2.put(vms.get(0), "foo", 1);
+        a2.put(vms.get(1), "foo", 2);
+        a2.put(vms.get(2), "bar", true);
+        a2.unset(vms.get(2), "bar");
+        Assert.assertEquals(a1, a2);
+        Assert.assertEquals(a1.hashCode(), a2.hashCode());
+        Assert.assertEquals(a2.getDefined(), new HashSet<>(Arrays.asList(vms.get(0), vms.get(1))));
+    }
 }
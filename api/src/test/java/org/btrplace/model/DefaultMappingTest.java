@@ -18,9 +18,12 @@
 
 package org.btrplace.model;
 
+import gnu.trove.set.hash.TIntHashSet;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -590,4 +593,171 @@ public class DefaultMappingTest {
         nodes.add(ns.get(2));
         Assert.assertTrue(m.getRunningVMs(nodes).isEmpty());
     }
+
+    @Test(dependsOnMethods = {"testInstantiation"})
+    public void testLiveViews() {
+        Mapping m = new DefaultMapping();
+        Set<VM> running = m.getRunningVMs();
+        Set<VM> sleeping = m.getSleepingVMs();
+        Set<VM> ready = m.getReadyVMs();
+        Set<VM> allVMs = m.getAllVMs();
+        Set<Node> allNodes = m.getAllNodes();
+
+        m.addOnlineNode(ns.get(0));
+        m.addOfflineNode(ns.get(1));
+        m.addRunningVM(vms.get(0), ns.get(0));
+        m.addSleepingVM(vms.get(1), ns.get(0));
+        m.addReadyVM(vms.get(2));
+        Assert.assertEquals(running, Collections.singleton(vms.get(0)));
+        Assert.assertEquals(sleeping, Collections.singleton(vms.get(1)));
+        Assert.assertEquals(ready, Collections.singleton(vms.get(2)));
+        Assert.assertEquals(allVMs, new HashSet<>(Arrays.asList(vms.get(0), vms.get(1), vms.get(2))));
+        Assert.assertEquals(allNodes, new HashSet<>(Arrays.asList(ns.get(0), ns.get(1))));
+        Assert.assertTrue(allVMs.contains(vms.get(1)));
+        Assert.assertFalse(allVMs.contains(vms.get(3)));
+
+        //State changes are reflected
+        m.addReadyVM(vms.get(0));
+        Assert.assertTrue(running.isEmpty());
+        Assert.assertEquals(ready.size(), 2);
+        Assert.assertEquals(allVMs.size(), 3);
+
+        m.remove(vms.get(1));
+        Assert.assertTrue(sleeping.isEmpty());
+        Assert.assertEquals(allVMs.size(), 2);
+
+        m.remove(ns.get(1));
+        Assert.assertEquals(allNodes, Collections.singleton(ns.get(0)));
+
+        m.clear();
+        Assert.assertTrue(allVMs.isEmpty());
+        Assert.assertTrue(allNodes.isEmpty());
+    }
+
+    @Test(dependsOnMethods = {"testInstantiation"})
+    public void testUnmodifiableViews() {
+        Mapping m = new DefaultMapping();
+        m.addOnlineNode(ns.get(0));
+        m.addRunningVM(vms.get(0), ns.get(0));
+        List<Set<?>> views = Arrays.asList(m.getRunningVMs(), m.getSleepingVMs(),
+                m.getReadyVMs(), m.getAllVMs(), m.getAllNodes());
+        for (Set<?> s : views) {
+            try {
+                s.clear();
+                Assert.fail("The view '" + s + "' should not be modifiable");
+            } catch (UnsupportedOperationException ex) {
+                //Expected
+            }
+        }
+        Assert.assertEquals(m.getNbVMs(), 1);
+    }
+
+    @Test(dependsOnMethods = {"testInstantiation"})
+    public void testForEachVM() {
+        Mapping m = new DefaultMapping();
+        m.addOnlineNode(ns.get(0));
+        m.addOnlineNode(ns.get(1));
+        m.addRunningVM(vms.get(0), ns.get(0));
+        m.addRunningVM(vms.get(1), ns.get(1));
+        m.addSleepingVM(vms.get(2), ns.get(1));
+        m.addReadyVM(vms.get(3));
+
+        TIntHashSet ids = new TIntHashSet();
+        Assert.assertTrue(m.forEachRunningVM(ids::add));
+        Assert.assertEquals(ids, new TIntHashSet(new int[]{vms.get(0).id(), vms.get(1).id()}));
+        ids.clear();
+        Assert.assertTrue(m.forEachSleepingVM(ids::add));
+        Assert.assertEquals(ids, new TIntHashSet(new int[]{vms.get(2).id()}));
+        ids.clear();
+        Assert.assertTrue(m.forEachReadyVM(ids::add));
+        Assert.assertEquals(ids, new TIntHashSet(new int[]{vms.get(3).id()}));
+
+        //Early termination
+        int[] nb = {0};
+        Assert.assertFalse(m.forEachRunningVM(i -> ++nb[0] > 1));
+        Assert.assertEquals(nb[0], 1);
+    }
+
+    @Test(dependsOnMethods = {"testClone"})
+    public void testCloneIsolation() {
+        Mapping c1 = new DefaultMapping();
+        c1.addOnlineNode(ns.get(0));
+        c1.addOnlineNode(ns.get(1));
+        c1.addRunningVM(vms.get(0), ns.get(0));
+        c1.addRunningVM(vms.get(1), ns.get(0));
+        c1.addSleepingVM(vms.get(2), ns.get(1));
+        c1.addReadyVM(vms.get(3));
+        String before = c1.toString();
+
+        Mapping c2 = c1.clone();
+        Set<VM> onN0 = c1.getRunningVMs(ns.get(0));
+        Set<Node> online = c2.getOnlineNodes();
+
+        //Modify the clone, the origin must not change
+        c2.addRunningVM(vms.get(0), ns.get(1));
+        c2.addRunningVM(vms.get(1), ns.get(1));
+        c2.addRunningVM(vms.get(3), ns.get(1));
+        c2.remove(vms.get(2));
+        c2.addOfflineNode(ns.get(0));
+        c2.addOnlineNode(ns.get(2));
+        Assert.assertEquals(c1.toString(), before);
+        Assert.assertEquals(onN0, new HashSet<>(Arrays.asList(vms.get(0), vms.get(1))));
+        Assert.assertEquals(c1.getNbVMs(), 4);
+        Assert.assertEquals(c1.getRunningVMs().size(), 2);
+        Assert.assertTrue(c1.isSleeping(vms.get(2)));
+        Assert.assertFalse(c2.contains(vms.get(2)));
+        Assert.assertEquals(online, new HashSet<>(Arrays.asList(ns.get(1), ns.get(2))));
+        Assert.assertEquals(c2.getNbVMs(), 3);
+
+        //Modify the origin, the clone must not change
+        String after = c2.toString();
+        c1.clearNode(ns.get(0));
+        c1.addRunningVM(vms.get(3), ns.get(1));
+        Assert.assertEquals(c2.toString(), after);
+        c1.clearAllVMs();
+        c1.clear();
+        Assert.assertEquals(c2.toString(), after);
+        Assert.assertEquals(c2.getRunningVMs(ns.get(1)), new HashSet<>(Arrays.asList(vms.get(0), vms.get(1), vms.get(3))));
+    }
+
+    @Test
+    public void testSparseIdentifiers() {
+        Mapping m = new DefaultMapping();
+        Node n = new Node(100000);
+        VM v = new VM(1 << 20);
+        m.addOnlineNode(n);
+        m.addRunningVM(v, n);
+        m.addReadyVM(vms.get(0));
+        Assert.assertEquals(m.getVMLocation(v), n);
+        Assert.assertEquals(m.getAllVMs(), new HashSet<>(Arrays.asList(vms.get(0), v)));
+        Mapping c = m.clone();
+        m.remove(v);
+        Assert.assertTrue(c.isRunning(v));
+        Assert.assertFalse(m.contains(v));
+    }
+
+    @Test
+    public void testHugeIdentifiers() {
+        Mapping m = new DefaultMapping();
+        Node n = new Node(Integer.MAX_VALUE);
+        VM v = new VM(Integer.MAX_VALUE - 1);
+        m.addOnlineNode(n);
+        m.addOnlineNode(ns.get(0));
+        m.addRunningVM(v, n);
+        Assert.assertEquals(m.getVMLocation(v), n);
+        Assert.assertEquals(m.getOnlineNodes(), new HashSet<>(Arrays.asList(ns.get(0), n)));
+        Assert.assertEquals(m.getRunningVMs(), Collections.singleton(v));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNegativeVMIdentifier() {
+        Mapping m = new DefaultMapping();
+        m.addReadyVM(new VM(-1));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNegativeNodeIdentifier() {
+        Mapping m = new DefaultMapping();
+        m.addOfflineNode(new Node(-3));
+    }
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.model;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link PagedTable}.
+ */
+public class PagedTableTest {
+
+    @Test
+    public void testSetAndGet() {
+        PagedTable t = new PagedTable(2);
+        Assert.assertEquals(t.state(3), PagedTable.NONE);
+        Assert.assertNull(t.get(3, 1));
+        t.setState(3, (byte) 1);
+        t.set(3, 1, "foo");
+        t.setState(5000, (byte) 0);
+        Assert.assertEquals(t.state(3), 1);
+        Assert.assertEquals(t.get(3, 1), "foo");
+        Assert.assertNull(t.get(3, 0));
+        Assert.assertEquals(t.state(5000), 0);
+        Assert.assertEquals(t.state(4), PagedTable.NONE);
+
+        t.remove(3);
+        Assert.assertEquals(t.state(3), PagedTable.NONE);
+        Assert.assertNull(t.get(3, 1));
+        t.clear();
+        Assert.assertEquals(t.state(5000), PagedTable.NONE);
+    }
+
+    @Test
+    public void testNext() {
+        PagedTable t = new PagedTable(1);
+        t.setState(2, (byte) 0);
+        t.setState(7, (byte) 1);
+        t.setState(1000, (byte) 0);
+        Assert.assertEquals(t.next(0, 1), 2);
+        Assert.assertEquals(t.next(3, 1), 1000);
+        Assert.assertEquals(t.next(0, 2), 7);
+        Assert.assertEquals(t.next(0, 3), 2);
+        Assert.assertEquals(t.next(8, 2), -1);
+        Assert.assertEquals(t.next(1001, 3), -1);
+    }
+
+    @Test
+    public void testCopy() {
+        PagedTable t = new PagedTable(1);
+        for (int i = 0; i < 1000; i++) {
+            t.setState(i, (byte) 0);
+            t.set(i, 0, i);
+        }
+        PagedTable c = t.copy();
+        c.setState(10, (byte) 1);
+        c.remove(500);
+        t.set(20, 0, "bar");
+        t.setState(2000, (byte) 0);
+
+        Assert.assertEquals(t.state(10), 0);
+        Assert.assertEquals(t.state(500), 0);
+        Assert.assertEquals(c.state(10), 1);
+        Assert.assertEquals(c.state(500), PagedTable.NONE);
+        Assert.assertEquals(c.get(20, 0), 20);
+        Assert.assertEquals(t.get(20, 0), "bar");
+        Assert.assertEquals(c.state(2000), PagedTable.NONE);
+
+        c.clearColumn(0);
+        Assert.assertNull(c.get(30, 0));
+        Assert.assertEquals(c.state(30), 0);
+        Assert.assertEquals(t.get(30, 0), 30);
+    }
+
+    @Test
+    public void testSparsePages() {
+        PagedTable t = new PagedTable(1);
+        t.setState(Integer.MAX_VALUE, (byte) 0);
+        t.set(Integer.MAX_VALUE, 0, "max");
+        t.setState(1 << 24, (byte) 1);
+        t.setState(3, (byte) 0);
+        Assert.assertEquals(t.state(Integer.MAX_VALUE), 0);
+        Assert.assertEquals(t.get(Integer.MAX_VALUE, 0), "max");
+        Assert.assertEquals(t.state(1 << 25), PagedTable.NONE);
+        Assert.assertEquals(t.state(-1), PagedTable.NONE);
+
+        Assert.assertEquals(t.next(0, 3), 3);
+        Assert.assertEquals(t.next(4, 3), 1 << 24);
+        Assert.assertEquals(t.next(4, 1), Integer.MAX_VALUE);
+        Assert.assertEquals(t.next((1 << 24) + 1, 3), Integer.MAX_VALUE);
+        Assert.assertEquals(t.next(Integer.MIN_VALUE, 3), -1);
+
+        PagedTable c = t.copy();
+        c.remove(1 << 24);
+        c.setState(1 << 28, (byte) 0);
+        t.clearColumn(0);
+        Assert.assertEquals(t.state(1 << 24), 1);
+        Assert.assertEquals(t.state(1 << 28), PagedTable.NONE);
+        Assert.assertNull(t.get(Integer.MAX_VALUE, 0));
+        Assert.assertEquals(c.get(Integer.MAX_VALUE, 0), "max");
+        Assert.assertEquals(c.next(4, 3), 1 << 28);
+    }
+}
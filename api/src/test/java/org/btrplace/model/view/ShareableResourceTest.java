@@ -192,6 +192,11 @@ public class ShareableResourceTest {
         Assert.assertNotEquals(rc1, rc2);
         rc1.setCapacity(nodes.get(0), 10);
         Assert.assertEquals(rc1, rc2);
+
+        rc2.setConsumption(vms.get(1), 7);
+        rc2.unset(nodes.get(1));
+        Assert.assertEquals(rc1.getConsumption(vms.get(1)), 5);
+        Assert.assertEquals(rc1.getCapacity(nodes.get(1)), 20);
     }
 
     @Test
@@ -12,6 +12,11 @@ import org.w3c.dom.NodeList;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Created by vkherbac on 08/12/14.
@@ -124,4 +129,135 @@ public class NetworkViewTest {
             e.printStackTrace();
         }
     }
+    @Test(dependsOnMethods = {"testPath"})
+    public void testDeepPath() {
+
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        Node n3 = mo.newNode();
+
+        // Dead-end branches must not appear in the path
+        NetworkView net = new NetworkView(new DefaultRouting());
+        Switch core = net.newSwitch();
+        Switch a1 = net.newSwitch();
+        Switch a2 = net.newSwitch();
+        Switch a3 = net.newSwitch();
+        Switch e1 = net.newSwitch();
+        Switch e3 = net.newSwitch();
+        core.connect(1000, a1, a2, a3);
+        a1.connect(1000, e1);
+        a3.connect(1000, e3);
+        e1.connect(1000, n1);
+        a2.connect(1000, n2);
+        e3.connect(1000, n3);
+
+        // n1 -> e1 -> a1 -> core -> a3 -> e3 -> n3
+        Assert.assertEquals(net.getPath(n1, n3).size(), 12);
+        Assert.assertTrue(Collections.disjoint(net.getPath(n1, n3), a2.getPorts()));
+        Assert.assertEquals(net.getPath(n1, n2).size(), 10);
+    }
+
+    @Test(dependsOnMethods = {"testPath"})
+    public void testRoutingCache() {
+
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+
+        NetworkView net = new NetworkView(new DefaultRouting());
+        Switch s1 = net.newSwitch();
+        s1.connect(1000, n1);
+
+        // No route yet
+        Assert.assertTrue(net.getPath(n1, n2).isEmpty());
+        Assert.assertEquals(net.getMaxBW(n1, n2), Integer.MAX_VALUE);
+
+        // Connecting a node changes the topology
+        int v = net.getTopologyVersion();
+        s1.connect(500, n2);
+        Assert.assertNotEquals(net.getTopologyVersion(), v);
+        List<Port> p = net.getPath(n1, n2);
+        Assert.assertEquals(p.size(), 4);
+        Assert.assertSame(net.getPath(n1, n2), p);
+        Assert.assertEquals(net.getMaxBW(n1, n2), 500);
+
+        // Through a new switch
+        Switch s2 = net.newSwitch();
+        s2.connect(2000, s1);
+        Assert.assertEquals(net.getPath(n1, n2), p);
+        Assert.assertNotSame(net.getPath(n1, n2), p);
+
+        // The clones share the topology
+        NetworkView clone = (NetworkView) net.clone();
+        v = net.getTopologyVersion();
+        s2.connect(1000, mo.newNode());
+        Assert.assertNotEquals(clone.getTopologyVersion(), v);
+    }
+    @Test
+    public void testInterfacesIndex() {
+
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        Node n3 = mo.newNode();
+
+        NetworkView net = new NetworkView();
+        Switch s1 = net.newSwitch();
+        s1.connect(1000, n1);
+        Assert.assertEquals(net.getAllInterfaces().size(), 2);
+        Assert.assertEquals(net.getConnectedNodes(), Collections.singletonList(n1));
+        Assert.assertSame(net.getSwitchInterface(n1), s1.getPorts().get(0));
+        Assert.assertNull(net.getSwitchInterface(n2));
+
+        // The cached lists are refreshed once the topology changes
+        List<Port> infs = net.getAllInterfaces();
+        Assert.assertSame(net.getAllInterfaces(), infs);
+        Switch s2 = net.newSwitch();
+        s2.connect(1000, s1, n2, n3);
+        Assert.assertNotSame(net.getAllInterfaces(), infs);
+        Assert.assertEquals(net.getAllInterfaces().size(), 8);
+        Assert.assertEquals(net.getConnectedNodes(), Arrays.asList(n1, n2, n3));
+        Assert.assertSame(net.getSwitchInterface(n3).getHost(), s2);
+        Assert.assertSame(net.getSwitchInterface(n3).getRemote().getHost(), n3);
+
+        // Switches added directly to the list are indexed too
+        NetworkView clone = (NetworkView) net.clone();
+        Assert.assertEquals(clone.getAllInterfaces(), net.getAllInterfaces());
+        Assert.assertSame(clone.getSwitchInterface(n2), net.getSwitchInterface(n2));
+    }
+
+    @Test(dependsOnMethods = {"testPath"})
+    public void testPathsFromNode() {
+        Model mo = new DefaultModel();
+        List<Node> ns = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            ns.add(mo.newNode());
+        }
+        NetworkView net = new NetworkView();
+        Switch s1 = net.newSwitch();
+        Switch s2 = net.newSwitch();
+        Switch s3 = net.newSwitch();
+        Switch s4 = net.newSwitch();
+        // A ring of switches, so there are several paths between the nodes
+        s1.connect(1000, ns.get(0), ns.get(1), s2);
+        s2.connect(1000, ns.get(2), s3);
+        s3.connect(1000, ns.get(3), ns.get(4), s4);
+        s4.connect(1000, ns.get(5), s1, ns.get(6));
+        Node isolated = ns.get(7);
+
+        DefaultRouting routing = (DefaultRouting) net.getRouting();
+        for (Node src : ns) {
+            Map<Node, List<Port>> paths = routing.getPaths(src, ns);
+            for (Node dst : ns) {
+                List<Port> path = net.getPath(src, dst);
+                if (path.isEmpty()) {
+                    Assert.assertFalse(paths.containsKey(dst));
+                } else {
+                    Assert.assertEquals(paths.get(dst), path, src + " -> " + dst);
+                }
+            }
+        }
+        Assert.assertTrue(routing.getPaths(isolated, ns).isEmpty());
+    }
 }
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.model.view.power;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+/**
+ * Unit tests for {@link BudgetProfile}.
+ */
+public class BudgetProfileTest {
+
+    @Test
+    public void testEmpty() {
+        EnergyView ev = new EnergyView(1000);
+        BudgetProfile p = ev.getBudgetProfile();
+        Assert.assertEquals(p.size(), 0);
+        Assert.assertEquals(p.getBudgetAt(0), 1000);
+        Assert.assertEquals(ev.getMaxPower(42), 1000);
+    }
+
+    @Test
+    public void testSteps() {
+        EnergyView ev = new EnergyView(1000);
+        ev.addBudget(10, 20, 800);
+        ev.addBudget(15, 30, 600);
+        ev.addBudget(30, 40, 600);
+        ev.addBudget(50, 60, 2000);
+        BudgetProfile p = ev.getBudgetProfile();
+
+        // [10,15) 800, [15,40) 600, [40,50) 1000, [50,60) 1000 merged
+        Assert.assertEquals(p.size(), 3);
+        Assert.assertEquals(p.getStart(0), 10);
+        Assert.assertEquals(p.getEnd(0), 15);
+        Assert.assertEquals(p.getBudget(0), 800);
+        Assert.assertEquals(p.getStart(1), 15);
+        Assert.assertEquals(p.getEnd(1), 40);
+        Assert.assertEquals(p.getBudget(1), 600);
+        Assert.assertEquals(p.getStart(2), 40);
+        Assert.assertEquals(p.getEnd(2), 60);
+        Assert.assertEquals(p.getBudget(2), 1000);
+
+        Assert.assertEquals(ev.getMaxPower(9), 1000);
+        Assert.assertEquals(ev.getMaxPower(10), 800);
+        Assert.assertEquals(ev.getMaxPower(14), 800);
+        Assert.assertEquals(ev.getMaxPower(15), 600);
+        Assert.assertEquals(ev.getMaxPower(39), 600);
+        Assert.assertEquals(ev.getMaxPower(40), 1000);
+        Assert.assertEquals(ev.getMaxPower(60), 1000);
+
+        // The profile is recompiled once a budget is added
+        ev.addBudget(0, 100, 100);
+        Assert.assertNotSame(ev.getBudgetProfile(), p);
+        Assert.assertEquals(ev.getBudgetProfile().size(), 1);
+        Assert.assertEquals(ev.getMaxPower(55), 100);
+    }
+
+    @Test
+    public void testRandom() {
+        Random rnd = new Random(42);
+        for (int x = 0; x < 50; x++) {
+            EnergyView ev = new EnergyView(1000);
+            int[][] tibs = new int[rnd.nextInt(20)][];
+            for (int i = 0; i < tibs.length; i++) {
+                int st = rnd.nextInt(100);
+                tibs[i] = new int[]{st, st + rnd.nextInt(30), rnd.nextInt(1200)};
+                ev.addBudget(tibs[i][0], tibs[i][1], tibs[i][2]);
+            }
+            for (int t = -1; t < 140; t++) {
+                int expected = 1000;
+                for (int[] tib : tibs) {
+                    if (tib[0] <= t && tib[1] > t) {
+                        expected = Math.min(expected, tib[2]);
+                    }
+                }
+                Assert.assertEquals(ev.getMaxPower(t), expected);
+            }
+        }
+    }
+}
@@ -24,8 +24,13 @@ import org.btrplace.plan.event.*;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Unit tests for {@link DefaultReconfigurationPlanMonitor}.
@@ -93,6 +98,34 @@ public class DefaultReconfigurationPlanMonitorTest {
         Assert.assertFalse(exec.isBlocked(a3));
     }
 
+    @Test(dependsOnMethods = {"testInit", "testGoodCommits"})
+    public void testCommitEqualActions() {
+        ReconfigurationPlan plan = makePlan();
+        ReconfigurationPlanMonitor exec = new DefaultReconfigurationPlanMonitor(plan);
+        //Re-created actions are resolved to the actions of the plan
+        BootNode b1 = new BootNode(a1.getNode(), a1.getStart(), a1.getEnd());
+        MigrateVM m3 = new MigrateVM(a3.getVM(), a3.getSourceNode(), a3.getDestinationNode(), a3.getStart(), a3.getEnd());
+        Assert.assertTrue(exec.isBlocked(m3));
+        Set<Action> released = exec.commit(b1);
+        Assert.assertEquals(released.size(), 1);
+        Assert.assertTrue(released.contains(a3));
+        Assert.assertFalse(exec.isBlocked(m3));
+        Assert.assertNull(exec.commit(a1));
+        Assert.assertEquals(exec.getNbCommitted(), 1);
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testCommitUnknownAction() {
+        ReconfigurationPlanMonitor exec = new DefaultReconfigurationPlanMonitor(makePlan());
+        exec.commit(new BootNode(ns.get(3), 0, 3));
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testIsBlockedUnknownAction() {
+        ReconfigurationPlanMonitor exec = new DefaultReconfigurationPlanMonitor(makePlan());
+        exec.isBlocked(new BootNode(ns.get(3), 0, 3));
+    }
+
     @Test(dependsOnMethods = {"testInit", "testGoodCommits"})
     public void testCommitBlocked() {
         ReconfigurationPlan plan = makePlan();
@@ -121,6 +154,60 @@ public class DefaultReconfigurationPlanMonitorTest {
         Assert.assertEquals(exec.getNbCommitted(), 4);
     }
 
+    @Test(dependsOnMethods = {"testInit", "testGoodCommits"})
+    public void testConcurrentCommits() throws Exception {
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        Node src = mo.newNode();
+        map.addOnlineNode(src);
+        ReconfigurationPlan plan = new DefaultReconfigurationPlan(mo);
+        for (int i = 0; i < 50; i++) {
+            Node n = mo.newNode();
+            map.addOfflineNode(n);
+            plan.add(new BootNode(n, 0, 1));
+            for (int j = 0; j < 3; j++) {
+                VM v = mo.newVM();
+                map.addRunningVM(v, src);
+                plan.add(new MigrateVM(v, src, n, 1, 2));
+            }
+        }
+        ReconfigurationPlanMonitor exec = new DefaultReconfigurationPlanMonitor(plan);
+        List<Action> boots = new ArrayList<>();
+        for (Action a : plan.getActions()) {
+            if (a instanceof BootNode) {
+                Assert.assertFalse(exec.isBlocked(a));
+                boots.add(a);
+            } else {
+                Assert.assertTrue(exec.isBlocked(a));
+            }
+        }
+
+        //Commit the boot actions concurrently, each migration must be released once
+        ExecutorService exe = Executors.newFixedThreadPool(4);
+        List<Future<Set<Action>>> res = new ArrayList<>();
+        for (Action a : boots) {
+            res.add(exe.submit(() -> exec.commit(a)));
+        }
+        Set<Action> released = new HashSet<>();
+        for (Future<Set<Action>> f : res) {
+            for (Action a : f.get()) {
+                Assert.assertTrue(released.add(a), a + " released twice");
+            }
+        }
+        Assert.assertEquals(released.size(), 150);
+
+        res.clear();
+        for (Action a : released) {
+            res.add(exe.submit(() -> exec.commit(a)));
+        }
+        for (Future<Set<Action>> f : res) {
+            Assert.assertTrue(f.get().isEmpty());
+        }
+        exe.shutdown();
+        Assert.assertEquals(exec.getNbCommitted(), plan.getSize());
+        Assert.assertEquals(exec.getCurrentModel().getMapping().getOnlineNodes().size(), 51);
+    }
+
     @Test
     public void testComplex() {
         Model mo = new DefaultModel();
@@ -143,4 +143,37 @@ public class DependenciesExtractorTest {
         Assert.assertTrue(ex.getDependencies(a1).contains(a2), ex.getDependencies(a1).toString());
     }
 
+    @Test
+    public void testHotNodeAndCacheRefresh() {
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        map.addOnlineNode(ns.get(0));
+        map.addOnlineNode(ns.get(1));
+        map.addOnlineNode(ns.get(2));
+        DependenciesExtractor ex = new DependenciesExtractor(mo);
+
+        //Migrations that leave node 0 at various moments, others that come to node 0
+        MigrateVM out1 = new MigrateVM(vms.get(0), ns.get(0), ns.get(1), 0, 2);
+        MigrateVM out2 = new MigrateVM(vms.get(1), ns.get(0), ns.get(1), 0, 4);
+        MigrateVM in1 = new MigrateVM(vms.get(2), ns.get(2), ns.get(0), 2, 3);
+        MigrateVM in2 = new MigrateVM(vms.get(3), ns.get(2), ns.get(0), 5, 6);
+        Assert.assertTrue(ex.visit(in2));
+        Assert.assertTrue(ex.visit(out1));
+        Assert.assertTrue(ex.visit(in1));
+
+        Assert.assertEquals(ex.getDependencies(in1).size(), 1);
+        Assert.assertTrue(ex.getDependencies(in1).contains(out1));
+        Assert.assertEquals(ex.getDependencies(in2).size(), 1);
+
+        //A new freeing action is considered
+        Assert.assertTrue(ex.visit(out2));
+        Assert.assertEquals(ex.getDependencies(in1).size(), 1);
+        //out2 follows out1 on node 0 but ends too late for in1
+        Assert.assertFalse(ex.getDependencies(in1).contains(out2));
+        Assert.assertFalse(ex.getDependencies(in1).contains(in2));
+        Assert.assertEquals(ex.getDependencies(in2).size(), 2);
+        Assert.assertTrue(ex.getDependencies(in2).contains(out1));
+        Assert.assertTrue(ex.getDependencies(in2).contains(out2));
+        Assert.assertTrue(ex.getDependencies(out1).isEmpty());
+    }
 }
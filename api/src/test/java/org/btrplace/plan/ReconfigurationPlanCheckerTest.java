@@ -19,14 +19,17 @@
 package org.btrplace.plan;
 
 import org.btrplace.model.*;
+import org.btrplace.model.constraint.AllowAllConstraintChecker;
+import org.btrplace.model.constraint.Fence;
 import org.btrplace.model.constraint.SatConstraintChecker;
-import org.btrplace.plan.event.BootNode;
-import org.btrplace.plan.event.BootVM;
-import org.btrplace.plan.event.MigrateVM;
+import org.btrplace.plan.event.*;
 import org.mockito.InOrder;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.mockito.Mockito.inOrder;
@@ -108,4 +111,72 @@ public class ReconfigurationPlanCheckerTest {
         order.verify(chk).endsWith(mo);
 
     }
+
+    /**
+     * A checker that records the actions it is notified about.
+     */
+    private static class RecordingChecker extends AllowAllConstraintChecker<Fence> {
+
+        private final boolean local;
+
+        private final List<Action> started = new ArrayList<>();
+
+        RecordingChecker(Fence f, boolean local) {
+            super(f);
+            this.local = local;
+        }
+
+        @Override
+        public boolean isLocal() {
+            return local;
+        }
+
+        @Override
+        public boolean start(BootNode a) {
+            return started.add(a);
+        }
+
+        @Override
+        public boolean startRunningVMPlacement(RunningVMPlacement a) {
+            return started.add((Action) a);
+        }
+    }
+
+    @Test(dependsOnMethods = {"testSequencing"})
+    public void testLocalCheckers() throws ReconfigurationPlanCheckerException {
+        Model mo = new DefaultModel();
+        List<Node> ns = Util.newNodes(mo, 4);
+        List<VM> vms = Util.newVMs(mo, 2);
+        Mapping m = mo.getMapping();
+        m.addOnlineNode(ns.get(0));
+        m.addOnlineNode(ns.get(1));
+        m.addOnlineNode(ns.get(2));
+        m.addOfflineNode(ns.get(3));
+        m.addRunningVM(vms.get(0), ns.get(0));
+        m.addRunningVM(vms.get(1), ns.get(2));
+        ReconfigurationPlan p = new DefaultReconfigurationPlan(mo);
+        MigrateVM m1 = new MigrateVM(vms.get(0), ns.get(0), ns.get(1), 0, 3);
+        MigrateVM m2 = new MigrateVM(vms.get(1), ns.get(2), ns.get(0), 3, 5);
+        BootNode bn = new BootNode(ns.get(3), 1, 6);
+        p.add(m1);
+        p.add(m2);
+        p.add(bn);
+
+        Fence f = new Fence(vms.get(0), Collections.singleton(ns.get(1)));
+        RecordingChecker local = new RecordingChecker(f, true);
+        RecordingChecker global = new RecordingChecker(f, false);
+        ReconfigurationPlanChecker rc = new ReconfigurationPlanChecker();
+        rc.addChecker(local);
+        rc.addChecker(global);
+        rc.check(p);
+        //m2 and bn involve neither the VM nor the node of the constraint
+        Assert.assertEquals(local.started, Collections.singletonList(m1));
+        Assert.assertEquals(global.started, Arrays.asList(m1, bn, m2));
+
+        //Removing a checker keeps the others indexed
+        Assert.assertTrue(rc.removeChecker(global));
+        local.started.clear();
+        rc.check(p);
+        Assert.assertEquals(local.started, Collections.singletonList(m1));
+    }
 }
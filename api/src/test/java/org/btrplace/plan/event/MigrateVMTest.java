@@ -102,6 +102,13 @@ public class MigrateVMTest {
         Assert.assertNotSame(a, new MigrateVM(vms.get(1), ns.get(0), ns.get(1), 3, 5));
         Assert.assertNotSame(a, new MigrateVM(vms.get(0), ns.get(2), ns.get(1), 3, 5));
         Assert.assertNotSame(a, new MigrateVM(vms.get(0), ns.get(0), ns.get(2), 3, 5));
+        //Same bandwidth but another VM
+        Assert.assertNotEquals(a, new MigrateVM(vms.get(1), ns.get(0), ns.get(1), 3, 5));
+        //Any negative bandwidth means an unspecified one
+        MigrateVM u1 = new MigrateVM(vms.get(0), ns.get(0), ns.get(1), 3, 5, -1);
+        MigrateVM u2 = new MigrateVM(vms.get(0), ns.get(0), ns.get(1), 3, 5, -5);
+        Assert.assertEquals(u1, u2);
+        Assert.assertEquals(u1.hashCode(), u2.hashCode());
     }
 
     @Test
@@ -18,9 +18,6 @@
 
 package org.btrplace.bench;
 
-import net.minidev.json.JSONObject;
-import net.minidev.json.parser.JSONParser;
-import net.minidev.json.parser.ParseException;
 import org.btrplace.json.JSONConverterException;
 import org.btrplace.json.model.InstanceConverter;
 import org.btrplace.model.*;
@@ -44,7 +41,6 @@ import org.kohsuke.args4j.Option;
 
 import java.io.*;
 import java.util.ArrayList;
-import java.util.zip.GZIPInputStream;
 
 /**
  * Created by vkherbac on 16/09/14.
@@ -108,32 +104,12 @@ public class Launcher {
             cra.setTimeLimit(timeout);
         }
 
-        // Read the input JSON instance
-        JSONParser parser = new JSONParser(JSONParser.DEFAULT_PERMISSIVE_MODE);
-        Object obj = null;
-        try {
-            // Check for gzip extension
-            if (src.endsWith(".gz")) {
-                obj = parser.parse(new InputStreamReader(new GZIPInputStream(new FileInputStream(src))));
-            } else {
-                obj = parser.parse(new FileReader(src));
-            }
-
-        } catch (ParseException e) {
-            e.printStackTrace();
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        JSONObject o = (JSONObject) obj;
-
-        // Convert the json object to an instance
+        // Read the input JSON instance, gzip compressed or not
         InstanceConverter conv = new InstanceConverter();
         Instance i = null;
         try {
-            i = conv.fromJSON(o);
-        } catch (JSONConverterException e) {
+            i = conv.fromJSON(new File(src));
+        } catch (IOException | JSONConverterException e) {
             e.printStackTrace();
         }
 
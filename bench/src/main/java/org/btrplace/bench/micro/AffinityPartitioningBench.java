@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.bench.micro;
+
+import org.btrplace.model.*;
+import org.btrplace.model.constraint.MinMTTR;
+import org.btrplace.model.constraint.SatConstraint;
+import org.btrplace.model.constraint.Spread;
+import org.btrplace.scheduler.SchedulerException;
+import org.btrplace.scheduler.choco.DefaultParameters;
+import org.btrplace.scheduler.choco.runner.disjoint.AffinityPartitioning;
+
+import java.util.*;
+
+/**
+ * Bench the computation of node partitions by {@link AffinityPartitioning}.
+ * The nodes are shuffled into hidden groups. Each node hosts 2 VMs and every
+ * {@link Spread} constraint ties 2 VMs of a same group. The bench reports the time
+ * to split the instance, then the number of constraints whose VMs are hosted
+ * by several partitions, for the computed partitions and for a slicing of the
+ * nodes in their natural order into partitions of the same size.
+ * <p>
+ * Usage: {@code AffinityPartitioningBench [nbNodes] [nbConstraints] [nbGroups]}
+ */
+public class AffinityPartitioningBench {
+
+    private static int cut(List<Spread> cstrs, Mapping map, Map<Node, Integer> partOf) {
+        int nb = 0;
+        for (Spread s : cstrs) {
+            Set<Integer> parts = new HashSet<>();
+            for (VM v : s.getInvolvedVMs()) {
+                parts.add(partOf.get(map.getVMLocation(v)));
+            }
+            if (parts.size() > 1) {
+                nb++;
+            }
+        }
+        return nb;
+    }
+
+    public static void main(String[] args) throws SchedulerException {
+        int nbNodes = args.length > 0 ? Integer.parseInt(args[0]) : 25000;
+        int nbCstrs = args.length > 1 ? Integer.parseInt(args[1]) : 30000;
+        int nbGroups = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int partSize = nbNodes / nbGroups;
+        for (int r = 0; r < 5; r++) {
+            Random rnd = new Random(r);
+            Model mo = new DefaultModel();
+            Mapping map = mo.getMapping();
+            List<Node> ns = new ArrayList<>();
+            for (int i = 0; i < nbNodes; i++) {
+                Node n = mo.newNode();
+                map.addOnlineNode(n);
+                map.addRunningVM(mo.newVM(), n);
+                map.addRunningVM(mo.newVM(), n);
+                ns.add(n);
+            }
+            List<Node> shuffled = new ArrayList<>(ns);
+            Collections.shuffle(shuffled, rnd);
+            List<Spread> cstrs = new ArrayList<>();
+            for (int i = 0; i < nbCstrs; i++) {
+                int g = rnd.nextInt(nbGroups);
+                Node n1 = shuffled.get(g * partSize + rnd.nextInt(partSize));
+                Node n2 = shuffled.get(g * partSize + rnd.nextInt(partSize));
+                Set<VM> vms = new HashSet<>();
+                vms.add(map.getRunningVMs(n1).iterator().next());
+                vms.add(map.getRunningVMs(n2).iterator().next());
+                cstrs.add(new Spread(vms));
+            }
+            Instance i = new Instance(mo, new ArrayList<SatConstraint>(cstrs), new MinMTTR());
+
+            AffinityPartitioning p = new AffinityPartitioning(partSize);
+            long st = System.nanoTime();
+            p.split(new DefaultParameters(), i);
+            long ed = System.nanoTime();
+
+            Map<Node, Integer> partOf = new HashMap<>();
+            int x = 0;
+            for (Collection<Node> part : p.getPartitions()) {
+                for (Node n : part) {
+                    partOf.put(n, x);
+                }
+                x++;
+            }
+            int affinityCut = cut(cstrs, map, partOf);
+            partOf.clear();
+            for (int k = 0; k < ns.size(); k++) {
+                partOf.put(ns.get(k), k / partSize);
+            }
+            int linearCut = cut(cstrs, map, partOf);
+            System.out.println(nbNodes + " nodes, " + nbCstrs + " constraints: split in " + (ed - st) / 1000000
+                    + " ms; " + p.getPartitions().size() + " partitions; cut constraints: " + affinityCut
+                    + " (linear slicing: " + linearCut + ")");
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.bench.micro;
+
+import org.btrplace.model.Attributes;
+import org.btrplace.model.DefaultModel;
+import org.btrplace.model.Model;
+import org.btrplace.model.VM;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bench the footprint of {@link org.btrplace.model.DefaultAttributes} on an attribute-heavy model.
+ * Each VM gets the four attributes read by the network view to estimate its migration duration:
+ * {@code memUsed}, {@code dirtyRate}, {@code maxDirtySize} and {@code maxDirtyDuration}.
+ * The bench reports the heap retained by the attributes, the time to read the four values of every VM
+ * one by one, then the time to list the keys of every VM and to clear them.
+ * <p>
+ * Usage: {@code AttributesMemoryBench [nbVMs]}
+ */
+public class AttributesMemoryBench {
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    public static void main(String[] args) {
+        int nbVMs = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        for (int r = 0; r < 5; r++) {
+            Model mo = new DefaultModel();
+            List<VM> vms = new ArrayList<>(nbVMs);
+            for (int i = 0; i < nbVMs; i++) {
+                vms.add(mo.newVM());
+            }
+            Attributes attrs = mo.getAttributes();
+            long before = usedHeap();
+            for (int i = 0; i < nbVMs; i++) {
+                VM v = vms.get(i);
+                attrs.put(v, "memUsed", 1024 + i % 4096);
+                attrs.put(v, "dirtyRate", (i % 100) / 10.0);
+                attrs.put(v, "maxDirtySize", 64 + i % 32);
+                attrs.put(v, "maxDirtyDuration", 1 + i % 5);
+            }
+            long footprint = usedHeap() - before;
+
+            long st = System.nanoTime();
+            long sum = 0;
+            for (VM v : vms) {
+                sum += attrs.getInteger(v, "memUsed");
+                sum += attrs.getDouble(v, "dirtyRate").longValue();
+                sum += attrs.getInteger(v, "maxDirtySize");
+                sum += attrs.getInteger(v, "maxDirtyDuration");
+            }
+            long reads = System.nanoTime() - st;
+
+            st = System.nanoTime();
+            int nbKeys = 0;
+            for (VM v : vms) {
+                nbKeys += attrs.getKeys(v).size();
+            }
+            long keys = System.nanoTime() - st;
+
+            st = System.nanoTime();
+            for (VM v : vms) {
+                attrs.clear(v);
+            }
+            long clear = System.nanoTime() - st;
+            System.out.println(nbVMs + " VMs: " + footprint / 1024 / 1024 + " MB retained; "
+                    + 4 * nbVMs + " reads in " + reads / 1000000 + " ms (" + sum + "); "
+                    + nbKeys + " keys listed in " + keys / 1000000 + " ms; cleared in " + clear / 1000000 + " ms");
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.bench.micro;
+
+import org.btrplace.model.DefaultModel;
+import org.btrplace.model.Mapping;
+import org.btrplace.model.Model;
+import org.btrplace.model.Node;
+import org.btrplace.model.VM;
+import org.btrplace.plan.DefaultReconfigurationPlan;
+import org.btrplace.plan.DefaultReconfigurationPlanMonitor;
+import org.btrplace.plan.ReconfigurationPlan;
+import org.btrplace.plan.event.Action;
+import org.btrplace.plan.event.MigrateVM;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Bench the dependencies of the actions of a plan centered on a hot node.
+ * Half of the actions migrate a VM out of the hot node, the other half migrate
+ * a VM into it later on, so each incoming migration depends on a large prefix of
+ * the outgoing ones. The bench reports the time to build the dependencies and a
+ * {@link DefaultReconfigurationPlanMonitor}, then the time to check the membership
+ * of random outgoing migrations in the dependencies of each incoming one.
+ * <p>
+ * Usage: {@code DependenciesBench [nbActions] [nbLookups]}
+ */
+public class DependenciesBench {
+
+    private static ReconfigurationPlan makePlan(int nbActions, List<Action> outs, List<Action> ins) {
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        Node hot = mo.newNode();
+        Node other = mo.newNode();
+        map.addOnlineNode(hot);
+        map.addOnlineNode(other);
+        ReconfigurationPlan plan = new DefaultReconfigurationPlan(mo);
+        int half = nbActions / 2;
+        for (int i = 0; i < half; i++) {
+            VM v = mo.newVM();
+            map.addRunningVM(v, hot);
+            Action a = new MigrateVM(v, hot, other, i, i + 1);
+            plan.add(a);
+            outs.add(a);
+        }
+        for (int i = 0; i < half; i++) {
+            VM v = mo.newVM();
+            map.addRunningVM(v, other);
+            Action a = new MigrateVM(v, other, hot, i + 1, i + 2);
+            plan.add(a);
+            ins.add(a);
+        }
+        return plan;
+    }
+
+    public static void main(String[] args) {
+        int nbActions = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int nbLookups = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        for (int r = 0; r < 5; r++) {
+            List<Action> outs = new ArrayList<>();
+            List<Action> ins = new ArrayList<>();
+            ReconfigurationPlan plan = makePlan(nbActions, outs, ins);
+            long st = System.nanoTime();
+            new DefaultReconfigurationPlanMonitor(plan);
+            long build = System.nanoTime() - st;
+
+            Random rnd = new Random(r);
+            int found = 0;
+            st = System.nanoTime();
+            for (Action a : ins) {
+                Set<Action> deps = plan.getDirectDependencies(a);
+                for (int i = 0; i < nbLookups; i++) {
+                    if (deps.contains(outs.get(rnd.nextInt(outs.size())))) {
+                        found++;
+                    }
+                }
+            }
+            long lookups = System.nanoTime() - st;
+            System.out.println(plan.getSize() + " actions: dependencies and monitor in " + build / 1000000
+                    + " ms; " + ins.size() * nbLookups + " lookups in " + lookups / 1000000 + " ms (" + found + " hits)");
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.bench.micro;
+
+import org.btrplace.model.*;
+import org.btrplace.model.constraint.*;
+import org.btrplace.model.view.ShareableResource;
+import org.btrplace.model.view.net.MinMTTRObjective;
+import org.btrplace.model.view.net.NetworkView;
+import org.btrplace.model.view.net.Switch;
+import org.btrplace.model.view.power.EnergyView;
+import org.btrplace.model.view.power.PowerBudget;
+
+import java.util.*;
+
+/**
+ * Generate synthetic but reproducible instances.
+ * <p>
+ * Every node is online and provides the resources "cpu" and "mem". The running VMs are
+ * evenly dispatched so that each node is loaded at 50% at most. A fraction of the VMs,
+ * the constraint density, is then involved in constraints among {@link Spread}, {@link Ban},
+ * {@link Fence} and {@link Preserve}; the bans force some migrations.
+ * <p>
+ * When the topology depth is positive, the nodes are connected to the leaves of a
+ * switch tree having that number of levels and the objective is {@link MinMTTRObjective}
+ * instead of {@link MinMTTR}. When the power ratio is positive,
+ * an {@link EnergyView} is attached with a {@link PowerBudget} equals to the current
+ * consumption times the ratio.
+ */
+public class InstanceGenerator {
+
+    private int nbNodes = 100;
+
+    private int nbVMs = 400;
+
+    private double density = 0.2;
+
+    private int depth = 0;
+
+    private double powerRatio = 0;
+
+    private long seed = 0;
+
+    /**
+     * Set the number of nodes.
+     *
+     * @param n a positive number
+     * @return the current generator
+     */
+    public InstanceGenerator setNodes(int n) {
+        nbNodes = n;
+        return this;
+    }
+
+    /**
+     * Set the number of running VMs.
+     *
+     * @param n a positive number
+     * @return the current generator
+     */
+    public InstanceGenerator setVMs(int n) {
+        nbVMs = n;
+        return this;
+    }
+
+    /**
+     * Set the fraction of the VMs involved in a constraint.
+     *
+     * @param d a ratio between 0 and 1
+     * @return the current generator
+     */
+    public InstanceGenerator setConstraintDensity(double d) {
+        density = d;
+        return this;
+    }
+
+    /**
+     * Set the number of levels in the switch tree.
+     *
+     * @param d the depth. {@code 0} to have no network
+     * @return the current generator
+     */
+    public InstanceGenerator setTopologyDepth(int d) {
+        depth = d;
+        return this;
+    }
+
+    /**
+     * Set the power budget as a ratio of the current consumption.
+     *
+     * @param r the ratio. {@code 0} to have no power budget
+     * @return the current generator
+     */
+    public InstanceGenerator setPowerRatio(double r) {
+        powerRatio = r;
+        return this;
+    }
+
+    /**
+     * Set the seed of the random generator.
+     *
+     * @param s the seed
+     * @return the current generator
+     */
+    public InstanceGenerator setSeed(long s) {
+        seed = s;
+        return this;
+    }
+
+    /**
+     * Generate the instance.
+     *
+     * @return a new instance
+     */
+    public Instance build() {
+        Random rnd = new Random(seed);
+        Model mo = new DefaultModel();
+        Mapping ma = mo.getMapping();
+        Attributes attrs = mo.getAttributes();
+
+        int perNode = (nbVMs + nbNodes - 1) / nbNodes;
+        ShareableResource cpu = new ShareableResource("cpu", 4 * perNode, 1);
+        ShareableResource mem = new ShareableResource("mem", 8 * perNode, 1);
+        mo.attach(cpu);
+        mo.attach(mem);
+
+        List<Node> nodes = new ArrayList<>(nbNodes);
+        for (int i = 0; i < nbNodes; i++) {
+            Node n = mo.newNode();
+            ma.addOnlineNode(n);
+            nodes.add(n);
+        }
+        List<VM> vms = new ArrayList<>(nbVMs);
+        for (int i = 0; i < nbVMs; i++) {
+            VM v = mo.newVM();
+            ma.addRunningVM(v, nodes.get(i % nbNodes));
+            cpu.setConsumption(v, 1 + rnd.nextInt(2));
+            int m = 1 + rnd.nextInt(4);
+            mem.setConsumption(v, m);
+            attrs.put(v, "memUsed", m * 1000);
+            attrs.put(v, "dirtyRate", 2.0);
+            attrs.put(v, "maxDirtySize", 10);
+            attrs.put(v, "maxDirtyDuration", 2);
+            vms.add(v);
+        }
+
+        if (depth > 0) {
+            mo.attach(makeNetwork(nodes));
+        }
+
+        List<SatConstraint> cstrs = makeConstraints(mo, rnd, nodes, vms);
+        if (powerRatio > 0) {
+            int consumption = nbNodes * EnergyView.DEFAULT_NODE_CONSUMPTION + nbVMs * EnergyView.DEFAULT_VM_CONSUMPTION;
+            int budget = (int) (consumption * powerRatio);
+            mo.attach(new EnergyView(budget));
+            cstrs.add(new PowerBudget(budget));
+        }
+        return new Instance(mo, cstrs, depth > 0 ? new MinMTTRObjective() : new MinMTTR());
+    }
+
+    private NetworkView makeNetwork(List<Node> nodes) {
+        NetworkView net = new NetworkView();
+        int fanOut = Math.max(2, (int) Math.ceil(Math.pow(nodes.size(), 1.0 / depth)));
+        List<Switch> level = Collections.singletonList(net.newSwitch());
+        for (int l = 1; l < depth; l++) {
+            List<Switch> next = new ArrayList<>(level.size() * fanOut);
+            for (Switch parent : level) {
+                for (int i = 0; i < fanOut; i++) {
+                    Switch sw = net.newSwitch();
+                    parent.connect(10000, sw);
+                    next.add(sw);
+                }
+            }
+            level = next;
+        }
+        for (int i = 0; i < nodes.size(); i++) {
+            level.get((int) ((long) i * level.size() / nodes.size())).connect(1000, nodes.get(i));
+        }
+        return net;
+    }
+
+    private List<SatConstraint> makeConstraints(Model mo, Random rnd, List<Node> nodes, List<VM> vms) {
+        Mapping ma = mo.getMapping();
+        List<VM> candidates = new ArrayList<>(vms);
+        Collections.shuffle(candidates, rnd);
+        int nb = (int) (density * vms.size());
+        List<SatConstraint> cstrs = new ArrayList<>();
+        int i = 0;
+        while (i < nb) {
+            VM v = candidates.get(i);
+            switch (cstrs.size() % 4) {
+                case 0:
+                    if (i + 1 < nb) {
+                        cstrs.add(new Spread(new HashSet<>(Arrays.asList(v, candidates.get(i + 1)))));
+                        i++;
+                    }
+                    break;
+                case 1:
+                    cstrs.add(new Ban(v, Collections.singleton(ma.getVMLocation(v))));
+                    break;
+                case 2:
+                    List<Node> half = new ArrayList<>(nodes.subList(0, Math.max(1, nodes.size() / 2)));
+                    if (!half.contains(ma.getVMLocation(v))) {
+                        half.add(ma.getVMLocation(v));
+                    }
+                    cstrs.add(new Fence(v, half));
+                    break;
+                default:
+                    cstrs.add(new Preserve(v, "cpu", 2));
+            }
+            i++;
+        }
+        return cstrs;
+    }
+}
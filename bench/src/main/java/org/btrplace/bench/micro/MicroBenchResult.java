@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.bench.micro;
+
+import net.minidev.json.JSONArray;
+import net.minidev.json.JSONObject;
+
+import java.util.Arrays;
+
+/**
+ * The samples measured for a benchmark.
+ */
+public class MicroBenchResult {
+
+    private final String id;
+
+    private final long[] samples;
+
+    /**
+     * Make a new result.
+     *
+     * @param id      the benchmark identifier
+     * @param samples the duration of each sample, in nanoseconds
+     */
+    public MicroBenchResult(String id, long[] samples) {
+        this.id = id;
+        this.samples = samples;
+    }
+
+    /**
+     * Get the benchmark identifier.
+     *
+     * @return a string
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Get the samples.
+     *
+     * @return durations in nanoseconds
+     */
+    public long[] getSamples() {
+        return samples;
+    }
+
+    /**
+     * Get the mean duration of an operation.
+     *
+     * @return a duration in nanoseconds
+     */
+    public double getMean() {
+        double sum = 0;
+        for (long s : samples) {
+            sum += s;
+        }
+        return samples.length == 0 ? 0 : sum / samples.length;
+    }
+
+    /**
+     * Get the standard deviation of the samples.
+     *
+     * @return a duration in nanoseconds
+     */
+    public double getStandardDeviation() {
+        double mean = getMean();
+        double sum = 0;
+        for (long s : samples) {
+            sum += (s - mean) * (s - mean);
+        }
+        return samples.length == 0 ? 0 : Math.sqrt(sum / samples.length);
+    }
+
+    /**
+     * Get the median duration.
+     *
+     * @return a duration in nanoseconds
+     */
+    public long getMedian() {
+        if (samples.length == 0) {
+            return 0;
+        }
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    /**
+     * Get the number of operations per second.
+     *
+     * @return a throughput
+     */
+    public double getThroughput() {
+        double mean = getMean();
+        return mean == 0 ? 0 : 1E9 / mean;
+    }
+
+    /**
+     * Export the result.
+     *
+     * @return a JSON object with the raw samples, the mean, the median, the standard deviation
+     * and the throughput
+     */
+    public JSONObject toJSON() {
+        JSONObject o = new JSONObject();
+        o.put("id", id);
+        JSONArray a = new JSONArray();
+        for (long s : samples) {
+            a.add(s);
+        }
+        o.put("samples", a);
+        o.put("mean", getMean());
+        o.put("median", getMedian());
+        o.put("stdev", getStandardDeviation());
+        o.put("opsPerSecond", getThroughput());
+        return o;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %.3f ms/op (median %.3f ms, stdev %.3f ms), %.2f ops/s",
+                id, getMean() / 1E6, getMedian() / 1E6, getStandardDeviation() / 1E6, getThroughput());
+    }
+}
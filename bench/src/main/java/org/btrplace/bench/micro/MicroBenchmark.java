@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.bench.micro;
+
+import org.btrplace.model.Instance;
+
+/**
+ * A micro-benchmark over an instance.
+ * For every sample, {@link #prepare(Instance)} is called first and is not measured,
+ * then {@link #run()} is measured.
+ */
+public abstract class MicroBenchmark {
+
+    private final String id;
+
+    /**
+     * Make a new benchmark.
+     *
+     * @param id the benchmark identifier
+     */
+    protected MicroBenchmark(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Get the benchmark identifier.
+     *
+     * @return a non-empty string
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Prepare the next sample. The default implementation does nothing.
+     *
+     * @param i the instance to bench
+     * @throws Exception if an error occurred
+     */
+    public void prepare(Instance i) throws Exception {
+        //Nothing by default
+    }
+
+    /**
+     * Run the measured operation.
+     *
+     * @throws Exception if an error occurred
+     */
+    public abstract void run() throws Exception;
+}
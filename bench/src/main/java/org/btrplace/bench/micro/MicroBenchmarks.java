@@ -0,0 +1,383 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.bench.micro;
+
+import org.btrplace.json.model.InstanceConverter;
+import org.btrplace.json.model.constraint.ConstraintsConverter;
+import org.btrplace.json.model.view.ModelViewsConverter;
+import org.btrplace.model.Instance;
+import org.btrplace.model.Mapping;
+import org.btrplace.model.Model;
+import org.btrplace.model.Node;
+import org.btrplace.model.VM;
+import org.btrplace.model.VMState;
+import org.btrplace.model.constraint.Constraint;
+import org.btrplace.model.constraint.Killed;
+import org.btrplace.model.constraint.MinMTTR;
+import org.btrplace.model.constraint.OptConstraint;
+import org.btrplace.model.constraint.Ready;
+import org.btrplace.model.constraint.Running;
+import org.btrplace.model.constraint.SatConstraint;
+import org.btrplace.model.constraint.Sleeping;
+import org.btrplace.model.view.ModelView;
+import org.btrplace.model.view.net.NetworkView;
+import org.btrplace.model.view.power.PowerBudget;
+import org.btrplace.plan.DefaultReconfigurationPlan;
+import org.btrplace.plan.ReconfigurationPlan;
+import org.btrplace.plan.ReconfigurationPlanChecker;
+import org.btrplace.plan.event.MigrateVM;
+import org.btrplace.scheduler.SchedulerException;
+import org.btrplace.scheduler.choco.DefaultChocoScheduler;
+import org.btrplace.scheduler.choco.DefaultParameters;
+import org.btrplace.scheduler.choco.DefaultReconfigurationProblem;
+import org.btrplace.scheduler.choco.DefaultReconfigurationProblemBuilder;
+import org.btrplace.scheduler.choco.Parameters;
+import org.btrplace.scheduler.choco.ReconfigurationProblem;
+import org.btrplace.scheduler.choco.constraint.ChocoConstraint;
+import org.btrplace.scheduler.choco.constraint.ChocoConstraintBuilder;
+import org.btrplace.scheduler.choco.view.net.CMinMTTRObjective;
+import org.btrplace.scheduler.choco.view.net.MigrateVMTransition;
+import org.btrplace.scheduler.choco.view.power.CPowerBudget;
+import org.chocosolver.solver.Cause;
+import org.chocosolver.solver.exception.ContradictionException;
+
+import java.util.*;
+
+/**
+ * The bundled micro-benchmarks.
+ */
+public final class MicroBenchmarks {
+
+    /**
+     * The maximum number of actions in the plan of {@link #newCloneApply()}.
+     */
+    public static final int NB_MIGRATIONS = 1000;
+
+    private MicroBenchmarks() {
+    }
+
+    /**
+     * Make the parameters to solve an instance.
+     * The network-aware migrations and objective are enabled if the instance has a {@link NetworkView},
+     * the power budgets are supported if the instance has a {@link PowerBudget}.
+     *
+     * @param i the instance
+     * @return the parameters, without any time limit and without optimisation
+     */
+    public static DefaultParameters configure(Instance i) {
+        DefaultParameters ps = new DefaultParameters();
+        ps.doOptimize(false);
+        if (i.getModel().getView(NetworkView.VIEW_ID) != null) {
+            ps.getTransitionFactory().remove(ps.getTransitionFactory().getBuilder(VMState.RUNNING, VMState.RUNNING));
+            ps.getTransitionFactory().add(new MigrateVMTransition.Builder());
+            ps.getConstraintMapper().register(new CMinMTTRObjective.Builder());
+        }
+        for (SatConstraint c : i.getSatConstraints()) {
+            if (c instanceof PowerBudget) {
+                ps.getConstraintMapper().register(new CPowerBudget.Builder());
+                break;
+            }
+        }
+        return ps;
+    }
+
+    /**
+     * Build the problem of an instance like the scheduler does before solving it.
+     * The core problem is built with the next state of the VMs stated by the constraints,
+     * the constraints and the objective are injected, then the views are completed
+     * using {@link DefaultReconfigurationProblem#beforeSolve()}.
+     *
+     * @param i  the instance
+     * @param ps the parameters
+     * @return the problem, ready to be solved
+     * @throws SchedulerException if the problem cannot be built or has no solution
+     */
+    public static DefaultReconfigurationProblem makeProblem(Instance i, Parameters ps) throws SchedulerException {
+        Model mo = i.getModel();
+        Set<VM> toRun = new HashSet<>();
+        Set<VM> toForge = new HashSet<>();
+        Set<VM> toKill = new HashSet<>();
+        Set<VM> toSleep = new HashSet<>();
+        List<ChocoConstraint> cstrs = new ArrayList<>();
+        for (SatConstraint c : i.getSatConstraints()) {
+            if (c instanceof Running) {
+                toRun.addAll(c.getInvolvedVMs());
+            } else if (c instanceof Sleeping) {
+                toSleep.addAll(c.getInvolvedVMs());
+            } else if (c instanceof Ready) {
+                toForge.addAll(c.getInvolvedVMs());
+            } else if (c instanceof Killed) {
+                toKill.addAll(c.getInvolvedVMs());
+            }
+            cstrs.add(map(mo, ps, c));
+        }
+        cstrs.add(map(mo, ps, i.getOptConstraint()));
+
+        DefaultReconfigurationProblemBuilder rpb = new DefaultReconfigurationProblemBuilder(mo)
+                .setNextVMsStates(toForge, toRun, toSleep, toKill)
+                .setParams(ps);
+        if (ps.doRepair()) {
+            Set<VM> toManage = new HashSet<>();
+            for (ChocoConstraint c : cstrs) {
+                toManage.addAll(c.getMisPlacedVMs(mo));
+            }
+            rpb.setManageableVMs(toManage);
+        }
+        DefaultReconfigurationProblem rp = rpb.build();
+        try {
+            rp.getEnd().updateUpperBound(ps.getMaxEnd(), Cause.Null);
+        } catch (ContradictionException e) {
+            throw new SchedulerException(mo, "Unable to restrict the maximum plan duration to " + ps.getMaxEnd(), e);
+        }
+        for (ChocoConstraint c : cstrs) {
+            if (!c.inject(rp)) {
+                throw new SchedulerException(mo, "No solution: unable to inject " + c);
+            }
+        }
+        if (!rp.beforeSolve()) {
+            throw new SchedulerException(mo, "No solution");
+        }
+        return rp;
+    }
+
+    private static ChocoConstraint map(Model mo, Parameters ps, Constraint c) throws SchedulerException {
+        ChocoConstraintBuilder b = ps.getConstraintMapper().getBuilder(c.getClass());
+        if (b == null) {
+            throw new SchedulerException(mo, "Unable to map constraint '" + c.getClass().getSimpleName() + "'");
+        }
+        return b.build(c);
+    }
+
+    /**
+     * Get all the bundled benchmarks.
+     *
+     * @return the benchmarks building a problem, propagating it, computing a first solution,
+     * checking a plan, converting the instance from and to JSON and applying a plan
+     */
+    public static List<MicroBenchmark> all() {
+        return new ArrayList<>(Arrays.asList(newBuild(), newPropagate(), newFirstSolution(), newPlanCheck(),
+                newJSONRoundTrip(), newCloneApply()));
+    }
+
+    /**
+     * Bench the construction of a problem, as made by {@link #makeProblem(Instance, Parameters)}.
+     *
+     * @return a new benchmark
+     */
+    public static MicroBenchmark newBuild() {
+        return new MicroBenchmark("build") {
+            private Instance instance;
+
+            private DefaultParameters ps;
+
+            @Override
+            public void prepare(Instance i) {
+                instance = i;
+                ps = configure(i);
+            }
+
+            @Override
+            public void run() throws SchedulerException {
+                makeProblem(instance, ps);
+            }
+        };
+    }
+
+    /**
+     * Bench the initial propagation of a problem that is built beforehand
+     * using {@link #makeProblem(Instance, Parameters)}.
+     *
+     * @return a new benchmark
+     */
+    public static MicroBenchmark newPropagate() {
+        return new MicroBenchmark("propagate") {
+            private ReconfigurationProblem rp;
+
+            @Override
+            public void prepare(Instance i) throws SchedulerException {
+                rp = makeProblem(i, configure(i));
+            }
+
+            @Override
+            public void run() throws Exception {
+                rp.getSolver().propagate();
+            }
+        };
+    }
+
+    /**
+     * Bench the time to compute a first solution, problem building included.
+     *
+     * @return a new benchmark
+     */
+    public static MicroBenchmark newFirstSolution() {
+        return new MicroBenchmark("firstSolution") {
+            private Instance instance;
+
+            private DefaultChocoScheduler cra;
+
+            @Override
+            public void prepare(Instance i) {
+                instance = i;
+                cra = new DefaultChocoScheduler(configure(i));
+            }
+
+            @Override
+            public void run() throws SchedulerException {
+                if (cra.solve(instance) == null) {
+                    throw new SchedulerException(instance.getModel(), "No solution");
+                }
+            }
+        };
+    }
+
+    /**
+     * Bench the checking of a plan against the constraints of the instance.
+     * The plan is computed once.
+     *
+     * @return a new benchmark
+     */
+    public static MicroBenchmark newPlanCheck() {
+        return new MicroBenchmark("planCheck") {
+            private Instance instance;
+
+            private ReconfigurationPlan plan;
+
+            @Override
+            public void prepare(Instance i) throws SchedulerException {
+                if (instance != i) {
+                    instance = i;
+                    plan = new DefaultChocoScheduler(configure(i)).solve(i);
+                    if (plan == null) {
+                        throw new SchedulerException(i.getModel(), "No solution");
+                    }
+                }
+            }
+
+            @Override
+            public void run() throws Exception {
+                ReconfigurationPlanChecker chk = new ReconfigurationPlanChecker();
+                for (SatConstraint c : instance.getSatConstraints()) {
+                    chk.addChecker(c.getChecker());
+                }
+                chk.check(plan);
+            }
+        };
+    }
+
+    /**
+     * Bench the serialisation of the instance to JSON then its un-serialisation.
+     * The views and the constraints that have no JSON converter are removed beforehand.
+     * When the objective has no converter, {@link MinMTTR} is used instead.
+     *
+     * @return a new benchmark
+     */
+    public static MicroBenchmark newJSONRoundTrip() {
+        return new MicroBenchmark("jsonRoundTrip") {
+            private Instance origin;
+
+            private Instance instance;
+
+            private InstanceConverter conv = new InstanceConverter();
+
+            @Override
+            public void prepare(Instance i) {
+                if (origin != i) {
+                    origin = i;
+                    instance = toConvertible(i);
+                }
+            }
+
+            @Override
+            public void run() throws Exception {
+                StringBuilder b = new StringBuilder();
+                conv.toJSON(instance, b);
+                conv.fromJSON(b.toString());
+            }
+        };
+    }
+
+    /**
+     * Bench the computation of the resulting model of a plan, so the cloning of the source model
+     * then the application of the actions.
+     * The plan is made of up to {@link #NB_MIGRATIONS} migrations, each running VM being moved to the next online node.
+     *
+     * @return a new benchmark
+     */
+    public static MicroBenchmark newCloneApply() {
+        return new MicroBenchmark("cloneApply") {
+            private ReconfigurationPlan plan;
+
+            @Override
+            public void prepare(Instance i) {
+                if (plan == null || plan.getOrigin() != i.getModel()) {
+                    plan = makeMigrations(i.getModel(), NB_MIGRATIONS);
+                }
+            }
+
+            @Override
+            public void run() throws SchedulerException {
+                if (plan.getResult() == null) {
+                    throw new SchedulerException(plan.getOrigin(), "Unable to apply the plan");
+                }
+            }
+        };
+    }
+
+    private static ReconfigurationPlan makeMigrations(Model mo, int nb) {
+        Mapping map = mo.getMapping();
+        List<Node> online = new ArrayList<>(map.getOnlineNodes());
+        ReconfigurationPlan p = new DefaultReconfigurationPlan(mo);
+        if (online.size() < 2) {
+            return p;
+        }
+        Map<Node, Integer> index = new HashMap<>();
+        for (Node n : online) {
+            index.put(n, index.size());
+        }
+        for (VM v : map.getRunningVMs()) {
+            if (p.getSize() == nb) {
+                break;
+            }
+            Node src = map.getVMLocation(v);
+            Node dst = online.get((index.get(src) + 1) % online.size());
+            p.add(new MigrateVM(v, src, dst, 0, 1));
+        }
+        return p;
+    }
+
+    private static Instance toConvertible(Instance i) {
+        Set<Class<? extends ModelView>> views = ModelViewsConverter.newBundle().getSupportedJavaViews();
+        Set<Class<? extends Constraint>> cstrs = ConstraintsConverter.newBundle().getSupportedJavaConstraints();
+        Model mo = i.getModel().clone();
+        for (ModelView v : new ArrayList<>(mo.getViews())) {
+            if (!views.contains(v.getClass())) {
+                mo.detach(v);
+            }
+        }
+        List<SatConstraint> sat = new ArrayList<>();
+        for (SatConstraint c : i.getSatConstraints()) {
+            if (cstrs.contains(c.getClass())) {
+                sat.add(c);
+            }
+        }
+        OptConstraint opt = i.getOptConstraint();
+        return new Instance(mo, sat, cstrs.contains(opt.getClass()) ? opt : new MinMTTR());
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.bench.micro;
+
+import net.minidev.json.JSONArray;
+import net.minidev.json.JSONObject;
+import org.btrplace.model.Instance;
+import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.CmdLineParser;
+import org.kohsuke.args4j.Option;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Run the micro-benchmarks on a generated instance.
+ * Each benchmark is warmed-up, then sampled. The results are printed
+ * and can be exported as a JSON document to track them over time.
+ */
+public class MicroLauncher {
+
+    @Option(name = "-n", aliases = "--nodes", usage = "The number of nodes")
+    private int nodes = 100;
+    @Option(name = "-v", aliases = "--vms", usage = "The number of VMs")
+    private int vms = 400;
+    @Option(name = "-d", aliases = "--density", usage = "The fraction of VMs involved in constraints")
+    private double density = 0.2;
+    @Option(name = "-l", aliases = "--depth", usage = "The depth of the network topology, 0 for no network")
+    private int depth = 0;
+    @Option(name = "-p", aliases = "--power", usage = "The power budget as a ratio of the consumption, 0 for no budget")
+    private double power = 0;
+    @Option(name = "-s", aliases = "--seed", usage = "The seed for the instance generator")
+    private long seed = 0;
+    @Option(name = "-w", aliases = "--warmup", usage = "The number of warm-up iterations")
+    private int warmups = 3;
+    @Option(name = "-i", aliases = "--iterations", usage = "The number of measured iterations")
+    private int iterations = 10;
+    @Option(name = "-b", aliases = "--benchmarks", usage = "Comma-separated identifiers of the benchmarks to run")
+    private String benchmarks;
+    @Option(name = "-o", aliases = "--output", usage = "The JSON file to write the results to")
+    private String output;
+
+    public static void main(String[] args) throws Exception {
+        new MicroLauncher().doMain(args);
+    }
+
+    public void doMain(String[] args) throws Exception {
+        CmdLineParser cmdParser = new CmdLineParser(this);
+        cmdParser.setUsageWidth(80);
+        try {
+            cmdParser.parseArgument(args);
+            if (nodes <= 0 || vms < 0 || iterations <= 0) {
+                throw new CmdLineException("The number of nodes and iterations must be positive");
+            }
+        } catch (CmdLineException e) {
+            System.err.println(e.getMessage());
+            System.err.println("microBenchLauncher [-n nodes] [-v vms] [-d density] [-l depth] [-p ratio] [-s seed] " +
+                    "[-w warmups] [-i iterations] [-b ids] [-o file]");
+            cmdParser.printUsage(System.err);
+            return;
+        }
+
+        Instance i = new InstanceGenerator().setNodes(nodes).setVMs(vms)
+                .setConstraintDensity(density).setTopologyDepth(depth)
+                .setPowerRatio(power).setSeed(seed).build();
+
+        List<MicroBenchResult> results = new ArrayList<>();
+        for (MicroBenchmark b : select(benchmarks)) {
+            MicroBenchResult r = measure(b, i, warmups, iterations);
+            System.out.println(r);
+            results.add(r);
+        }
+        if (output != null) {
+            try (FileWriter out = new FileWriter(output)) {
+                toJSON(results).writeJSONString(out);
+            }
+        }
+    }
+
+    private static List<MicroBenchmark> select(String ids) {
+        List<MicroBenchmark> all = MicroBenchmarks.all();
+        if (ids == null) {
+            return all;
+        }
+        List<String> wanted = Arrays.asList(ids.split(","));
+        List<MicroBenchmark> res = new ArrayList<>();
+        for (MicroBenchmark b : all) {
+            if (wanted.contains(b.getId())) {
+                res.add(b);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Measure a benchmark.
+     *
+     * @param b          the benchmark
+     * @param i          the instance to bench
+     * @param warmups    the number of iterations to run before measuring
+     * @param iterations the number of measured iterations
+     * @return the result
+     * @throws Exception if the benchmark failed
+     */
+    public static MicroBenchResult measure(MicroBenchmark b, Instance i, int warmups, int iterations) throws Exception {
+        for (int x = 0; x < warmups; x++) {
+            b.prepare(i);
+            b.run();
+        }
+        long[] samples = new long[iterations];
+        for (int x = 0; x < iterations; x++) {
+            b.prepare(i);
+            long st = System.nanoTime();
+            b.run();
+            samples[x] = System.nanoTime() - st;
+        }
+        return new MicroBenchResult(b.getId(), samples);
+    }
+
+    /**
+     * Export the parameters and the results.
+     *
+     * @param results the results to export
+     * @return a JSON object
+     */
+    public JSONObject toJSON(List<MicroBenchResult> results) {
+        JSONObject params = new JSONObject();
+        params.put("nodes", nodes);
+        params.put("vms", vms);
+        params.put("density", density);
+        params.put("depth", depth);
+        params.put("power", power);
+        params.put("seed", seed);
+        params.put("warmups", warmups);
+        params.put("iterations", iterations);
+        JSONArray rs = new JSONArray();
+        for (MicroBenchResult r : results) {
+            rs.add(r.toJSON());
+        }
+        JSONObject o = new JSONObject();
+        o.put("timestamp", System.currentTimeMillis());
+        o.put("parameters", params);
+        o.put("results", rs);
+        return o;
+    }
+}
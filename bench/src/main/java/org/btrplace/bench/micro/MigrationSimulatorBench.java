@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.bench.micro;
+
+import org.btrplace.model.Attributes;
+import org.btrplace.model.DefaultModel;
+import org.btrplace.model.Mapping;
+import org.btrplace.model.Model;
+import org.btrplace.model.Node;
+import org.btrplace.model.VM;
+import org.btrplace.model.view.net.NetworkView;
+import org.btrplace.model.view.net.Switch;
+import org.btrplace.plan.DefaultReconfigurationPlan;
+import org.btrplace.plan.ReconfigurationPlan;
+import org.btrplace.plan.event.MigrateVM;
+import org.btrplace.simgrid.MigrationSimulator;
+import org.btrplace.simgrid.SimulationResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Bench the replay of plans by a {@link MigrationSimulator}.
+ * The topology is a two-level tree: a core switch connects racks of 40 nodes.
+ * Each plan has its own model over the same nodes. It migrates VMs between random nodes, at random
+ * moments, with a random bandwidth, so the migrations contend on the node links and on the rack uplinks.
+ * The bench reports the time to simulate each plan with a single simulator,
+ * and the resulting number of plans per minute.
+ * <p>
+ * Usage: {@code MigrationSimulatorBench [nbNodes] [nbMigrations] [nbPlans]}
+ */
+public class MigrationSimulatorBench {
+
+    private static final int RACK_SIZE = 40;
+
+    private static NetworkView makeTopology(Model mo, List<Node> nodes, int nbNodes) {
+        Mapping map = mo.getMapping();
+        NetworkView net = new NetworkView();
+        Switch core = net.newSwitch();
+        Switch rack = null;
+        for (int i = 0; i < nbNodes; i++) {
+            if (i % RACK_SIZE == 0) {
+                rack = net.newSwitch(10000);
+                core.connect(10000, rack);
+            }
+            Node n = mo.newNode();
+            map.addOnlineNode(n);
+            rack.connect(1000, n);
+            nodes.add(n);
+        }
+        mo.attach(net);
+        return net;
+    }
+
+    private static ReconfigurationPlan makePlan(List<Node> nodes, int nbMigrations, Random rnd) {
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        for (Node n : nodes) {
+            map.addOnlineNode(n);
+        }
+        Attributes attrs = mo.getAttributes();
+        ReconfigurationPlan plan = new DefaultReconfigurationPlan(mo);
+        for (int i = 0; i < nbMigrations; i++) {
+            Node src = nodes.get(rnd.nextInt(nodes.size()));
+            Node dst = nodes.get(rnd.nextInt(nodes.size()));
+            while (dst.equals(src)) {
+                dst = nodes.get(rnd.nextInt(nodes.size()));
+            }
+            VM v = mo.newVM();
+            map.addRunningVM(v, src);
+            attrs.put(v, "memUsed", 512 + rnd.nextInt(3584));
+            attrs.put(v, "dirtyRate", rnd.nextInt(8) / 2.0);
+            attrs.put(v, "maxDirtySize", 4 + rnd.nextInt(12));
+            attrs.put(v, "maxDirtyDuration", 2 + rnd.nextInt(4));
+            int st = rnd.nextInt(120);
+            plan.add(new MigrateVM(v, src, dst, st, st + 40, 100 * (3 + rnd.nextInt(8))));
+        }
+        return plan;
+    }
+
+    public static void main(String[] args) {
+        int nbNodes = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int nbMigrations = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int nbPlans = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        for (int r = 0; r < 5; r++) {
+            Random rnd = new Random(r);
+            Model mo = new DefaultModel();
+            List<Node> nodes = new ArrayList<>(nbNodes);
+            NetworkView net = makeTopology(mo, nodes, nbNodes);
+            List<ReconfigurationPlan> plans = new ArrayList<>(nbPlans);
+            for (int i = 0; i < nbPlans; i++) {
+                plans.add(makePlan(nodes, nbMigrations, rnd));
+            }
+            MigrationSimulator sim = new MigrationSimulator(net);
+            double makespan = 0;
+            int completed = 0;
+            long st = System.nanoTime();
+            for (ReconfigurationPlan p : plans) {
+                SimulationResult res = sim.simulate(p);
+                if (res.isCompleted()) {
+                    makespan += res.getMakespan();
+                    completed++;
+                }
+            }
+            long d = System.nanoTime() - st;
+            double perPlan = d / 1000000.0 / nbPlans;
+            System.out.println(nbPlans + " plans of " + nbMigrations + " migrations on " + nbNodes + " nodes: "
+                    + String.format("%.2f", perPlan) + " ms per plan, " + (long) (60000 / perPlan)
+                    + " plans per minute; " + completed + " plans completed, mean makespan "
+                    + String.format("%.1f", makespan / completed) + " s");
+        }
+    }
+}
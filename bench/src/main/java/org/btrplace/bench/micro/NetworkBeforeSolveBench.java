@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.bench.micro;
+
+import org.btrplace.model.*;
+import org.btrplace.model.view.net.NetworkView;
+import org.btrplace.model.view.net.Switch;
+import org.btrplace.scheduler.SchedulerException;
+import org.btrplace.scheduler.choco.DefaultParameters;
+import org.btrplace.scheduler.choco.DefaultReconfigurationProblemBuilder;
+import org.btrplace.scheduler.choco.Parameters;
+import org.btrplace.scheduler.choco.ReconfigurationProblem;
+import org.btrplace.scheduler.choco.view.net.CNetworkView;
+import org.btrplace.scheduler.choco.view.net.MigrateVMTransition;
+import org.chocosolver.solver.Cause;
+import org.chocosolver.solver.exception.ContradictionException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bench the construction of the network model.
+ * A 3-levels tree is made, then a growing number of VMs is migrated
+ * between the two halves of the tree to report the time spent in
+ * {@link CNetworkView#beforeSolve(ReconfigurationProblem)}.
+ * The problem is built beforehand and the destination of each migration is fixed.
+ * <p>
+ * With the {@code free} mode, the destinations are left to the solver on a smaller tree,
+ * so the view ties each migration to every network element a candidate path crosses.
+ * The number of posted constraints is then reported too.
+ * <p>
+ * Usage: {@code NetworkBeforeSolveBench [maxMigrations] [nbSamples] [free]}
+ */
+public class NetworkBeforeSolveBench {
+
+    private static ReconfigurationProblem makeProblem(int nbMigrations, int nbEdges, int edgeSize, boolean free)
+            throws SchedulerException, ContradictionException {
+        Model mo = new DefaultModel();
+        Mapping ma = mo.getMapping();
+        NetworkView net = new NetworkView();
+        Switch core = net.newSwitch();
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < nbEdges; i++) {
+            Switch agg = net.newSwitch();
+            core.connect(10000, agg);
+            Switch edge = net.newSwitch(20000);
+            agg.connect(10000, edge);
+            for (int j = 0; j < edgeSize; j++) {
+                Node n = mo.newNode();
+                ma.addOnlineNode(n);
+                edge.connect(1000, n);
+                nodes.add(n);
+            }
+        }
+        mo.attach(net);
+
+        // Migrate each VM to the mirror node in the other half of the tree
+        List<VM> vms = new ArrayList<>(nbMigrations);
+        for (int i = 0; i < nbMigrations; i++) {
+            VM v = mo.newVM();
+            ma.addRunningVM(v, nodes.get(i % (nodes.size() / 2)));
+            mo.getAttributes().put(v, "memUsed", 1000);
+            mo.getAttributes().put(v, "dirtyRate", 2.0);
+            mo.getAttributes().put(v, "maxDirtySize", 10);
+            mo.getAttributes().put(v, "maxDirtyDuration", 2);
+            vms.add(v);
+        }
+
+        Parameters ps = new DefaultParameters();
+        ps.getTransitionFactory().remove(ps.getTransitionFactory().getBuilder(VMState.RUNNING, VMState.RUNNING));
+        ps.getTransitionFactory().add(new MigrateVMTransition.Builder());
+        ReconfigurationProblem rp = new DefaultReconfigurationProblemBuilder(mo).setParams(ps).build();
+        if (free) {
+            return rp;
+        }
+        for (VM v : vms) {
+            Node dst = nodes.get(nodes.size() - 1 - nodes.indexOf(ma.getVMLocation(v)));
+            rp.getVMAction(v).getDSlice().getHoster().instantiateTo(rp.getNode(dst), Cause.Null);
+        }
+        return rp;
+    }
+
+    /**
+     * Measure the construction of the network model.
+     *
+     * @param nbSamples    the number of problems to measure
+     * @param nbMigrations the number of migrations in each problem
+     * @param free         {@code true} to leave the destinations to the solver
+     * @return the mean duration in milliseconds and the number of posted constraints
+     */
+    public static long[] bench(int nbSamples, int nbMigrations, boolean free)
+            throws SchedulerException, ContradictionException {
+        long total = 0;
+        long nbCstrs = 0;
+        for (int x = 0; x < nbSamples; x++) {
+            ReconfigurationProblem rp = free ? makeProblem(nbMigrations, 10, 20, true)
+                    : makeProblem(nbMigrations, 50, 100, false);
+            CNetworkView v = (CNetworkView) rp.getView(CNetworkView.VIEW_ID);
+            int before = rp.getSolver().getNbCstrs();
+            long start = System.nanoTime();
+            v.beforeSolve(rp);
+            total += System.nanoTime() - start;
+            nbCstrs = rp.getSolver().getNbCstrs() - before;
+        }
+        return new long[]{total / nbSamples / 1000000, nbCstrs};
+    }
+
+    public static void main(String[] args) throws SchedulerException, ContradictionException {
+        boolean free = args.length > 2 && "free".equals(args[2]);
+        int maxMigrations = args.length > 0 ? Integer.parseInt(args[0]) : (free ? 1000 : 10000);
+        int nbSamples = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int step = maxMigrations / 10;
+        //Warm-up
+        bench(nbSamples, step, free);
+        for (int i = step; i <= maxMigrations; i += step) {
+            long[] res = bench(nbSamples, i, free);
+            System.out.println(i + " migrations: " + res[0] + " ms" + (free ? ", " + res[1] + " constraints" : ""));
+        }
+    }
+}
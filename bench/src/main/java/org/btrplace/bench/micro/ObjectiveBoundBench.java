@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.bench.micro;
+
+import org.btrplace.model.DefaultModel;
+import org.btrplace.model.Mapping;
+import org.btrplace.model.Model;
+import org.btrplace.model.Node;
+import org.btrplace.scheduler.SchedulerException;
+import org.btrplace.scheduler.choco.AlteredObjectiveManager;
+import org.btrplace.scheduler.choco.DefaultReconfigurationProblemBuilder;
+import org.btrplace.scheduler.choco.ReconfigurationProblem;
+import org.btrplace.scheduler.choco.SliceUtils;
+import org.btrplace.scheduler.choco.transition.TransitionUtils;
+import org.chocosolver.solver.ResolutionPolicy;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.ICF;
+import org.chocosolver.solver.objective.ObjectiveManager;
+import org.chocosolver.solver.search.loop.monitors.IMonitorSolution;
+import org.chocosolver.solver.search.strategy.ISF;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.VF;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bench the bounding of the objective during an optimisation process.
+ * The sum of the VM hosters is minimised, with either a new constraint posted
+ * on each solution (the legacy approach) or the {@link AlteredObjectiveManager}.
+ * The legacy approach is obtained by installing an objective manager before solving.
+ * The node throughput is reported for the second half of the solutions, when
+ * the legacy approach has accumulated many constraints.
+ * <p>
+ * Usage: {@code ObjectiveBoundBench [nbNodes] [timeLimit]}
+ */
+public class ObjectiveBoundBench {
+
+    private static ReconfigurationProblem makeProblem(int nbNodes, int nbVMs) throws SchedulerException {
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        List<Node> ns = new ArrayList<>();
+        for (int i = 0; i < nbNodes; i++) {
+            Node n = mo.newNode();
+            map.addOnlineNode(n);
+            ns.add(n);
+        }
+        for (int i = 0; i < nbVMs; i++) {
+            map.addRunningVM(mo.newVM(), ns.get(i % nbNodes));
+        }
+        return new DefaultReconfigurationProblemBuilder(mo).build();
+    }
+
+    public static void bench(boolean legacy, int nbNodes, int nbVMs, int timeLimit) throws SchedulerException {
+        ReconfigurationProblem rp = makeProblem(nbNodes, nbVMs);
+        Solver s = rp.getSolver();
+        IntVar[] hosters = SliceUtils.extractHoster(TransitionUtils.getDSlices(rp.getVMActions()));
+        IntVar sum = VF.bounded("sum", 0, nbVMs * nbNodes, s);
+        s.post(ICF.sum(hosters, sum));
+        rp.setObjective(true, sum);
+        //Start from the worst placement so each solution only improves the previous one by a few units
+        s.set(ISF.lexico_UB(hosters));
+        if (legacy) {
+            //An installed manager makes the problem post the alterer bound on each solution
+            s.set(new ObjectiveManager<IntVar, Integer>(sum, ResolutionPolicy.MINIMIZE, true));
+        }
+        List<long[]> marks = new ArrayList<>();
+        s.plugMonitor((IMonitorSolution) () ->
+                marks.add(new long[]{s.getMeasures().getNodeCount(), (long) (s.getMeasures().getTimeCount() * 1000)}));
+        rp.solve(timeLimit, true);
+
+        long[] mid = marks.get(marks.size() / 2);
+        long[] last = marks.get(marks.size() - 1);
+        long nodes = last[0] - mid[0];
+        long ms = Math.max(1, last[1] - mid[1]);
+        System.out.println((legacy ? "legacy " : "altered") + " " + nbNodes + " nodes, " + nbVMs + " VMs: "
+                + marks.size() + " solutions; " + s.getNbCstrs() + " constraints; "
+                + (nodes * 1000 / ms) + " nodes/s in late search");
+    }
+
+    public static void main(String[] args) throws SchedulerException {
+        int nbNodes = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int timeLimit = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        //Warm-up
+        bench(true, 20, 100, 5);
+        bench(false, 20, 100, 5);
+        for (int nbVMs = 100; nbVMs <= 400; nbVMs *= 2) {
+            bench(true, nbNodes, nbVMs, timeLimit);
+            bench(false, nbNodes, nbVMs, timeLimit);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.bench.micro;
+
+import org.btrplace.model.DefaultModel;
+import org.btrplace.model.Mapping;
+import org.btrplace.model.Model;
+import org.btrplace.model.Node;
+import org.btrplace.model.VM;
+import org.btrplace.plan.DefaultReconfigurationPlan;
+import org.btrplace.plan.DefaultReconfigurationPlanMonitor;
+import org.btrplace.plan.ReconfigurationPlan;
+import org.btrplace.plan.ReconfigurationPlanMonitor;
+import org.btrplace.plan.event.Action;
+import org.btrplace.plan.event.BootNode;
+import org.btrplace.plan.event.MigrateVM;
+
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stress the commit of a plan in a {@link DefaultReconfigurationPlanMonitor} by concurrent actuators.
+ * The plan boots some nodes and migrates 3 VMs on each booted node, so each
+ * migration depends on a boot action. The actuators take the unblocked actions
+ * from a shared queue, commit them, then queue the actions they released.
+ * <p>
+ * Usage: {@code PlanMonitorBench [nbActions] [maxThreads]}
+ */
+public class PlanMonitorBench {
+
+    private static ReconfigurationPlan makePlan(int nbActions) {
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        Node src = mo.newNode();
+        map.addOnlineNode(src);
+        ReconfigurationPlan plan = new DefaultReconfigurationPlan(mo);
+        for (int i = 0; i < nbActions / 4; i++) {
+            Node n = mo.newNode();
+            map.addOfflineNode(n);
+            plan.add(new BootNode(n, 0, 1));
+            for (int j = 0; j < 3; j++) {
+                VM v = mo.newVM();
+                map.addRunningVM(v, src);
+                plan.add(new MigrateVM(v, src, n, 1, 2));
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Commit the whole plan.
+     *
+     * @return the duration in milliseconds
+     */
+    private static long run(ReconfigurationPlan plan, int nbThreads) throws InterruptedException {
+        ReconfigurationPlanMonitor mon = new DefaultReconfigurationPlanMonitor(plan);
+        LinkedBlockingQueue<Action> todo = new LinkedBlockingQueue<>();
+        for (Action a : plan.getActions()) {
+            if (!mon.isBlocked(a)) {
+                todo.add(a);
+            }
+        }
+        AtomicInteger left = new AtomicInteger(plan.getSize());
+        CountDownLatch done = new CountDownLatch(nbThreads);
+        long st = System.nanoTime();
+        for (int i = 0; i < nbThreads; i++) {
+            new Thread(() -> {
+                try {
+                    while (left.get() > 0) {
+                        Action a = todo.poll();
+                        if (a == null) {
+                            continue;
+                        }
+                        Set<Action> released = mon.commit(a);
+                        if (released == null) {
+                            throw new IllegalStateException("Unable to commit " + a);
+                        }
+                        todo.addAll(released);
+                        left.decrementAndGet();
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+        long ed = System.nanoTime();
+        if (mon.getNbCommitted() != plan.getSize()) {
+            throw new IllegalStateException(mon.getNbCommitted() + " committed action(s) out of " + plan.getSize());
+        }
+        return (ed - st) / 1000000;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int nbActions = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : 2 * Runtime.getRuntime().availableProcessors();
+        ReconfigurationPlan plan = makePlan(nbActions);
+        //Warm up, and compute the dependencies once
+        plan.getDirectDependencies(plan.getActions().iterator().next());
+        for (int i = 0; i < 3; i++) {
+            run(plan, 1);
+        }
+        for (int nb = 1; nb <= maxThreads; nb *= 2) {
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < 5; i++) {
+                best = Math.min(best, run(plan, nb));
+            }
+            System.out.println(nb + " thread(s): " + plan.getSize() + " actions committed in " + best + " ms");
+        }
+    }
+}
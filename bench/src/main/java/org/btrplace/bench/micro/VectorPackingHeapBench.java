@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.bench.micro;
+
+import org.btrplace.scheduler.choco.extensions.pack.VectorPacking;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.search.loop.monitors.SMF;
+import org.chocosolver.solver.search.strategy.ISF;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.VF;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Bench the heap of {@link org.btrplace.scheduler.choco.extensions.pack.VectorPackingHeapDecorator}.
+ * Items are packed on bins along 3 dimensions, with a random search limited in nodes.
+ * Each item can only be hosted by a few random bins.
+ * The bins are nearly full so the propagator faces many backtracks.
+ * <p>
+ * Usage: {@code VectorPackingHeapBench [nbBins] [nbNodes]}
+ */
+public class VectorPackingHeapBench {
+
+    private static Solver makeSolver(int nbBins, long seed) {
+        int nbDims = 3;
+        int nbItems = nbBins * 3;
+        Random rnd = new Random(seed);
+        Solver s = new Solver();
+        IntVar[][] loads = new IntVar[nbDims][nbBins];
+        int[][] sizes = new int[nbDims][nbItems];
+        String[] names = new String[nbDims];
+        for (int d = 0; d < nbDims; d++) {
+            names[d] = "d" + d;
+            for (int b = 0; b < nbBins; b++) {
+                loads[d][b] = VF.bounded("l" + d + "." + b, 0, 20, s);
+            }
+            for (int i = 0; i < nbItems; i++) {
+                sizes[d][i] = 1 + rnd.nextInt(8);
+            }
+        }
+        //Every item may only go on a few bins, otherwise the trail explodes
+        IntVar[] bins = new IntVar[nbItems];
+        for (int i = 0; i < nbItems; i++) {
+            int[] candidates = new int[8];
+            for (int c = 0; c < candidates.length; c++) {
+                candidates[c] = rnd.nextInt(nbBins);
+            }
+            Arrays.sort(candidates);
+            bins[i] = VF.enumerated("b" + i, candidates, s);
+        }
+        s.post(new VectorPacking(names, loads, sizes, bins, true, false));
+        s.set(ISF.random_value(bins, seed));
+        return s;
+    }
+
+    public static void main(String[] args) {
+        int nbBins = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        long nbNodes = args.length > 1 ? Long.parseLong(args[1]) : 20000;
+        for (int i = 0; i < 5; i++) {
+            Solver s = makeSolver(nbBins, i);
+            SMF.limitNode(s, nbNodes);
+            long st = System.currentTimeMillis();
+            s.findSolution();
+            long d = System.currentTimeMillis() - st;
+            System.out.println("run " + i + ": " + s.getMeasures().getNodeCount() + " nodes, "
+                    + s.getMeasures().getBackTrackCount() + " backtracks, " + d + " ms ("
+                    + (s.getMeasures().getNodeCount() * 1000 / Math.max(1, d)) + " nodes/s)");
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.bench.micro;
+
+import org.btrplace.model.Instance;
+import org.btrplace.model.constraint.SatConstraint;
+import org.btrplace.model.view.net.MinMTTRObjective;
+import org.btrplace.model.view.net.NetworkView;
+import org.btrplace.model.view.power.EnergyView;
+import org.btrplace.model.view.power.PowerBudget;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link InstanceGenerator}.
+ */
+public class InstanceGeneratorTest {
+
+    @Test
+    public void testGenerate() {
+        InstanceGenerator g = new InstanceGenerator().setNodes(10).setVMs(30).setConstraintDensity(0.5).setSeed(3);
+        Instance i = g.build();
+        Assert.assertEquals(i.getModel().getMapping().getOnlineNodes().size(), 10);
+        Assert.assertEquals(i.getModel().getMapping().getRunningVMs().size(), 30);
+        Assert.assertFalse(i.getSatConstraints().isEmpty());
+        Assert.assertNull(i.getModel().getView(NetworkView.VIEW_ID));
+        Assert.assertNull(i.getModel().getView(EnergyView.VIEW_ID));
+        //Reproducible
+        Assert.assertEquals(g.build(), i);
+    }
+
+    @Test
+    public void testNetworkAndPower() {
+        Instance i = new InstanceGenerator().setNodes(9).setVMs(18).setTopologyDepth(3).setPowerRatio(1.5).build();
+        NetworkView net = (NetworkView) i.getModel().getView(NetworkView.VIEW_ID);
+        //1 core, 3 aggregation and 9 edge switches
+        Assert.assertEquals(net.getSwitches().size(), 13);
+        Assert.assertTrue(i.getOptConstraint() instanceof MinMTTRObjective);
+        Assert.assertNotNull(i.getModel().getView(EnergyView.VIEW_ID));
+        int nbBudgets = 0;
+        for (SatConstraint c : i.getSatConstraints()) {
+            if (c instanceof PowerBudget) {
+                nbBudgets++;
+            }
+        }
+        Assert.assertEquals(nbBudgets, 1);
+    }
+
+    @Test
+    public void testBenchmarks() throws Exception {
+        Instance i = new InstanceGenerator().setNodes(5).setVMs(10).setPowerRatio(1.5).build();
+        for (MicroBenchmark b : MicroBenchmarks.all()) {
+            MicroBenchResult r = MicroLauncher.measure(b, i, 0, 2);
+            Assert.assertEquals(r.getId(), b.getId());
+            Assert.assertEquals(r.getSamples().length, 2);
+            Assert.assertTrue(r.getThroughput() > 0);
+            Assert.assertEquals(r.toJSON().get("id"), b.getId());
+        }
+    }
+}
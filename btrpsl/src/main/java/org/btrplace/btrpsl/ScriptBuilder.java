@@ -29,6 +29,7 @@ import org.btrplace.btrpsl.template.MockTemplateFactory;
 import org.btrplace.btrpsl.template.TemplateFactory;
 import org.btrplace.btrpsl.tree.BtrPlaceTree;
 import org.btrplace.btrpsl.tree.BtrPlaceTreeAdaptor;
+import org.btrplace.btrpsl.tree.ImportStatement;
 import org.btrplace.model.Model;
 import org.btrplace.model.Node;
 import org.btrplace.model.VM;
@@ -38,29 +39,56 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Build scripts from textual descriptions.
- * For file based parsing, a LRU cache is used to prevent useless parsing. If the
- * last modification date of the script has not changed since its last parsing, the cached version
- * is returned.
+ * A LRU cache is used to prevent useless parsing. The scripts are cached
+ * by path, for files, and by content hash. If the last modification date of a file has not changed
+ * since its last parsing, the cached version is returned without reading the file. Otherwise,
+ * the cached version is returned if the content did not change.
+ * <p>
+ * The builder is thread-safe. As building a script alters the model, the scripts
+ * are however built one at a time. With {@link #setPool(ForkJoinPool)}, the scripts
+ * a file depends on are parsed in parallel beforehand, by browsing the
+ * include graph provided by a {@link PathBasedIncludes}.
  *
  * @author Fabien Hermenier
  */
 public class ScriptBuilder {
 
     /**
-     * The date of last modification for the file. The key is the hashcode of the file path.
+     * The date of last modification and the content hash of the files. The key is the file absolute path.
      */
-    private Map<Integer, Long> dates;
+    private Map<String, Stamp> stamps;
 
     public static final int DEFAULT_CACHE_SIZE = 100;
 
+    /**
+     * The built scripts. The key is made from the file path, if any, and the content hash.
+     */
     private Map<String, Script> cache;
 
+    /**
+     * The files parsed in advance for the file being built, by absolute path.
+     * Each top-level build makes its own map. It is only accessed while holding
+     * the lock of the builder, and is {@code null} otherwise.
+     */
+    private Map<String, ParsedFile> parsed;
+
+    /**
+     * The pool to parse the included scripts in parallel. {@code null} to parse them on demand.
+     */
+    private ForkJoinPool pool;
+
     public static final Logger LOGGER = LoggerFactory.getLogger("ScriptBuilder");
 
     private ConstraintsCatalog catalog;
@@ -110,14 +138,14 @@ public class ScriptBuilder {
 
         catalog = DefaultConstraintsCatalog.newBundle();
         this.tpls = new MockTemplateFactory(mo);
-        this.dates = new HashMap<>();
+        this.stamps = new ConcurrentHashMap<>();
         this.includes = new PathBasedIncludes(this);
-        this.cache = new LinkedHashMap<String, Script>() {
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<String, Script>(16, 0.75f, true) {
             @Override
             protected boolean removeEldestEntry(Map.Entry<String, Script> foo) {
-                return size() == cacheSize;
+                return size() > cacheSize;
             }
-        };
+        });
     }
 
     /**
@@ -138,6 +166,25 @@ public class ScriptBuilder {
         this.includes = incs;
     }
 
+    /**
+     * Get the pool used to parse the included scripts in parallel.
+     *
+     * @return the pool. {@code null} if the scripts are parsed on demand
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Set the pool used to parse the included scripts in parallel.
+     * The parallel parsing is only available with a {@link PathBasedIncludes}.
+     *
+     * @param p the pool to use. {@code null} to parse the included scripts on demand
+     */
+    public void setPool(ForkJoinPool p) {
+        this.pool = p;
+    }
+
     /**
      * Build a script from a file.
      *
@@ -146,26 +193,77 @@ public class ScriptBuilder {
      * @throws ScriptBuilderException if an error occurred
      */
     public Script build(File f) throws ScriptBuilderException {
-        int k = f.getAbsolutePath().hashCode();
-        if (dates.containsKey(k) && dates.get(k) == f.lastModified() && cache.containsKey(f.getPath())) {
-            LOGGER.debug("get '" + f.getName() + "' from the cache");
-            return cache.get(f.getPath());
-        } else {
-            LOGGER.debug(f.getName() + " is built from the file");
-            dates.put(k, f.lastModified());
-            String name = f.getName();
+        ForkJoinPool p = pool;
+        //The included scripts are built while holding the lock, they have been parsed already
+        if (p == null || !(includes instanceof PathBasedIncludes) || Thread.holdsLock(this)) {
+            return buildFile(f);
+        }
+        Map<String, ParsedFile> pre = new ConcurrentHashMap<>();
+        p.invoke(new ParseTask(f, (PathBasedIncludes) includes, ConcurrentHashMap.<String>newKeySet(), pre));
+        synchronized (this) {
+            parsed = pre;
             try {
-                Script v = build(new ANTLRFileStream(f.getAbsolutePath()));
-                if (!name.equals(v.getlocalName() + Script.EXTENSION)) {
-                    throw new ScriptBuilderException("Script '" + v.getlocalName()
-                            + "' must be declared in a file named '" + v.getlocalName() + Script.EXTENSION);
-                }
-                cache.put(f.getPath(), v);
+                return buildFile(f);
+            } finally {
+                parsed = null;
+            }
+        }
+    }
+
+    private Script buildFile(File f) throws ScriptBuilderException {
+        String path = f.getAbsolutePath();
+        long date = f.lastModified();
+        Stamp st = stamps.get(path);
+        if (st != null && st.date == date) {
+            Script v = cache.get(key(path, st.hash));
+            if (v != null) {
+                LOGGER.debug("get '" + f.getName() + "' from the cache");
                 return v;
-            } catch (IOException e) {
-                throw new ScriptBuilderException(e.getMessage(), e);
             }
         }
+        try {
+            //A file parsed in advance is not read again
+            ParsedFile pre = Thread.holdsLock(this) && parsed != null ? parsed.remove(path) : null;
+            if (pre != null && pre.stamp.date != date) {
+                pre = null;
+            }
+            byte[] content = null;
+            String hash;
+            if (pre != null) {
+                hash = pre.stamp.hash;
+            } else {
+                content = Files.readAllBytes(f.toPath());
+                hash = hash(content);
+            }
+            String k = key(path, hash);
+            Script v;
+            synchronized (this) {
+                v = cache.get(k);
+                if (v == null) {
+                    LOGGER.debug(f.getName() + " is built from the file");
+                    ParsedScript ps = pre == null ? null : pre.script;
+                    if (ps == null) {
+                        if (content == null) {
+                            content = Files.readAllBytes(f.toPath());
+                        }
+                        ps = parse(content, Charset.defaultCharset());
+                    }
+                    v = evaluate(ps);
+                    String name = f.getName();
+                    if (!name.equals(v.getlocalName() + Script.EXTENSION)) {
+                        throw new ScriptBuilderException("Script '" + v.getlocalName()
+                                + "' must be declared in a file named '" + v.getlocalName() + Script.EXTENSION);
+                    }
+                    cache.put(k, v);
+                } else {
+                    LOGGER.debug("get '" + f.getName() + "' from the cache, the content did not change");
+                }
+            }
+            stamps.put(path, new Stamp(date, hash));
+            return v;
+        } catch (IOException e) {
+            throw new ScriptBuilderException(e.getMessage(), e);
+        }
     }
 
     /**
@@ -176,17 +274,33 @@ public class ScriptBuilder {
      * @throws ScriptBuilderException if an error occurred while building the script
      */
     public Script build(String description) throws ScriptBuilderException {
-        return build(new ANTLRStringStream(description));
+        byte[] content = description.getBytes(StandardCharsets.UTF_8);
+        String k = key("", hash(content));
+        synchronized (this) {
+            Script v = cache.get(k);
+            if (v == null) {
+                v = evaluate(parse(content, StandardCharsets.UTF_8));
+                cache.put(k, v);
+            }
+            return v;
+        }
     }
 
     /**
-     * Internal method to check a script from a stream.
+     * Parse a script from its content.
+     */
+    private ParsedScript parse(byte[] content, Charset cs) {
+        return parse(new ANTLRStringStream(new String(content, cs)));
+    }
+
+    /**
+     * Internal method to parse a script from a stream.
+     * The parsing does not alter the model.
      *
      * @param cs the stream to analyze
-     * @return the built script
-     * @throws ScriptBuilderException in an error occurred while building the script
+     * @return the parsed script
      */
-    private Script build(CharStream cs) throws ScriptBuilderException {
+    private ParsedScript parse(CharStream cs) {
 
         Script v = new Script();
 
@@ -205,30 +319,183 @@ public class ScriptBuilder {
         parser.setTreeAdaptor(new BtrPlaceTreeAdaptor(v, model, namingServiceNodes, namingServiceVMs, tpls, errorReporter, t, includes, catalog));
 
         try {
-            BtrPlaceTree tree = (BtrPlaceTree) parser.script_decl().getTree();
-            //First pass, expand range
-            if (tree != null && tree.token != null) {
+            return new ParsedScript(v, errorReporter, (BtrPlaceTree) parser.script_decl().getTree(), null);
+        } catch (RecognitionException e) {
+            return new ParsedScript(v, errorReporter, null, e);
+        }
+    }
+
+    /**
+     * Internal method to build a parsed script.
+     *
+     * @param p the parsed script
+     * @return the built script
+     * @throws ScriptBuilderException in an error occurred while building the script
+     */
+    private synchronized Script evaluate(ParsedScript p) throws ScriptBuilderException {
+        if (p.ex != null) {
+            throw new ScriptBuilderException(p.ex.getMessage(), p.ex);
+        }
+        BtrPlaceTree tree = p.tree;
+        ErrorReporter errorReporter = p.errors;
+        //First pass, expand range
+        if (tree != null && tree.token != null) {
+            try {
+                tree.go(tree); //Single instruction
+            } catch (UnsupportedOperationException e) {
+                errorReporter.append(0, 0, e.getMessage());
+            }
+        } else {
+            for (int i = 0; i < tree.getChildCount(); i++) {
                 try {
-                    tree.go(tree); //Single instruction
+                    tree.getChild(i).go(tree);
                 } catch (UnsupportedOperationException e) {
                     errorReporter.append(0, 0, e.getMessage());
                 }
-            } else {
-                for (int i = 0; i < tree.getChildCount(); i++) {
-                    try {
-                        tree.getChild(i).go(tree);
-                    } catch (UnsupportedOperationException e) {
-                        errorReporter.append(0, 0, e.getMessage());
-                    }
-                }
             }
-        } catch (RecognitionException e) {
-            throw new ScriptBuilderException(e.getMessage(), e);
         }
         if (!errorReporter.getErrors().isEmpty()) {
             throw new ScriptBuilderException(errorReporter);
         }
-        return v;
+        return p.script;
+    }
+
+    private static String key(String path, String hash) {
+        return path + '@' + hash;
+    }
+
+    private static String hash(byte[] content) {
+        try {
+            byte[] d = MessageDigest.getInstance("SHA-1").digest(content);
+            StringBuilder b = new StringBuilder(d.length * 2);
+            for (byte x : d) {
+                b.append(Character.forDigit((x >> 4) & 0xF, 16)).append(Character.forDigit(x & 0xF, 16));
+            }
+            return b.toString();
+        } catch (NoSuchAlgorithmException e) {
+            //SHA-1 is available on every platform
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The date of last modification and the content hash of a file.
+     */
+    private static class Stamp {
+
+        private final long date;
+
+        private final String hash;
+
+        Stamp(long d, String h) {
+            date = d;
+            hash = h;
+        }
+    }
+
+    /**
+     * A script that is parsed but not built.
+     */
+    private static class ParsedScript {
+
+        private final Script script;
+
+        private final ErrorReporter errors;
+
+        private final BtrPlaceTree tree;
+
+        private final RecognitionException ex;
+
+        ParsedScript(Script s, ErrorReporter errs, BtrPlaceTree t, RecognitionException e) {
+            script = s;
+            errors = errs;
+            tree = t;
+            ex = e;
+        }
+    }
+
+    /**
+     * A file read in advance: its stamp and, unless it was cached already, its parsed script.
+     */
+    private static class ParsedFile {
+
+        private final Stamp stamp;
+
+        private final ParsedScript script;
+
+        ParsedFile(Stamp st, ParsedScript s) {
+            stamp = st;
+            script = s;
+        }
+    }
+
+    /**
+     * Parse a file and, in parallel, the files it includes.
+     * The files that are cached and did not change, or that cannot be read are ignored,
+     * they will be handled when the scripts are built.
+     */
+    private class ParseTask extends RecursiveAction {
+
+        private final File file;
+
+        private final PathBasedIncludes incs;
+
+        private final Set<String> visited;
+
+        private final Map<String, ParsedFile> out;
+
+        ParseTask(File f, PathBasedIncludes i, Set<String> v, Map<String, ParsedFile> o) {
+            file = f;
+            incs = i;
+            visited = v;
+            out = o;
+        }
+
+        @Override
+        protected void compute() {
+            String path = file.getAbsolutePath();
+            if (!visited.add(path)) {
+                return;
+            }
+            long date = file.lastModified();
+            Stamp st = stamps.get(path);
+            if (st != null && st.date == date && cache.containsKey(key(path, st.hash))) {
+                return;
+            }
+            Stamp cur;
+            byte[] content;
+            try {
+                content = Files.readAllBytes(file.toPath());
+                cur = new Stamp(date, hash(content));
+            } catch (IOException e) {
+                return;
+            }
+            if (cache.containsKey(key(path, cur.hash))) {
+                //Only the stamp changed, the file will not be read again
+                out.put(path, new ParsedFile(cur, null));
+                return;
+            }
+            ParsedScript p = parse(content, Charset.defaultCharset());
+            out.put(path, new ParsedFile(cur, p));
+            if (p.tree == null) {
+                return;
+            }
+            List<ParseTask> deps = new ArrayList<>();
+            collectImports(p.tree, deps);
+            invokeAll(deps);
+        }
+
+        private void collectImports(BtrPlaceTree t, List<ParseTask> deps) {
+            if (t instanceof ImportStatement) {
+                for (File f : incs.getFiles(((ImportStatement) t).getScriptIdentifier())) {
+                    deps.add(new ParseTask(f, incs, visited, out));
+                }
+                return;
+            }
+            for (int i = 0; i < t.getChildCount(); i++) {
+                collectImports((BtrPlaceTree) t.getChild(i), deps);
+            }
+        }
     }
 
     /**
@@ -82,45 +82,64 @@ public class PathBasedIncludes implements Includes {
     public List<Script> getScripts(String name) throws ScriptBuilderException {
 
         List<Script> scripts = new ArrayList<>();
+        if (!name.endsWith(".*")) {
+            for (File f : getFiles(name)) {
+                scripts.add(builder.build(f));
+            }
+        } else {
+
+            //We need to consolidate the errors in allEx and rethrow it at the end if necessary
+            ScriptBuilderException allEx = null;
+            for (File sf : getFiles(name)) {
+                try {
+                    scripts.add(builder.build(sf));
+                } catch (ScriptBuilderException ex) {
+                    if (allEx == null) {
+                        allEx = ex;
+                    } else {
+                        allEx.getErrorReporter().getErrors().addAll(ex.getErrorReporter().getErrors());
+                    }
+                }
+            }
+            if (allEx != null) {
+                throw allEx;
+            }
+        }
+        return scripts;
+    }
+
+    /**
+     * Get the files of the scripts associated to a given identifier by browsing the given paths.
+     * Without the '.*' wildcard, only the first matching file is returned.
+     *
+     * @param name the identifier of the script
+     * @return the matching files. May be empty
+     */
+    public List<File> getFiles(String name) {
+        List<File> files = new ArrayList<>();
         if (!name.endsWith(".*")) {
             String toSearch = name.replaceAll("\\.", File.separator) + Script.EXTENSION;
             for (File path : paths) {
                 File f = new File(path.getPath() + File.separator + toSearch);
                 if (f.exists()) {
-                    scripts.add(builder.build(f));
+                    files.add(f);
                     break;
                 }
             }
-
         } else {
-
-            //We need to consolidate the errors in allEx and rethrow it at the end if necessary
-            ScriptBuilderException allEx = null;
             String base = name.substring(0, name.length() - 2).replaceAll("\\.", File.separator);
             for (File path : paths) {
                 File f = new File(path.getPath() + File.separator + base);
                 if (f.isDirectory()) {
                     for (File sf : f.listFiles()) {
                         if (sf.getName().endsWith(Script.EXTENSION)) {
-
-                            try {
-                                scripts.add(builder.build(sf));
-                            } catch (ScriptBuilderException ex) {
-                                if (allEx == null) {
-                                    allEx = ex;
-                                } else {
-                                    allEx.getErrorReporter().getErrors().addAll(ex.getErrorReporter().getErrors());
-                                }
-                            }
+                            files.add(sf);
                         }
                     }
                 }
             }
-            if (allEx != null) {
-                throw allEx;
-            }
         }
-        return scripts;
+        return files;
     }
 
     /**
@@ -69,8 +69,12 @@ public class ImportStatement extends BtrPlaceTree {
         this.script = scr;
     }
 
-    @Override
-    public BtrpOperand go(BtrPlaceTree parent) {
+    /**
+     * Get the identifier of the imported script(s).
+     *
+     * @return the identifier, that may end with the '.*' wildcard
+     */
+    public String getScriptIdentifier() {
         StringBuilder scriptId = new StringBuilder();
         for (int i = 0; i < getChildCount(); i++) {
             scriptId.append(getChild(i));
@@ -78,7 +82,12 @@ public class ImportStatement extends BtrPlaceTree {
                 scriptId.append('.');
             }
         }
-        String id = scriptId.toString();
+        return scriptId.toString();
+    }
+
+    @Override
+    public BtrpOperand go(BtrPlaceTree parent) {
+        String id = getScriptIdentifier();
         List<Script> res;
         try {
             res = includes.getScripts(id);
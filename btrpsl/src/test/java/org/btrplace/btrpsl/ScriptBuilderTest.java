@@ -39,6 +39,12 @@ import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 /**
  * Unit tests for {@link ScriptBuilder}.
@@ -368,6 +374,91 @@ public class ScriptBuilderTest {
         System.out.println(v.prettyDependencies());
     }
 
+    public void testParallelDependencies() throws Exception {
+        ScriptBuilder b = new ScriptBuilder(new DefaultModel());
+        PathBasedIncludes includes = new PathBasedIncludes(b, new File(RC_ROOT + "deps"));
+        b.setIncludes(includes);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        b.setPool(pool);
+        Assert.assertSame(b.getPool(), pool);
+
+        Script v = b.build(new File(RC_ROOT + "deps/a.btrp"));
+        Assert.assertEquals(v.getDependencies().size(), 2);
+        Set<String> all = new HashSet<>();
+        for (Script s : v.getDependencies()) {
+            all.add(s.getlocalName());
+            for (Script s2 : s.getDependencies()) {
+                all.add(s2.getlocalName());
+            }
+        }
+        Assert.assertEquals(all, new HashSet<>(Arrays.asList("b", "c", "foo", "bar", "toto", "titi")));
+        //The dependencies are cached
+        Assert.assertSame(b.build(new File(RC_ROOT + "deps/c.btrp")), b.build(new File(RC_ROOT + "deps/c.btrp")));
+        Assert.assertSame(b.build(new File(RC_ROOT + "deps/a.btrp")), v);
+        pool.shutdown();
+    }
+
+    public void testCache() throws Exception {
+        ScriptBuilder b = new ScriptBuilder(new DefaultModel());
+        String str = "namespace foo; VM[1..5] : tiny;";
+        Script s = b.build(str);
+        Assert.assertSame(b.build(str), s);
+
+        File sf = new File(System.getProperty("java.io.tmpdir"), "cached" + Script.EXTENSION);
+        try {
+            Files.write(sf.toPath(), "namespace cached; VM[1..5] : tiny;".getBytes());
+            Script v = b.build(sf);
+            Assert.assertSame(b.build(sf), v);
+            //Same content, another date
+            Assert.assertTrue(sf.setLastModified(sf.lastModified() - 10000));
+            Assert.assertSame(b.build(sf), v);
+            //Another content
+            Files.write(sf.toPath(), "namespace cached; VM[6..7] : tiny;".getBytes());
+            Assert.assertTrue(sf.setLastModified(sf.lastModified() + 20000));
+            Script v2 = b.build(sf);
+            Assert.assertNotSame(v2, v);
+            Assert.assertEquals(v2.getVMs().size(), 2);
+        } finally {
+            sf.delete();
+        }
+    }
+
+    public void testConcurrentBuilds() throws Exception {
+        final ScriptBuilder b = new ScriptBuilder(new DefaultModel());
+        b.setIncludes(new PathBasedIncludes(b, new File(RC_ROOT + "deps")));
+        ExecutorService exe = Executors.newFixedThreadPool(4);
+        List<Future<Script>> res = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            res.add(exe.submit(() -> b.build(new File(RC_ROOT + "deps/a.btrp"))));
+        }
+        Script v = res.get(0).get();
+        for (Future<Script> f : res) {
+            Assert.assertSame(f.get(), v);
+        }
+        exe.shutdown();
+    }
+
+    public void testConcurrentParallelBuilds() throws Exception {
+        final ScriptBuilder b = new ScriptBuilder(new DefaultModel());
+        b.setIncludes(new PathBasedIncludes(b, new File(RC_ROOT + "deps")));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        b.setPool(pool);
+        ExecutorService exe = Executors.newFixedThreadPool(4);
+        //Each build parses its own files in advance, the concurrent builds do not discard them
+        List<Future<Script>> res = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            String name = i % 2 == 0 ? "a" : "c";
+            res.add(exe.submit(() -> b.build(new File(RC_ROOT + "deps/" + name + Script.EXTENSION))));
+        }
+        for (int i = 0; i < res.size(); i++) {
+            Assert.assertSame(res.get(i).get(), res.get(i % 2).get());
+        }
+        Assert.assertEquals(res.get(0).get().getDependencies().size(), 2);
+        Assert.assertEquals(res.get(1).get().getlocalName(), "c");
+        exe.shutdown();
+        pool.shutdown();
+    }
+
 
     public void testVariablesInElementRange() throws ScriptBuilderException {
         ScriptBuilder b = new ScriptBuilder(new DefaultModel());
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.scheduler.choco;
+
+import org.chocosolver.solver.ResolutionPolicy;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.objective.ObjectiveManager;
+import org.chocosolver.solver.variables.IntVar;
+
+/**
+ * An objective manager that tightens the objective bound using
+ * the {@link ObjectiveAlterer} of a problem.
+ * <p>
+ * Once a solution is computed, the alterer states the next bound to reach.
+ * The bound is kept strict: the next solution must at least improve the last one.
+ * The bound is then applied as a backtrackable cut on the objective at each
+ * node of the search tree, so the constraint network does not grow with
+ * the number of computed solutions.
+ */
+public class AlteredObjectiveManager extends ObjectiveManager<IntVar, Integer> {
+
+    private ReconfigurationProblem rp;
+
+    private int cut;
+
+    private boolean hasCut;
+
+    /**
+     * Make a new manager.
+     *
+     * @param rp  the problem providing the alterer
+     * @param obj the variable to optimise
+     * @param p   the resolution policy. Either {@link ResolutionPolicy#MINIMIZE} or {@link ResolutionPolicy#MAXIMIZE}
+     */
+    public AlteredObjectiveManager(ReconfigurationProblem rp, IntVar obj, ResolutionPolicy p) {
+        super(obj, p, true);
+        this.rp = rp;
+    }
+
+    /**
+     * Get the bound the next solution must reach.
+     *
+     * @return the bound computed by the alterer from the last solution, made strict
+     * @throws IllegalStateException if no solution has been computed yet
+     */
+    public int getCut() {
+        if (!hasCut) {
+            throw new IllegalStateException("No solution computed yet");
+        }
+        return cut;
+    }
+
+    @Override
+    public void update() {
+        super.update();
+        int v = objective.getValue();
+        int b = rp.getObjectiveAlterer().newBound(rp, v);
+        cut = policy == ResolutionPolicy.MINIMIZE ? Math.min(b, v - 1) : Math.max(b, v + 1);
+        hasCut = true;
+    }
+
+    @Override
+    public void postDynamicCut() throws ContradictionException {
+        if (!hasCut) {
+            super.postDynamicCut();
+            return;
+        }
+        if (policy == ResolutionPolicy.MINIMIZE) {
+            objective.updateUpperBound(cut, this);
+            objective.updateLowerBound(bestProvedLB, this);
+        } else {
+            objective.updateLowerBound(cut, this);
+            objective.updateUpperBound(bestProvedUB, this);
+        }
+    }
+}
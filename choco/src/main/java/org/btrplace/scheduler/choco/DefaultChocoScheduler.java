@@ -28,6 +28,7 @@ import org.btrplace.scheduler.SchedulerException;
 import org.btrplace.scheduler.choco.constraint.ConstraintMapper;
 import org.btrplace.scheduler.choco.duration.DurationEvaluators;
 import org.btrplace.scheduler.choco.runner.InstanceSolver;
+import org.btrplace.scheduler.choco.runner.SolutionListener;
 import org.btrplace.scheduler.choco.runner.SolvingStatistics;
 import org.btrplace.scheduler.choco.runner.single.SingleRunner;
 import org.btrplace.scheduler.choco.transition.TransitionFactory;
@@ -35,6 +36,7 @@ import org.btrplace.scheduler.choco.view.ModelViewMapper;
 import org.btrplace.scheduler.choco.view.SolverViewBuilder;
 
 import java.util.Collection;
+import java.util.List;
 
 /**
  * Default implementation of {@link ChocoScheduler}.
@@ -201,4 +203,29 @@ public class DefaultChocoScheduler implements ChocoScheduler {
     public Collection<SolverViewBuilder> getSolverViews() {
         return params.getSolverViews();
     }
+
+    @Override
+    public Parameters setMaxRecordedSolutions(int k) {
+        return params.setMaxRecordedSolutions(k);
+    }
+
+    @Override
+    public int getMaxRecordedSolutions() {
+        return params.getMaxRecordedSolutions();
+    }
+
+    @Override
+    public void addSolutionListener(SolutionListener l) {
+        params.addSolutionListener(l);
+    }
+
+    @Override
+    public boolean removeSolutionListener(SolutionListener l) {
+        return params.removeSolutionListener(l);
+    }
+
+    @Override
+    public List<SolutionListener> getSolutionListeners() {
+        return params.getSolutionListeners();
+    }
 }
@@ -20,12 +20,11 @@ package org.btrplace.scheduler.choco;
 
 import org.btrplace.scheduler.choco.constraint.ConstraintMapper;
 import org.btrplace.scheduler.choco.duration.DurationEvaluators;
+import org.btrplace.scheduler.choco.runner.SolutionListener;
 import org.btrplace.scheduler.choco.transition.TransitionFactory;
 import org.btrplace.scheduler.choco.view.*;
 
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
 /**
  * Default implementation of {@link Parameters}.
@@ -68,6 +67,13 @@ public class DefaultParameters implements Parameters {
 
     private Map<String, SolverViewBuilder> solverViewsBuilder;
 
+    /**
+     * Only the last solution is recorded by default.
+     */
+    private int maxRecordedSolutions = 1;
+
+    private List<SolutionListener> solutionListeners;
+
     /**
      * New set of parameters.
      */
@@ -77,6 +83,7 @@ public class DefaultParameters implements Parameters {
         viewMapper = ModelViewMapper.newBundle();
         amf = TransitionFactory.newBundle();
         solverViewsBuilder = new HashMap<>();
+        solutionListeners = new ArrayList<>();
         //Default solver views
         solverViewsBuilder.put(Packing.VIEW_ID, new VectorPacking.Builder());
         solverViewsBuilder.put(Cumulatives.VIEW_ID, new DefaultCumulatives.Builder());
@@ -196,4 +203,30 @@ public class DefaultParameters implements Parameters {
     public Collection<SolverViewBuilder> getSolverViews() {
         return solverViewsBuilder.values();
     }
+
+    @Override
+    public Parameters setMaxRecordedSolutions(int k) {
+        maxRecordedSolutions = k == 0 ? 1 : k;
+        return this;
+    }
+
+    @Override
+    public int getMaxRecordedSolutions() {
+        return maxRecordedSolutions;
+    }
+
+    @Override
+    public void addSolutionListener(SolutionListener l) {
+        solutionListeners.add(l);
+    }
+
+    @Override
+    public boolean removeSolutionListener(SolutionListener l) {
+        return solutionListeners.remove(l);
+    }
+
+    @Override
+    public List<SolutionListener> getSolutionListeners() {
+        return solutionListeners;
+    }
 }
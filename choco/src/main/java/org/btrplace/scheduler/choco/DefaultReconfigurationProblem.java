@@ -32,10 +32,8 @@ import org.btrplace.scheduler.choco.view.*;
 import org.chocosolver.solver.ResolutionPolicy;
 import org.chocosolver.solver.Solver;
 import org.chocosolver.solver.constraints.IntConstraintFactory;
-import org.chocosolver.solver.objective.ObjectiveManager;
 import org.chocosolver.solver.search.loop.monitors.IMonitorSolution;
 import org.chocosolver.solver.search.loop.monitors.SMF;
-import org.chocosolver.solver.search.solution.AllSolutionsRecorder;
 import org.chocosolver.solver.search.solution.Solution;
 import org.chocosolver.solver.search.strategy.ISF;
 import org.chocosolver.solver.search.strategy.selectors.values.RealDomainMiddle;
@@ -106,6 +104,16 @@ public class DefaultReconfigurationProblem implements ReconfigurationProblem {
 
     private SolverViewsManager viewsManager;
 
+    /**
+     * {@code true} once {@link #beforeSolve()} has been called.
+     */
+    private boolean prepared = false;
+
+    /**
+     * The solution recorder of the solver may be replaced when optimising.
+     */
+    private LastSolutionsRecorder recorder;
+
     /**
      * Make a new RP where the next state for every VM is indicated.
      * If the state for a VM is omitted, it is considered as unchanged
@@ -138,7 +146,8 @@ public class DefaultReconfigurationProblem implements ReconfigurationProblem {
         durEval = ps.getDurationEvaluators();
 
         solver = new Solver();
-        solver.set(new AllSolutionsRecorder(solver));
+        recorder = new LastSolutionsRecorder(solver, ps.getMaxRecordedSolutions());
+        solver.set(recorder);
         start = VariableFactory.fixed(makeVarLabel("RP.start"), 0, solver);
         end = VariableFactory.bounded(makeVarLabel("RP.end"), 0, DEFAULT_MAX_TIME, solver);
 
@@ -178,9 +187,7 @@ public class DefaultReconfigurationProblem implements ReconfigurationProblem {
         if (!optimize) {
             solvingPolicy = ResolutionPolicy.SATISFACTION;
         }
-        addContinuousResourceCapacities();
-
-        if (!viewsManager.beforeSolve()) {
+        if (!prepared && !beforeSolve()) {
             return null;
         }
 
@@ -197,13 +204,16 @@ public class DefaultReconfigurationProblem implements ReconfigurationProblem {
         if (solvingPolicy == ResolutionPolicy.SATISFACTION) {
             solver.findSolution();
         } else {
-            solver.getSearchLoop().plugSearchMonitor((IMonitorSolution) () -> {
-                int v = objective.getValue();
-                String op = solvingPolicy == ResolutionPolicy.MAXIMIZE ? ">=" : "<=";
-                solver.post(IntConstraintFactory.arithm(objective, op, alterer.newBound(DefaultReconfigurationProblem.this, v)));
-            });
+            //The alterer drives the objective manager, no constraint is posted on each solution
             if (!solver.getObjectiveManager().isOptimization()) {
-                solver.set(new ObjectiveManager<IntVar, Integer>(objective, solvingPolicy, true));
+                solver.set(new AlteredObjectiveManager(this, objective, solvingPolicy));
+            } else {
+                //A manager is already installed, the alterer bound is posted on each solution
+                solver.getSearchLoop().plugSearchMonitor((IMonitorSolution) () -> {
+                    int v = objective.getValue();
+                    String op = solvingPolicy == ResolutionPolicy.MAXIMIZE ? ">=" : "<=";
+                    solver.post(IntConstraintFactory.arithm(objective, op, alterer.newBound(DefaultReconfigurationProblem.this, v)));
+                });
             }
             solver.findOptimalSolution(solvingPolicy, objective);
         }
@@ -213,7 +223,7 @@ public class DefaultReconfigurationProblem implements ReconfigurationProblem {
     @Override
     public List<ReconfigurationPlan> getComputedSolutions() throws SchedulerException {
         List<ReconfigurationPlan> plans = new ArrayList<>();
-        for (Solution s : solver.getSolutionRecorder().getSolutions()) {
+        for (Solution s : recorder.getSolutions()) {
             plans.add(buildReconfigurationPlan(s, model));
         }
         return plans;
@@ -289,6 +299,22 @@ public class DefaultReconfigurationProblem implements ReconfigurationProblem {
         solver.set(seq);
     }
 
+    /**
+     * Complete the problem before the solving process.
+     * The capacity of the nodes wrt. the continuous VM placement is stated, then
+     * the views are completed using {@link org.btrplace.scheduler.choco.view.ChocoView#beforeSolve(ReconfigurationProblem)}.
+     * This is done by {@link #solve(int, boolean)} if it was not done before.
+     * It must then be called once, after the constraints were injected.
+     *
+     * @return {@code false} if it is sure the problem does not have a solution
+     * @throws SchedulerException if an error occurred
+     */
+    public boolean beforeSolve() throws SchedulerException {
+        prepared = true;
+        addContinuousResourceCapacities();
+        return viewsManager.beforeSolve();
+    }
+
     private void addContinuousResourceCapacities() throws SchedulerException {
         TIntArrayList cUse = new TIntArrayList();
         List<IntVar> iUse = new ArrayList<>();
@@ -484,6 +510,11 @@ public class DefaultReconfigurationProblem implements ReconfigurationProblem {
         return solver;
     }
 
+    @Override
+    public LastSolutionsRecorder getSolutionRecorder() {
+        return recorder;
+    }
+
     @Override
     public IntVar makeHostVariable(Object... n) {
         return VariableFactory.enumerated(makeVarLabel(n), 0, nodes.length - 1, solver);
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.scheduler.choco;
+
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.search.loop.monitors.IMonitorSolution;
+import org.chocosolver.solver.search.solution.ISolutionRecorder;
+import org.chocosolver.solver.search.solution.Solution;
+
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * A solution recorder that only keeps the last computed solutions.
+ * As every solution computed during an optimisation process improves
+ * the previous one, the recorded solutions are the best ones.
+ * The last solution is always recorded.
+ */
+public class LastSolutionsRecorder implements ISolutionRecorder {
+
+    private Deque<Solution> solutions;
+
+    private int max;
+
+    private int nbSolutions;
+
+    /**
+     * Make a new recorder and plug it into a solver.
+     *
+     * @param s   the solver to monitor
+     * @param max the maximum number of solutions to keep. A negative number to keep all of them
+     */
+    public LastSolutionsRecorder(Solver s, int max) {
+        this.max = max == 0 ? 1 : max;
+        solutions = new ArrayDeque<>();
+        s.plugMonitor((IMonitorSolution) () -> {
+            nbSolutions++;
+            Solution sol = new Solution();
+            sol.record(s);
+            if (this.max > 0 && solutions.size() == this.max) {
+                solutions.removeFirst();
+            }
+            solutions.addLast(sol);
+        });
+    }
+
+    /**
+     * Get the maximum number of solutions to keep.
+     *
+     * @return a positive number or a negative one if every solution is kept
+     */
+    public int getMaxSolutions() {
+        return max;
+    }
+
+    /**
+     * Get the number of solutions that have been computed,
+     * including those that are no longer recorded.
+     *
+     * @return a positive number
+     */
+    public int getNbSolutions() {
+        return nbSolutions;
+    }
+
+    @Override
+    public Solution getLastSolution() {
+        return solutions.peekLast();
+    }
+
+    /**
+     * Get the recorded solutions.
+     *
+     * @return a list of solutions, from the oldest to the most recent one
+     */
+    @Override
+    public List<Solution> getSolutions() {
+        return new ArrayList<>(solutions);
+    }
+}
@@ -20,11 +20,13 @@ package org.btrplace.scheduler.choco;
 
 import org.btrplace.scheduler.choco.constraint.ConstraintMapper;
 import org.btrplace.scheduler.choco.duration.DurationEvaluators;
+import org.btrplace.scheduler.choco.runner.SolutionListener;
 import org.btrplace.scheduler.choco.transition.TransitionFactory;
 import org.btrplace.scheduler.choco.view.ModelViewMapper;
 import org.btrplace.scheduler.choco.view.SolverViewBuilder;
 
 import java.util.Collection;
+import java.util.List;
 
 /**
  * Parameters for a {@link ChocoScheduler}.
@@ -206,4 +208,46 @@ public interface Parameters {
      * @return a collection that may be empty
      */
     Collection<SolverViewBuilder> getSolverViews();
+
+    /**
+     * Set the maximum number of solutions to record during the solving process.
+     * Only the last computed solutions are recorded. When the solver optimises,
+     * they are then the best ones.
+     * <ul>
+     *     <li>at {@code 1}: only the last solution is recorded</li>
+     *     <li>at {@code k > 1}: the {@code k} last solutions are recorded</li>
+     *     <li>with a negative value: every solution is recorded</li>
+     * </ul>
+     * The last solution is always recorded.
+     * @param k the maximum number of solutions to record
+     * @return the current instance
+     */
+    Parameters setMaxRecordedSolutions(int k);
+
+    /**
+     * Get the maximum number of solutions to record during the solving process.
+     * @return a positive number or a negative one if every solution is recorded
+     * @see #setMaxRecordedSolutions(int)
+     */
+    int getMaxRecordedSolutions();
+
+    /**
+     * Declare a listener that will be notified by every computed solution.
+     * The plan of every solution is then materialised as soon as it is computed.
+     * @param l the listener to add
+     */
+    void addSolutionListener(SolutionListener l);
+
+    /**
+     * Remove a solution listener.
+     * @param l the listener to remove
+     * @return {@code true} iff the listener has been removed
+     */
+    boolean removeSolutionListener(SolutionListener l);
+
+    /**
+     * Get the solution listeners.
+     * @return a list that may be empty
+     */
+    List<SolutionListener> getSolutionListeners();
 }
@@ -239,7 +239,8 @@ public interface ReconfigurationProblem {
     ReconfigurationPlan buildReconfigurationPlan(Solution s, Model src) throws SchedulerException;
 
     /**
-     * Return all the solutions that have been computed from a previous {@link #solve(int, boolean)} call.
+     * Return the solutions that have been recorded during a previous {@link #solve(int, boolean)} call.
+     * The number of recorded solutions is bounded by {@link Parameters#getMaxRecordedSolutions()}.
      * @return a list of plan that may be empty
      * @throws SchedulerException if an error occurred
      */
@@ -252,6 +253,13 @@ public interface ReconfigurationProblem {
      */
     Solver getSolver();
 
+    /**
+     * Get the recorder that keeps the last solutions computed by the solver.
+     *
+     * @return the recorder plugged into the solver when the problem was made
+     */
+    LastSolutionsRecorder getSolutionRecorder();
+
     /**
      * Create a variable that indicate the placement of an element on a node.
      *
@@ -18,6 +18,7 @@
 
 package org.btrplace.scheduler.choco.constraint.mttr;
 
+import gnu.trove.set.hash.THashSet;
 import org.btrplace.model.Mapping;
 import org.btrplace.model.Model;
 import org.btrplace.model.Node;
@@ -110,7 +111,7 @@ public class CMinMTTR implements org.btrplace.scheduler.choco.constraint.CObject
         Set<VM> onBadNodes = new HashSet<>(p.getManageableVMs());
 
         //Get the VMs that runs and have a pretty low chances to move
-        Set<VM> onGoodNodes = map.getRunningVMs(map.getOnlineNodes());
+        Set<VM> onGoodNodes = new THashSet<>(map.getRunningVMs());
         onGoodNodes.removeAll(onBadNodes);
 
         VMTransition[] goodActions = p.getVMActions(onGoodNodes);
@@ -18,6 +18,7 @@
 
 package org.btrplace.scheduler.choco.duration;
 
+import gnu.trove.map.TIntIntMap;
 import org.btrplace.model.Attributes;
 import org.btrplace.model.Element;
 import org.btrplace.model.Model;
@@ -49,6 +50,10 @@ public class ActionDurationFromOptionalAttribute<E extends Element> implements A
     @Override
     public int evaluate(Model mo, E e) {
         Attributes attrs = mo.getAttributes();
+        TIntIntMap values = attrs.getIntColumn(e.getClass(), key);
+        if (values != null) {
+            return values.containsKey(e.id()) ? values.get(e.id()) : parent.evaluate(mo, e);
+        }
         if (attrs.isSet(e, key)) {
             try {
                 return attrs.getInteger(e, key);
@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.scheduler.choco.extensions;
+
+import gnu.trove.list.array.TIntArrayList;
+import org.chocosolver.memory.IEnvironment;
+import org.chocosolver.memory.IStateLong;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.constraints.PropagatorPriority;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.Task;
+import org.chocosolver.solver.variables.events.IntEventType;
+import org.chocosolver.solver.variables.events.PropagatorEventType;
+import org.chocosolver.util.ESat;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A constraint to enforce {@code energy == sum(duration[i] * height[i])} over a set of tasks.
+ * <p>
+ * The area of each task is bounded using its compulsory part: the task lasts at least
+ * {@code max(duration.LB, end.LB - start.UB)} and at most {@code min(duration.UB, end.UB - start.LB)}.
+ * The sums of the minimum and the maximum areas are maintained incrementally.
+ * The propagator then maintains the bounds of {@code energy}, and reduces the durations and the heights
+ * of the tasks that would exceed the remaining energy, or that must provide the missing energy.
+ * <p>
+ * The durations and the heights must be non-negative.
+ */
+public class EnergyArea extends Constraint {
+
+    /**
+     * Make a new constraint.
+     *
+     * @param tasks   the tasks
+     * @param heights the height of each task
+     * @param energy  the cumulative area of the tasks
+     */
+    public EnergyArea(Task[] tasks, IntVar[] heights, IntVar energy) {
+        super("EnergyArea", new EnergyAreaPropagator(tasks, heights, energy));
+    }
+
+    static class EnergyAreaPropagator extends Propagator<IntVar> {
+
+        private int nbTasks;
+
+        private IntVar[] starts;
+
+        private IntVar[] durations;
+
+        private IntVar[] ends;
+
+        private IntVar[] heights;
+
+        private IntVar energy;
+
+        private IStateLong[] minAreas;
+
+        private IStateLong[] maxAreas;
+
+        private IStateLong minSum;
+
+        private IStateLong maxSum;
+
+        /**
+         * For each task, the tasks sharing its duration variable. The tasks of a same group share the array.
+         */
+        private int[][] durationUsers;
+
+        /**
+         * For each task, the tasks sharing its height variable. The tasks of a same group share the array.
+         */
+        private int[][] heightUsers;
+
+        /**
+         * New propagator.
+         *
+         * @param tasks   the tasks
+         * @param heights the height of each task
+         * @param energy  the cumulative area of the tasks
+         */
+        public EnergyAreaPropagator(Task[] tasks, IntVar[] heights, IntVar energy) {
+            super(vars(tasks, heights, energy), PropagatorPriority.LINEAR, true);
+            nbTasks = tasks.length;
+            starts = new IntVar[nbTasks];
+            durations = new IntVar[nbTasks];
+            ends = new IntVar[nbTasks];
+            for (int i = 0; i < nbTasks; i++) {
+                starts[i] = tasks[i].getStart();
+                durations[i] = tasks[i].getDuration();
+                ends[i] = tasks[i].getEnd();
+            }
+            this.heights = heights;
+            this.energy = energy;
+
+            IEnvironment env = energy.getSolver().getEnvironment();
+            minAreas = new IStateLong[nbTasks];
+            maxAreas = new IStateLong[nbTasks];
+            for (int i = 0; i < nbTasks; i++) {
+                minAreas[i] = env.makeLong(0);
+                maxAreas[i] = env.makeLong(0);
+            }
+            minSum = env.makeLong(0);
+            maxSum = env.makeLong(0);
+            durationUsers = users(durations);
+            heightUsers = users(heights);
+        }
+
+        private static int[][] users(IntVar[] vs) {
+            Map<IntVar, TIntArrayList> byVar = new IdentityHashMap<>();
+            for (int i = 0; i < vs.length; i++) {
+                byVar.computeIfAbsent(vs[i], k -> new TIntArrayList()).add(i);
+            }
+            Map<IntVar, int[]> groups = new IdentityHashMap<>();
+            int[][] res = new int[vs.length][];
+            for (int i = 0; i < vs.length; i++) {
+                res[i] = groups.computeIfAbsent(vs[i], k -> byVar.get(k).toArray());
+            }
+            return res;
+        }
+
+        private static IntVar[] vars(Task[] tasks, IntVar[] heights, IntVar energy) {
+            int n = tasks.length;
+            IntVar[] vs = new IntVar[4 * n + 1];
+            for (int i = 0; i < n; i++) {
+                vs[i] = tasks[i].getStart();
+                vs[n + i] = tasks[i].getDuration();
+                vs[2 * n + i] = tasks[i].getEnd();
+                vs[3 * n + i] = heights[i];
+            }
+            vs[4 * n] = energy;
+            return vs;
+        }
+
+        @Override
+        protected int getPropagationConditions(int vIdx) {
+            return IntEventType.boundAndInst();
+        }
+
+        private long minDuration(int i) {
+            return Math.max(0, Math.max(durations[i].getLB(), (long) ends[i].getLB() - starts[i].getUB()));
+        }
+
+        private long maxDuration(int i) {
+            return Math.max(0, Math.min(durations[i].getUB(), (long) ends[i].getUB() - starts[i].getLB()));
+        }
+
+        /**
+         * Refresh the area bounds of the tasks using a variable modified by this propagator,
+         * as no event notifies the modification.
+         *
+         * @param users the tasks using the variable
+         */
+        private void refresh(int[] users) {
+            for (int j : users) {
+                refresh(j);
+            }
+        }
+
+        /**
+         * Refresh the area bounds of a task, and the sums.
+         *
+         * @param i the task index
+         */
+        private void refresh(int i) {
+            long min = minDuration(i) * heights[i].getLB();
+            long max = maxDuration(i) * heights[i].getUB();
+            minSum.add(min - minAreas[i].get());
+            maxSum.add(max - maxAreas[i].get());
+            minAreas[i].set(min);
+            maxAreas[i].set(max);
+        }
+
+        @Override
+        public void propagate(int evtmask) throws ContradictionException {
+            if (PropagatorEventType.isFullPropagation(evtmask)) {
+                for (int i = 0; i < nbTasks; i++) {
+                    durations[i].updateLowerBound(0, aCause);
+                    heights[i].updateLowerBound(0, aCause);
+                }
+                for (int i = 0; i < nbTasks; i++) {
+                    refresh(i);
+                }
+            }
+            filter();
+        }
+
+        @Override
+        public void propagate(int idx, int mask) throws ContradictionException {
+            if (idx < 4 * nbTasks) {
+                refresh(idx % nbTasks);
+            }
+            forcePropagate(PropagatorEventType.CUSTOM_PROPAGATION);
+        }
+
+        private void filter() throws ContradictionException {
+            boolean again;
+            do {
+                again = false;
+                energy.updateLowerBound(toInt(minSum.get()), aCause);
+                energy.updateUpperBound(toInt(maxSum.get()), aCause);
+                if (energy.getUB() < maxSum.get()) {
+                    again = filterUpperBounds();
+                }
+                if (energy.getLB() > minSum.get()) {
+                    again |= filterLowerBounds();
+                }
+            } while (again);
+        }
+
+        /**
+         * Reduce the tasks that would exceed the energy upper bound.
+         *
+         * @return {@code true} iff a domain was modified
+         */
+        private boolean filterUpperBounds() throws ContradictionException {
+            boolean modified = false;
+            long ub = energy.getUB();
+            for (int i = 0; i < nbTasks; i++) {
+                long slack = ub - (minSum.get() - minAreas[i].get());
+                if (maxAreas[i].get() <= slack) {
+                    continue;
+                }
+                int h = heights[i].getLB();
+                if (h > 0 && durations[i].updateUpperBound(toInt(slack / h), aCause)) {
+                    refresh(durationUsers[i]);
+                    modified = true;
+                }
+                long d = minDuration(i);
+                if (d > 0 && heights[i].updateUpperBound(toInt((ub - (minSum.get() - minAreas[i].get())) / d), aCause)) {
+                    refresh(heightUsers[i]);
+                    modified = true;
+                }
+            }
+            return modified;
+        }
+
+        /**
+         * Enlarge the tasks that must provide the missing energy.
+         *
+         * @return {@code true} iff a domain was modified
+         */
+        private boolean filterLowerBounds() throws ContradictionException {
+            boolean modified = false;
+            long lb = energy.getLB();
+            for (int i = 0; i < nbTasks; i++) {
+                long need = lb - (maxSum.get() - maxAreas[i].get());
+                if (minAreas[i].get() >= need) {
+                    continue;
+                }
+                int h = heights[i].getUB();
+                if (h > 0 && durations[i].updateLowerBound(toInt(ceilDiv(need, h)), aCause)) {
+                    refresh(durationUsers[i]);
+                    modified = true;
+                }
+                long d = maxDuration(i);
+                if (d > 0 && heights[i].updateLowerBound(toInt(ceilDiv(lb - (maxSum.get() - maxAreas[i].get()), d)), aCause)) {
+                    refresh(heightUsers[i]);
+                    modified = true;
+                }
+            }
+            return modified;
+        }
+
+        private static long ceilDiv(long a, long b) {
+            return (a + b - 1) / b;
+        }
+
+        private static int toInt(long v) {
+            return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, v));
+        }
+
+        @Override
+        public ESat isEntailed() {
+            if (!isCompletelyInstantiated()) {
+                return ESat.UNDEFINED;
+            }
+            long sum = 0;
+            for (int i = 0; i < nbTasks; i++) {
+                sum += (long) durations[i].getValue() * heights[i].getValue();
+            }
+            return ESat.eval(sum == energy.getValue());
+        }
+    }
+}
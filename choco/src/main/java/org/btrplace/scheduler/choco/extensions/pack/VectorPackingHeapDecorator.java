@@ -18,16 +18,19 @@
 
 package org.btrplace.scheduler.choco.extensions.pack;
 
+import org.chocosolver.memory.IEnvironment;
+import org.chocosolver.memory.IStateInt;
 import org.chocosolver.solver.exception.ContradictionException;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.PriorityQueue;
-
 /**
  * The list of bins can be optionally maintain as a heap in order that only the bins with the maximum load slack
  * are considered in the propagation of rule 1: binLoad = sumItemSizes - sumOtherBinLoads
  * call attachHeapDecorator() to the VectorPackingPropagator object
+ * <p>
+ * There is one indexed binary max-heap of bins per dimension. The heap slots are backtrackable so
+ * a backtrack restores the heap as it was when the world was saved. Between two fix points, the propagator
+ * reports every bin which load bounds changed with {@link #loadChanged(int, int)} and only these bins are
+ * moved in the heap. A propagation then costs O(changes * log(nbBins)) instead of a complete re-heap.
  *
  * @author Sophie Demassey
  */
@@ -38,20 +41,40 @@ public class VectorPackingHeapDecorator {
      */
     private VectorPackingPropagator p;
     /**
-     * The list of bins as a maxSlackBinHeap for quick access to the bin with the maximum slack load. [nbDims]
+     * The bin stored in each slot of the maxSlackBinHeap. [nbDims][nbBins]
      */
-    private ArrayList<PriorityQueue<Integer>> maxSlackBinHeap;
-
-    private int lastWorld = -1;
-    private long lastNbOfBacktracks = -1;
-    private long lastNbOfRestarts = -1;
+    private IStateInt[][] heap;
+    /**
+     * The slot of each bin in the maxSlackBinHeap. [nbDims][nbBins]
+     */
+    private IStateInt[][] pos;
+    /**
+     * The (dimension, bin) pairs, encoded as dimension * nbBins + bin, which load slack changed
+     * since the last fix point.
+     */
+    private int[] changes;
+    /**
+     * The number of pending changes.
+     */
+    private int nbChanges;
+    /**
+     * Tell if a pair is already in the pending changes. [nbDims * nbBins]
+     */
+    private boolean[] changed;
 
     public VectorPackingHeapDecorator(VectorPackingPropagator p) {
         this.p = p;
-        this.maxSlackBinHeap = new ArrayList<>(p.nbDims);
+        IEnvironment env = p.getSolver().getEnvironment();
+        this.heap = new IStateInt[p.nbDims][p.nbBins];
+        this.pos = new IStateInt[p.nbDims][p.nbBins];
         for (int d = 0; d < p.nbDims; d++) {
-            maxSlackBinHeap.add(new PriorityQueue<>(p.nbBins, new LoadSlackComparator(d, this)));
+            for (int b = 0; b < p.nbBins; b++) {
+                heap[d][b] = env.makeInt(b);
+                pos[d][b] = env.makeInt(b);
+            }
         }
+        this.changes = new int[p.nbDims * p.nbBins];
+        this.changed = new boolean[p.nbDims * p.nbBins];
     }
 
     /**
@@ -65,44 +88,118 @@ public class VectorPackingHeapDecorator {
         return p.loads[dim][bin].getUB() - p.loads[dim][bin].getLB();
     }
 
+    /**
+     * Build the heaps from scratch.
+     * To call once the load variables have been initialized.
+     */
     public void reHeap() {
+        clearChanges();
         for (int d = 0; d < p.nbDims; d++) {
-            maxSlackBinHeap.get(d).clear();
-            for (int b = 0; b < p.nbBins; b++) {
-                if (loadSlack(d, b) > 0) {
-                    maxSlackBinHeap.get(d).offer(b);
-                }
+            for (int i = p.nbBins / 2 - 1; i >= 0; i--) {
+                siftDown(d, i);
             }
         }
     }
 
-    private void checkReHeap(boolean forceReHeap) throws ContradictionException {
-        int currentWorld = p.getSolver().getEnvironment().getWorldIndex();
-        long currentBt = p.getSolver().getMeasures().getBackTrackCount();
-        long currentRestart = p.getSolver().getMeasures().getRestartCount();
-        if (forceReHeap || currentWorld < lastWorld || currentBt != lastNbOfBacktracks || currentRestart > lastNbOfRestarts) {
-            reHeap();
+    /**
+     * Notify the bounds of a bin load have changed.
+     * The bin will be moved in the heap at the beginning of the next fix point.
+     *
+     * @param dim the dimension
+     * @param bin the bin
+     */
+    public void loadChanged(int dim, int bin) {
+        int k = dim * p.nbBins + bin;
+        if (!changed[k]) {
+            changed[k] = true;
+            changes[nbChanges++] = k;
         }
-        lastWorld = currentWorld;
-        lastNbOfBacktracks = currentBt;
-        lastNbOfRestarts = currentRestart;
     }
 
-
     /**
-     * a comparator of load slacks
+     * Move the changed bins to their new position in the heaps.
+     * A change may be outdated after a backtrack. The bin is then already at its position.
      */
-    static class LoadSlackComparator implements Comparator<Integer> {
-        private int dimension;
-        private VectorPackingHeapDecorator hp;
+    private void flushChanges() {
+        for (int i = 0; i < nbChanges; i++) {
+            int d = changes[i] / p.nbBins;
+            int b = changes[i] % p.nbBins;
+            changed[changes[i]] = false;
+            int at = pos[d][b].get();
+            if (!siftUp(d, at)) {
+                siftDown(d, at);
+            }
+        }
+        nbChanges = 0;
+    }
+
+    private void clearChanges() {
+        for (int i = 0; i < nbChanges; i++) {
+            changed[changes[i]] = false;
+        }
+        nbChanges = 0;
+    }
+
+    private int slackAt(int d, int slot) {
+        return loadSlack(d, heap[d][slot].get());
+    }
 
-        public LoadSlackComparator(int dim, VectorPackingHeapDecorator hp) {
-            this.dimension = dim;
-            this.hp = hp;
+    private void place(int d, int slot, int bin) {
+        heap[d][slot].set(bin);
+        pos[d][bin].set(slot);
+    }
+
+    /**
+     * Move up a bin which load slack may have increased.
+     *
+     * @return {@code true} iff the bin moved
+     */
+    private boolean siftUp(int d, int slot) {
+        int b = heap[d][slot].get();
+        int s = loadSlack(d, b);
+        int i = slot;
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            int pb = heap[d][parent].get();
+            if (loadSlack(d, pb) >= s) {
+                break;
+            }
+            place(d, i, pb);
+            i = parent;
         }
+        if (i != slot) {
+            place(d, i, b);
+            return true;
+        }
+        return false;
+    }
 
-        public int compare(Integer a, Integer b) {
-            return hp.loadSlack(dimension, b) - hp.loadSlack(dimension, a);
+    /**
+     * Move down a bin which load slack may have decreased.
+     */
+    private void siftDown(int d, int slot) {
+        int b = heap[d][slot].get();
+        int s = loadSlack(d, b);
+        int i = slot;
+        int half = p.nbBins / 2;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int cs = slackAt(d, child);
+            if (child + 1 < p.nbBins) {
+                int rs = slackAt(d, child + 1);
+                if (rs > cs) {
+                    child++;
+                    cs = rs;
+                }
+            }
+            if (s >= cs) {
+                break;
+            }
+            place(d, i, heap[d][child].get());
+            i = child;
+        }
+        if (i != slot) {
+            place(d, i, b);
         }
     }
 
@@ -114,17 +211,16 @@ public class VectorPackingHeapDecorator {
      * if loadSlack > sumBinLoadSup - sumItemSizes then update inf(binLoad) = sumItemSizes - (sumBinLoadSup - sup(binLoad))
      * check each rule against the bin with the maximum loadSlack and continue until it does not apply
      *
-     * @throws solver.exception.ContradictionException if a contradiction (rules 1) is raised
+     * @throws ContradictionException if a contradiction (rules 1) is raised
      */
-    public void fixPoint(boolean loadsHaveChanged) throws ContradictionException {
+    public void fixPoint() throws ContradictionException {
         for (int d = 0; d < p.nbDims; d++) {
             if (p.sumISizes[d] > p.sumLoadSup[d].get() || p.sumISizes[d] < p.sumLoadInf[d].get()) {
                 p.contradiction(null, "");
             }
         }
-        checkReHeap(loadsHaveChanged);
+        flushChanges();
         for (int d = 0; d < p.nbDims; d++) {
-            if (maxSlackBinHeap.get(d).isEmpty()) continue;
             int nChanges;
             long deltaFromInf = p.sumISizes[d] - p.sumLoadInf[d].get();
             long deltaToSup = p.sumLoadSup[d].get() - p.sumISizes[d];
@@ -149,6 +245,8 @@ public class VectorPackingHeapDecorator {
                 }
             } while (nChanges > 0);
         }
+        //The bins filtered by filterLoads() are already in place
+        clearChanges();
     }
 
 
@@ -164,23 +262,15 @@ public class VectorPackingHeapDecorator {
      * @throws ContradictionException if a contradiction (rule 1.1) is raised
      */
     private int filterLoads(int d, int delta, boolean isSup) throws ContradictionException {
-        assert maxSlackBinHeap != null;
         int nChanges = 0;
-        if (maxSlackBinHeap == null || maxSlackBinHeap.get(d) == null || maxSlackBinHeap.get(d).isEmpty()) {
-            System.out.println("coucou");
-        }
-        if (loadSlack(d, maxSlackBinHeap.get(d).peek()) > delta) {
-            do {
-                int b = maxSlackBinHeap.get(d).poll();
-                if (isSup) p.filterLoadSup(d, b, delta + p.loads[d][b].getLB());
-                else p.filterLoadInf(d, b, p.loads[d][b].getUB() - delta);
-                assert (loadSlack(d, b) == delta);
-                maxSlackBinHeap.get(d).offer(b);
-                nChanges++;
-            } while (!maxSlackBinHeap.get(d).isEmpty() && loadSlack(d, maxSlackBinHeap.get(d).peek()) > delta);
+        while (p.nbBins > 0 && slackAt(d, 0) > delta) {
+            int b = heap[d][0].get();
+            if (isSup) p.filterLoadSup(d, b, delta + p.loads[d][b].getLB());
+            else p.filterLoadInf(d, b, p.loads[d][b].getUB() - delta);
+            assert (loadSlack(d, b) == delta);
+            siftDown(d, 0);
+            nChanges++;
         }
         return nChanges;
     }
-
-
 }
@@ -217,18 +217,15 @@ public class VectorPackingPropagator extends Propagator<IntVar> {
      */
     @Override
     public void propagate(int evtMask) throws ContradictionException {
-        boolean recomputeLoads;
         if ((evtMask & PropagatorEventType.FULL_PROPAGATION.getMask()) != 0) {
             initialize();
-            recomputeLoads = true;
         } else {
-            recomputeLoads = loadsHaveChanged.get();
-            if (recomputeLoads) {
+            if (loadsHaveChanged.get()) {
                 recomputeLoadSums(); // TODO: update rather than recompute
             }
         }
         if (decoHeap != null)
-            decoHeap.fixPoint(recomputeLoads);
+            decoHeap.fixPoint();
         else
             fixPoint();
         assert checkLoadConsistency();
@@ -276,6 +273,7 @@ public class VectorPackingPropagator extends Propagator<IntVar> {
         if (delta <= 0)
             return false;
         loads[dim][bin].updateLowerBound(newLoadInf, aCause);
+        if (decoHeap != null) decoHeap.loadChanged(dim, bin);
         if (sumISizes[dim] < sumLoadInf[dim].add(delta))
             contradiction(null, "");
         return true;
@@ -295,6 +293,7 @@ public class VectorPackingPropagator extends Propagator<IntVar> {
         if (delta >= 0)
             return false;
         loads[dim][bin].updateUpperBound(newLoadSup, aCause);
+        if (decoHeap != null) decoHeap.loadChanged(dim, bin);
         if (sumISizes[dim] > sumLoadSup[dim].add(delta))
             contradiction(null, "");
         return true;
@@ -346,6 +345,10 @@ public class VectorPackingPropagator extends Propagator<IntVar> {
             }
         } else {
             loadsHaveChanged.set(true);
+            if (decoHeap != null) {
+                int x = idx - bins.length;
+                decoHeap.loadChanged(x / nbBins, x % nbBins);
+            }
         }
         forcePropagate(PropagatorEventType.CUSTOM_PROPAGATION);
     }
@@ -450,6 +453,7 @@ public class VectorPackingPropagator extends Propagator<IntVar> {
         loadsHaveChanged = getSolver().getEnvironment().makeBool(false);
 
         if (decoKPSimple != null) decoKPSimple.postInitialize();
+        if (decoHeap != null) decoHeap.reHeap();
 
 //        detectEntailedDimensions(sumFreeSize);
 
@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.scheduler.choco.runner.disjoint;
+
+import gnu.trove.set.hash.THashSet;
+import org.btrplace.model.*;
+import org.btrplace.model.constraint.SatConstraint;
+import org.btrplace.model.view.ModelView;
+import org.btrplace.model.view.net.NetworkView;
+import org.btrplace.model.view.net.Port;
+import org.btrplace.model.view.net.Switch;
+import org.btrplace.model.view.power.EnergyView;
+import org.btrplace.plan.DefaultReconfigurationPlan;
+import org.btrplace.plan.ReconfigurationPlan;
+import org.btrplace.scheduler.SchedulerException;
+import org.btrplace.scheduler.choco.Parameters;
+import org.btrplace.scheduler.choco.runner.InstanceResult;
+import org.btrplace.scheduler.choco.runner.SolvingStatistics;
+import org.btrplace.scheduler.choco.runner.disjoint.splitter.Instances;
+
+import java.util.*;
+
+/**
+ * A partitioning solver that re-solves the partitions having no solution.
+ * <p>
+ * The instance is first split and solved like with {@link FixedNodeSetsPartitioning}.
+ * Then, each partition without a solution is merged with the least loaded
+ * partition and only the merged partitions are solved again. The views are split again
+ * among the new partitions, so a partition that was solved may receive a smaller share of
+ * a view, e.g. a network element now shared with a merged partition. Such a partition is
+ * solved again too, as its plan may rely on the capacity it lost.
+ * The process is repeated until every partition has a solution or there is a single partition left.
+ * The time limit stated in the parameters is shared among all the rounds.
+ * <p>
+ * The statistics of each round are available through
+ * {@link StaticPartitioningStatistics#getRoundStatistics()}.
+ */
+public class AdaptivePartitioning extends StaticPartitioning {
+
+    private FixedNodeSetsPartitioning base;
+
+    private SolvingStatistics stats;
+
+    /**
+     * Make a new solver.
+     *
+     * @param p the partitioning algorithm that computes the initial partitions
+     */
+    public AdaptivePartitioning(FixedNodeSetsPartitioning p) {
+        this.base = p;
+    }
+
+    /**
+     * Get the partitioning algorithm that computes the initial partitions.
+     *
+     * @return the partitioning algorithm
+     */
+    public FixedNodeSetsPartitioning getPartitioning() {
+        return base;
+    }
+
+    @Override
+    public List<Instance> split(Parameters ps, Instance i) throws SchedulerException {
+        return base.split(ps, i);
+    }
+
+    @Override
+    public ReconfigurationPlan solve(Parameters ps, Instance orig) throws SchedulerException {
+        long start = System.currentTimeMillis();
+        int timeLimit = ps.getTimeLimit();
+        Mapping ma = orig.getModel().getMapping();
+        int nbNodes = ma.getNbNodes();
+        int nbVMs = ma.getNbVMs();
+        int nbConstraints = orig.getSatConstraints().size();
+
+        long splitDuration = -System.currentTimeMillis();
+        List<Instance> parts = split(ps, orig);
+        splitDuration += System.currentTimeMillis();
+
+        List<InstanceResult> results = new ArrayList<>(Collections.nCopies(parts.size(), null));
+        List<Integer> toSolve = new ArrayList<>(parts.size());
+        for (int i = 0; i < parts.size(); i++) {
+            toSolve.add(i);
+        }
+        List<StaticPartitioningStatistics> rounds = new ArrayList<>();
+        ElementBuilder eb = new SynchronizedElementBuilder(orig.getModel());
+
+        long duration = -System.currentTimeMillis();
+        try {
+            while (true) {
+                if (timeLimit > 0) {
+                    //The remaining time for this round
+                    int remaining = timeLimit - (int) ((System.currentTimeMillis() - start) / 1000);
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    ps.setTimeLimit(remaining);
+                }
+                List<Instance> pending = new ArrayList<>(toSolve.size());
+                for (int i : toSolve) {
+                    pending.add(parts.get(i));
+                }
+                long roundStart = System.currentTimeMillis();
+                List<InstanceResult> res = solve(ps, orig, pending, false);
+                StaticPartitioningStatistics round = new StaticPartitioningStatistics(ps, nbNodes, nbVMs, nbConstraints,
+                        roundStart, 0, System.currentTimeMillis() - roundStart, getWorkersCount(), pending.size());
+                merge(new InstanceResult(null, round), res);
+                rounds.add(round);
+
+                List<Integer> failures = new ArrayList<>();
+                for (int i = 0; i < toSolve.size(); i++) {
+                    results.set(toSolve.get(i), res.get(i));
+                    if (res.get(i) == null || res.get(i).getPlan() == null) {
+                        failures.add(toSolve.get(i));
+                    }
+                }
+                if (failures.isEmpty() || parts.size() == 1) {
+                    break;
+                }
+                toSolve = mergeFailures(orig, eb, parts, results, failures);
+            }
+        } finally {
+            ps.setTimeLimit(timeLimit);
+        }
+        duration += System.currentTimeMillis();
+
+        boolean solved = true;
+        for (InstanceResult r : results) {
+            if (r == null || r.getPlan() == null) {
+                solved = false;
+            }
+        }
+        StaticPartitioningStatistics st = new StaticPartitioningStatistics(ps, nbNodes, nbVMs, nbConstraints,
+                start, splitDuration, duration, getWorkersCount(), parts.size());
+        if (rounds.size() > 1) {
+            for (StaticPartitioningStatistics r : rounds) {
+                st.addRoundStatistics(r);
+            }
+        }
+        InstanceResult res = new InstanceResult(solved ? new DefaultReconfigurationPlan(orig.getModel()) : null, st);
+        merge(res, results);
+        stats = res.getStatistics();
+        return res.getPlan();
+    }
+
+    /**
+     * Merge each partition without solution with the least loaded partition.
+     * The partitions and their results are updated accordingly and the views and the
+     * constraints are split again among the new partitions.
+     *
+     * @return the position of the merged partitions and of the partitions whose views shrunk, to solve
+     */
+    private List<Integer> mergeFailures(Instance orig, ElementBuilder eb, List<Instance> parts, List<InstanceResult> results, List<Integer> failures) throws SchedulerException {
+        int[] group = new int[parts.size()];
+        Arrays.fill(group, -1);
+        List<List<Instance>> groups = new ArrayList<>();
+        for (int f : failures) {
+            if (group[f] >= 0) {
+                //Already merged with another failing partition
+                continue;
+            }
+            int n = -1;
+            for (int j = 0; j < parts.size(); j++) {
+                if (j != f && (n < 0 || size(parts.get(j)) < size(parts.get(n)))) {
+                    n = j;
+                }
+            }
+            if (group[n] < 0) {
+                group[n] = groups.size();
+                groups.add(new ArrayList<>());
+                groups.get(group[n]).add(parts.get(n));
+            }
+            group[f] = group[n];
+            groups.get(group[n]).add(parts.get(f));
+        }
+
+        //The untouched partitions, then the merged ones
+        List<Instance> next = new ArrayList<>();
+        List<InstanceResult> nextResults = new ArrayList<>();
+        for (int i = 0; i < parts.size(); i++) {
+            if (group[i] < 0) {
+                Instance p = parts.get(i);
+                next.add(new Instance(p.getModel(), new THashSet<>(), p.getOptConstraint()));
+                nextResults.add(results.get(i));
+            }
+        }
+        List<Integer> merged = new ArrayList<>(groups.size());
+        for (List<Instance> g : groups) {
+            merged.add(next.size());
+            next.add(merge(orig, eb, g));
+            nextResults.add(null);
+        }
+        //The views of the untouched partitions, to detect the ones that shrink
+        List<Collection<ModelView>> views = new ArrayList<>();
+        for (int i = 0; i < next.size() - merged.size(); i++) {
+            views.add(new ArrayList<>(next.get(i).getModel().getViews()));
+        }
+        base.split(orig, next, Instances.makeVMIndex(next), Instances.makeNodeIndex(next));
+
+        List<Integer> toSolve = new ArrayList<>();
+        for (int i = 0; i < views.size(); i++) {
+            Model mo = next.get(i).getModel();
+            for (ModelView before : views.get(i)) {
+                if (shrinks(before, mo.getView(before.getIdentifier()))) {
+                    toSolve.add(i);
+                    nextResults.set(i, null);
+                    break;
+                }
+            }
+        }
+        toSolve.addAll(merged);
+
+        parts.clear();
+        parts.addAll(next);
+        results.clear();
+        results.addAll(nextResults);
+        return toSolve;
+    }
+
+    /**
+     * Check if a new version of a view provides less than the previous one.
+     * The capacities of the {@link NetworkView}s and the budgets of the {@link EnergyView}s
+     * are compared. Any other view that changed is considered as shrunk.
+     *
+     * @param before the previous version
+     * @param after  the new version. May be {@code null}
+     * @return {@code true} if a plan computed with {@code before} may not be viable with {@code after}
+     */
+    private static boolean shrinks(ModelView before, ModelView after) {
+        if (before == after) {
+            return false;
+        }
+        if (before instanceof NetworkView && after instanceof NetworkView) {
+            return shrinks(capacities((NetworkView) before), capacities((NetworkView) after));
+        }
+        if (before instanceof EnergyView && after instanceof EnergyView) {
+            EnergyView b = (EnergyView) before;
+            EnergyView a = (EnergyView) after;
+            if (a.getMaxPower() < b.getMaxPower() || a.getTibList().size() != b.getTibList().size()) {
+                return true;
+            }
+            for (int i = 0; i < b.getTibList().size(); i++) {
+                if (a.getTibList().get(i).getBudget() < b.getTibList().get(i).getBudget()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return after == null || !before.equals(after);
+    }
+
+    private static boolean shrinks(Map<String, List<Integer>> before, Map<String, List<Integer>> after) {
+        for (Map.Entry<String, List<Integer>> e : before.entrySet()) {
+            List<Integer> b = e.getValue();
+            List<Integer> a = after.get(e.getKey());
+            if (a == null || a.size() != b.size()) {
+                return true;
+            }
+            for (int i = 0; i < b.size(); i++) {
+                if (a.get(i) < b.get(i)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the capacity of each switch and the bandwidth of the links between two elements,
+     * sorted in decreasing order. An unlimited capacity is stated as {@link Integer#MAX_VALUE}.
+     * The switches keep their identifier in the projected copies of a network.
+     */
+    private static Map<String, List<Integer>> capacities(NetworkView net) {
+        Map<String, List<Integer>> res = new HashMap<>();
+        for (Switch sw : net.getSwitches()) {
+            res.computeIfAbsent("s" + sw.id(), x -> new ArrayList<>()).add(sw.getCapacity() > 0 ? sw.getCapacity() : Integer.MAX_VALUE);
+            for (Port p : sw.getPorts()) {
+                Element remote = p.getRemote().getHost();
+                String k = "s" + sw.id() + "-" + (remote instanceof Switch ? "s" : "n") + remote.id();
+                res.computeIfAbsent(k, x -> new ArrayList<>()).add(p.getBandwidth());
+            }
+        }
+        for (List<Integer> bws : res.values()) {
+            bws.sort(Collections.reverseOrder());
+        }
+        return res;
+    }
+
+    /**
+     * Merge partitions into a single one, without constraints.
+     */
+    private static Instance merge(Instance orig, ElementBuilder eb, List<Instance> group) throws SchedulerException {
+        Set<Node> scope = new HashSet<>();
+        Set<VM> ready = new HashSet<>();
+        for (Instance i : group) {
+            if (!(i.getModel() instanceof SubModel)) {
+                throw new SchedulerException(i.getModel(), "Unable to merge a partition that is not a sub-model");
+            }
+            SubModel mo = (SubModel) i.getModel();
+            scope.addAll(mo.getScope());
+            ready.addAll(mo.getMapping().getReadyVMs());
+        }
+        return new Instance(new SubModel(orig.getModel(), eb, scope, ready), new THashSet<SatConstraint>(), orig.getOptConstraint());
+    }
+
+    @Override
+    public SolvingStatistics getStatistics() {
+        return stats;
+    }
+}
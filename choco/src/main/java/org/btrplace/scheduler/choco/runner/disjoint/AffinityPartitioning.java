@@ -0,0 +1,437 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.scheduler.choco.runner.disjoint;
+
+import gnu.trove.iterator.TIntIntIterator;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntIntHashMap;
+import gnu.trove.set.hash.TIntHashSet;
+import org.btrplace.model.Instance;
+import org.btrplace.model.Mapping;
+import org.btrplace.model.Node;
+import org.btrplace.model.VM;
+import org.btrplace.model.constraint.*;
+import org.btrplace.model.constraint.migration.Precedence;
+import org.btrplace.model.constraint.migration.Serialize;
+import org.btrplace.model.constraint.migration.Sync;
+import org.btrplace.scheduler.SchedulerException;
+import org.btrplace.scheduler.choco.Parameters;
+
+import java.util.*;
+
+/**
+ * An extension of {@link FixedNodeSetsPartitioning} where
+ * the partitions of nodes are computed from the constraints
+ * to reduce the number of constraints that are split.
+ * <p>
+ * A node-affinity graph ties the nodes involved in a same constraint,
+ * either directly or through the current location of the VMs. Only the
+ * constraints having a class returned by {@link #getTyingConstraints()} are considered.
+ * The graph is partitioned using a multilevel scheme: a size-constrained label propagation
+ * clusters the strongly tied nodes, the clusters are contracted into a coarser graph
+ * and the process is repeated while the graph shrinks. The final clusters are then packed
+ * into partitions of at most {@link #getSize()} nodes, the most tied ones together.
+ * The nodes of a constraint larger than a partition cannot be kept together, they are ignored.
+ */
+public class AffinityPartitioning extends FixedNodeSetsPartitioning {
+
+    /**
+     * The maximum number of label propagation rounds per level.
+     */
+    private static final int MAX_ROUNDS = 10;
+
+    private int partSize;
+
+    private Set<Class<? extends SatConstraint>> tying;
+
+    /**
+     * Make a new partitioning algorithm.
+     * By default, the nodes are tied by the {@link Among}, {@link Fence}, {@link Gather},
+     * {@link Split}, {@link SplitAmong} and {@link Spread} constraints, and by the
+     * {@link Precedence}, {@link Serialize} and {@link Sync} constraints that cannot be split.
+     *
+     * @param s the maximum partition size
+     */
+    public AffinityPartitioning(int s) {
+        super(Collections.<Collection<Node>>singleton(new HashSet<>()));
+        this.partSize = s;
+        tying = new HashSet<>(Arrays.asList(Among.class, Fence.class, Gather.class,
+                Split.class, SplitAmong.class, Spread.class,
+                Precedence.class, Serialize.class, Sync.class));
+    }
+
+    /**
+     * Get the maximum partition size in terms of number of nodes.
+     *
+     * @return a value > 0
+     */
+    public int getSize() {
+        return partSize;
+    }
+
+    /**
+     * Set the maximum partition size in terms of number of nodes.
+     *
+     * @param s a value > 0
+     */
+    public void setSize(int s) {
+        this.partSize = s;
+    }
+
+    /**
+     * Get the classes of the constraints that tie their nodes together.
+     * The set can be modified to customize the affinity graph.
+     *
+     * @return a mutable set of constraint classes
+     */
+    public Set<Class<? extends SatConstraint>> getTyingConstraints() {
+        return tying;
+    }
+
+    @Override
+    public List<Instance> split(Parameters ps, Instance i) throws SchedulerException {
+        setPartitions(makePartitions(i));
+        return super.split(ps, i);
+    }
+
+    /**
+     * Compute the node partitions of an instance.
+     *
+     * @param i the instance
+     * @return disjoint sets of at most {@link #getSize()} nodes that cover all the nodes
+     */
+    List<Collection<Node>> makePartitions(Instance i) {
+        Mapping map = i.getModel().getMapping();
+        List<Node> nodes = new ArrayList<>(map.getAllNodes());
+        TIntIntHashMap index = new TIntIntHashMap(nodes.size());
+        for (int x = 0; x < nodes.size(); x++) {
+            index.put(nodes.get(x).id(), x);
+        }
+
+        Graph g = new Graph(nodes.size());
+        for (SatConstraint cstr : i.getSatConstraints()) {
+            if (tying.contains(cstr.getClass())) {
+                tie(cstr, map, index, g);
+            }
+        }
+
+        //The coarse vertex of each node
+        int[] coarse = new int[nodes.size()];
+        for (int x = 0; x < coarse.length; x++) {
+            coarse[x] = x;
+        }
+        while (true) {
+            int[] labels = cluster(g);
+            int nb = renumber(labels);
+            if (nb == g.size()) {
+                break;
+            }
+            //Stop when the graph barely shrinks, to bound the number of levels
+            boolean slow = nb * 100L > g.size() * 99L;
+            g = g.contract(labels, nb);
+            for (int x = 0; x < coarse.length; x++) {
+                coarse[x] = labels[coarse[x]];
+            }
+            if (slow) {
+                break;
+            }
+        }
+
+        int[] partOf = pack(g);
+        List<Collection<Node>> parts = new ArrayList<>();
+        for (int x = 0; x < coarse.length; x++) {
+            int p = partOf[coarse[x]];
+            while (parts.size() <= p) {
+                parts.add(new HashSet<>());
+            }
+            parts.get(p).add(nodes.get(x));
+        }
+        return parts;
+    }
+
+    /**
+     * Add the edges stating the nodes of a constraint are tied.
+     */
+    private void tie(SatConstraint cstr, Mapping map, TIntIntHashMap index, Graph g) {
+        TIntHashSet hosts = new TIntHashSet();
+        for (VM v : cstr.getInvolvedVMs()) {
+            Node n = map.getVMLocation(v);
+            if (n != null && index.containsKey(n.id())) {
+                hosts.add(index.get(n.id()));
+            }
+        }
+        TIntHashSet all = new TIntHashSet(hosts);
+        for (Node n : cstr.getInvolvedNodes()) {
+            if (index.containsKey(n.id())) {
+                all.add(index.get(n.id()));
+            }
+        }
+        if (all.size() <= partSize) {
+            g.star(all);
+            return;
+        }
+        //Too large, keep at least the VMs and each group of nodes together
+        if (hosts.size() <= partSize) {
+            g.star(hosts);
+        }
+        Collection<Collection<Node>> groups = Collections.emptyList();
+        if (cstr instanceof Among) {
+            groups = ((Among) cstr).getGroupsOfNodes();
+        } else if (cstr instanceof SplitAmong) {
+            groups = ((SplitAmong) cstr).getGroupsOfNodes();
+        }
+        for (Collection<Node> grp : groups) {
+            if (grp.size() <= partSize) {
+                TIntHashSet s = new TIntHashSet(grp.size());
+                for (Node n : grp) {
+                    if (index.containsKey(n.id())) {
+                        s.add(index.get(n.id()));
+                    }
+                }
+                g.star(s);
+            }
+        }
+    }
+
+    /**
+     * Cluster the vertices using a label propagation.
+     * Each vertex moves to the cluster it is the most tied with, if that cluster has enough room.
+     *
+     * @param g the graph
+     * @return the cluster of each vertex
+     */
+    private int[] cluster(Graph g) {
+        int nb = g.size();
+        int[] labels = new int[nb];
+        int[] sizes = new int[nb];
+        for (int v = 0; v < nb; v++) {
+            labels[v] = v;
+            sizes[v] = g.weights[v];
+        }
+        int[] scores = new int[nb];
+        TIntArrayList touched = new TIntArrayList();
+        for (int round = 0; round < MAX_ROUNDS; round++) {
+            boolean moved = false;
+            for (int v = 0; v < nb; v++) {
+                int cur = labels[v];
+                int w = g.weights[v];
+                for (TIntIntIterator ite = g.edges[v].iterator(); ite.hasNext(); ) {
+                    ite.advance();
+                    int l = labels[ite.key()];
+                    if (scores[l] == 0) {
+                        touched.add(l);
+                    }
+                    scores[l] += ite.value();
+                }
+                int best = cur;
+                for (int x = 0; x < touched.size(); x++) {
+                    int l = touched.getQuick(x);
+                    if (scores[l] > scores[best] && sizes[l] + w <= partSize) {
+                        best = l;
+                    }
+                }
+                for (int x = 0; x < touched.size(); x++) {
+                    scores[touched.getQuick(x)] = 0;
+                }
+                touched.resetQuick();
+                if (best != cur) {
+                    sizes[cur] -= w;
+                    sizes[best] += w;
+                    labels[v] = best;
+                    moved = true;
+                }
+            }
+            if (!moved) {
+                break;
+            }
+        }
+        return labels;
+    }
+
+    /**
+     * Renumber labels from 0.
+     *
+     * @param labels the labels to renumber
+     * @return the number of distinct labels
+     */
+    private static int renumber(int[] labels) {
+        int[] ids = new int[labels.length];
+        Arrays.fill(ids, -1);
+        int nb = 0;
+        for (int v = 0; v < labels.length; v++) {
+            int l = labels[v];
+            if (ids[l] < 0) {
+                ids[l] = nb++;
+            }
+            labels[v] = ids[l];
+        }
+        return nb;
+    }
+
+    /**
+     * Pack the vertices into partitions, the heaviest first.
+     * A vertex goes to the partition it is the most tied with among those having enough room,
+     * otherwise to the partition with the smallest room that is large enough, or a new one.
+     *
+     * @param g the graph
+     * @return the partition of each vertex
+     */
+    private int[] pack(Graph g) {
+        Integer[] sorted = new Integer[g.size()];
+        for (int v = 0; v < sorted.length; v++) {
+            sorted[v] = v;
+        }
+        Arrays.sort(sorted, (a, b) -> g.weights[b] - g.weights[a]);
+
+        int[] partOf = new int[g.size()];
+        Arrays.fill(partOf, -1);
+        TIntArrayList rooms = new TIntArrayList();
+        //The partitions by room. Entries are outdated when the room of a partition does not match the key anymore
+        TreeMap<Integer, TIntArrayList> byRoom = new TreeMap<>();
+        int[] scores = new int[g.size()];
+        TIntArrayList touched = new TIntArrayList();
+        for (int v : sorted) {
+            int w = g.weights[v];
+            for (TIntIntIterator ite = g.edges[v].iterator(); ite.hasNext(); ) {
+                ite.advance();
+                int p = partOf[ite.key()];
+                if (p >= 0) {
+                    if (scores[p] == 0) {
+                        touched.add(p);
+                    }
+                    scores[p] += ite.value();
+                }
+            }
+            int best = -1;
+            for (int x = 0; x < touched.size(); x++) {
+                int p = touched.getQuick(x);
+                if (rooms.getQuick(p) >= w && (best < 0 || scores[p] > scores[best])) {
+                    best = p;
+                }
+            }
+            for (int x = 0; x < touched.size(); x++) {
+                scores[touched.getQuick(x)] = 0;
+            }
+            touched.resetQuick();
+            if (best < 0) {
+                best = bestFit(byRoom, rooms, w);
+            }
+            if (best < 0) {
+                best = rooms.size();
+                rooms.add(partSize);
+            }
+            partOf[v] = best;
+            int room = rooms.getQuick(best) - w;
+            rooms.setQuick(best, room);
+            if (room > 0) {
+                byRoom.computeIfAbsent(room, k -> new TIntArrayList()).add(best);
+            }
+        }
+        return partOf;
+    }
+
+    /**
+     * Get the partition having the smallest room that is large enough.
+     *
+     * @return the partition index. {@code -1} if no partition has enough room
+     */
+    private static int bestFit(TreeMap<Integer, TIntArrayList> byRoom, TIntArrayList rooms, int size) {
+        Map.Entry<Integer, TIntArrayList> e = byRoom.ceilingEntry(size);
+        while (e != null) {
+            TIntArrayList l = e.getValue();
+            while (!l.isEmpty()) {
+                int p = l.removeAt(l.size() - 1);
+                if (rooms.getQuick(p) == e.getKey()) {
+                    return p;
+                }
+            }
+            byRoom.remove(e.getKey());
+            e = byRoom.higherEntry(e.getKey());
+        }
+        return -1;
+    }
+
+    /**
+     * An undirected graph with weighted vertices and edges.
+     * The weight of a vertex is its number of nodes.
+     */
+    private static class Graph {
+
+        private int[] weights;
+
+        private TIntIntHashMap[] edges;
+
+        Graph(int nb) {
+            weights = new int[nb];
+            edges = new TIntIntHashMap[nb];
+            for (int v = 0; v < nb; v++) {
+                weights[v] = 1;
+                edges[v] = new TIntIntHashMap(4);
+            }
+        }
+
+        int size() {
+            return weights.length;
+        }
+
+        void connect(int u, int v, int w) {
+            edges[u].adjustOrPutValue(v, w, w);
+            edges[v].adjustOrPutValue(u, w, w);
+        }
+
+        /**
+         * Connect all the vertices to the first one.
+         * A star keeps the graph size linear wrt. the constraint size.
+         */
+        void star(TIntHashSet vertices) {
+            if (vertices.size() < 2) {
+                return;
+            }
+            int[] members = vertices.toArray();
+            for (int x = 1; x < members.length; x++) {
+                connect(members[0], members[x], 1);
+            }
+        }
+
+        /**
+         * Make the coarser graph where each cluster is a vertex.
+         *
+         * @param labels the cluster of each vertex, from 0
+         * @param nb     the number of clusters
+         * @return the contracted graph
+         */
+        Graph contract(int[] labels, int nb) {
+            Graph c = new Graph(nb);
+            Arrays.fill(c.weights, 0);
+            for (int v = 0; v < labels.length; v++) {
+                int lv = labels[v];
+                c.weights[lv] += weights[v];
+                for (TIntIntIterator ite = edges[v].iterator(); ite.hasNext(); ) {
+                    ite.advance();
+                    int lu = labels[ite.key()];
+                    //Each edge is seen from both sides
+                    if (lu != lv) {
+                        c.edges[lv].adjustOrPutValue(lu, ite.value(), ite.value());
+                    }
+                }
+            }
+            return c;
+        }
+    }
+}
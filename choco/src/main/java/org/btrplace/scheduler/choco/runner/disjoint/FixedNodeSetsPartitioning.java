@@ -24,9 +24,11 @@ import gnu.trove.set.hash.TIntHashSet;
 import org.btrplace.model.*;
 import org.btrplace.model.constraint.Running;
 import org.btrplace.model.constraint.SatConstraint;
+import org.btrplace.model.view.ModelView;
 import org.btrplace.scheduler.SchedulerException;
 import org.btrplace.scheduler.choco.Parameters;
 import org.btrplace.scheduler.choco.runner.disjoint.splitter.ConstraintSplitterMapper;
+import org.btrplace.scheduler.choco.runner.disjoint.splitter.ModelViewSplitterMapper;
 
 import java.util.*;
 
@@ -40,6 +42,8 @@ import java.util.*;
  * <p>
  * The {@link SatConstraint}s are split when necessary using
  * splitters available through the {@link ConstraintSplitterMapper}.
+ * The views are shared by the sub-instances unless a splitter
+ * available through the {@link ModelViewSplitterMapper} restricts them.
  * The {@link org.btrplace.model.constraint.OptConstraint} is re-used
  * for each sub-instance.
  *
@@ -51,10 +55,13 @@ public class FixedNodeSetsPartitioning extends StaticPartitioning {
 
     private ConstraintSplitterMapper cstrMapper;
 
+    private ModelViewSplitterMapper viewMapper;
+
     /**
      * Make a new partitioning algorithm.
      * By default, the partition algorithm use the {@link ConstraintSplitterMapper}
-     * returned by {@link org.btrplace.scheduler.choco.runner.disjoint.splitter.ConstraintSplitterMapper#newBundle()}.
+     * returned by {@link org.btrplace.scheduler.choco.runner.disjoint.splitter.ConstraintSplitterMapper#newBundle()}
+     * and the {@link ModelViewSplitterMapper} returned by {@link ModelViewSplitterMapper#newBundle()}.
      *
      * @param parts the node partitions to rely on
      */
@@ -66,6 +73,7 @@ public class FixedNodeSetsPartitioning extends StaticPartitioning {
         }
         partitions = parts;
         cstrMapper = ConstraintSplitterMapper.newBundle();
+        viewMapper = ModelViewSplitterMapper.newBundle();
     }
 
     /**
@@ -86,6 +94,24 @@ public class FixedNodeSetsPartitioning extends StaticPartitioning {
         this.cstrMapper = m;
     }
 
+    /**
+     * Get the mapper that is used to split the views.
+     *
+     * @return a mapper
+     */
+    public ModelViewSplitterMapper getViewSplitterMapper() {
+        return viewMapper;
+    }
+
+    /**
+     * Set the mapper to use to split the views.
+     *
+     * @param m the mapper
+     */
+    public void setViewSplitterMapper(ModelViewSplitterMapper m) {
+        this.viewMapper = m;
+    }
+
     /**
      * Get the node partitions.
      *
@@ -152,14 +178,35 @@ public class FixedNodeSetsPartitioning extends StaticPartitioning {
             p = ((p + 1) % parts.size());
         }
 
+        //Split the views and the constraints
+        split(i, parts, vmPosition, nodePosition);
+        return parts;
+    }
+
+    /**
+     * Split the views and the constraints of an instance among its partitions.
+     * The partitions are expected to have no constraints yet.
+     *
+     * @param i            the instance to split
+     * @param parts        the partitions
+     * @param vmPosition   the partition associated to each VM
+     * @param nodePosition the partition associated to each node
+     * @throws SchedulerException if a view or a constraint cannot be split
+     */
+    void split(Instance i, List<Instance> parts, TIntIntHashMap vmPosition, TIntIntHashMap nodePosition) throws SchedulerException {
+        //Split the views
+        for (ModelView v : i.getModel().getViews()) {
+            if (!viewMapper.split(v, i, parts, vmPosition, nodePosition)) {
+                throw new SchedulerException(i.getModel(), "Unable to split the view '" + v.getIdentifier() + "'");
+            }
+        }
+
         //Split the constraints
         for (SatConstraint cstr : i.getSatConstraints()) {
             if (!cstrMapper.split(cstr, i, parts, vmPosition, nodePosition)) {
                 throw new SchedulerException(i.getModel(), "Unable to split " + cstr);
             }
         }
-
-        return parts;
     }
 
     private Set<VM> getVMsToLaunch(Instance i) {
@@ -98,11 +98,12 @@ public class FixedSizePartitioning extends FixedNodeSetsPartitioning {
         unselectedNodes.addAll(map.getOnlineNodes());
         unselectedNodes.addAll(map.getOfflineNodes());
 
+        //Shuffling then slicing is linear while picking random indexes from the list is quadratic
+        Collections.shuffle(unselectedNodes, rnd);
         List<Collection<Node>> partOfNodes = new ArrayList<>();
         Set<Node> curPartition = new HashSet<>(partSize);
         partOfNodes.add(curPartition);
-        while (!unselectedNodes.isEmpty()) {
-            Node n = unselectedNodes.remove(rnd.nextInt(unselectedNodes.size()));
+        for (Node n : unselectedNodes) {
             if (curPartition.size() == partSize) {
                 curPartition = new HashSet<>(partSize);
                 partOfNodes.add(curPartition);
@@ -29,9 +29,7 @@ import org.btrplace.scheduler.choco.runner.InstanceSolver;
 import org.btrplace.scheduler.choco.runner.SolvingStatistics;
 import org.btrplace.scheduler.choco.runner.single.InstanceSolverRunner;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
+import java.util.*;
 import java.util.concurrent.*;
 
 /**
@@ -43,6 +41,11 @@ import java.util.concurrent.*;
  * <p>
  * The solving process relies on a master/worker paradigm with a number
  * of workers equals to the number of available cores by default.
+ * The workers are shared among the successive solving processes. An external
+ * executor can also be provided using {@link #setExecutor(ExecutorService)}.
+ * The pool created by the solver is released by {@link #shutdown()}.
+ * The largest partitions are submitted first and once a partition is stated
+ * as having no solution, the pending ones are cancelled.
  *
  * @author Fabien Hermenier
  */
@@ -52,6 +55,16 @@ public abstract class StaticPartitioning implements InstanceSolver {
 
     private SolvingStatistics stats;
 
+    /**
+     * The executor running the partitions.
+     */
+    private ExecutorService exe;
+
+    /**
+     * {@code true} iff {@link #exe} has been created by this solver.
+     */
+    private boolean ownExecutor;
+
     /**
      * Get the number of workers that are used to solve instances.
      *
@@ -66,8 +79,56 @@ public abstract class StaticPartitioning implements InstanceSolver {
      *
      * @param s a number >= 1
      */
-    public void setWorkersCount(int s) {
+    public synchronized void setWorkersCount(int s) {
         this.workersCount = s;
+        //The pool will be re-created with the right size on the next solving process
+        shutdown();
+    }
+
+    /**
+     * Set the executor that solves the partitions.
+     * The executor is not shut down by this solver.
+     *
+     * @param e the executor to use. {@code null} to rely on a pool of {@link #getWorkersCount()} threads
+     *          that is created on demand
+     */
+    public synchronized void setExecutor(ExecutorService e) {
+        shutdown();
+        exe = e;
+    }
+
+    /**
+     * Release the pool of workers created by this solver.
+     * An executor provided using {@link #setExecutor(ExecutorService)} is not shut down,
+     * but it is no longer used. A new pool is created if the solver is used again.
+     */
+    public synchronized void shutdown() {
+        if (ownExecutor) {
+            exe.shutdown();
+        }
+        exe = null;
+        ownExecutor = false;
+    }
+
+    /**
+     * Get the executor that solves the partitions.
+     *
+     * @return the executor. {@code null} if it has not been created yet
+     */
+    public synchronized ExecutorService getExecutor() {
+        return exe;
+    }
+
+    private synchronized ExecutorService executor() {
+        if (exe == null) {
+            exe = Executors.newFixedThreadPool(workersCount, r -> {
+                Thread t = new Thread(r, "StaticPartitioning-worker");
+                t.setDaemon(true);
+                return t;
+            });
+            ownExecutor = true;
+        }
+        return exe;
     }
 
     /**
@@ -85,35 +146,18 @@ public abstract class StaticPartitioning implements InstanceSolver {
         List<Instance> partitions = split(cra, orig);
         splitDuration += System.currentTimeMillis();
 
-        ExecutorService exe = Executors.newFixedThreadPool(this.workersCount);
-        CompletionService<InstanceResult> completionService = new ExecutorCompletionService<>(exe);
-        List<InstanceResult> results = new ArrayList<>(partitions.size());
-
         int nbConstraints = orig.getSatConstraints().size();
 
         long duration = -System.currentTimeMillis();
-        for (Instance partition : partitions) {
-            completionService.submit(new InstanceSolverRunner(cra, partition));
-        }
+        List<InstanceResult> results = solve(cra, orig, partitions, true);
+        duration += System.currentTimeMillis();
 
         boolean solved = true;
-        for (int i = 0; i < partitions.size(); i++) {
-            try {
-                InstanceResult res = completionService.take().get();
-                if (res.getPlan() == null) {
-                    solved = false;
-                }
-                results.add(res);
-            } catch (ExecutionException ignore) {
-                Throwable cause = ignore.getCause();
-                if (cause != null) {
-                    throw new SchedulerException(null, cause.getMessage(), ignore);
-                }
-            } catch (InterruptedException e) {
-                throw new SchedulerException(orig.getModel(), e.getMessage(), e);
+        for (InstanceResult r : results) {
+            if (r == null || r.getPlan() == null) {
+                solved = false;
             }
         }
-        duration += System.currentTimeMillis();
         stats = new StaticPartitioningStatistics(cra, orig.getModel().getMapping().getNbNodes(),
                 orig.getModel().getMapping().getNbVMs(),
                 nbConstraints,
@@ -124,18 +168,82 @@ public abstract class StaticPartitioning implements InstanceSolver {
                 partitions.size()
         );
 
-        exe.shutdown();
-
         InstanceResult res = new InstanceResult(solved ? new DefaultReconfigurationPlan(orig.getModel()) : null, stats);
         merge(res, results);
         stats = res.getStatistics();
         return res.getPlan();
     }
 
-    private void merge(InstanceResult merged, Collection<InstanceResult> results) throws SchedulerException {
+    /**
+     * Solve partitions in parallel.
+     * The largest partitions are submitted first.
+     *
+     * @param cra        the parameters for the solver
+     * @param orig       the original instance
+     * @param partitions the partitions to solve
+     * @param failFast   {@code true} to cancel the pending partitions once a partition is stated as
+     *                   having no solution
+     * @return the result of each partition, in the same order. An entry is {@code null} if the partition
+     * has been cancelled
+     * @throws SchedulerException if an error occurred while solving a partition
+     */
+    protected List<InstanceResult> solve(Parameters cra, Instance orig, List<Instance> partitions, boolean failFast) throws SchedulerException {
+        CompletionService<InstanceResult> completionService = new ExecutorCompletionService<>(executor());
+        InstanceResult[] results = new InstanceResult[partitions.size()];
+
+        //The largest partitions are the longest to solve, they are submitted first
+        List<Integer> sorted = new ArrayList<>(partitions.size());
+        for (int i = 0; i < partitions.size(); i++) {
+            sorted.add(i);
+        }
+        sorted.sort((a, b) -> size(partitions.get(b)) - size(partitions.get(a)));
+        Map<Future<InstanceResult>, Integer> pending = new HashMap<>(sorted.size() * 2);
+        for (int i : sorted) {
+            pending.put(completionService.submit(new InstanceSolverRunner(cra, partitions.get(i))), i);
+        }
+
+        try {
+            for (int i = 0; i < partitions.size(); i++) {
+                Future<InstanceResult> f = completionService.take();
+                InstanceResult res = f.get();
+                results[pending.get(f)] = res;
+                if (failFast && res.getPlan() == null) {
+                    //No solution for a partition, no need to go further
+                    break;
+                }
+            }
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause != null) {
+                throw new SchedulerException(null, cause.getMessage(), ex);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SchedulerException(orig.getModel(), e.getMessage(), e);
+        } finally {
+            for (Future<InstanceResult> f : pending.keySet()) {
+                f.cancel(true);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Merge the results of partitions.
+     * The actions are added to the plan of the merged result, if any,
+     * and the statistics are added to its {@link StaticPartitioningStatistics}.
+     *
+     * @param merged  the merged result
+     * @param results the results to merge. The {@code null} entries are ignored
+     * @throws SchedulerException if an action cannot be added to the plan
+     */
+    protected static void merge(InstanceResult merged, Collection<InstanceResult> results) throws SchedulerException {
         ReconfigurationPlan plan = merged.getPlan();
         //Only if there is a solution
         for (InstanceResult result : results) {
+            if (result == null) {
+                continue;
+            }
             if (result.getPlan() != null && plan != null) {
                 for (Action a : result.getPlan()) {
                     if (!plan.add(a)) {
@@ -149,6 +257,17 @@ public abstract class StaticPartitioning implements InstanceSolver {
         }
     }
 
+    /**
+     * Estimate the size of an instance.
+     *
+     * @param i the instance
+     * @return its number of VMs and nodes
+     */
+    protected static int size(Instance i) {
+        //getNbVMs() is not supported by sub-mappings
+        return i.getModel().getMapping().getAllVMs().size() + i.getModel().getMapping().getNbNodes();
+    }
+
     @Override
     public SolvingStatistics getStatistics() {
         return stats;
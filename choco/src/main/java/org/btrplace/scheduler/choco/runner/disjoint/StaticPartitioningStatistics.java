@@ -34,6 +34,8 @@ public class StaticPartitioningStatistics implements SolvingStatistics {
 
     private List<SolvingStatistics> partResults;
 
+    private List<StaticPartitioningStatistics> rounds;
+
     private int nbNodes, nbVMs, nbConstraints, nbManaged, coreRPDuration, speRPDuration;
 
     private int nbWorkers, nbSearchNodes, nbBacktracks, nbPartitions;
@@ -60,6 +62,7 @@ public class StaticPartitioningStatistics implements SolvingStatistics {
     public StaticPartitioningStatistics(Parameters ps, int n, int v, int c,
                                         long st, long sd, long d, int w, int nbParts) {
         partResults = new ArrayList<>();
+        rounds = new ArrayList<>();
         this.start = st;
         this.nbNodes = n;
         this.nbVMs = v;
@@ -223,6 +226,26 @@ public class StaticPartitioningStatistics implements SolvingStatistics {
         partResults.add(stats);
     }
 
+    /**
+     * Add the statistics related to a solving round.
+     * A round solves a subset of the partitions.
+     *
+     * @param stats the round statistics
+     */
+    public void addRoundStatistics(StaticPartitioningStatistics stats) {
+        rounds.add(stats);
+    }
+
+    /**
+     * Get the statistics of each solving round, if the partitions
+     * were solved in multiple rounds.
+     *
+     * @return a list of statistics, in the round order. Empty if there was a single round
+     */
+    public List<StaticPartitioningStatistics> getRoundStatistics() {
+        return rounds;
+    }
+
     /**
      * Get the partition splitting duration in milliseconds.
      *
@@ -287,6 +310,9 @@ public class StaticPartitioningStatistics implements SolvingStatistics {
             b.append(" (").append(getNbManagedVMs()).append(" managed)");
         }
         b.append("; ").append(nbWorkers).append(" worker(s)").append(", ").append(nbPartitions).append(" partition(s)");
+        if (!rounds.isEmpty()) {
+            b.append(", ").append(rounds.size()).append(" round(s)");
+        }
         b.append("; ").append(nbConstraints).append(" constraint(s)");
 
         if (params.doOptimize()) {
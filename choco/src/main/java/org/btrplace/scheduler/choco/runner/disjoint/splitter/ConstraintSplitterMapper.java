@@ -54,6 +54,7 @@ public class ConstraintSplitterMapper {
 
         mapper.register(new AmongSplitter());
         mapper.register(new BanSplitter());
+        mapper.register(new DeadlineSplitter());
         mapper.register(new FenceSplitter());
         mapper.register(new GatherSplitter());
         mapper.register(new KilledSplitter());
@@ -61,15 +62,19 @@ public class ConstraintSplitterMapper {
         mapper.register(new OfflineSplitter());
         mapper.register(new OnlineSplitter());
         mapper.register(new OverbookSplitter());
+        mapper.register(new PowerBudgetSplitter());
+        mapper.register(new PrecedenceSplitter());
         mapper.register(new PreserveSplitter());
         mapper.register(new QuarantineSplitter());
         mapper.register(new ReadySplitter());
         mapper.register(new RootSplitter());
         mapper.register(new RunningSplitter());
         mapper.register(new SeqSplitter());
+        mapper.register(new SerializeSplitter());
         mapper.register(new SleepingSplitter());
         mapper.register(new SplitSplitter());
         mapper.register(new SpreadSplitter());
+        mapper.register(new SyncSplitter());
 
         return mapper;
     }
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.scheduler.choco.runner.disjoint.splitter;
+
+import gnu.trove.map.hash.TIntIntHashMap;
+import org.btrplace.model.Instance;
+import org.btrplace.model.Mapping;
+import org.btrplace.model.Model;
+import org.btrplace.model.Node;
+import org.btrplace.model.VM;
+import org.btrplace.model.view.power.EnergyView;
+
+import java.util.List;
+
+/**
+ * Splitter for {@link EnergyView}.
+ * <p>
+ * Each partition receives a view stating the consumption of its elements.
+ * The maximal power and the time-interval budgets are shared
+ * proportionally to the power consumption of each partition, as computed by
+ * {@link Instances#makePowerShares(Instance, List)}.
+ * The budgets are rounded down so their sum never exceeds the original ones.
+ */
+public class EnergyViewSplitter implements ModelViewSplitter<EnergyView> {
+
+    @Override
+    public Class<EnergyView> getKey() {
+        return EnergyView.class;
+    }
+
+    @Override
+    public boolean split(EnergyView view, Instance origin, List<Instance> partitions, TIntIntHashMap vmsPosition, TIntIntHashMap nodePosition) {
+        double[] shares = Instances.makePowerShares(origin, partitions);
+        for (int i = 0; i < partitions.size(); i++) {
+            Model mo = partitions.get(i).getModel();
+            Mapping m = mo.getMapping();
+            EnergyView ev = new EnergyView(Instances.share(view.getMaxPower(), shares[i]));
+            ev.setBootOverhead(view.getBootOverhead());
+            for (Node n : m.getAllNodes()) {
+                ev.setConsumption(n, view.getConsumption(n));
+            }
+            for (VM v : m.getAllVMs()) {
+                ev.setConsumption(v, view.getConsumption(v));
+            }
+            for (EnergyView.TimeIntervalBudget tib : view.getTibList()) {
+                ev.addBudget(tib.getStart(), tib.getEnd(), Instances.share(tib.getBudget(), shares[i]));
+            }
+            mo.detach(view);
+            if (!mo.attach(ev)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -23,8 +23,10 @@ import org.btrplace.model.Instance;
 import org.btrplace.model.Mapping;
 import org.btrplace.model.Node;
 import org.btrplace.model.VM;
+import org.btrplace.model.view.power.EnergyView;
 
 import java.util.Collection;
+import java.util.List;
 
 /**
  * Utility class to manipulate multiple instances.
@@ -89,4 +91,65 @@ public final class Instances {
         }
         return index;
     }
+
+    /**
+     * Get the partition hosting a collection of VMs.
+     *
+     * @param vms         the VMs
+     * @param vmsPosition the partition associated to each VM
+     * @return the partition index if all the VMs belong to it. {@code -1} otherwise
+     */
+    public static int getPartition(Collection<VM> vms, TIntIntHashMap vmsPosition) {
+        int p = -1;
+        for (VM v : vms) {
+            int i = vmsPosition.get(v.id());
+            if (p >= 0 && i != p) {
+                return -1;
+            }
+            p = i;
+        }
+        return p;
+    }
+
+    /**
+     * Compute the share of the power consumption associated to each partition.
+     * The consumption of a partition is the consumption of all its nodes and VMs,
+     * as stated by the {@link EnergyView} of the original instance.
+     * The default consumptions are used when the view is missing.
+     *
+     * @param origin     the original instance
+     * @param partitions the partitions splitting the original instance
+     * @return the share of each partition. The shares sum to 1
+     */
+    public static double[] makePowerShares(Instance origin, List<Instance> partitions) {
+        EnergyView ev = (EnergyView) origin.getModel().getView(EnergyView.VIEW_ID);
+        long[] weights = new long[partitions.size()];
+        long total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            Mapping m = partitions.get(i).getModel().getMapping();
+            for (Node n : m.getAllNodes()) {
+                weights[i] += ev == null ? EnergyView.DEFAULT_NODE_CONSUMPTION : ev.getConsumption(n);
+            }
+            for (VM v : m.getAllVMs()) {
+                weights[i] += ev == null ? EnergyView.DEFAULT_VM_CONSUMPTION : ev.getConsumption(v);
+            }
+            total += weights[i];
+        }
+        double[] shares = new double[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            shares[i] = total == 0 ? 1.0 / weights.length : (double) weights[i] / total;
+        }
+        return shares;
+    }
+
+    /**
+     * Get a share of an amount, rounded down.
+     *
+     * @param amount the amount to share
+     * @param share  the share, between 0 and 1
+     * @return the resulting amount
+     */
+    public static int share(int amount, double share) {
+        return (int) Math.floor(amount * share);
+    }
 }
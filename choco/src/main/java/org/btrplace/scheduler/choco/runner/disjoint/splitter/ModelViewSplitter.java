@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.scheduler.choco.runner.disjoint.splitter;
+
+import gnu.trove.map.hash.TIntIntHashMap;
+import org.btrplace.model.Instance;
+import org.btrplace.model.view.ModelView;
+
+import java.util.List;
+
+/**
+ * Interface to specify a method that makes a view
+ * compatible with multiple partitions.
+ * <p>
+ * By default, the partitions share the views of the original model.
+ * A splitter attaches to each partition a view restricted to
+ * its elements and to its share of the resources the partitions compete for.
+ */
+public interface ModelViewSplitter<V extends ModelView> {
+
+    /**
+     * Get the class of the view associated to the splitter.
+     *
+     * @return a Class derived from {@link org.btrplace.model.view.ModelView}
+     */
+    Class<V> getKey();
+
+    /**
+     * Attach to each partition its own version of a view, if needed.
+     *
+     * @param view         the view of the original model
+     * @param origin       the original instance to split
+     * @param partitions   the possible partitions
+     * @param vmsPosition  the partition associated to each VM
+     * @param nodePosition the partition associated to each node
+     * @return {@code true} iff the split was successful. {@code false} otherwise
+     */
+    boolean split(V view, Instance origin, List<Instance> partitions, TIntIntHashMap vmsPosition, TIntIntHashMap nodePosition);
+}
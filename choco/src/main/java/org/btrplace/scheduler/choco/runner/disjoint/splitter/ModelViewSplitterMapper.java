@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.scheduler.choco.runner.disjoint.splitter;
+
+import gnu.trove.map.hash.TIntIntHashMap;
+import org.btrplace.model.Instance;
+import org.btrplace.model.view.ModelView;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A customizable bridge to indicate which {@link ModelViewSplitter} to use
+ * for a given view.
+ * The views without splitter are shared by all the partitions.
+ */
+public class ModelViewSplitterMapper {
+
+    private Map<Class<? extends ModelView>, ModelViewSplitter> splitters;
+
+    /**
+     * Make a new bridge.
+     */
+    public ModelViewSplitterMapper() {
+        splitters = new HashMap<>();
+    }
+
+    /**
+     * Make a new bridge and register
+     * every splitters supported by default.
+     *
+     * @return the fulfilled bridge.
+     */
+    public static ModelViewSplitterMapper newBundle() {
+        ModelViewSplitterMapper mapper = new ModelViewSplitterMapper();
+        mapper.register(new EnergyViewSplitter());
+        mapper.register(new NetworkViewSplitter());
+        return mapper;
+    }
+
+    /**
+     * Register a splitter.
+     *
+     * @param s the splitter to register
+     * @return {@code true} if no splitter previously registered for the given view was deleted
+     */
+    public boolean register(ModelViewSplitter<? extends ModelView> s) {
+        return splitters.put(s.getKey(), s) == null;
+    }
+
+    /**
+     * Un-register the splitter associated to a given view if exists.
+     *
+     * @param c the class of the view to un-register
+     * @return {@code true} if a splitter was registered
+     */
+    public boolean unRegister(Class<? extends ModelView> c) {
+        return splitters.remove(c) != null;
+    }
+
+    /**
+     * Check if a {@link ModelViewSplitter} is registered for a given view.
+     *
+     * @param c the view to check
+     * @return {@code true} iff a splitter is registered
+     */
+    public boolean isRegistered(Class<? extends ModelView> c) {
+        return splitters.containsKey(c);
+    }
+
+    /**
+     * Get the splitter associated to a view.
+     *
+     * @param c the view
+     * @return the associated splitter if exists. {@code null} otherwise
+     */
+    public ModelViewSplitter getSplitter(Class<? extends ModelView> c) {
+        return splitters.get(c);
+    }
+
+    /**
+     * Split a given view using the associated splitter, if exists.
+     *
+     * @param v            the view to split
+     * @param i            the original instance to split
+     * @param partitions   the partitions splitting the original instance
+     * @param vmPosition   the partition associated to each VM
+     * @param nodePosition the partition associated to each node
+     * @return {@code false} iff the view cannot be split. A view without splitter
+     * remains shared and the split is successful
+     */
+    public boolean split(ModelView v, Instance i, List<Instance> partitions, TIntIntHashMap vmPosition, TIntIntHashMap nodePosition) {
+        ModelViewSplitter splitter = splitters.get(v.getClass());
+        return splitter == null || splitter.split(v, i, partitions, vmPosition, nodePosition);
+    }
+}
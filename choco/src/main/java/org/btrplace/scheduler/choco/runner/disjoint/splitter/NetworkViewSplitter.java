@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.scheduler.choco.runner.disjoint.splitter;
+
+import gnu.trove.map.hash.TIntIntHashMap;
+import org.btrplace.model.Element;
+import org.btrplace.model.Instance;
+import org.btrplace.model.Model;
+import org.btrplace.model.Node;
+import org.btrplace.model.view.net.AbstractRouting;
+import org.btrplace.model.view.net.DefaultRouting;
+import org.btrplace.model.view.net.NetworkView;
+import org.btrplace.model.view.net.Port;
+import org.btrplace.model.view.net.Switch;
+
+import java.util.*;
+
+/**
+ * Splitter for {@link NetworkView}.
+ * <p>
+ * The network elements a partition may use are the ones on the paths
+ * between its nodes. When an element is used by several partitions,
+ * its bandwidth or its capacity is shared evenly among them: the partitions using
+ * a shared element then receive a copy of the network where each shared element
+ * only provides its share. The other partitions keep the original view.
+ * <p>
+ * With a {@link DefaultRouting} over a tree, the paths between the nodes of a partition
+ * are covered by the paths from one of its nodes. With a {@link DefaultRouting} over
+ * any other network, the paths from each node are computed in one search. Otherwise,
+ * the path between every pair of nodes of the partition is retrieved from the routing.
+ * <p>
+ * This operation is conservative wrt. the bandwidth constraints. The split fails
+ * when an element is shared by more partitions than its capacity allows.
+ */
+public class NetworkViewSplitter implements ModelViewSplitter<NetworkView> {
+
+    @Override
+    public Class<NetworkView> getKey() {
+        return NetworkView.class;
+    }
+
+    @Override
+    public boolean split(NetworkView view, Instance origin, List<Instance> partitions, TIntIntHashMap vmsPosition, TIntIntHashMap nodePosition) {
+        //The partitions using each port and each switch
+        Map<Port, BitSet> portUsers = new IdentityHashMap<>();
+        Map<Switch, BitSet> switchUsers = new HashMap<>();
+        boolean tree = isTree(view);
+        for (int i = 0; i < partitions.size(); i++) {
+            markPaths(view, tree, partitions.get(i).getModel(), i, portUsers, switchUsers);
+        }
+
+        BitSet toProject = new BitSet(partitions.size());
+        for (BitSet users : portUsers.values()) {
+            if (users.cardinality() > 1) {
+                toProject.or(users);
+            }
+        }
+        for (BitSet users : switchUsers.values()) {
+            if (users.cardinality() > 1) {
+                toProject.or(users);
+            }
+        }
+
+        if (toProject.isEmpty()) {
+            return true;
+        }
+        NetworkView net = project(view, portUsers, switchUsers);
+        if (net == null) {
+            return false;
+        }
+        for (int i = toProject.nextSetBit(0); i >= 0; i = toProject.nextSetBit(i + 1)) {
+            Model mo = partitions.get(i).getModel();
+            mo.detach(view);
+            if (!mo.attach(net)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Mark the elements a partition may use.
+     * In a tree, the path between two nodes is included in the paths
+     * that link each of them to any reference node. Otherwise, every path is marked.
+     * A {@link DefaultRouting} then provides the paths from each node in one search,
+     * without memorizing them.
+     */
+    private static void markPaths(NetworkView view, boolean tree, Model mo, int part, Map<Port, BitSet> portUsers, Map<Switch, BitSet> switchUsers) {
+        List<Node> connected = new ArrayList<>();
+        for (Node n : mo.getMapping().getAllNodes()) {
+            if (view.getSwitchInterface(n) != null) {
+                connected.add(n);
+            }
+        }
+        if (!tree && view.getRouting() instanceof DefaultRouting) {
+            DefaultRouting routing = (DefaultRouting) view.getRouting();
+            for (Node n : connected) {
+                for (List<Port> path : routing.getPaths(n, connected).values()) {
+                    mark(path, part, portUsers, switchUsers);
+                }
+            }
+            return;
+        }
+        for (int i = 0; i < connected.size(); i++) {
+            if (tree) {
+                if (i > 0) {
+                    mark(view, connected.get(0), connected.get(i), part, portUsers, switchUsers);
+                }
+                continue;
+            }
+            for (int j = i + 1; j < connected.size(); j++) {
+                mark(view, connected.get(i), connected.get(j), part, portUsers, switchUsers);
+            }
+        }
+    }
+
+    private static void mark(NetworkView view, Node n1, Node n2, int part, Map<Port, BitSet> portUsers, Map<Switch, BitSet> switchUsers) {
+        mark(view.getPath(n1, n2), part, portUsers, switchUsers);
+        mark(view.getPath(n2, n1), part, portUsers, switchUsers);
+    }
+
+    /**
+     * Check if the paths of a network are the unique paths of a forest.
+     * This holds for a {@link DefaultRouting} over a network without cycles.
+     */
+    private static boolean isTree(NetworkView view) {
+        if (!(view.getRouting() instanceof DefaultRouting)) {
+            return false;
+        }
+        Map<Element, Element> parents = new HashMap<>();
+        Set<Port> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Switch sw : view.getSwitches()) {
+            for (Port p : sw.getPorts()) {
+                if (!seen.add(p) || !seen.add(p.getRemote())) {
+                    continue;
+                }
+                Element a = root(parents, p.getHost());
+                Element b = root(parents, p.getRemote().getHost());
+                if (a.equals(b)) {
+                    //Two paths between the two ends of this link
+                    return false;
+                }
+                parents.put(a, b);
+            }
+        }
+        return true;
+    }
+
+    private static Element root(Map<Element, Element> parents, Element e) {
+        Element r = e;
+        for (Element p = parents.get(r); p != null; p = parents.get(r)) {
+            r = p;
+        }
+        if (r != e) {
+            parents.put(e, r);
+        }
+        return r;
+    }
+
+    private static void mark(List<Port> path, int part, Map<Port, BitSet> portUsers, Map<Switch, BitSet> switchUsers) {
+        for (Port p : path) {
+            portUsers.computeIfAbsent(p, k -> new BitSet()).set(part);
+            portUsers.computeIfAbsent(p.getRemote(), k -> new BitSet()).set(part);
+            if (p.getHost() instanceof Switch) {
+                switchUsers.computeIfAbsent((Switch) p.getHost(), k -> new BitSet()).set(part);
+            }
+        }
+    }
+
+    /**
+     * Copy a network where the shared elements only provide their share.
+     *
+     * @return the copy. {@code null} if a share falls to 0
+     */
+    private static NetworkView project(NetworkView view, Map<Port, BitSet> portUsers, Map<Switch, BitSet> switchUsers) {
+        Map<Port, Port> ports = new IdentityHashMap<>();
+        NetworkView net = new NetworkView(new ProjectedRouting(view, ports));
+
+        Map<Switch, Switch> switches = new HashMap<>();
+        for (Switch sw : view.getSwitches()) {
+            int cap = sw.getCapacity();
+            if (cap > 0) {
+                cap = share(cap, switchUsers.get(sw));
+                if (cap == 0) {
+                    return null;
+                }
+            }
+            switches.put(sw, net.newSwitch(sw.id(), cap));
+        }
+
+        for (Switch sw : view.getSwitches()) {
+            Switch copy = switches.get(sw);
+            for (Port p : sw.getPorts()) {
+                if (ports.containsKey(p)) {
+                    continue;
+                }
+                Port remote = p.getRemote();
+                Element other = remote.getHost() instanceof Switch ? switches.get(remote.getHost()) : remote.getHost();
+                int bw = share(p.getBandwidth(), portUsers.get(p));
+                if (bw == 0) {
+                    return null;
+                }
+                copy.connect(bw, other);
+                Port local = copy.getPorts().get(copy.getPorts().size() - 1);
+                ports.put(p, local);
+                ports.put(remote, local.getRemote());
+            }
+        }
+        return net;
+    }
+
+    private static int share(int amount, BitSet users) {
+        return users == null || users.cardinality() <= 1 ? amount : amount / users.cardinality();
+    }
+
+    /**
+     * A routing that re-uses the paths of the original network.
+     */
+    private static class ProjectedRouting extends AbstractRouting {
+
+        private NetworkView origin;
+
+        private Map<Port, Port> ports;
+
+        ProjectedRouting(NetworkView origin, Map<Port, Port> ports) {
+            this.origin = origin;
+            this.ports = ports;
+        }
+
+        @Override
+        protected List<Port> computePath(Node n1, Node n2) {
+            List<Port> path = new ArrayList<>();
+            for (Port p : origin.getPath(n1, n2)) {
+                path.add(ports.get(p));
+            }
+            return path;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.scheduler.choco.runner.disjoint.splitter;
+
+import gnu.trove.map.hash.TIntIntHashMap;
+import org.btrplace.model.Instance;
+import org.btrplace.model.view.power.PowerBudget;
+
+import java.util.List;
+
+/**
+ * Splitter for {@link org.btrplace.model.view.power.PowerBudget} constraints.
+ * <p>
+ * Each partition receives a budget proportional to its share of the power
+ * consumption, as computed by {@link Instances#makePowerShares(Instance, List)}.
+ * The budgets are rounded down so their sum never exceeds the original budget.
+ * <p>
+ * This operation is conservative wrt. the constraint semantic.
+ */
+public class PowerBudgetSplitter implements ConstraintSplitter<PowerBudget> {
+
+    @Override
+    public Class<PowerBudget> getKey() {
+        return PowerBudget.class;
+    }
+
+    @Override
+    public boolean split(PowerBudget cstr, Instance origin, List<Instance> partitions, TIntIntHashMap vmsPosition, TIntIntHashMap nodePosition) {
+        double[] shares = Instances.makePowerShares(origin, partitions);
+        for (int i = 0; i < partitions.size(); i++) {
+            int b = Instances.share(cstr.getBudget(), shares[i]);
+            PowerBudget sub = cstr.isContinuous() ? new PowerBudget(cstr.getStart(), cstr.getEnd(), b) : new PowerBudget(b);
+            partitions.get(i).getSatConstraints().add(sub);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.scheduler.choco.runner.disjoint.splitter;
+
+import gnu.trove.map.hash.TIntIntHashMap;
+import org.btrplace.model.Instance;
+import org.btrplace.model.constraint.migration.Precedence;
+
+import java.util.List;
+
+/**
+ * Splitter for {@link org.btrplace.model.constraint.migration.Precedence} constraints.
+ * <p>
+ * The migrations of different partitions are scheduled independently
+ * so the splitting process is supported iff the two VMs belong to the same partition.
+ */
+public class PrecedenceSplitter implements ConstraintSplitter<Precedence> {
+
+    @Override
+    public Class<Precedence> getKey() {
+        return Precedence.class;
+    }
+
+    @Override
+    public boolean split(Precedence cstr, Instance origin, List<Instance> partitions, TIntIntHashMap vmsPosition, TIntIntHashMap nodePosition) {
+        int p = Instances.getPartition(cstr.getInvolvedVMs(), vmsPosition);
+        return p >= 0 && partitions.get(p).getSatConstraints().add(cstr);
+    }
+}
@@ -28,18 +28,20 @@ import org.btrplace.plan.ReconfigurationPlanChecker;
 import org.btrplace.plan.ReconfigurationPlanCheckerException;
 import org.btrplace.scheduler.SchedulerException;
 import org.btrplace.scheduler.choco.DefaultReconfigurationProblemBuilder;
+import org.btrplace.scheduler.choco.LastSolutionsRecorder;
 import org.btrplace.scheduler.choco.Parameters;
 import org.btrplace.scheduler.choco.ReconfigurationProblem;
 import org.btrplace.scheduler.choco.constraint.ChocoConstraint;
 import org.btrplace.scheduler.choco.constraint.ChocoConstraintBuilder;
 import org.btrplace.scheduler.choco.runner.InstanceResult;
+import org.btrplace.scheduler.choco.runner.SolutionListener;
 import org.btrplace.scheduler.choco.runner.SolutionStatistics;
 import org.chocosolver.solver.Cause;
 import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.search.loop.monitors.IMonitorOpenNode;
 import org.chocosolver.solver.search.loop.monitors.IMonitorSolution;
 import org.chocosolver.solver.search.measure.IMeasures;
-import org.chocosolver.solver.search.solution.AllSolutionsRecorder;
-import org.chocosolver.solver.search.solution.ISolutionRecorder;
+import org.chocosolver.solver.search.solution.Solution;
 import org.chocosolver.solver.trace.Chatterbox;
 
 import java.util.*;
@@ -70,7 +72,8 @@ public class InstanceSolverRunner implements Callable<InstanceResult> {
     private long start;
 
     private List<SolutionStatistics> measures;
-    private ISolutionRecorder solutions;
+
+    private LastSolutionsRecorder solutions;
 
     /**
      * Choco version of the constraints.
@@ -98,6 +101,7 @@ public class InstanceSolverRunner implements Callable<InstanceResult> {
         //Build the core problem
         coreRPDuration = -System.currentTimeMillis();
         rp = buildRP();
+        solutions = rp.getSolutionRecorder();
         //Set the maximum duration
         try {
             rp.getEnd().updateUpperBound(params.getMaxEnd(), Cause.Null);
@@ -120,7 +124,6 @@ public class InstanceSolverRunner implements Callable<InstanceResult> {
         rp.getLogger().debug("optimize: {}; timeLimit: {}; manageableVMs: {}", params.doOptimize(), params.getTimeLimit(), rp.getManageableVMs().size());
 
         //The solution monitor to store the measures at each solution
-        solutions = new AllSolutionsRecorder(rp.getSolver());
         rp.getSolver().getSearchLoop().plugSearchMonitor(new IMonitorSolution() {
             @Override
             public void onSolution() {
@@ -137,6 +140,38 @@ public class InstanceSolverRunner implements Callable<InstanceResult> {
                             (long) (m.getTimeCount() * 1000));
                 }
                 measures.add(sol);
+                if (!params.getSolutionListeners().isEmpty()) {
+                    //Streaming mode, the plan is materialised right now
+                    try {
+                        Solution s = solutions.getLastSolution();
+                        sol.setReconfigurationPlan(rp.buildReconfigurationPlan(s, rp.getSourceModel()));
+                    } catch (SchedulerException ex) {
+                        rp.getLogger().error(ex.getMessage());
+                        return;
+                    }
+                    for (SolutionListener l : params.getSolutionListeners()) {
+                        l.onSolution(sol);
+                    }
+                    //Release the plan that is no longer in the recorded window
+                    int out = measures.size() - 1 - params.getMaxRecordedSolutions();
+                    if (params.getMaxRecordedSolutions() > 0 && out >= 0) {
+                        measures.get(out).setReconfigurationPlan(null);
+                    }
+                }
+            }
+        });
+
+        //Stop the search once the thread running this solver is interrupted
+        rp.getSolver().getSearchLoop().plugSearchMonitor(new IMonitorOpenNode() {
+            @Override
+            public void beforeOpenNode() {
+                if (Thread.currentThread().isInterrupted()) {
+                    rp.getSolver().getSearchLoop().interrupt("Interrupted");
+                }
+            }
+
+            @Override
+            public void afterOpenNode() {
             }
         });
 
@@ -319,12 +354,16 @@ public class InstanceSolverRunner implements Callable<InstanceResult> {
                 rp.getSolver().hasReachedLimit(), //assumed timeout is the only limit
                 coreRPDuration,
                 speRPDuration);
-        int i = 0;
-        //Merge the statistics with the solution.
-        for (SolutionStatistics m : measures) {
-            m.setReconfigurationPlan(rp.buildReconfigurationPlan(solutions.getSolutions().get(i), rp.getSourceModel()));
+        //Merge the statistics with the recorded solutions. Only the last
+        //measures have a recorded solution. Their plan is built only once.
+        List<Solution> recorded = solutions.getSolutions();
+        int offset = measures.size() - recorded.size();
+        for (int i = 0; i < measures.size(); i++) {
+            SolutionStatistics m = measures.get(i);
+            if (i >= offset && m.getReconfigurationPlan() == null) {
+                m.setReconfigurationPlan(rp.buildReconfigurationPlan(recorded.get(i - offset), rp.getSourceModel()));
+            }
             st.addSolution(m);
-            i++;
         }
         return st;
     }
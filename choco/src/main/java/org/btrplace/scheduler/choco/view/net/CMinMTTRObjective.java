@@ -25,6 +25,7 @@ import org.chocosolver.solver.variables.VariableFactory;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Set;
 
@@ -62,40 +63,15 @@ public class CMinMTTRObjective implements org.btrplace.scheduler.choco.constrain
         rp.setObjective(true, cost);
 
         // Per node decommissioning (Boot dst node -> Migrate -> Shutdown src node) strategy
-        for (Node n : rp.getNodes()) {
-            endVars.clear();
-
-            if (rp.getNodeAction(n) instanceof ShutdownableNode) {
-
-                for (VMTransition a : rp.getVMActions()) {
-
-                    if (rp.getNode(n) == (a.getCSlice().getHoster().getValue())) {
-
-                        // Boot dst
-                        if (!endVars.contains(rp.getNodeAction(rp.getNode(a.getDSlice().getHoster().getValue())).getEnd())) {
-                            endVars.add(rp.getNodeAction(rp.getNode(a.getDSlice().getHoster().getValue())).getEnd());
-                        }
-
-                        // Migrate all
-                        endVars.add(a.getEnd());
-                    }
-                }
-
-                // Shutdown
-                endVars.add(rp.getNodeAction(n).getEnd());
-            }
-
-            if (!endVars.isEmpty()) {
-                //endVars.add(rp.getNodeAction(n).getHostingEnd());
-                /*strategies.add(ISF.custom(
-                        ISF.maxDomainSize_var_selector(),
-                        ISF.mid_value_selector(),//.max_value_selector(),
-                        ISF.split(), // Split from max
-                        endVars.toArray(new IntVar[endVars.size()])
-                ));*/
-                strategies.add(ISF.minDom_LB(endVars.toArray(new IntVar[endVars.size()]))
-                );
-            }
+        for (IntVar[] ends : decommissioningEnds(rp)) {
+            //endVars.add(rp.getNodeAction(n).getHostingEnd());
+            /*strategies.add(ISF.custom(
+                    ISF.maxDomainSize_var_selector(),
+                    ISF.mid_value_selector(),//.max_value_selector(),
+                    ISF.split(), // Split from max
+                    ends
+            ));*/
+            strategies.add(ISF.minDom_LB(ends));
         }
 
 
@@ -244,6 +220,57 @@ public class CMinMTTRObjective implements org.btrplace.scheduler.choco.constrain
         return true;
     }
 
+    /**
+     * Get the end moments of the decommissioning of each node that may be shut down:
+     * the boot of the destination nodes that are already known, the actions of the VMs
+     * leaving the node, then the node action itself.
+     * The VM transitions are grouped by source node in one pass so the cost is linear
+     * in the number of nodes and VMs.
+     *
+     * @param rp the problem
+     * @return the end variables of each decommissioning, in the order of the nodes
+     */
+    public static List<IntVar[]> decommissioningEnds(ReconfigurationProblem rp) {
+        List<List<VMTransition>> bySource = new ArrayList<>(rp.getNodes().length);
+        for (int i = 0; i < rp.getNodes().length; i++) {
+            bySource.add(new ArrayList<>());
+        }
+        for (VMTransition a : rp.getVMActions()) {
+            if (a.getCSlice() != null) {
+                bySource.get(a.getCSlice().getHoster().getValue()).add(a);
+            }
+        }
+
+        List<IntVar[]> res = new ArrayList<>();
+        List<IntVar> endVars = new ArrayList<>();
+        Set<IntVar> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Node n : rp.getNodes()) {
+            if (!(rp.getNodeAction(n) instanceof ShutdownableNode)) {
+                continue;
+            }
+            endVars.clear();
+            seen.clear();
+            for (VMTransition a : bySource.get(rp.getNode(n))) {
+
+                // Boot dst, if the destination is already known
+                if (a.getDSlice().getHoster().isInstantiated()) {
+                    IntVar bootEnd = rp.getNodeAction(rp.getNode(a.getDSlice().getHoster().getValue())).getEnd();
+                    if (seen.add(bootEnd)) {
+                        endVars.add(bootEnd);
+                    }
+                }
+
+                // Migrate all
+                endVars.add(a.getEnd());
+            }
+
+            // Shutdown
+            endVars.add(rp.getNodeAction(n).getEnd());
+            res.add(endVars.toArray(new IntVar[endVars.size()]));
+        }
+        return res;
+    }
+
     @Override
     public void postCostConstraints() {
     }
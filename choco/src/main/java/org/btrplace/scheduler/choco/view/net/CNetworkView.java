@@ -1,5 +1,11 @@
 package org.btrplace.scheduler.choco.view.net;
 
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TIntDoubleMap;
+import gnu.trove.map.TIntIntMap;
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
+import org.btrplace.model.Attributes;
 import org.btrplace.model.Model;
 import org.btrplace.model.Node;
 import org.btrplace.model.VM;
@@ -17,15 +23,15 @@ import org.btrplace.scheduler.choco.view.DelegatedBuilder;
 import org.btrplace.scheduler.choco.view.SolverViewBuilder;
 import org.chocosolver.solver.Solver;
 import org.chocosolver.solver.constraints.ICF;
+import org.chocosolver.solver.constraints.extension.Tuples;
 import org.chocosolver.solver.constraints.nary.cumulative.Cumulative;
 import org.chocosolver.solver.search.solution.Solution;
+import org.chocosolver.solver.variables.BoolVar;
 import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.solver.variables.Task;
 import org.chocosolver.solver.variables.VF;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
 
 /**
  * Created by vkherbac on 30/12/14.
@@ -41,16 +47,43 @@ public class CNetworkView implements ChocoView {
     private ReconfigurationProblem rp;
     private Solver solver;
     private Model source;
-    List<Task> tasksList;
-    List<IntVar> heightsList;
+    private MigrationPathsIndex index;
+    private int nbBandwidthSteps;
 
+    /**
+     * Make a new view where each migration uses the maximum bandwidth of its path.
+     *
+     * @param p the problem
+     * @param n the network view
+     * @throws SchedulerException if an error occurred
+     */
     public CNetworkView(ReconfigurationProblem p, NetworkView n) throws SchedulerException {
+        this(p, n, 1);
+    }
+
+    /**
+     * Make a new view where the bandwidth of each migration is chosen among several levels.
+     * With {@code k} steps, a migration may use {@code 1/k, 2/k, ..., k/k} of the maximum bandwidth
+     * of its path, the migration duration being estimated through the pre-copy model.
+     * A level is ignored if the migration cannot converge.
+     * <p>
+     * The destination of a migration does not have to be known: when its hoster variable is not
+     * instantiated, the bandwidth and the duration are tied to the destination through a table constraint,
+     * and the migration occupies the network elements on the path to its destination only, so the placement
+     * and the network-aware scheduling are solved jointly. The model size then grows with the number of
+     * migrations times the number of candidate destinations.
+     *
+     * @param p     the problem
+     * @param n     the network view
+     * @param steps the number of bandwidth levels. {@code 1} to use only the maximum bandwidth
+     * @throws SchedulerException if an error occurred
+     */
+    public CNetworkView(ReconfigurationProblem p, NetworkView n, int steps) throws SchedulerException {
+        nbBandwidthSteps = steps;
         net = n;
         rp = p;
         solver = p.getSolver();
         source = p.getSourceModel();
-        tasksList = new ArrayList<>();
-        heightsList = new ArrayList<>();
     }
 
     @Override
@@ -58,171 +91,349 @@ public class CNetworkView implements ChocoView {
 
     @Override
     public boolean beforeSolve(ReconfigurationProblem rp) throws SchedulerException {
-        
+
         Model mo = rp.getSourceModel();
         Solver s = rp.getSolver();
-        
+
+        // Candidate paths of the migrations having a non-instantiated destination
+        Map<MigrateVMTransition, Map<Integer, List<Port>>> conditionals = new LinkedHashMap<>();
+
+        // The attributes columns, when they are homogeneous
+        Attributes attrs = mo.getAttributes();
+        TIntIntMap memUsedCol = attrs.getIntColumn(VM.class, "memUsed");
+        TIntDoubleMap dirtyRateCol = attrs.getDoubleColumn(VM.class, "dirtyRate");
+        TIntIntMap maxDirtySizeCol = attrs.getIntColumn(VM.class, "maxDirtySize");
+        TIntIntMap maxDirtyDurationCol = attrs.getIntColumn(VM.class, "maxDirtyDuration");
+        boolean columns = memUsedCol != null && dirtyRateCol != null && maxDirtySizeCol != null && maxDirtyDurationCol != null;
+
         // Pre-compute duration and bandwidth for each VM migration
         for (VMTransition migration : rp.getVMActions()) {
 
             if (migration instanceof MigrateVMTransition) {
-                
+
                 VM vm = migration.getVM();
                 IntVar bandwidth, duration;
-                
-                Node src = rp.getSourceModel().getMapping().getVMLocation(vm);
-                Node dst = rp.getNode(migration.getDSlice().getHoster().getValue());
-                
-                if (dst == null) {
-                    throw new SchedulerException(null, "Destination node for VM '" + vm + "' is not known !");
-                }
-
-                // Check if all attributes are defined
-                if (mo.getAttributes().isSet(vm, "memUsed") &&
-                        mo.getAttributes().isSet(vm, "dirtyRate") &&
-                        mo.getAttributes().isSet(vm, "maxDirtySize") &&
-                        mo.getAttributes().isSet(vm, "maxDirtyDuration")) {
-
-                    double dirtyRate;
-                    int memUsed, maxDirtyDuration, maxDirtySize;
-
-                    // Get attribute vars
-                    memUsed = mo.getAttributes().getInteger(vm, "memUsed");
-                    dirtyRate = mo.getAttributes().getDouble(vm, "dirtyRate");
-                    maxDirtySize = mo.getAttributes().getInteger(vm, "maxDirtySize");
-                    maxDirtyDuration = mo.getAttributes().getInteger(vm, "maxDirtyDuration");
-
-                    // Enumerated BW
-                    int bw = net.getMaxBW(src, dst);
-                    /*int step = maxBW;
-                    List<Integer> bwEnum = new ArrayList<>();
-                    for (int i = step; i <= maxBW; i += step) {
-                        if (i > (int) (dirtyRate)) {
-                            bwEnum.add(i);
-                        }
-                    }*/
 
-                    // Enumerated duration
-                    double durationMin, durationColdPages, durationHotPages, durationTotal;
-                    /*List<Integer> durEnum = new ArrayList<>();
-                    for (Integer bw : bwEnum) {*/
+                // Get attribute vars
+                int memUsed, maxDirtySize, maxDirtyDuration;
+                double dirtyRate;
+                int id = vm.id();
+                if (columns && memUsedCol.containsKey(id) && dirtyRateCol.containsKey(id)
+                        && maxDirtySizeCol.containsKey(id) && maxDirtyDurationCol.containsKey(id)) {
+                    memUsed = memUsedCol.get(id);
+                    dirtyRate = dirtyRateCol.get(id);
+                    maxDirtySize = maxDirtySizeCol.get(id);
+                    maxDirtyDuration = maxDirtyDurationCol.get(id);
+                } else {
+                    // Check if all attributes are defined
+                    if (!(attrs.isSet(vm, "memUsed") &&
+                            attrs.isSet(vm, "dirtyRate") &&
+                            attrs.isSet(vm, "maxDirtySize") &&
+                            attrs.isSet(vm, "maxDirtyDuration"))) {
+                        throw new SchedulerException(null, "Unable to retrieve attributes for the vm '" + vm + "'");
+                    }
+                    memUsed = attrs.getInteger(vm, "memUsed");
+                    dirtyRate = attrs.getDouble(vm, "dirtyRate");
+                    maxDirtySize = attrs.getInteger(vm, "maxDirtySize");
+                    maxDirtyDuration = attrs.getInteger(vm, "maxDirtyDuration");
+                }
 
-                        // Cheat a bit, real is less than theoretical !
-                        double bandwidth_octet = bw / 9;
+                Node src = mo.getMapping().getVMLocation(vm);
+                IntVar hoster = migration.getDSlice().getHoster();
 
-                        // Estimate duration
-                        durationMin = memUsed / bandwidth_octet;
-                        if (durationMin > maxDirtyDuration) {
+                if (hoster.isInstantiated()) {
+                    Node dst = rp.getNode(hoster.getValue());
+                    if (dst == null) {
+                        throw new SchedulerException(null, "Destination node for VM '" + vm + "' is not known !");
+                    }
 
-                            durationColdPages = ((maxDirtySize + ((durationMin - maxDirtyDuration) * dirtyRate)) / (bandwidth_octet - dirtyRate));
-                            durationHotPages = ((maxDirtySize / bandwidth_octet) * ((maxDirtySize / maxDirtyDuration) / (bandwidth_octet - (maxDirtySize / maxDirtyDuration))));
-                            durationTotal = durationMin + durationColdPages + durationHotPages;
-                        } else {
-                            durationTotal = durationMin + (((maxDirtySize / maxDirtyDuration) * durationMin) / (bandwidth_octet - (maxDirtySize / maxDirtyDuration)));
+                    int[] bws = getBandwidthLevels(net.getMaxBW(src, dst), dirtyRate, maxDirtySize, maxDirtyDuration);
+                    if (bws.length == 1) {
+                        // A single bandwidth, fixed duration
+                        bandwidth = VF.fixed(bws[0], s);
+                        duration = VF.fixed(estimateDuration(bws[0], memUsed, dirtyRate, maxDirtySize, maxDirtyDuration), s);
+                    } else {
+                        // Enumerated bandwidth, each level being associated to its pre-copy duration
+                        Tuples tpl = new Tuples(true);
+                        TIntSet durEnum = new TIntHashSet();
+                        for (int bw : bws) {
+                            int d = estimateDuration(bw, memUsed, dirtyRate, maxDirtySize, maxDirtyDuration);
+                            tpl.add(bw, d);
+                            durEnum.add(d);
                         }
-                        /*durEnum.add((int) Math.round(durationTotal));
+                        bandwidth = VF.enumerated(rp.makeVarLabel("migration(", vm, ").bandwidth"), bws, s);
+                        duration = VF.enumerated(rp.makeVarLabel("migration(", vm, ").duration"), sorted(durEnum), s);
+                        s.post(ICF.table(bandwidth, duration, tpl, "AC3bit+rm"));
                     }
-
-                    // Create the enumerated vars
-                    bandwidth = VF.enumerated("bandwidth_enum", bwEnum.stream().mapToInt(i -> i).toArray(), s);
-                    duration = VF.enumerated("duration_enum", durEnum.stream().mapToInt(i -> i).toArray(), s);*/
-
-                    bandwidth = VF.fixed(bw, s);
-                    duration = VF.fixed((int) Math.round(durationTotal), s);
-                    
-                    // Set the vars in the VM transition
-                    ((MigrateVMTransition) migration).setBandwidth(bandwidth);
-                    ((MigrateVMTransition) migration).setDuration(duration);
-
-                    /* Associate vars using Tuples
+                } else {
+                    // The bandwidth and the duration depend on the destination.
+                    // Staying on the source node is free, an unreachable node is not a candidate
                     Tuples tpl = new Tuples(true);
-                    for (int i = 0; i < bwEnum.size(); i++) {
-                        tpl.add(bwEnum.get(i), durEnum.get(i));
+                    TIntSet bwEnum = new TIntHashSet();
+                    TIntSet durEnum = new TIntHashSet();
+                    Map<Integer, List<Port>> candidates = new LinkedHashMap<>();
+                    for (int j = hoster.getLB(); j <= hoster.getUB(); j = hoster.nextValue(j)) {
+                        Node dst = rp.getNode(j);
+                        if (dst.equals(src)) {
+                            tpl.add(j, 0, 0);
+                            bwEnum.add(0);
+                            durEnum.add(0);
+                            continue;
+                        }
+                        List<Port> path = net.getPath(src, dst);
+                        if (path.isEmpty()) {
+                            continue;
+                        }
+                        candidates.put(j, path);
+                        for (int bw : getBandwidthLevels(net.getMaxBW(src, dst), dirtyRate, maxDirtySize, maxDirtyDuration)) {
+                            int d = estimateDuration(bw, memUsed, dirtyRate, maxDirtySize, maxDirtyDuration);
+                            tpl.add(j, bw, d);
+                            bwEnum.add(bw);
+                            durEnum.add(d);
+                        }
                     }
-                    s.post(ICF.table(bandwidth, duration, tpl, ""));*/
-                } else {
-                    throw new SchedulerException(null, "Unable to retrieve attributes for the vm '" + vm + "'");
+                    if (bwEnum.isEmpty()) {
+                        throw new SchedulerException(mo, "No reachable destination node for VM '" + vm + "'");
+                    }
+                    bandwidth = VF.enumerated(rp.makeVarLabel("migration(", vm, ").bandwidth"), sorted(bwEnum), s);
+                    duration = VF.enumerated(rp.makeVarLabel("migration(", vm, ").duration"), sorted(durEnum), s);
+                    s.post(ICF.table(new IntVar[]{hoster, bandwidth, duration}, tpl, "STR2+"));
+                    conditionals.put((MigrateVMTransition) migration, candidates);
                 }
+
+                // Set the vars in the VM transition
+                ((MigrateVMTransition) migration).setBandwidth(bandwidth);
+                ((MigrateVMTransition) migration).setDuration(duration);
             }
         }
-        
-        // Links limitation
-        for (Port inputPort : net.getAllInterfaces()) {
-
-            for (VM vm : rp.getVMs()) {
-                VMTransition a = rp.getVMAction(vm);
 
-                if (a != null && a instanceof MigrateVMTransition &&
-                        (a.getCSlice().getHoster().getValue() != a.getDSlice().getHoster().getValue())) {
+        // Index the ports and switches crossed by each migration, each path is computed once
+        index = new MigrationPathsIndex(rp, net);
 
-                    Node src = source.getMapping().getVMLocation(vm);
-                    Node dst = rp.getNode(a.getDSlice().getHoster().getValue());
-                    
-                    List<Port> path = net.getPath(src, dst);
-
-                    // If inputPort is on migration path
-                    if (path.contains(inputPort)) {
+        Map<Port, Usage> portUsages = new LinkedHashMap<>();
+        Map<Switch, Usage> switchUsages = new LinkedHashMap<>();
+        for (Port inputPort : index.getUsedPorts()) {
+            for (MigrateVMTransition a : index.getMigrations(inputPort)) {
+                usage(portUsages, inputPort).add(new Task(a.getStart(), a.getDuration(), a.getEnd()), a.getBandwidth());
+            }
+        }
+        for (Switch sw : index.getUsedSwitches()) {
+            for (MigrateVMTransition a : index.getMigrations(sw)) {
+                usage(switchUsages, sw).add(new Task(a.getStart(), a.getDuration(), a.getEnd()), a.getBandwidth());
+            }
+        }
 
-                        // ONLY if inputPort is an INPUT port
-                        if (path.indexOf(inputPort) < path.indexOf(inputPort.getRemote())) {
-                            tasksList.add(new Task(a.getStart(), a.getDuration(), a.getEnd()));
-                            heightsList.add(((MigrateVMTransition) a).getBandwidth());
-                        }
-                    }
+        // A migration with a non-instantiated destination occupies an element with
+        // its bandwidth iff the path to its destination crosses the element, 0 otherwise
+        for (Map.Entry<MigrateVMTransition, Map<Integer, List<Port>>> e : conditionals.entrySet()) {
+            MigrateVMTransition a = e.getKey();
+            // The candidate destinations whose path crosses each element
+            Map<Port, TIntArrayList> ports = new LinkedHashMap<>();
+            Map<Switch, TIntArrayList> switches = new LinkedHashMap<>();
+            for (Map.Entry<Integer, List<Port>> c : e.getValue().entrySet()) {
+                for (Port p : MigrationPathsIndex.getInputPorts(c.getValue())) {
+                    ports.computeIfAbsent(p, k -> new TIntArrayList()).add(c.getKey());
+                }
+                for (Switch sw : MigrationPathsIndex.getSwitches(c.getValue())) {
+                    switches.computeIfAbsent(sw, k -> new TIntArrayList()).add(c.getKey());
                 }
             }
-            if (!tasksList.isEmpty()) {
-                solver.post(new Cumulative(
-                        tasksList.toArray(new Task[tasksList.size()]),
-                        heightsList.toArray(new IntVar[heightsList.size()]),
-                        VF.fixed(Math.min(inputPort.getBandwidth(), inputPort.getRemote().getBandwidth()), solver),
+            Task t = new Task(a.getStart(), a.getDuration(), a.getEnd());
+            Map<TIntArrayList, IntVar> heights = new HashMap<>();
+            for (Map.Entry<Port, TIntArrayList> p : ports.entrySet()) {
+                usage(portUsages, p.getKey()).add(t, conditionalHeight(a, e.getValue().size(), p.getValue(), heights));
+            }
+            for (Map.Entry<Switch, TIntArrayList> sw : switches.entrySet()) {
+                usage(switchUsages, sw.getKey()).add(t, conditionalHeight(a, e.getValue().size(), sw.getValue(), heights));
+            }
+        }
+
+        // Links limitation
+        for (Map.Entry<Port, Usage> e : portUsages.entrySet()) {
+            Port inputPort = e.getKey();
+            solver.post(new Cumulative(
+                    e.getValue().tasks(),
+                    e.getValue().heights(),
+                    VF.fixed(Math.min(inputPort.getBandwidth(), inputPort.getRemote().getBandwidth()), solver),
+                    true
+                    ,Cumulative.Filter.TIME
+                    //,Cumulative.Filter.SWEEP
+                    //,Cumulative.Filter.SWEEP_HEI_SORT
+                    ,Cumulative.Filter.NRJ
+                    ,Cumulative.Filter.HEIGHTS
+            ));
+        }
+
+        // Switches capacity limitation, only if the capacity is limited
+        for (Map.Entry<Switch, Usage> e : switchUsages.entrySet()) {
+            if (e.getKey().getCapacity() > 0) {
+                solver.post(ICF.cumulative(
+                        e.getValue().tasks(),
+                        e.getValue().heights(),
+                        VF.fixed(e.getKey().getCapacity(), solver),
                         true
-                        ,Cumulative.Filter.TIME
-                        //,Cumulative.Filter.SWEEP
-                        //,Cumulative.Filter.SWEEP_HEI_SORT
-                        ,Cumulative.Filter.NRJ
-                        ,Cumulative.Filter.HEIGHTS
                 ));
             }
-            tasksList.clear();
-            heightsList.clear();
         }
 
-        // Switches capacity limitation
-        for(Switch sw : net.getSwitches()) {
+        return true;
+    }
+
+    /**
+     * Make the height of a migration with a non-instantiated destination on a network element.
+     * <p>
+     * The bandwidth is 0 when the VM stays on its source node, so an element crossed by the paths to all the
+     * candidate destinations simply uses the bandwidth. Otherwise, the height is the product of the bandwidth
+     * and a boolean stating whether the hoster is one of the destinations whose path crosses the element.
+     * The elements crossed by the paths to the same destinations share their height, so in a tree, the ports
+     * and the switches of a same subtree only cost one height variable per migration.
+     * The model still grows with the number of migrations times the number of distinct sets of destinations,
+     * which is about the number of candidate destinations, as each destination has its own input port.
+     *
+     * @param a            the migration
+     * @param nbCandidates the number of reachable candidate destinations, the source node excluded
+     * @param dests        the candidate destinations whose path crosses the element, in increasing order
+     * @param heights      the heights already made for the migration, by set of destinations
+     * @return a variable equals to the migration bandwidth if the path to its destination crosses the element, 0 otherwise
+     */
+    private IntVar conditionalHeight(MigrateVMTransition a, int nbCandidates, TIntArrayList dests,
+                                     Map<TIntArrayList, IntVar> heights) {
+        IntVar bandwidth = a.getBandwidth();
+        if (dests.size() == nbCandidates) {
+            return bandwidth;
+        }
+        IntVar height = heights.get(dests);
+        if (height == null) {
+            TIntSet hEnum = new TIntHashSet();
+            hEnum.add(0);
+            for (int bw = bandwidth.getLB(); bw <= bandwidth.getUB(); bw = bandwidth.nextValue(bw)) {
+                hEnum.add(bw);
+            }
+            height = VF.enumerated(rp.makeVarLabel("migration(", a.getVM(), ").height#", heights.size()), sorted(hEnum), solver);
+            BoolVar crosses = ICF.member(a.getDSlice().getHoster(), dests.toArray()).reif();
+            solver.post(ICF.times(crosses, bandwidth, height));
+            heights.put(dests, height);
+        }
+        return height;
+    }
+
+    /**
+     * Get the bandwidth levels a migration can use.
+     *
+     * @param maxBW            the maximum bandwidth of the migration path
+     * @param dirtyRate        the rate the memory is dirtied at, in MB/s
+     * @param maxDirtySize     the size of the hot pages, in MB
+     * @param maxDirtyDuration the time required to dirty the hot pages, in seconds
+     * @return the levels, in increasing order. The maximum bandwidth is always included
+     */
+    private int[] getBandwidthLevels(int maxBW, double dirtyRate, int maxDirtySize, int maxDirtyDuration) {
+        if (nbBandwidthSteps <= 1) {
+            return new int[]{maxBW};
+        }
+        TIntSet bwEnum = new TIntHashSet();
+        for (int k = 1; k <= nbBandwidthSteps; k++) {
+            int bw = (int) ((long) maxBW * k / nbBandwidthSteps);
+            // The maximum bandwidth is always kept, the others only if the migration converges
+            if (k == nbBandwidthSteps || converges(bw, dirtyRate, maxDirtySize, maxDirtyDuration)) {
+                bwEnum.add(bw);
+            }
+        }
+        return sorted(bwEnum);
+    }
 
-            // Only if the capacity is limited
-            if (sw.getCapacity() > 0) {
+    private static int[] sorted(TIntSet values) {
+        int[] a = values.toArray();
+        Arrays.sort(a);
+        return a;
+    }
 
-                for (VM vm : rp.getVMs()) {
-                    VMTransition a = rp.getVMAction(vm);
+    private static <E> Usage usage(Map<E, Usage> usages, E elem) {
+        return usages.computeIfAbsent(elem, k -> new Usage());
+    }
 
-                    if (a != null && a instanceof MigrateVMTransition &&
-                            (a.getCSlice().getHoster().getValue() != a.getDSlice().getHoster().getValue())) {
+    /**
+     * The tasks running on a network element, with their heights.
+     */
+    private static class Usage {
 
-                        Node src = source.getMapping().getVMLocation(vm);
-                        Node dst = rp.getNode(a.getDSlice().getHoster().getValue());
+        private final List<Task> tasks = new ArrayList<>();
 
-                        if (!Collections.disjoint(sw.getPorts(), net.getPath(src, dst))) {
-                            tasksList.add(new Task(a.getStart(), a.getDuration(), a.getEnd()));
-                            heightsList.add(((MigrateVMTransition) a).getBandwidth());
-                        }
-                    }
-                }
+        private final List<IntVar> heights = new ArrayList<>();
 
-                solver.post(ICF.cumulative(
-                        tasksList.toArray(new Task[tasksList.size()]),
-                        heightsList.toArray(new IntVar[heightsList.size()]),
-                        VF.fixed(sw.getCapacity(), solver),
-                        true
-                ));
+        void add(Task t, IntVar h) {
+            tasks.add(t);
+            heights.add(h);
+        }
 
-                tasksList.clear();
-                heightsList.clear();
-            }
+        Task[] tasks() {
+            return tasks.toArray(new Task[tasks.size()]);
         }
 
-        return true;
+        IntVar[] heights() {
+            return heights.toArray(new IntVar[heights.size()]);
+        }
+    }
+
+    /**
+     * Estimate the duration of a pre-copy live-migration.
+     *
+     * @param bw               the bandwidth allocated to the migration, in Mb/s
+     * @param memUsed          the amount of memory used by the VM, in MB
+     * @param dirtyRate        the rate the memory is dirtied at, in MB/s
+     * @param maxDirtySize     the size of the hot pages, in MB
+     * @param maxDirtyDuration the time required to dirty the hot pages, in seconds
+     * @return the estimated duration, in seconds
+     */
+    public static int estimateDuration(int bw, int memUsed, double dirtyRate, int maxDirtySize, int maxDirtyDuration) {
+        double durationMin, durationColdPages, durationHotPages, durationTotal;
+
+        // Cheat a bit, real is less than theoretical !
+        double bandwidth_octet = bw / 9;
+
+        // Estimate duration
+        durationMin = memUsed / bandwidth_octet;
+        if (durationMin > maxDirtyDuration) {
+
+            durationColdPages = ((maxDirtySize + ((durationMin - maxDirtyDuration) * dirtyRate)) / (bandwidth_octet - dirtyRate));
+            durationHotPages = ((maxDirtySize / bandwidth_octet) * ((maxDirtySize / maxDirtyDuration) / (bandwidth_octet - (maxDirtySize / maxDirtyDuration))));
+            durationTotal = durationMin + durationColdPages + durationHotPages;
+        } else {
+            durationTotal = durationMin + (((maxDirtySize / maxDirtyDuration) * durationMin) / (bandwidth_octet - (maxDirtySize / maxDirtyDuration)));
+        }
+        return (int) Math.round(durationTotal);
+    }
+
+    /**
+     * Check if a pre-copy live-migration can converge with a given bandwidth.
+     * The bandwidth must be greater than the rate the memory is dirtied at.
+     *
+     * @param bw               the bandwidth allocated to the migration, in Mb/s
+     * @param dirtyRate        the rate the memory is dirtied at, in MB/s
+     * @param maxDirtySize     the size of the hot pages, in MB
+     * @param maxDirtyDuration the time required to dirty the hot pages, in seconds
+     * @return {@code true} iff the migration converges
+     */
+    public static boolean converges(int bw, double dirtyRate, int maxDirtySize, int maxDirtyDuration) {
+        double bandwidth_octet = bw / 9;
+        return bandwidth_octet > dirtyRate && bandwidth_octet > (maxDirtySize / maxDirtyDuration);
+    }
+
+    /**
+     * Get the number of bandwidth levels a migration can use.
+     *
+     * @return {@code 1} if each migration uses the maximum bandwidth of its path
+     */
+    public int getBandwidthSteps() {
+        return nbBandwidthSteps;
+    }
+
+    /**
+     * Get the index of the network elements crossed by the migrations.
+     *
+     * @return the index, {@code null} until {@link #beforeSolve(ReconfigurationProblem)} is called
+     */
+    public MigrationPathsIndex getMigrationPathsIndex() {
+        return index;
     }
 
     @Override
@@ -235,6 +446,26 @@ public class CNetworkView implements ChocoView {
      * Builder associated to the constraint.
      */
     public static class Builder implements ChocoModelViewBuilder {
+
+        private int steps;
+
+        /**
+         * New builder where each migration uses the maximum bandwidth of its path.
+         */
+        public Builder() {
+            this(1);
+        }
+
+        /**
+         * New builder where the bandwidth of each migration is chosen among several levels.
+         *
+         * @param steps the number of bandwidth levels
+         * @see CNetworkView#CNetworkView(ReconfigurationProblem, NetworkView, int)
+         */
+        public Builder(int steps) {
+            this.steps = steps;
+        }
+
         @Override
         public Class<? extends ModelView> getKey() {
             return NetworkView.class;
@@ -245,7 +476,7 @@ public class CNetworkView implements ChocoView {
             return new DelegatedBuilder(v.getIdentifier(), Collections.emptyList()) {
                 @Override
                 public ChocoView build(ReconfigurationProblem r) throws SchedulerException {
-                    return new CNetworkView(r, (NetworkView) v);
+                    return new CNetworkView(r, (NetworkView) v, steps);
                 }
             };
         }
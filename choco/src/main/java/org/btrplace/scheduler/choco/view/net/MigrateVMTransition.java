@@ -182,7 +182,8 @@ public class MigrateVMTransition implements KeepRunningVM {
             Node dst = rp.getNode(s.getIntVal(dSlice.getHoster()));
             int st = s.getIntVal(getStart());
             int ed = s.getIntVal(getEnd());
-            int bw = getBandwidth().getValue();
+            //A fixed bandwidth is a constant that is not recorded in the solution
+            int bw = bandwidth.isInstantiated() ? bandwidth.getValue() : s.getIntVal(bandwidth);
             a = new org.btrplace.plan.event.MigrateVM(vm, src, dst, st, ed, bw);
             plan.add(a);
         }
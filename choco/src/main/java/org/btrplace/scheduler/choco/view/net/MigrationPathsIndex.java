@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.scheduler.choco.view.net;
+
+import org.btrplace.model.Node;
+import org.btrplace.model.view.net.NetworkView;
+import org.btrplace.model.view.net.Port;
+import org.btrplace.model.view.net.Switch;
+import org.btrplace.scheduler.choco.ReconfigurationProblem;
+import org.btrplace.scheduler.choco.transition.VMTransition;
+
+import java.util.*;
+
+/**
+ * Index the network elements crossed by each migration.
+ * The path of every migration is computed once, then each migration
+ * is reported to the input ports and the switches it goes through.
+ * <p>
+ * Only the migrations having an instantiated destination when the index is built
+ * are indexed.
+ */
+public class MigrationPathsIndex {
+
+    private Map<MigrateVMTransition, List<Port>> paths;
+
+    private Map<Port, List<MigrateVMTransition>> byPort;
+
+    private Map<Switch, List<MigrateVMTransition>> bySwitch;
+
+    /**
+     * Make a new index.
+     * Every {@link MigrateVMTransition} that moves its VM to a known, other node is indexed.
+     *
+     * @param rp  the problem to extract the migrations from
+     * @param net the network view that provides the paths
+     */
+    public MigrationPathsIndex(ReconfigurationProblem rp, NetworkView net) {
+        paths = new LinkedHashMap<>();
+        byPort = new LinkedHashMap<>();
+        bySwitch = new LinkedHashMap<>();
+
+        for (VMTransition a : rp.getVMActions()) {
+            if (!(a instanceof MigrateVMTransition) ||
+                    !a.getDSlice().getHoster().isInstantiated() ||
+                    a.getCSlice().getHoster().getValue() == a.getDSlice().getHoster().getValue()) {
+                continue;
+            }
+            MigrateVMTransition m = (MigrateVMTransition) a;
+            Node src = rp.getSourceModel().getMapping().getVMLocation(m.getVM());
+            Node dst = rp.getNode(m.getDSlice().getHoster().getValue());
+            index(m, net.getPath(src, dst));
+        }
+    }
+
+    private void index(MigrateVMTransition m, List<Port> path) {
+        paths.put(m, path);
+        for (Port p : getInputPorts(path)) {
+            byPort.computeIfAbsent(p, k -> new ArrayList<>()).add(m);
+        }
+        for (Switch sw : getSwitches(path)) {
+            bySwitch.computeIfAbsent(sw, k -> new ArrayList<>()).add(m);
+        }
+    }
+
+    /**
+     * Get the input ports of a path.
+     * A port is an input port when its remote port comes after on the path.
+     *
+     * @param path the ordered list of ports
+     * @return the input ports, in the path order and without duplicates
+     */
+    public static Set<Port> getInputPorts(List<Port> path) {
+        Map<Port, Integer> positions = firstPositions(path);
+        Set<Port> ports = new LinkedHashSet<>();
+        for (int i = 0; i < path.size(); i++) {
+            Port p = path.get(i);
+            if (positions.get(p) != i) {
+                continue;
+            }
+            Integer remote = positions.get(p.getRemote());
+            if (remote != null && i < remote) {
+                ports.add(p);
+            }
+        }
+        return ports;
+    }
+
+    /**
+     * Get the switches crossed by a path.
+     *
+     * @param path the ordered list of ports
+     * @return the switches, in the path order and without duplicates
+     */
+    public static Set<Switch> getSwitches(List<Port> path) {
+        Set<Switch> switches = new LinkedHashSet<>();
+        for (Port p : path) {
+            if (p.getHost() instanceof Switch) {
+                switches.add((Switch) p.getHost());
+            }
+        }
+        return switches;
+    }
+
+    /**
+     * Position of the first occurrence of each port on a path.
+     */
+    private static Map<Port, Integer> firstPositions(List<Port> path) {
+        Map<Port, Integer> positions = new IdentityHashMap<>(path.size() * 2);
+        for (int i = 0; i < path.size(); i++) {
+            positions.putIfAbsent(path.get(i), i);
+        }
+        return positions;
+    }
+
+    /**
+     * Get the indexed migrations.
+     *
+     * @return a set of migrations, that may be empty
+     */
+    public Set<MigrateVMTransition> getMigrations() {
+        return paths.keySet();
+    }
+
+    /**
+     * Get the path of an indexed migration.
+     *
+     * @param m the migration
+     * @return the ordered list of ports. {@code null} if the migration is not indexed
+     */
+    public List<Port> getPath(MigrateVMTransition m) {
+        return paths.get(m);
+    }
+
+    /**
+     * Get the input ports crossed by at least one migration.
+     *
+     * @return a set of ports, that may be empty
+     */
+    public Set<Port> getUsedPorts() {
+        return byPort.keySet();
+    }
+
+    /**
+     * Get the migrations that go through a given input port.
+     *
+     * @param p the port
+     * @return a list of migrations, that may be empty
+     */
+    public List<MigrateVMTransition> getMigrations(Port p) {
+        List<MigrateVMTransition> l = byPort.get(p);
+        return l == null ? Collections.emptyList() : l;
+    }
+
+    /**
+     * Get the switches crossed by at least one migration.
+     *
+     * @return a set of switches, that may be empty
+     */
+    public Set<Switch> getUsedSwitches() {
+        return bySwitch.keySet();
+    }
+
+    /**
+     * Get the migrations that go through a given switch.
+     *
+     * @param sw the switch
+     * @return a list of migrations, that may be empty
+     */
+    public List<MigrateVMTransition> getMigrations(Switch sw) {
+        List<MigrateVMTransition> l = bySwitch.get(sw);
+        return l == null ? Collections.emptyList() : l;
+    }
+}
@@ -5,6 +5,7 @@ import org.btrplace.model.Node;
 import org.btrplace.model.VM;
 import org.btrplace.model.VMState;
 import org.btrplace.model.view.ModelView;
+import org.btrplace.model.view.power.BudgetProfile;
 import org.btrplace.model.view.power.EnergyView;
 import org.btrplace.plan.ReconfigurationPlan;
 import org.btrplace.scheduler.SchedulerException;
@@ -191,33 +192,12 @@ public class CEnergyView implements ChocoView {
 
         Model mo = rp.getSourceModel();
 
-        List<EnergyView.TimeIntervalBudget> tibList = ev.getTibList();
-
-        // Add time-interval power budgets
-        if (!tibList.isEmpty()) {
-
-            // Get min and max t of all budgets
-            tibList.sort((tib, tib2) -> (tib.getStart() - tib2.getStart()));
-            int start = tibList.get(0).getStart();
-            tibList.sort((tib, tib2) -> (tib2.getEnd() - tib.getEnd()));
-            int end = tibList.get(0).getEnd();
-
-            int previousBudget = ev.getMaxPower(start), currentBudget;
-            int startBudget = start;
-
-            for (int i=start+1; i<=end; i++) {
-                currentBudget = ev.getMaxPower(i);
-
-                if (currentBudget != previousBudget) {
-                    // Create the 'ghost' task
-                    addTask(startBudget, i, ev.getMaxPower() - previousBudget);
-
-                    // Init new budget
-                    startBudget = i;
-
-                    // Update 'future' previous budget
-                    previousBudget = currentBudget;
-                }
+        // Add time-interval power budgets: one 'ghost' task per step of the budget profile
+        BudgetProfile profile = ev.getBudgetProfile();
+        for (int k = 0; k < profile.size(); k++) {
+            int ghost = ev.getMaxPower() - profile.getBudget(k);
+            if (ghost > 0) {
+                addTask(profile.getStart(k), profile.getEnd(k), ghost);
             }
         }
 
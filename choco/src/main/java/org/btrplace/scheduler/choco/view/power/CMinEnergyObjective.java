@@ -9,15 +9,13 @@ import org.btrplace.model.view.power.MinEnergyObjective;
 import org.btrplace.scheduler.SchedulerException;
 import org.btrplace.scheduler.choco.ReconfigurationProblem;
 import org.btrplace.scheduler.choco.constraint.ChocoConstraintBuilder;
+import org.btrplace.scheduler.choco.extensions.EnergyArea;
 import org.btrplace.scheduler.choco.transition.RelocatableVM;
-import org.btrplace.scheduler.choco.transition.ShutdownableNode;
-import org.btrplace.scheduler.choco.transition.VMTransition;
 import org.btrplace.scheduler.choco.view.CPowerView;
+import org.btrplace.scheduler.choco.view.net.CMinMTTRObjective;
 import org.btrplace.scheduler.choco.view.net.MigrateVMTransition;
 import org.chocosolver.solver.Solver;
 import org.chocosolver.solver.constraints.Constraint;
-import org.chocosolver.solver.constraints.ICF;
-import org.chocosolver.solver.constraints.IntConstraintFactory;
 import org.chocosolver.solver.search.strategy.ISF;
 import org.chocosolver.solver.search.strategy.selectors.values.IntDomainMin;
 import org.chocosolver.solver.search.strategy.selectors.variables.InputOrder;
@@ -70,17 +68,9 @@ public class CMinEnergyObjective implements org.btrplace.scheduler.choco.constra
         List<Task> tasks = energy.get("tasks");
         List<IntVar> heights = energy.get("heights");
 
-        // Compute all energy costs
-        List<IntVar> costs = new ArrayList<>();
-        for (int i=0; i<tasks.size(); i++) {
-            IntVar cost = VariableFactory.bounded(rp.makeVarLabel("cost"), 0, Integer.MAX_VALUE / 100, solver);
-            solver.post(ICF.times(tasks.get(i).getDuration(), heights.get(i), cost));
-            costs.add(cost);
-        }
-
-        // Sum all costs and set objective
+        // The energy is the cumulative area of the tasks, maintained by a single propagator
         IntVar cost = VariableFactory.bounded(rp.makeVarLabel("costEnergy"), 0, Integer.MAX_VALUE / 100, solver);
-        costConstraint = IntConstraintFactory.sum(costs.toArray(new IntVar[costs.size()]), cost);
+        costConstraint = new EnergyArea(tasks.toArray(new Task[tasks.size()]), heights.toArray(new IntVar[heights.size()]), cost);
         solver.post(costConstraint);
         rp.setObjective(true, cost);
 
@@ -120,41 +110,15 @@ public class CMinEnergyObjective implements org.btrplace.scheduler.choco.constra
         */
 
         // Per node decommissioning (Boot dst node -> Migrate -> Shutdown src node) strategy
-        List<IntVar> endVars = new ArrayList<IntVar>();
-        for (Node n : rp.getNodes()) {
-            endVars.clear();
-
-            if (rp.getNodeAction(n) instanceof ShutdownableNode) {
-
-                for (VMTransition a : rp.getVMActions()) {
-
-                    if (rp.getNode(n) == (a.getCSlice().getHoster().getValue())) {
-
-                        // Boot dst
-                        if (!endVars.contains(rp.getNodeAction(rp.getNode(a.getDSlice().getHoster().getValue())).getEnd())) {
-                            endVars.add(rp.getNodeAction(rp.getNode(a.getDSlice().getHoster().getValue())).getEnd());
-                        }
-
-                        // Migrate all
-                        endVars.add(a.getEnd());
-                    }
-                }
-
-                // Shutdown
-                endVars.add(rp.getNodeAction(n).getEnd());
-            }
-
-            if (!endVars.isEmpty()) {
-                //endVars.add(rp.getNodeAction(n).getHostingEnd());
-                strategies.add(ISF.custom(
-                        ISF.maxDomainSize_var_selector(),
-                        ISF.mid_value_selector(),//.max_value_selector(),
-                        ISF.split(), // Split from max
-                        endVars.toArray(new IntVar[endVars.size()])
-                ));
-                //strategies.add(ISF.minDom_LB(endVars.toArray(new IntVar[endVars.size()]))
-                //);
-            }
+        for (IntVar[] ends : CMinMTTRObjective.decommissioningEnds(rp)) {
+            //endVars.add(rp.getNodeAction(n).getHostingEnd());
+            strategies.add(ISF.custom(
+                    ISF.maxDomainSize_var_selector(),
+                    ISF.mid_value_selector(),//.max_value_selector(),
+                    ISF.split(), // Split from max
+                    ends
+            ));
+            //strategies.add(ISF.minDom_LB(ends));
         }
 
 
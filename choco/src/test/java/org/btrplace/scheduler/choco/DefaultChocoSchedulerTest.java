@@ -25,6 +25,8 @@ import org.btrplace.plan.ReconfigurationPlan;
 import org.btrplace.scheduler.SchedulerException;
 import org.btrplace.scheduler.choco.constraint.ChocoConstraint;
 import org.btrplace.scheduler.choco.constraint.ChocoConstraintBuilder;
+import org.btrplace.scheduler.choco.runner.SolutionListener;
+import org.btrplace.scheduler.choco.runner.SolutionStatistics;
 import org.btrplace.scheduler.choco.runner.SolvingStatistics;
 import org.btrplace.scheduler.choco.transition.TransitionFactory;
 import org.btrplace.scheduler.choco.transition.TransitionUtils;
@@ -72,6 +74,18 @@ public class DefaultChocoSchedulerTest {
         ModelViewMapper m = new ModelViewMapper();
         cra.setViewMapper(m);
         Assert.assertEquals(cra.getViewMapper(), m);
+
+        Assert.assertEquals(cra.getMaxRecordedSolutions(), 1);
+        cra.setMaxRecordedSolutions(3);
+        Assert.assertEquals(cra.getMaxRecordedSolutions(), 3);
+        cra.setMaxRecordedSolutions(0);
+        Assert.assertEquals(cra.getMaxRecordedSolutions(), 1);
+
+        SolutionListener l = st -> { };
+        cra.addSolutionListener(l);
+        Assert.assertEquals(cra.getSolutionListeners(), Collections.singletonList(l));
+        Assert.assertTrue(cra.removeSolutionListener(l));
+        Assert.assertFalse(cra.removeSolutionListener(l));
     }
 
     @Test(expectedExceptions = {SchedulerException.class})
@@ -337,4 +351,106 @@ public class DefaultChocoSchedulerTest {
         mo.getMapping().addReadyVM(v);
         cra.solve(mo, Collections.<SatConstraint>singletonList(new Running(v)));
     }
+
+    /**
+     * An objective that minimises the sum of the VM hosters index.
+     * The solver computes several improving solutions before reaching the optimum.
+     */
+    private static class HosterSum extends OptConstraint {
+        @Override
+        public String id() {
+            return "hosterSum";
+        }
+    }
+
+    private static ChocoScheduler makeRecordingScheduler(int k) {
+        ChocoScheduler cra = new DefaultChocoScheduler();
+        cra.doOptimize(true);
+        cra.setMaxRecordedSolutions(k);
+        cra.getConstraintMapper().register(new ChocoConstraintBuilder() {
+            @Override
+            public Class<? extends Constraint> getKey() {
+                return HosterSum.class;
+            }
+
+            @Override
+            public ChocoConstraint build(Constraint cstr) {
+                return new ChocoConstraint() {
+                    public boolean inject(ReconfigurationProblem rp) throws SchedulerException {
+                        Solver s = rp.getSolver();
+                        IntVar[] hosters = SliceUtils.extractHoster(TransitionUtils.getDSlices(rp.getVMActions()));
+                        IntVar sum = VF.bounded("sum", 0, hosters.length * rp.getNodes().length, s);
+                        s.post(IntConstraintFactory.sum(hosters, sum));
+                        rp.setObjective(true, sum);
+                        return true;
+                    }
+
+                    public Set<VM> getMisPlacedVMs(Model m) {
+                        return Collections.emptySet();
+                    }
+                };
+            }
+        });
+        return cra;
+    }
+
+    private static Instance makeMultipleSolutionsInstance() {
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Node n = mo.newNode();
+            map.addOnlineNode(n);
+            nodes.add(n);
+        }
+        for (int i = 0; i < 4; i++) {
+            map.addRunningVM(mo.newVM(), nodes.get(3));
+        }
+        return new Instance(mo, Collections.<SatConstraint>singletonList(new Offline(nodes.get(3))), new HosterSum());
+    }
+
+    @Test
+    public void testSolutionRecording() throws SchedulerException {
+        Instance i = makeMultipleSolutionsInstance();
+        ChocoScheduler cra = makeRecordingScheduler(1);
+        List<SolutionStatistics> streamed = new ArrayList<>();
+        cra.addSolutionListener(st -> {
+            Assert.assertNotNull(st.getReconfigurationPlan());
+            streamed.add(st);
+        });
+        ReconfigurationPlan p = cra.solve(i);
+        Assert.assertNotNull(p);
+        List<SolutionStatistics> sols = cra.getStatistics().getSolutions();
+        Assert.assertTrue(sols.size() > 1);
+        Assert.assertEquals(streamed, sols);
+
+        //Default policy: only the last solution keeps its plan
+        for (int k = 0; k < sols.size() - 1; k++) {
+            Assert.assertNull(sols.get(k).getReconfigurationPlan());
+        }
+        ReconfigurationPlan last = sols.get(sols.size() - 1).getReconfigurationPlan();
+        Assert.assertNotNull(last);
+        Assert.assertEquals(last.getDuration(), p.getDuration());
+
+        //Record everything
+        cra = makeRecordingScheduler(-1);
+        cra.solve(i);
+        sols = cra.getStatistics().getSolutions();
+        for (SolutionStatistics st : sols) {
+            Assert.assertNotNull(st.getReconfigurationPlan());
+        }
+
+        //Best-2
+        cra = makeRecordingScheduler(2);
+        cra.solve(i);
+        sols = cra.getStatistics().getSolutions();
+        int nb = 0;
+        for (SolutionStatistics st : sols) {
+            if (st.getReconfigurationPlan() != null) {
+                nb++;
+            }
+        }
+        Assert.assertEquals(nb, 2);
+        Assert.assertNotNull(sols.get(sols.size() - 2).getReconfigurationPlan());
+    }
 }
@@ -27,20 +27,20 @@ import org.btrplace.scheduler.choco.duration.DurationEvaluators;
 import org.btrplace.scheduler.choco.transition.*;
 import org.btrplace.scheduler.choco.view.*;
 import org.chocosolver.solver.Cause;
+import org.chocosolver.solver.ResolutionPolicy;
 import org.chocosolver.solver.Solver;
 import org.chocosolver.solver.constraints.ICF;
 import org.chocosolver.solver.constraints.IntConstraintFactory;
 import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.objective.ObjectiveManager;
+import org.chocosolver.solver.search.loop.monitors.IMonitorSolution;
 import org.chocosolver.solver.search.solution.Solution;
 import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.solver.variables.VF;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
 
 /**
  * Unit tests for {@link DefaultReconfigurationProblem}.
@@ -879,6 +879,138 @@ public class DefaultReconfigurationProblemTest {
         Assert.assertEquals(s.getMeasures().getSolutionCount(), 4);
     }  */
 
+    /**
+     * Test a minimisation problem driven by an alterer.
+     * Each solution must reach the bound stated by the alterer and
+     * no constraint must be added along the search.
+     *
+     * @throws org.btrplace.scheduler.SchedulerException
+     */
+    @Test
+    public void testMinimizationWithAlterer() throws SchedulerException {
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        List<Node> ns = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Node n = mo.newNode();
+            map.addOnlineNode(n);
+            ns.add(n);
+        }
+        for (int i = 0; i < 10; i++) {
+            map.addRunningVM(mo.newVM(), ns.get(i % ns.size()));
+        }
+        ReconfigurationProblem rp = new DefaultReconfigurationProblemBuilder(mo).build();
+        Solver s = rp.getSolver();
+        IntVar[] hosters = SliceUtils.extractHoster(TransitionUtils.getDSlices(rp.getVMActions()));
+        IntVar sum = VF.bounded("sum", 0, hosters.length * ns.size(), s);
+        s.post(ICF.sum(hosters, sum));
+        rp.setObjective(true, sum);
+        rp.setObjectiveAlterer((p, v) -> v - 3);
+
+        List<Integer> values = new ArrayList<>();
+        Set<Integer> nbCstrs = new HashSet<>();
+        s.plugMonitor((IMonitorSolution) () -> {
+            values.add(sum.getValue());
+            nbCstrs.add(s.getNbCstrs());
+        });
+        ReconfigurationPlan plan = rp.solve(0, true);
+        Assert.assertNotNull(plan);
+        Assert.assertTrue(values.size() > 1, values.toString());
+        for (int i = 1; i < values.size(); i++) {
+            Assert.assertTrue(values.get(i) <= values.get(i - 1) - 3, values.toString());
+        }
+        Assert.assertEquals(nbCstrs.size(), 1);
+        Assert.assertEquals(((AlteredObjectiveManager) s.getObjectiveManager()).getCut(), values.get(values.size() - 1) - 3);
+    }
+
+    /**
+     * Make a minimisation problem over the sum of the VM hosters.
+     */
+    private static ReconfigurationProblem makeSumProblem(IntVar[] sum) throws SchedulerException {
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        List<Node> ns = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Node n = mo.newNode();
+            map.addOnlineNode(n);
+            ns.add(n);
+        }
+        for (int i = 0; i < 10; i++) {
+            map.addRunningVM(mo.newVM(), ns.get(i % ns.size()));
+        }
+        ReconfigurationProblem rp = new DefaultReconfigurationProblemBuilder(mo).build();
+        IntVar[] hosters = SliceUtils.extractHoster(TransitionUtils.getDSlices(rp.getVMActions()));
+        sum[0] = VF.bounded("sum", 0, hosters.length * ns.size(), rp.getSolver());
+        rp.getSolver().post(ICF.sum(hosters, sum[0]));
+        rp.setObjective(true, sum[0]);
+        return rp;
+    }
+
+    /**
+     * An alterer that does not tighten the bound must not make the search
+     * enumerate solutions having the same cost.
+     *
+     * @throws org.btrplace.scheduler.SchedulerException
+     */
+    @Test
+    public void testMinimizationWithLooseAlterer() throws SchedulerException {
+        IntVar[] sum = new IntVar[1];
+        ReconfigurationProblem rp = makeSumProblem(sum);
+        rp.setObjectiveAlterer((p, v) -> v);
+        List<Integer> values = new ArrayList<>();
+        rp.getSolver().plugMonitor((IMonitorSolution) () -> values.add(sum[0].getValue()));
+        Assert.assertNotNull(rp.solve(0, true));
+        for (int i = 1; i < values.size(); i++) {
+            Assert.assertTrue(values.get(i) < values.get(i - 1), values.toString());
+        }
+        Assert.assertEquals((int) values.get(values.size() - 1), 0);
+    }
+
+    @Test
+    public void testSolutionRecorder() throws SchedulerException {
+        IntVar[] sum = new IntVar[1];
+        ReconfigurationProblem rp = makeSumProblem(sum);
+        Assert.assertSame(rp.getSolutionRecorder(), rp.getSolver().getSolutionRecorder());
+        List<Integer> values = new ArrayList<>();
+        rp.getSolver().plugMonitor((IMonitorSolution) () -> values.add(sum[0].getValue()));
+        Assert.assertNotNull(rp.solve(0, true));
+        Assert.assertEquals(rp.getSolutionRecorder().getNbSolutions(), values.size());
+        Assert.assertEquals(rp.getSolutionRecorder().getLastSolution().getIntVal(sum[0]),
+                (int) values.get(values.size() - 1));
+    }
+
+    @Test
+    public void testBeforeSolve() throws SchedulerException {
+        IntVar[] sum = new IntVar[1];
+        DefaultReconfigurationProblem rp = (DefaultReconfigurationProblem) makeSumProblem(sum);
+        Assert.assertTrue(rp.beforeSolve());
+        int nb = rp.getSolver().getNbCstrs();
+        //The problem is not completed a second time
+        Assert.assertNotNull(rp.solve(0, false));
+        Assert.assertEquals(rp.getSolver().getNbCstrs(), nb);
+    }
+
+    /**
+     * The alterer must be used even if an objective manager is installed beforehand.
+     *
+     * @throws org.btrplace.scheduler.SchedulerException
+     */
+    @Test
+    public void testAltererWithInstalledManager() throws SchedulerException {
+        IntVar[] sum = new IntVar[1];
+        ReconfigurationProblem rp = makeSumProblem(sum);
+        Solver s = rp.getSolver();
+        s.set(new ObjectiveManager<IntVar, Integer>(sum[0], ResolutionPolicy.MINIMIZE, true));
+        rp.setObjectiveAlterer((p, v) -> v - 3);
+        List<Integer> values = new ArrayList<>();
+        s.plugMonitor((IMonitorSolution) () -> values.add(sum[0].getValue()));
+        Assert.assertNotNull(rp.solve(0, true));
+        Assert.assertTrue(values.size() > 1, values.toString());
+        for (int i = 1; i < values.size(); i++) {
+            Assert.assertTrue(values.get(i) <= values.get(i - 1) - 3, values.toString());
+        }
+    }
+
     /**
      * Test an unsolvable optimisation problem with an alterer. No solution
      *
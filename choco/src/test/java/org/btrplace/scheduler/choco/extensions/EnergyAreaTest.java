@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.scheduler.choco.extensions;
+
+import org.chocosolver.solver.Cause;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.ICF;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.Task;
+import org.chocosolver.solver.variables.VF;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link EnergyArea}.
+ */
+public class EnergyAreaTest {
+
+    private static Task[] makeTasks(Solver s, IntVar[] durations) {
+        Task[] tasks = new Task[durations.length];
+        for (int i = 0; i < durations.length; i++) {
+            IntVar st = VF.bounded("s" + i, 0, 3, s);
+            IntVar ed = VF.bounded("e" + i, 0, 6, s);
+            tasks[i] = VF.task(st, durations[i], ed);
+        }
+        return tasks;
+    }
+
+    private static long countSolutions(boolean decomposed, boolean sharedHeight) {
+        Solver s = new Solver();
+        IntVar[] durations = new IntVar[3];
+        IntVar[] heights = new IntVar[3];
+        for (int i = 0; i < durations.length; i++) {
+            durations[i] = VF.bounded("d" + i, 0, 3, s);
+            heights[i] = sharedHeight && i > 0 ? heights[0] : VF.bounded("h" + i, 0, 2, s);
+        }
+        Task[] tasks = makeTasks(s, durations);
+        IntVar energy = VF.bounded("energy", 3, 7, s);
+        if (decomposed) {
+            IntVar[] areas = new IntVar[tasks.length];
+            for (int i = 0; i < tasks.length; i++) {
+                areas[i] = VF.bounded("a" + i, 0, 6, s);
+                s.post(ICF.times(durations[i], heights[i], areas[i]));
+            }
+            s.post(ICF.sum(areas, energy));
+        } else {
+            s.post(new EnergyArea(tasks, heights, energy));
+        }
+        return s.findAllSolutions();
+    }
+
+    @Test
+    public void testSolutionsMatchDecomposition() {
+        long expected = countSolutions(true, false);
+        Assert.assertTrue(expected > 0);
+        Assert.assertEquals(countSolutions(false, false), expected);
+    }
+
+    @Test
+    public void testSharedVariables() {
+        long expected = countSolutions(true, true);
+        Assert.assertTrue(expected > 0);
+        Assert.assertEquals(countSolutions(false, true), expected);
+    }
+
+    @Test
+    public void testBoundsFiltering() throws ContradictionException {
+        Solver s = new Solver();
+        IntVar[] durations = {VF.bounded("d0", 0, 10, s), VF.bounded("d1", 0, 10, s)};
+        IntVar[] heights = {VF.fixed(3, s), VF.fixed(2, s)};
+        Task[] tasks = makeTasks(s, durations);
+        IntVar energy = VF.bounded("energy", 0, 100, s);
+        s.post(new EnergyArea(tasks, heights, energy));
+        s.propagate();
+        //The compulsory parts: the tasks last at most 6 time units
+        Assert.assertEquals(energy.getUB(), 30);
+
+        s.getEnvironment().worldPush();
+        energy.updateUpperBound(10, Cause.Null);
+        s.propagate();
+        Assert.assertEquals(durations[0].getUB(), 3);
+        Assert.assertEquals(durations[1].getUB(), 5);
+        s.getEnvironment().worldPop();
+
+        energy.updateLowerBound(26, Cause.Null);
+        s.propagate();
+        //d0 must provide at least 26 - 12 = 14, so 5 time units
+        Assert.assertEquals(durations[0].getLB(), 5);
+        //d1 must provide at least 26 - 18 = 8, so 4 time units
+        Assert.assertEquals(durations[1].getLB(), 4);
+    }
+}
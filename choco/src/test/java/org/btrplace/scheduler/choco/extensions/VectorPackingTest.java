@@ -171,5 +171,41 @@ public class VectorPackingTest {
         testPack(true, "failed with " + Arrays.toString(height));
     }
 
+    /**
+     * Count the solutions of a random 2D packing where some loads are also restricted
+     * by other constraints.
+     */
+    private long countSolutions(boolean withHeap) {
+        Random rnd = new Random(42);
+        int nBins = 4;
+        int nItems = 6;
+        Solver solver = new Solver();
+        IntVar[][] l = new IntVar[2][nBins];
+        int[][] h = new int[2][nItems];
+        for (int d = 0; d < 2; d++) {
+            for (int b = 0; b < nBins; b++) {
+                l[d][b] = VF.bounded("l" + d + "." + b, 0, 6, solver);
+            }
+            for (int i = 0; i < nItems; i++) {
+                h[d][i] = 1 + rnd.nextInt(3);
+            }
+        }
+        IntVar[] b = VF.enumeratedArray("b", nItems, 0, nBins - 1, solver);
+        solver.post(new VectorPacking(new String[]{"d0", "d1"}, l, h, b, withHeap, false));
+        solver.post(IntConstraintFactory.arithm(l[0][0], "<=", l[1][1]));
+        solver.post(IntConstraintFactory.arithm(l[1][2], ">", 2));
+        solver.set(ISF.random_value(b, 7));
+        return solver.findAllSolutions();
+    }
 
+    /**
+     * The heap is restored on backtracks and follows the load changes made by other constraints,
+     * so it must not lose nor add any solution.
+     */
+    @Test
+    public void testHeapAndBacktracks() {
+        long expected = countSolutions(false);
+        Assert.assertTrue(expected > 0);
+        Assert.assertEquals(countSolutions(true), expected);
+    }
 }
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.scheduler.choco.runner.disjoint;
+
+import org.btrplace.model.*;
+import org.btrplace.model.constraint.Fence;
+import org.btrplace.model.constraint.MinMTTR;
+import org.btrplace.model.constraint.Running;
+import org.btrplace.model.constraint.SatConstraint;
+import org.btrplace.model.view.ShareableResource;
+import org.btrplace.model.view.net.MinMTTRObjective;
+import org.btrplace.model.view.net.NetworkView;
+import org.btrplace.model.view.net.Switch;
+import org.btrplace.plan.ReconfigurationPlan;
+import org.btrplace.plan.event.Action;
+import org.btrplace.plan.event.BootVM;
+import org.btrplace.plan.event.MigrateVM;
+import org.btrplace.scheduler.SchedulerException;
+import org.btrplace.scheduler.choco.DefaultParameters;
+import org.btrplace.scheduler.choco.Parameters;
+import org.btrplace.scheduler.choco.view.net.CMinMTTRObjective;
+import org.btrplace.scheduler.choco.view.net.CNetworkView;
+import org.btrplace.scheduler.choco.view.net.MigrateVMTransition;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unit tests for {@link AdaptivePartitioning}.
+ */
+public class AdaptivePartitioningTest {
+
+    private List<Node> nodes;
+
+    /**
+     * 6 nodes with 2 cpu each, grouped by pairs. The first pair of nodes is full
+     * while a VM to launch is dispatched to its partition, so the partition has no solution.
+     */
+    private Instance makeInstance() {
+        Model mo = new DefaultModel();
+        Mapping ma = mo.getMapping();
+        ShareableResource cpu = new ShareableResource("cpu", 2, 1);
+        nodes = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Node n = mo.newNode();
+            ma.addOnlineNode(n);
+            nodes.add(n);
+        }
+        for (int i = 0; i < 2; i++) {
+            ma.addRunningVM(mo.newVM(), nodes.get(0));
+            ma.addRunningVM(mo.newVM(), nodes.get(1));
+        }
+        ma.addRunningVM(mo.newVM(), nodes.get(2));
+        VM v = mo.newVM();
+        ma.addReadyVM(v);
+        mo.attach(cpu);
+        List<SatConstraint> cstrs = new ArrayList<>();
+        cstrs.add(new Running(v));
+        return new Instance(mo, cstrs, new MinMTTR());
+    }
+
+    private FixedNodeSetsPartitioning makePartitioning() {
+        List<Collection<Node>> parts = new ArrayList<>();
+        for (int i = 0; i < nodes.size(); i += 2) {
+            parts.add(Arrays.asList(nodes.get(i), nodes.get(i + 1)));
+        }
+        return new FixedNodeSetsPartitioning(parts);
+    }
+
+    @Test
+    public void testMergeFailingPartition() throws SchedulerException {
+        Parameters ps = new DefaultParameters();
+
+        Instance i = makeInstance();
+        FixedNodeSetsPartitioning f = makePartitioning();
+        Assert.assertNull(f.solve(ps, i));
+
+        i = makeInstance();
+        AdaptivePartitioning a = new AdaptivePartitioning(makePartitioning());
+        Assert.assertNotNull(a.getPartitioning());
+        a.setWorkersCount(2);
+        ReconfigurationPlan p = a.solve(ps, i);
+        Assert.assertNotNull(p);
+        Assert.assertEquals(p.getSize(), 1);
+        Assert.assertTrue(p.getActions().iterator().next() instanceof BootVM);
+
+        StaticPartitioningStatistics st = (StaticPartitioningStatistics) a.getStatistics();
+        //The failing partition has been merged with the least loaded one, the third
+        Assert.assertEquals(st.getNbParts(), 2);
+        Assert.assertEquals(st.getRoundStatistics().size(), 2);
+        Assert.assertEquals(st.getRoundStatistics().get(0).getNbParts(), 3);
+        Assert.assertEquals(st.getRoundStatistics().get(1).getNbParts(), 1);
+        Assert.assertFalse(st.getSolutions().isEmpty());
+        System.out.println(st);
+    }
+
+    @Test
+    public void testSingleRound() throws SchedulerException {
+        Instance i = makeInstance();
+        //Every partition has a solution
+        Mapping ma = i.getModel().getMapping();
+        ma.remove(ma.getRunningVMs(nodes.get(0)).iterator().next());
+        AdaptivePartitioning a = new AdaptivePartitioning(makePartitioning());
+        ReconfigurationPlan p = a.solve(new DefaultParameters(), i);
+        Assert.assertNotNull(p);
+        StaticPartitioningStatistics st = (StaticPartitioningStatistics) a.getStatistics();
+        Assert.assertEquals(st.getNbParts(), 3);
+        Assert.assertTrue(st.getRoundStatistics().isEmpty());
+    }
+
+    /**
+     * A chain of switches S1 - S3 - S2 with the partition A under S1, C under S3
+     * and B under S2. A fails and is merged with B, the least loaded partition.
+     * The merged partition then crosses S3, so C only gets half of the capacity of S3
+     * and must be solved again.
+     */
+    @Test
+    public void testMergeShrinksKeptPartition() throws SchedulerException {
+        Instance i = makeInstance();
+        Model mo = i.getModel();
+        Mapping ma = mo.getMapping();
+        //nodes 0-1: A, full with a VM to boot. nodes 2-3: C, a VM to migrate. nodes 4-5: B, empty
+        Collections.swap(nodes, 2, 4);
+        Collections.swap(nodes, 3, 5);
+        for (VM x : ma.getAllVMs()) {
+            mo.getAttributes().put(x, "memUsed", 1000);
+            mo.getAttributes().put(x, "dirtyRate", 2.0);
+            mo.getAttributes().put(x, "maxDirtySize", 10);
+            mo.getAttributes().put(x, "maxDirtyDuration", 2);
+        }
+        VM v = ma.getRunningVMs(nodes.get(4)).iterator().next();
+        i.getSatConstraints().add(new Fence(v, Collections.singleton(nodes.get(5))));
+
+        NetworkView net = new NetworkView();
+        Switch s1 = net.newSwitch();
+        Switch s2 = net.newSwitch();
+        Switch s3 = net.newSwitch(1000);
+        s1.connect(1000, nodes.get(0), nodes.get(1));
+        s2.connect(1000, nodes.get(2), nodes.get(3));
+        s3.connect(1000, nodes.get(4), nodes.get(5), s1, s2);
+        mo.attach(net);
+        i = new Instance(mo, i.getSatConstraints(), new MinMTTRObjective());
+
+        DefaultParameters ps = new DefaultParameters();
+        ps.getTransitionFactory().remove(ps.getTransitionFactory().getBuilder(VMState.RUNNING, VMState.RUNNING));
+        ps.getTransitionFactory().add(new MigrateVMTransition.Builder());
+        ps.getConstraintMapper().register(new CMinMTTRObjective.Builder());
+        ps.getViewMapper().register(new CNetworkView.Builder(4));
+
+        AdaptivePartitioning a = new AdaptivePartitioning(makePartitioning());
+        ReconfigurationPlan p = a.solve(ps, i);
+        Assert.assertNotNull(p);
+        MigrateVM mig = null;
+        for (Action x : p) {
+            if (x instanceof MigrateVM) {
+                mig = (MigrateVM) x;
+            }
+        }
+        Assert.assertNotNull(mig);
+        //S3 is shared by the merged partition and C
+        Assert.assertTrue(mig.getBandwidth() <= 500, mig.toString());
+
+        StaticPartitioningStatistics st = (StaticPartitioningStatistics) a.getStatistics();
+        Assert.assertEquals(st.getRoundStatistics().size(), 2);
+        Assert.assertEquals(st.getRoundStatistics().get(0).getNbParts(), 3);
+        //The merged partition and C
+        Assert.assertEquals(st.getRoundStatistics().get(1).getNbParts(), 2);
+    }
+}
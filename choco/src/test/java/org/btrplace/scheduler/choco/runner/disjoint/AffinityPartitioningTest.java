@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.scheduler.choco.runner.disjoint;
+
+import org.btrplace.model.*;
+import org.btrplace.model.constraint.*;
+import org.btrplace.plan.ReconfigurationPlan;
+import org.btrplace.scheduler.SchedulerException;
+import org.btrplace.scheduler.choco.DefaultParameters;
+import org.btrplace.scheduler.choco.Parameters;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+/**
+ * Unit tests for {@link AffinityPartitioning}.
+ */
+public class AffinityPartitioningTest {
+
+    private static Parameters params = new DefaultParameters();
+
+    @Test
+    public void basicTesting() {
+        AffinityPartitioning a = new AffinityPartitioning(100);
+        Assert.assertEquals(a.getSize(), 100);
+        a.setSize(30);
+        Assert.assertEquals(a.getSize(), 30);
+        Assert.assertTrue(a.getTyingConstraints().contains(Gather.class));
+        Assert.assertFalse(a.getTyingConstraints().contains(Ban.class));
+    }
+
+    /**
+     * 12 nodes hosting 2 VMs each. The constraints tie nodes that are far from each other
+     * in the node order.
+     */
+    private static Instance makeInstance(List<Node> ns, List<VM> vms) {
+        Model mo = new DefaultModel();
+        for (int i = 0; i < 12; i++) {
+            Node n = mo.newNode();
+            ns.add(n);
+            mo.getMapping().addOnlineNode(n);
+            for (int j = 0; j < 2; j++) {
+                VM v = mo.newVM();
+                vms.add(v);
+                mo.getMapping().addRunningVM(v, n);
+            }
+        }
+        List<SatConstraint> cstrs = new ArrayList<>();
+        //VMs on nodes 0, 5 and 10
+        cstrs.add(new Gather(Arrays.asList(vms.get(0), vms.get(10), vms.get(20))));
+        //VMs on nodes 1, 6 and 11
+        cstrs.add(new Spread(new HashSet<>(Arrays.asList(vms.get(2), vms.get(12), vms.get(22)))));
+        //VM on node 2, to nodes 3 and 7
+        cstrs.add(new Fence(vms.get(4), Arrays.asList(ns.get(3), ns.get(7))));
+        return new Instance(mo, cstrs, new MinMTTR());
+    }
+
+    @Test
+    public void testTiedNodesTogether() throws SchedulerException {
+        List<Node> ns = new ArrayList<>();
+        List<VM> vms = new ArrayList<>();
+        Instance i = makeInstance(ns, vms);
+        AffinityPartitioning a = new AffinityPartitioning(4);
+        List<Collection<Node>> parts = a.makePartitions(i);
+        Assert.assertEquals(parts.size(), 3);
+        Set<Node> all = new HashSet<>();
+        for (Collection<Node> p : parts) {
+            Assert.assertTrue(p.size() <= 4);
+            all.addAll(p);
+        }
+        Assert.assertEquals(all.size(), 12);
+        Assert.assertTrue(together(parts, ns.get(0), ns.get(5), ns.get(10)));
+        Assert.assertTrue(together(parts, ns.get(1), ns.get(6), ns.get(11)));
+        Assert.assertTrue(together(parts, ns.get(2), ns.get(3), ns.get(7)));
+
+        List<Instance> subs = a.split(params, i);
+        Assert.assertEquals(subs.size(), 3);
+        ReconfigurationPlan p = a.solve(params, i);
+        Assert.assertNotNull(p);
+        Node dst = p.getResult().getMapping().getVMLocation(vms.get(0));
+        Assert.assertEquals(p.getResult().getMapping().getVMLocation(vms.get(10)), dst);
+        Assert.assertEquals(p.getResult().getMapping().getVMLocation(vms.get(20)), dst);
+    }
+
+    @Test
+    public void testTooLargeConstraints() {
+        List<Node> ns = new ArrayList<>();
+        List<VM> vms = new ArrayList<>();
+        Instance i = makeInstance(ns, vms);
+        AffinityPartitioning a = new AffinityPartitioning(2);
+        //The constraints span 3 nodes, they are ignored
+        List<Collection<Node>> parts = a.makePartitions(i);
+        Assert.assertEquals(parts.size(), 6);
+        for (Collection<Node> p : parts) {
+            Assert.assertEquals(p.size(), 2);
+        }
+    }
+
+    private static boolean together(List<Collection<Node>> parts, Node... ns) {
+        for (Collection<Node> p : parts) {
+            if (p.contains(ns[0])) {
+                return p.containsAll(Arrays.asList(ns));
+            }
+        }
+        return false;
+    }
+}
@@ -19,13 +19,19 @@
 package org.btrplace.scheduler.choco.runner.disjoint;
 
 import org.btrplace.model.*;
-import org.btrplace.model.constraint.MaxOnline;
-import org.btrplace.model.constraint.MinMTTR;
-import org.btrplace.model.constraint.Running;
+import org.btrplace.model.constraint.*;
+import org.btrplace.model.view.net.MinMTTRObjective;
+import org.btrplace.model.view.net.NetworkView;
+import org.btrplace.model.view.net.Switch;
 import org.btrplace.plan.ReconfigurationPlan;
+import org.btrplace.plan.event.Action;
+import org.btrplace.plan.event.MigrateVM;
 import org.btrplace.scheduler.SchedulerException;
 import org.btrplace.scheduler.choco.DefaultChocoScheduler;
 import org.btrplace.scheduler.choco.DefaultParameters;
+import org.btrplace.scheduler.choco.view.net.CMinMTTRObjective;
+import org.btrplace.scheduler.choco.view.net.CNetworkView;
+import org.btrplace.scheduler.choco.view.net.MigrateVMTransition;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -120,4 +126,62 @@ public class FixedNodeSetsPartitioningTest {
         FixedNodeSetsPartitioning f = new FixedNodeSetsPartitioning(parts);
         f.split(new DefaultParameters(), orig);
     }
+
+    /**
+     * Two partitions migrate VMs through a shared core switch.
+     * Each partition receives half the core bandwidth.
+     */
+    @Test
+    public void testSplitWithNetwork() throws SchedulerException {
+        Model mo = new DefaultModel();
+        Mapping ma = mo.getMapping();
+        List<Node> ns = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Node n = mo.newNode();
+            ma.addOnlineNode(n);
+            ns.add(n);
+        }
+        List<SatConstraint> cstrs = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            VM v = mo.newVM();
+            ma.addRunningVM(v, ns.get(i));
+            mo.getAttributes().put(v, "memUsed", 1000);
+            mo.getAttributes().put(v, "dirtyRate", 2.0);
+            mo.getAttributes().put(v, "maxDirtySize", 10);
+            mo.getAttributes().put(v, "maxDirtyDuration", 2);
+            cstrs.add(new Fence(v, Collections.singleton(ns.get(i + 2))));
+        }
+        NetworkView net = new NetworkView();
+        Switch s1 = net.newSwitch();
+        Switch s2 = net.newSwitch();
+        Switch core = net.newSwitch();
+        s1.connect(1000, ns.get(0), ns.get(1));
+        s2.connect(1000, ns.get(2), ns.get(3));
+        core.connect(1000, s1, s2);
+        mo.attach(net);
+
+        DefaultParameters ps = new DefaultParameters();
+        ps.getTransitionFactory().remove(ps.getTransitionFactory().getBuilder(VMState.RUNNING, VMState.RUNNING));
+        ps.getTransitionFactory().add(new MigrateVMTransition.Builder());
+        ps.getConstraintMapper().register(new CMinMTTRObjective.Builder());
+        ps.getViewMapper().register(new CNetworkView.Builder(4));
+
+        List<Collection<Node>> parts = new ArrayList<>();
+        parts.add(Arrays.asList(ns.get(0), ns.get(2)));
+        parts.add(Arrays.asList(ns.get(1), ns.get(3)));
+        FixedNodeSetsPartitioning f = new FixedNodeSetsPartitioning(parts);
+        f.setWorkersCount(2);
+
+        DefaultChocoScheduler cra = new DefaultChocoScheduler(ps);
+        cra.setInstanceSolver(f);
+        ReconfigurationPlan plan = cra.solve(new Instance(mo, cstrs, new MinMTTRObjective()));
+        Assert.assertNotNull(plan);
+        int nb = 0;
+        for (Action a : plan) {
+            Assert.assertTrue(a instanceof MigrateVM);
+            Assert.assertTrue(((MigrateVM) a).getBandwidth() <= 500);
+            nb++;
+        }
+        Assert.assertEquals(nb, 2);
+    }
 }
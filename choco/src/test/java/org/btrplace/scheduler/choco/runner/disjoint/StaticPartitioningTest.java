@@ -29,9 +29,9 @@ import org.btrplace.scheduler.choco.Parameters;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Unit tests for {@link StaticPartitioning}.
@@ -139,4 +139,65 @@ public class StaticPartitioningTest {
         Parameters p = new DefaultChocoScheduler();
         st.solve(p, i0);
     }
+
+    @Test
+    public void testExecutorSharing() throws SchedulerException {
+        SynchronizedElementBuilder eb = new SynchronizedElementBuilder(new DefaultElementBuilder());
+        Model origin = new DefaultModel(eb);
+        List<Instance> parts = new ArrayList<>();
+        //Partitions of growing size
+        for (int i = 1; i <= 3; i++) {
+            List<Node> ns = new ArrayList<>();
+            Set<VM> vms = new HashSet<>();
+            for (int j = 0; j < i; j++) {
+                Node n = origin.newNode();
+                VM v = origin.newVM();
+                origin.getMapping().addOnlineNode(n);
+                origin.getMapping().addRunningVM(v, n);
+                ns.add(n);
+                vms.add(v);
+            }
+            parts.add(new Instance(new SubModel(origin, eb, ns, vms), new MinMTTR()));
+        }
+        Instance i0 = new Instance(origin, new MinMTTR());
+        StaticPartitioning st = new StaticPartitioning() {
+            @Override
+            public List<Instance> split(Parameters ps, Instance i) throws SchedulerException {
+                return parts;
+            }
+        };
+        Parameters p = new DefaultChocoScheduler();
+
+        //The pool is created on demand then re-used
+        Assert.assertNull(st.getExecutor());
+        Assert.assertNotNull(st.solve(p, i0));
+        ExecutorService exe = st.getExecutor();
+        Assert.assertNotNull(exe);
+        Assert.assertNotNull(st.solve(p, i0));
+        Assert.assertSame(st.getExecutor(), exe);
+        st.setWorkersCount(2);
+        Assert.assertTrue(exe.isShutdown());
+        Assert.assertNull(st.getExecutor());
+
+        //An external executor is never shut down. With a single worker,
+        //the partitions are solved from the largest to the smallest
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        st.setExecutor(single);
+        List<Integer> sizes = Collections.synchronizedList(new ArrayList<>());
+        p.addSolutionListener(sol -> sizes.add(sol.getReconfigurationPlan().getOrigin().getMapping().getNbNodes()));
+        Assert.assertNotNull(st.solve(p, i0));
+        Assert.assertEquals(sizes, Arrays.asList(3, 2, 1));
+        Assert.assertSame(st.getExecutor(), single);
+        st.shutdown();
+        Assert.assertNull(st.getExecutor());
+        Assert.assertFalse(single.isShutdown());
+        single.shutdown();
+
+        //The pool created by the solver is released on demand
+        Assert.assertNotNull(st.solve(p, i0));
+        exe = st.getExecutor();
+        st.shutdown();
+        Assert.assertTrue(exe.isShutdown());
+        Assert.assertNull(st.getExecutor());
+    }
 }
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.scheduler.choco.runner.disjoint.splitter;
+
+import org.btrplace.model.*;
+import org.btrplace.model.constraint.MinMTTR;
+import org.btrplace.model.view.net.NetworkView;
+import org.btrplace.model.view.net.Port;
+import org.btrplace.model.view.net.Routing;
+import org.btrplace.model.view.net.StaticRouting;
+import org.btrplace.model.view.net.Switch;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+/**
+ * Unit tests for {@link NetworkViewSplitter}.
+ */
+public class NetworkViewSplitterTest {
+
+    private Model origin;
+
+    private List<Node> nodes;
+
+    /**
+     * 4 nodes. n0 and n1 on a first switch, n2 and n3 on a second one.
+     * The two switches are linked through a core switch.
+     */
+    private NetworkView makeNetwork(int coreBW) {
+        origin = new DefaultModel();
+        nodes = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Node n = origin.newNode();
+            origin.getMapping().addOnlineNode(n);
+            nodes.add(n);
+        }
+        NetworkView net = new NetworkView();
+        Switch s1 = net.newSwitch();
+        Switch s2 = net.newSwitch();
+        Switch core = net.newSwitch(1000);
+        s1.connect(1000, nodes.get(0), nodes.get(1));
+        s2.connect(1000, nodes.get(2), nodes.get(3));
+        core.connect(coreBW, s1, s2);
+        origin.attach(net);
+        return net;
+    }
+
+    private List<Instance> split(Collection<Node>... parts) {
+        SynchronizedElementBuilder eb = new SynchronizedElementBuilder(new DefaultElementBuilder());
+        List<Instance> instances = new ArrayList<>();
+        for (Collection<Node> p : parts) {
+            instances.add(new Instance(new SubModel(origin, eb, p, new HashSet<>()), new MinMTTR()));
+        }
+        return instances;
+    }
+
+    @Test
+    public void testNoSharedElements() {
+        NetworkView net = makeNetwork(1000);
+        List<Instance> instances = split(Arrays.asList(nodes.get(0), nodes.get(1)), Arrays.asList(nodes.get(2), nodes.get(3)));
+        NetworkViewSplitter splitter = new NetworkViewSplitter();
+        Assert.assertTrue(splitter.split(net, new Instance(origin, new MinMTTR()), instances, Instances.makeVMIndex(instances), Instances.makeNodeIndex(instances)));
+        for (Instance i : instances) {
+            Assert.assertSame(i.getModel().getView(NetworkView.VIEW_ID), net);
+        }
+    }
+
+    @Test
+    public void testSharedElements() {
+        NetworkView net = makeNetwork(1000);
+        List<Instance> instances = split(Arrays.asList(nodes.get(0), nodes.get(2)), Arrays.asList(nodes.get(1), nodes.get(3)));
+        NetworkViewSplitter splitter = new NetworkViewSplitter();
+        Assert.assertTrue(splitter.split(net, new Instance(origin, new MinMTTR()), instances, Instances.makeVMIndex(instances), Instances.makeNodeIndex(instances)));
+        for (Instance i : instances) {
+            NetworkView sub = (NetworkView) i.getModel().getView(NetworkView.VIEW_ID);
+            Assert.assertNotSame(sub, net);
+            Assert.assertEquals(sub.getSwitches().size(), 3);
+            //The core switch and its links are shared
+            Assert.assertEquals(sub.getSwitches().get(2).getCapacity(), 500);
+            Node src = i.getModel().getMapping().getAllNodes().iterator().next();
+            for (Node dst : i.getModel().getMapping().getAllNodes()) {
+                if (dst.equals(src)) {
+                    continue;
+                }
+                List<Port> path = sub.getPath(src, dst);
+                Assert.assertEquals(path.size(), net.getPath(src, dst).size());
+                Assert.assertEquals(sub.getMaxBW(src, dst), 500);
+                for (Port p : path) {
+                    Assert.assertTrue(sub.getSwitches().contains(p.getHost()) || p.getHost().equals(src) || p.getHost().equals(dst));
+                }
+            }
+        }
+        //The original view is untouched
+        Assert.assertEquals(net.getMaxBW(nodes.get(0), nodes.get(2)), 1000);
+        Assert.assertSame(origin.getView(NetworkView.VIEW_ID), net);
+    }
+
+    @Test
+    public void testUnsplittable() {
+        NetworkView net = makeNetwork(1);
+        List<Instance> instances = split(Arrays.asList(nodes.get(0), nodes.get(2)), Arrays.asList(nodes.get(1), nodes.get(3)));
+        NetworkViewSplitter splitter = new NetworkViewSplitter();
+        Assert.assertFalse(splitter.split(net, new Instance(origin, new MinMTTR()), instances, Instances.makeVMIndex(instances), Instances.makeNodeIndex(instances)));
+    }
+
+    private static Port portTo(Switch sw, Element e) {
+        for (Port p : sw.getPorts()) {
+            if (p.getRemote().getHost().equals(e)) {
+                return p;
+            }
+        }
+        throw new IllegalArgumentException(sw + " is not connected to " + e);
+    }
+
+    private static List<Port> route(Node src, Node dst, Switch... sws) {
+        List<Port> path = new ArrayList<>();
+        Port in = portTo(sws[0], src);
+        path.add(in.getRemote());
+        path.add(in);
+        for (int i = 0; i < sws.length - 1; i++) {
+            Port out = portTo(sws[i], sws[i + 1]);
+            path.add(out);
+            path.add(out.getRemote());
+        }
+        Port out = portTo(sws[sws.length - 1], dst);
+        path.add(out);
+        path.add(out.getRemote());
+        return path;
+    }
+
+    /**
+     * With a static routing over a meshed network, a path between two nodes of a partition
+     * may use a link that is not on the paths from any other node of the partition.
+     */
+    @Test
+    public void testMeshedNetwork() {
+        origin = new DefaultModel();
+        nodes = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Node n = origin.newNode();
+            origin.getMapping().addOnlineNode(n);
+            nodes.add(n);
+        }
+        Node d = nodes.get(3), e = nodes.get(4);
+        StaticRouting routing = new StaticRouting();
+        NetworkView net = new NetworkView(routing);
+        Switch s1 = net.newSwitch();
+        Switch s2 = net.newSwitch();
+        Switch s3 = net.newSwitch();
+        s1.connect(1000, nodes.get(0), nodes.get(1), nodes.get(2));
+        s2.connect(1000, d);
+        s3.connect(1000, e);
+        s1.connect(1000, s2);
+        s2.connect(1000, s3);
+        s1.connect(1000, s3);
+        origin.attach(net);
+        List<Instance> instances = split(nodes.subList(0, 3), Arrays.asList(d, e));
+
+        //Whatever the node the paths of the first partition are computed from,
+        //the two other nodes communicate through the link between s2 and s3, like d and e
+        List<Node> others = new ArrayList<>(instances.get(0).getModel().getMapping().getAllNodes());
+        others.remove(0);
+        Node u = others.get(0), v = others.get(1);
+        routing.addStaticRoute(new Routing.NodesMap(u, v), route(u, v, s1, s2, s3, s1));
+        routing.addStaticRoute(new Routing.NodesMap(v, u), route(v, u, s1, s3, s2, s1));
+        routing.addStaticRoute(new Routing.NodesMap(d, e), route(d, e, s2, s3));
+        routing.addStaticRoute(new Routing.NodesMap(e, d), route(e, d, s3, s2));
+
+        NetworkViewSplitter splitter = new NetworkViewSplitter();
+        Assert.assertTrue(splitter.split(net, new Instance(origin, new MinMTTR()), instances, Instances.makeVMIndex(instances), Instances.makeNodeIndex(instances)));
+        NetworkView sub1 = (NetworkView) instances.get(0).getModel().getView(NetworkView.VIEW_ID);
+        NetworkView sub2 = (NetworkView) instances.get(1).getModel().getView(NetworkView.VIEW_ID);
+        Assert.assertEquals(sub1.getMaxBW(u, v), 500);
+        Assert.assertEquals(sub2.getMaxBW(d, e), 500);
+        Assert.assertSame(sub1, sub2);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.scheduler.choco.runner.disjoint.splitter;
+
+import gnu.trove.map.hash.TIntIntHashMap;
+import org.btrplace.model.*;
+import org.btrplace.model.constraint.MinMTTR;
+import org.btrplace.model.constraint.SatConstraint;
+import org.btrplace.model.view.power.EnergyView;
+import org.btrplace.model.view.power.PowerBudget;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for {@link PowerBudgetSplitter}.
+ */
+public class PowerBudgetSplitterTest {
+
+    @Test
+    public void simpleTest() {
+        PowerBudgetSplitter splitter = new PowerBudgetSplitter();
+
+        Model origin = new DefaultModel();
+        Node n1 = origin.newNode();
+        Node n2 = origin.newNode();
+        origin.getMapping().addOnlineNode(n1);
+        origin.getMapping().addOnlineNode(n2);
+        VM v1 = origin.newVM();
+        origin.getMapping().addRunningVM(v1, n1);
+        EnergyView ev = new EnergyView(1000);
+        ev.setConsumption(n1, 100);
+        ev.setConsumption(n2, 200);
+        ev.setConsumption(v1, 100);
+        origin.attach(ev);
+
+        List<Instance> instances = new ArrayList<>();
+        Model m0 = new DefaultModel();
+        m0.getMapping().addOnlineNode(n1);
+        m0.getMapping().addRunningVM(v1, n1);
+        Model m1 = new DefaultModel();
+        m1.getMapping().addOnlineNode(n2);
+        instances.add(new Instance(m0, new ArrayList<SatConstraint>(), new MinMTTR()));
+        instances.add(new Instance(m1, new ArrayList<SatConstraint>(), new MinMTTR()));
+        Instance i = new Instance(origin, new ArrayList<SatConstraint>(), new MinMTTR());
+
+        PowerBudget discrete = new PowerBudget(999);
+        Assert.assertTrue(splitter.split(discrete, i, instances, Instances.makeVMIndex(instances), Instances.makeNodeIndex(instances)));
+        PowerBudget b0 = (PowerBudget) instances.get(0).getSatConstraints().iterator().next();
+        PowerBudget b1 = (PowerBudget) instances.get(1).getSatConstraints().iterator().next();
+        //Both partitions consume the same, the budgets are rounded down
+        Assert.assertEquals(b0.getBudget(), 499);
+        Assert.assertEquals(b1.getBudget(), 499);
+        Assert.assertFalse(b0.isContinuous());
+
+        instances.get(0).getSatConstraints().clear();
+        instances.get(1).getSatConstraints().clear();
+        ev.setConsumption(n2, 600);
+        PowerBudget continuous = new PowerBudget(10, 20, 800);
+        Assert.assertTrue(splitter.split(continuous, i, instances, Instances.makeVMIndex(instances), Instances.makeNodeIndex(instances)));
+        b0 = (PowerBudget) instances.get(0).getSatConstraints().iterator().next();
+        b1 = (PowerBudget) instances.get(1).getSatConstraints().iterator().next();
+        Assert.assertEquals(b0.getBudget(), 200);
+        Assert.assertEquals(b1.getBudget(), 600);
+        Assert.assertTrue(b1.isContinuous());
+        Assert.assertEquals(b1.getStart(), 10);
+        Assert.assertEquals(b1.getEnd(), 20);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.scheduler.choco.view.net;
+
+import org.btrplace.model.*;
+import org.btrplace.scheduler.SchedulerException;
+import org.btrplace.scheduler.choco.DefaultReconfigurationProblemBuilder;
+import org.btrplace.scheduler.choco.ReconfigurationProblem;
+import org.btrplace.scheduler.choco.transition.ShutdownableNode;
+import org.btrplace.scheduler.choco.transition.VMTransition;
+import org.chocosolver.solver.Cause;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.variables.IntVar;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for {@link CMinMTTRObjective}.
+ */
+public class CMinMTTRObjectiveTest {
+
+    /**
+     * Check the decommissioning ends match the ones of the former quadratic
+     * implementation on a multi-node instance.
+     */
+    @Test
+    public void testDecommissioningEnds() throws SchedulerException, ContradictionException {
+        Model mo = new DefaultModel();
+        Mapping ma = mo.getMapping();
+        List<Node> ns = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Node n = mo.newNode();
+            ns.add(n);
+            if (i < 6) {
+                ma.addOnlineNode(n);
+            } else {
+                ma.addOfflineNode(n);
+            }
+        }
+        List<VM> vms = new ArrayList<>();
+        int[] hosts = {0, 0, 0, 1, 1, 2, 4, 1, 0};
+        for (int h : hosts) {
+            VM v = mo.newVM();
+            vms.add(v);
+            ma.addRunningVM(v, ns.get(h));
+        }
+
+        ReconfigurationProblem rp = new DefaultReconfigurationProblemBuilder(mo).build();
+        //Known destinations, some of them shared by several VMs
+        int[][] dsts = {{0, 6}, {1, 6}, {2, 7}, {3, 2}, {4, 6}, {7, 2}, {8, 6}};
+        for (int[] d : dsts) {
+            rp.getVMAction(vms.get(d[0])).getDSlice().getHoster().instantiateTo(rp.getNode(ns.get(d[1])), Cause.Null);
+        }
+
+        List<IntVar[]> ends = CMinMTTRObjective.decommissioningEnds(rp);
+        List<IntVar[]> expected = quadraticDecommissioningEnds(rp);
+        Assert.assertEquals(ends.size(), expected.size());
+        //One decommissioning per online node
+        Assert.assertEquals(ends.size(), 6);
+        for (int i = 0; i < ends.size(); i++) {
+            Assert.assertEquals(ends.get(i), expected.get(i));
+        }
+        //n0: boot of n6, 2 migrations, boot of n7, 2 migrations, then its own action
+        Assert.assertEquals(ends.get(0).length, 7);
+    }
+
+    /**
+     * The former implementation, that scans every VM transition for each node.
+     */
+    private static List<IntVar[]> quadraticDecommissioningEnds(ReconfigurationProblem rp) {
+        List<IntVar[]> res = new ArrayList<>();
+        List<IntVar> endVars = new ArrayList<>();
+        for (Node n : rp.getNodes()) {
+            endVars.clear();
+            if (rp.getNodeAction(n) instanceof ShutdownableNode) {
+                for (VMTransition a : rp.getVMActions()) {
+                    if (rp.getNode(n) == (a.getCSlice().getHoster().getValue())) {
+                        if (a.getDSlice().getHoster().isInstantiated() &&
+                                !endVars.contains(rp.getNodeAction(rp.getNode(a.getDSlice().getHoster().getValue())).getEnd())) {
+                            endVars.add(rp.getNodeAction(rp.getNode(a.getDSlice().getHoster().getValue())).getEnd());
+                        }
+                        endVars.add(a.getEnd());
+                    }
+                }
+                endVars.add(rp.getNodeAction(n).getEnd());
+            }
+            if (!endVars.isEmpty()) {
+                res.add(endVars.toArray(new IntVar[endVars.size()]));
+            }
+        }
+        return res;
+    }
+}
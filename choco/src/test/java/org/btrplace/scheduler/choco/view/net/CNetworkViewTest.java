@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.scheduler.choco.view.net;
+
+import org.btrplace.model.*;
+import org.btrplace.model.constraint.Fence;
+import org.btrplace.model.constraint.SatConstraint;
+import org.btrplace.model.view.net.MinMTTRObjective;
+import org.btrplace.model.view.net.NetworkView;
+import org.btrplace.model.view.net.Switch;
+import org.btrplace.plan.ReconfigurationPlan;
+import org.btrplace.plan.event.Action;
+import org.btrplace.plan.event.MigrateVM;
+import org.btrplace.scheduler.SchedulerException;
+import org.btrplace.scheduler.choco.DefaultChocoScheduler;
+import org.btrplace.scheduler.choco.DefaultParameters;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for {@link CNetworkView}.
+ */
+public class CNetworkViewTest {
+
+    @Test
+    public void testEstimateDuration() {
+        //The memory is dirtied at 20 MB/s, i.e. 180 Mb/s
+        Assert.assertFalse(CNetworkView.converges(180, 20, 10, 2));
+        Assert.assertTrue(CNetworkView.converges(1000, 20, 10, 2));
+
+        int prev = Integer.MAX_VALUE;
+        for (int bw = 250; bw <= 1000; bw += 250) {
+            int d = CNetworkView.estimateDuration(bw, 1000, 20, 10, 2);
+            Assert.assertTrue(d < prev, bw + ": " + d + " >= " + prev);
+            prev = d;
+        }
+    }
+
+    private static ReconfigurationPlan solve(int steps, List<MigrateVM> migrations) throws SchedulerException {
+        return solve(steps, migrations, 1000);
+    }
+
+    /**
+     * Migrate 2 VMs from a source node. The first destination node is connected at 1000 Mb/s.
+     * An optional second destination node is connected with the given bandwidth.
+     */
+    private static ReconfigurationPlan solve(int steps, List<MigrateVM> migrations, int... dstBWs) throws SchedulerException {
+        Model mo = new DefaultModel();
+        Mapping ma = mo.getMapping();
+        Node src = mo.newNode();
+        ma.addOnlineNode(src);
+        List<Node> dsts = new ArrayList<>();
+        for (int i = 0; i < dstBWs.length; i++) {
+            Node n = mo.newNode();
+            ma.addOnlineNode(n);
+            dsts.add(n);
+        }
+        List<SatConstraint> cstrs = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            VM v = mo.newVM();
+            ma.addRunningVM(v, src);
+            mo.getAttributes().put(v, "memUsed", 1000);
+            mo.getAttributes().put(v, "dirtyRate", 2.0);
+            mo.getAttributes().put(v, "maxDirtySize", 10);
+            mo.getAttributes().put(v, "maxDirtyDuration", 2);
+            cstrs.add(new Fence(v, dsts));
+        }
+
+        //Both migrations share the link of the source node
+        NetworkView net = new NetworkView();
+        Switch sw = net.newSwitch();
+        sw.connect(1000, src);
+        for (int i = 0; i < dstBWs.length; i++) {
+            sw.connect(dstBWs[i], dsts.get(i));
+        }
+        mo.attach(net);
+
+        DefaultParameters ps = new DefaultParameters();
+        ps.getTransitionFactory().remove(ps.getTransitionFactory().getBuilder(VMState.RUNNING, VMState.RUNNING));
+        ps.getTransitionFactory().add(new MigrateVMTransition.Builder());
+        ps.getConstraintMapper().register(new CMinMTTRObjective.Builder());
+        ps.getViewMapper().register(new CNetworkView.Builder(steps));
+
+        ReconfigurationPlan p = new DefaultChocoScheduler(ps).solve(new Instance(mo, cstrs, new MinMTTRObjective()));
+        Assert.assertNotNull(p);
+        for (Action a : p) {
+            if (a instanceof MigrateVM) {
+                migrations.add((MigrateVM) a);
+            }
+        }
+        Assert.assertEquals(migrations.size(), 2);
+        return p;
+    }
+
+    @Test
+    public void testFixedBandwidth() throws SchedulerException {
+        List<MigrateVM> migrations = new ArrayList<>();
+        solve(1, migrations);
+        int d = CNetworkView.estimateDuration(1000, 1000, 2.0, 10, 2);
+        for (MigrateVM m : migrations) {
+            Assert.assertEquals(m.getBandwidth(), 1000);
+            Assert.assertEquals(m.getEnd() - m.getStart(), d);
+        }
+        //The link is saturated, the migrations are serialised
+        Assert.assertTrue(migrations.get(0).getEnd() <= migrations.get(1).getStart()
+                || migrations.get(1).getEnd() <= migrations.get(0).getStart());
+    }
+
+    @Test
+    public void testEnumeratedBandwidth() throws SchedulerException {
+        List<MigrateVM> migrations = new ArrayList<>();
+        solve(4, migrations);
+        for (MigrateVM m : migrations) {
+            Assert.assertTrue(m.getBandwidth() % 250 == 0 && m.getBandwidth() > 0, Integer.toString(m.getBandwidth()));
+            Assert.assertEquals(m.getEnd() - m.getStart(), CNetworkView.estimateDuration(m.getBandwidth(), 1000, 2.0, 10, 2));
+        }
+        //The link capacity is never exceeded by concurrent migrations
+        MigrateVM m1 = migrations.get(0);
+        MigrateVM m2 = migrations.get(1);
+        if (m1.getStart() < m2.getEnd() && m2.getStart() < m1.getEnd()) {
+            Assert.assertTrue(m1.getBandwidth() + m2.getBandwidth() <= 1000);
+        }
+    }
+
+    @Test
+    public void testUnknownDestination() throws SchedulerException {
+        for (int steps : new int[]{1, 4}) {
+            List<MigrateVM> migrations = new ArrayList<>();
+            ReconfigurationPlan p = solve(steps, migrations, 1000, 500);
+            NetworkView net = (NetworkView) p.getOrigin().getView(NetworkView.VIEW_ID);
+            for (MigrateVM m : migrations) {
+                //The bandwidth depends on the chosen destination
+                int maxBW = net.getMaxBW(m.getSourceNode(), m.getDestinationNode());
+                Assert.assertTrue(m.getBandwidth() > 0 && m.getBandwidth() <= maxBW, m.toString());
+                if (steps == 1) {
+                    Assert.assertEquals(m.getBandwidth(), maxBW, m.toString());
+                }
+                Assert.assertEquals(m.getEnd() - m.getStart(), CNetworkView.estimateDuration(m.getBandwidth(), 1000, 2.0, 10, 2));
+            }
+            //The link of the source node is never overloaded
+            MigrateVM m1 = migrations.get(0);
+            MigrateVM m2 = migrations.get(1);
+            if (m1.getStart() < m2.getEnd() && m2.getStart() < m1.getEnd()) {
+                Assert.assertTrue(m1.getBandwidth() + m2.getBandwidth() <= 1000);
+                //Nor the link of a shared destination node
+                if (m1.getDestinationNode().equals(m2.getDestinationNode())) {
+                    Assert.assertTrue(m1.getBandwidth() + m2.getBandwidth()
+                            <= net.getMaxBW(m1.getSourceNode(), m1.getDestinationNode()));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.scheduler.choco.view.net;
+
+import org.btrplace.model.*;
+import org.btrplace.model.view.net.NetworkView;
+import org.btrplace.model.view.net.Port;
+import org.btrplace.model.view.net.Switch;
+import org.btrplace.scheduler.SchedulerException;
+import org.btrplace.scheduler.choco.DefaultParameters;
+import org.btrplace.scheduler.choco.DefaultReconfigurationProblemBuilder;
+import org.btrplace.scheduler.choco.Parameters;
+import org.btrplace.scheduler.choco.ReconfigurationProblem;
+import org.chocosolver.solver.Cause;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+/**
+ * Unit tests for {@link MigrationPathsIndex}.
+ */
+public class MigrationPathsIndexTest {
+
+    @Test
+    public void testIndex() throws SchedulerException, ContradictionException {
+        Model mo = new DefaultModel();
+        Mapping ma = mo.getMapping();
+        Node n0 = mo.newNode();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        Node n3 = mo.newNode();
+        VM v0 = mo.newVM();
+        VM v1 = mo.newVM();
+        VM v2 = mo.newVM();
+        ma.addOnlineNode(n0);
+        ma.addOnlineNode(n1);
+        ma.addOnlineNode(n2);
+        ma.addOnlineNode(n3);
+        ma.addRunningVM(v0, n0);
+        ma.addRunningVM(v1, n1);
+        ma.addRunningVM(v2, n0);
+
+        NetworkView net = new NetworkView();
+        Switch s1 = net.newSwitch();
+        Switch sm = net.newSwitch();
+        Switch s2 = net.newSwitch();
+        s1.connect(1000, n0, n1);
+        s2.connect(1000, n2, n3);
+        sm.connect(1000, s1, s2);
+        mo.attach(net);
+
+        Parameters ps = new DefaultParameters();
+        ps.getTransitionFactory().remove(ps.getTransitionFactory().getBuilder(VMState.RUNNING, VMState.RUNNING));
+        ps.getTransitionFactory().add(new MigrateVMTransition.Builder());
+        ReconfigurationProblem rp = new DefaultReconfigurationProblemBuilder(mo).setParams(ps).build();
+        rp.getVMAction(v0).getDSlice().getHoster().instantiateTo(rp.getNode(n2), Cause.Null);
+        rp.getVMAction(v1).getDSlice().getHoster().instantiateTo(rp.getNode(n3), Cause.Null);
+        rp.getVMAction(v2).getDSlice().getHoster().instantiateTo(rp.getNode(n0), Cause.Null);
+
+        MigrationPathsIndex idx = new MigrationPathsIndex(rp, net);
+
+        // v2 stays on its node
+        Assert.assertEquals(idx.getMigrations().size(), 2);
+        MigrateVMTransition m0 = (MigrateVMTransition) rp.getVMAction(v0);
+        MigrateVMTransition m1 = (MigrateVMTransition) rp.getVMAction(v1);
+        Assert.assertEquals(idx.getPath(m0), net.getPath(n0, n2));
+        Assert.assertNull(idx.getPath((MigrateVMTransition) rp.getVMAction(v2)));
+
+        // Every switch is crossed by the 2 migrations
+        Assert.assertEquals(idx.getUsedSwitches().size(), 3);
+        for (Switch sw : net.getSwitches()) {
+            Assert.assertEquals(idx.getMigrations(sw).size(), 2);
+        }
+
+        // One input port per hop, the links between the switches are shared
+        Assert.assertEquals(idx.getUsedPorts().size(), 6);
+        for (Port p : idx.getUsedPorts()) {
+            List<MigrateVMTransition> l = idx.getMigrations(p);
+            for (MigrateVMTransition m : l) {
+                List<Port> path = idx.getPath(m);
+                Assert.assertTrue(path.indexOf(p) < path.indexOf(p.getRemote()));
+            }
+            if (p.getHost() instanceof Switch && p.getRemote().getHost() instanceof Switch) {
+                Assert.assertEquals(l.size(), 2);
+            } else {
+                Assert.assertEquals(l.size(), 1);
+            }
+        }
+        Assert.assertTrue(idx.getMigrations(net.getSwitchInterface(n3)).contains(m1));
+        Assert.assertTrue(idx.getMigrations(net.getSwitchInterface(n0)).isEmpty());
+    }
+}
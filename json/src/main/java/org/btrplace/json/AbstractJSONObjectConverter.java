@@ -31,6 +31,8 @@ import java.io.*;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Basic abstract scheduler-API/JSON objects converter.
@@ -313,11 +315,48 @@ public abstract class AbstractJSONObjectConverter<E> implements JSONObjectConver
 
     @Override
     public E fromJSON(File path) throws IOException, JSONConverterException {
-        try (FileReader in = new FileReader(path)) {
+        try (Reader in = makeIn(path)) {
             return fromJSON(in);
         }
     }
 
+    /**
+     * Open a file to read a JSON document.
+     * A file compressed with gzip is detected from its header
+     * and un-compressed on the fly.
+     *
+     * @param path the file to read
+     * @return a buffered reader
+     * @throws IOException if an error occurred while opening the file
+     */
+    public static Reader makeIn(File path) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(path));
+        in.mark(2);
+        int b1 = in.read();
+        int b2 = in.read();
+        in.reset();
+        if (b1 == (GZIPInputStream.GZIP_MAGIC & 0xff) && b2 == (GZIPInputStream.GZIP_MAGIC >> 8)) {
+            in = new GZIPInputStream(in);
+        }
+        return new InputStreamReader(in);
+    }
+
+    /**
+     * Open a file to write a JSON document.
+     * If the file name ends with {@code .gz}, the document is compressed with gzip.
+     *
+     * @param path the file to write
+     * @return a buffered writer
+     * @throws IOException if an error occurred while opening the file
+     */
+    public static Writer makeOut(File path) throws IOException {
+        OutputStream out = new FileOutputStream(path);
+        if (path.getName().endsWith(".gz")) {
+            out = new GZIPOutputStream(out);
+        }
+        return new BufferedWriter(new OutputStreamWriter(out));
+    }
+
     @Override
     public E fromJSON(String buf) throws JSONConverterException {
         try (StringReader in = new StringReader(buf)) {
@@ -386,7 +425,7 @@ public abstract class AbstractJSONObjectConverter<E> implements JSONObjectConver
 
     @Override
     public void toJSON(E e, File path) throws JSONConverterException, IOException {
-        try (FileWriter out = new FileWriter(path)) {
+        try (Writer out = makeOut(path)) {
             toJSON(e, out);
         }
     }
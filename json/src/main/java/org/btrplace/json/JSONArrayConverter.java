@@ -53,6 +53,7 @@ public interface JSONArrayConverter<E> {
 
     /**
      * Un-serialize a collection from a file.
+     * The file may be compressed with gzip.
      *
      * @param path the file path
      * @return the resulting collection
@@ -101,6 +102,7 @@ public interface JSONArrayConverter<E> {
 
     /**
      * Serialize a collection to a file.
+     * The file is compressed with gzip if its name ends with {@code .gz}.
      *
      * @param e    the collection
      * @param path the path name
@@ -51,6 +51,7 @@ public interface JSONObjectConverter<E> {
 
     /**
      * Un-serialize an object from a file.
+     * The file may be compressed with gzip.
      *
      * @param path the file path
      * @return the resulting object
@@ -99,6 +100,7 @@ public interface JSONObjectConverter<E> {
 
     /**
      * Serialize an object to a file.
+     * The file is compressed with gzip if its name ends with {@code .gz}.
      *
      * @param e    the object
      * @param path the path name
@@ -0,0 +1,408 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.json;
+
+import net.minidev.json.JSONArray;
+import net.minidev.json.JSONObject;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * A pull reader for JSON documents.
+ * Tokens are consumed one by one from the underlying reader so
+ * the converters can build their objects on the fly without
+ * materialising the whole document first.
+ * <p>
+ * The reader is strict (RFC 4627): objects keys must be quoted and values
+ * separated by commas. Numbers are typed like {@link net.minidev.json.parser.JSONParser}:
+ * an {@link Integer} if possible, a {@link Long} otherwise, and a {@link Double} when the number
+ * has a fractional part or an exponent.
+ */
+public class JSONStreamReader {
+
+    private final Reader in;
+
+    private final char[] buf = new char[8192];
+
+    private int pos = 0;
+
+    private int limit = 0;
+
+    /**
+     * For each opened container, {@code true} if a value was already read.
+     */
+    private boolean[] filled = new boolean[32];
+
+    private int depth = 0;
+
+    private final StringBuilder sb = new StringBuilder();
+
+    /**
+     * Make a new reader.
+     *
+     * @param r the reader to consume
+     */
+    public JSONStreamReader(Reader r) {
+        in = r;
+    }
+
+    /**
+     * Consume the beginning of an object.
+     *
+     * @throws JSONConverterException if the next token is not '{'
+     */
+    public void beginObject() throws JSONConverterException {
+        expect('{');
+        push();
+    }
+
+    /**
+     * Consume the end of an object.
+     *
+     * @throws JSONConverterException if the next token is not '}'
+     */
+    public void endObject() throws JSONConverterException {
+        expect('}');
+        pop();
+    }
+
+    /**
+     * Consume the beginning of an array.
+     *
+     * @throws JSONConverterException if the next token is not '['
+     */
+    public void beginArray() throws JSONConverterException {
+        expect('[');
+        push();
+    }
+
+    /**
+     * Consume the end of an array.
+     *
+     * @throws JSONConverterException if the next token is not ']'
+     */
+    public void endArray() throws JSONConverterException {
+        expect(']');
+        pop();
+    }
+
+    /**
+     * Check if the current object or array has another member.
+     * The separator, if any, is consumed.
+     *
+     * @return {@code true} iff there is another member
+     * @throws JSONConverterException if the document is malformed
+     */
+    public boolean hasNext() throws JSONConverterException {
+        int c = peek();
+        if (c == '}' || c == ']') {
+            return false;
+        }
+        if (depth > 0 && filled[depth - 1]) {
+            expect(',');
+        }
+        return true;
+    }
+
+    /**
+     * Read the key of the next object member, and the following ':'.
+     *
+     * @return the key
+     * @throws JSONConverterException if the next token is not a key
+     */
+    public String nextName() throws JSONConverterException {
+        String s = readString();
+        expect(':');
+        return s;
+    }
+
+    /**
+     * Read the next value as a string.
+     *
+     * @return the string
+     * @throws JSONConverterException if the next token is not a string
+     */
+    public String nextString() throws JSONConverterException {
+        String s = readString();
+        filled();
+        return s;
+    }
+
+    /**
+     * Read the next value as an integer.
+     *
+     * @return the integer
+     * @throws JSONConverterException if the next token is not an integer
+     */
+    public int nextInt() throws JSONConverterException {
+        String s = readNumber();
+        try {
+            return Integer.parseInt(s);
+        } catch (NumberFormatException ex) {
+            throw new JSONConverterException("Unable to read a int from '" + s + "'", ex);
+        }
+    }
+
+    /**
+     * Read the next value, whatever its type.
+     * Objects and arrays are fully materialised.
+     *
+     * @return a {@link JSONObject}, a {@link JSONArray}, a {@link String}, a {@link Number},
+     * a {@link Boolean} or {@code null}
+     * @throws JSONConverterException if the document is malformed
+     */
+    public Object nextValue() throws JSONConverterException {
+        int c = peek();
+        switch (c) {
+            case '{':
+                JSONObject o = new JSONObject();
+                beginObject();
+                while (hasNext()) {
+                    String k = nextName();
+                    o.put(k, nextValue());
+                }
+                endObject();
+                return o;
+            case '[':
+                JSONArray a = new JSONArray();
+                beginArray();
+                while (hasNext()) {
+                    a.add(nextValue());
+                }
+                endArray();
+                return a;
+            case '"':
+                return nextString();
+            case 't':
+                return readLiteral("true", Boolean.TRUE);
+            case 'f':
+                return readLiteral("false", Boolean.FALSE);
+            case 'n':
+                return readLiteral("null", null);
+            default:
+                return toNumber(readNumber());
+        }
+    }
+
+    /**
+     * Read the next value that must be an object.
+     *
+     * @return the object
+     * @throws JSONConverterException if the next value is not an object
+     */
+    public JSONObject nextObject() throws JSONConverterException {
+        if (peek() != '{') {
+            throw error("Expected an object");
+        }
+        return (JSONObject) nextValue();
+    }
+
+    /**
+     * Skip the next value, whatever its type.
+     *
+     * @throws JSONConverterException if the document is malformed
+     */
+    public void skipValue() throws JSONConverterException {
+        int c = peek();
+        if (c == '{') {
+            beginObject();
+            while (hasNext()) {
+                nextName();
+                skipValue();
+            }
+            endObject();
+        } else if (c == '[') {
+            beginArray();
+            while (hasNext()) {
+                skipValue();
+            }
+            endArray();
+        } else {
+            nextValue();
+        }
+    }
+
+    private void push() {
+        if (depth == filled.length) {
+            filled = Arrays.copyOf(filled, depth * 2);
+        }
+        filled[depth++] = false;
+    }
+
+    private void pop() {
+        depth--;
+        filled();
+    }
+
+    private void filled() {
+        if (depth > 0) {
+            filled[depth - 1] = true;
+        }
+    }
+
+    private Object readLiteral(String lit, Object v) throws JSONConverterException {
+        for (int i = 0; i < lit.length(); i++) {
+            if (read() != lit.charAt(i)) {
+                throw error("Expected '" + lit + "'");
+            }
+        }
+        filled();
+        return v;
+    }
+
+    private String readNumber() throws JSONConverterException {
+        peek();
+        sb.setLength(0);
+        while (true) {
+            int c = peekRaw();
+            if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') {
+                sb.append((char) c);
+                pos++;
+            } else {
+                break;
+            }
+        }
+        if (sb.length() == 0) {
+            throw error("Unexpected character");
+        }
+        filled();
+        return sb.toString();
+    }
+
+    private Number toNumber(String s) throws JSONConverterException {
+        try {
+            if (s.indexOf('.') >= 0 || s.indexOf('e') >= 0 || s.indexOf('E') >= 0) {
+                return Double.parseDouble(s);
+            }
+            long l = Long.parseLong(s);
+            if (l >= Integer.MIN_VALUE && l <= Integer.MAX_VALUE) {
+                return (int) l;
+            }
+            return l;
+        } catch (NumberFormatException ex) {
+            throw new JSONConverterException("Malformed number '" + s + "'", ex);
+        }
+    }
+
+    private String readString() throws JSONConverterException {
+        expect('"');
+        sb.setLength(0);
+        while (true) {
+            int c = read();
+            if (c == '"') {
+                return sb.toString();
+            } else if (c == '\\') {
+                c = read();
+                switch (c) {
+                    case 'b':
+                        sb.append('\b');
+                        break;
+                    case 'f':
+                        sb.append('\f');
+                        break;
+                    case 'n':
+                        sb.append('\n');
+                        break;
+                    case 'r':
+                        sb.append('\r');
+                        break;
+                    case 't':
+                        sb.append('\t');
+                        break;
+                    case 'u':
+                        int v = 0;
+                        for (int i = 0; i < 4; i++) {
+                            int d = Character.digit(read(), 16);
+                            if (d < 0) {
+                                throw error("Malformed unicode escape sequence");
+                            }
+                            v = v * 16 + d;
+                        }
+                        sb.append((char) v);
+                        break;
+                    case '"':
+                    case '\\':
+                    case '/':
+                        sb.append((char) c);
+                        break;
+                    default:
+                        throw error("Unsupported escape sequence");
+                }
+            } else {
+                sb.append((char) c);
+            }
+        }
+    }
+
+    private void expect(char c) throws JSONConverterException {
+        if (peek() != c) {
+            throw error("Expected '" + c + "'");
+        }
+        pos++;
+    }
+
+    /**
+     * Peek the next non-whitespace character.
+     */
+    private int peek() throws JSONConverterException {
+        while (true) {
+            int c = peekRaw();
+            if (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+                pos++;
+            } else {
+                return c;
+            }
+        }
+    }
+
+    private int peekRaw() throws JSONConverterException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return buf[pos];
+    }
+
+    private int read() throws JSONConverterException {
+        if (pos == limit && !fill()) {
+            throw error("Unexpected end of document");
+        }
+        return buf[pos++];
+    }
+
+    private boolean fill() throws JSONConverterException {
+        try {
+            limit = in.read(buf, 0, buf.length);
+        } catch (IOException ex) {
+            throw new JSONConverterException(ex);
+        }
+        pos = 0;
+        if (limit <= 0) {
+            limit = 0;
+            return false;
+        }
+        return true;
+    }
+
+    private JSONConverterException error(String msg) throws JSONConverterException {
+        int c = peekRaw();
+        return new JSONConverterException(msg + " but got " + (c < 0 ? "the end of the document" : "'" + (char) c + "'"));
+    }
+}
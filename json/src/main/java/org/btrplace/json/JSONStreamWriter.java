@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.json;
+
+import net.minidev.json.JSONValue;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A writer that emits a JSON document token by token.
+ * Converters can then serialize their objects directly without building
+ * the intermediary {@link net.minidev.json.JSONObject}.
+ * Separators are inserted automatically.
+ */
+public class JSONStreamWriter {
+
+    private final Appendable out;
+
+    /**
+     * For each opened container, {@code true} if a member was already written.
+     */
+    private boolean[] filled = new boolean[32];
+
+    private int depth = 0;
+
+    /**
+     * {@code true} if a key was just written so no separator is expected.
+     */
+    private boolean afterName = false;
+
+    /**
+     * Make a new writer.
+     *
+     * @param w the output
+     */
+    public JSONStreamWriter(Appendable w) {
+        out = w;
+    }
+
+    /**
+     * Open an object.
+     *
+     * @return {@code this}
+     * @throws IOException if an error occurred while writing
+     */
+    public JSONStreamWriter beginObject() throws IOException {
+        separate();
+        out.append('{');
+        push();
+        return this;
+    }
+
+    /**
+     * Close the current object.
+     *
+     * @return {@code this}
+     * @throws IOException if an error occurred while writing
+     */
+    public JSONStreamWriter endObject() throws IOException {
+        depth--;
+        out.append('}');
+        return this;
+    }
+
+    /**
+     * Open an array.
+     *
+     * @return {@code this}
+     * @throws IOException if an error occurred while writing
+     */
+    public JSONStreamWriter beginArray() throws IOException {
+        separate();
+        out.append('[');
+        push();
+        return this;
+    }
+
+    /**
+     * Close the current array.
+     *
+     * @return {@code this}
+     * @throws IOException if an error occurred while writing
+     */
+    public JSONStreamWriter endArray() throws IOException {
+        depth--;
+        out.append(']');
+        return this;
+    }
+
+    /**
+     * Write the key of the next object member.
+     *
+     * @param k the key
+     * @return {@code this}
+     * @throws IOException if an error occurred while writing
+     */
+    public JSONStreamWriter name(String k) throws IOException {
+        separate();
+        out.append('"').append(JSONValue.escape(k)).append("\":");
+        afterName = true;
+        return this;
+    }
+
+    /**
+     * Write an integer.
+     *
+     * @param v the value
+     * @return {@code this}
+     * @throws IOException if an error occurred while writing
+     */
+    public JSONStreamWriter value(int v) throws IOException {
+        separate();
+        out.append(Integer.toString(v));
+        return this;
+    }
+
+    /**
+     * Write any value supported by json-smart.
+     * This includes {@link net.minidev.json.JSONObject} and {@link net.minidev.json.JSONArray}
+     * that are written as a whole.
+     *
+     * @param v the value
+     * @return {@code this}
+     * @throws IOException if an error occurred while writing
+     */
+    public JSONStreamWriter value(Object v) throws IOException {
+        separate();
+        JSONValue.writeJSONString(v, out);
+        return this;
+    }
+
+    private void push() {
+        if (depth == filled.length) {
+            filled = Arrays.copyOf(filled, depth * 2);
+        }
+        filled[depth++] = false;
+    }
+
+    private void separate() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0) {
+            if (filled[depth - 1]) {
+                out.append(',');
+            }
+            filled[depth - 1] = true;
+        }
+    }
+}
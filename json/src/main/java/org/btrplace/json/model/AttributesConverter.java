@@ -21,8 +21,12 @@ package org.btrplace.json.model;
 import net.minidev.json.JSONObject;
 import org.btrplace.json.AbstractJSONObjectConverter;
 import org.btrplace.json.JSONConverterException;
+import org.btrplace.json.JSONStreamReader;
+import org.btrplace.json.JSONStreamWriter;
 import org.btrplace.model.*;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.util.Map;
 
 
@@ -38,18 +42,21 @@ public class AttributesConverter extends AbstractJSONObjectConverter<Attributes>
 
     private void putAttributes(Attributes attrs, Element e, JSONObject entries) {
         for (String key : entries.keySet()) {
-            Object value = entries.get(key);
-            if (value.getClass().equals(Boolean.class)) {
-                attrs.put(e, key, (Boolean) value);
-            } else if (value.getClass().equals(String.class)) {
-                attrs.put(e, key, (String) value);
-            } else if (value.getClass().equals(Double.class)) {
-                attrs.put(e, key, (Double) value);
-            } else if (value.getClass().equals(Integer.class)) {
-                attrs.put(e, key, (Integer) value);
-            } else {
-                throw new ClassCastException(value.toString() + " is not a primitive (" + value.getClass() + ")");
-            }
+            putAttribute(attrs, e, key, entries.get(key));
+        }
+    }
+
+    private static void putAttribute(Attributes attrs, Element e, String key, Object value) {
+        if (value.getClass().equals(Boolean.class)) {
+            attrs.put(e, key, (Boolean) value);
+        } else if (value.getClass().equals(String.class)) {
+            attrs.put(e, key, (String) value);
+        } else if (value.getClass().equals(Double.class)) {
+            attrs.put(e, key, (Double) value);
+        } else if (value.getClass().equals(Integer.class)) {
+            attrs.put(e, key, (Integer) value);
+        } else {
+            throw new ClassCastException(value.toString() + " is not a primitive (" + value.getClass() + ")");
         }
     }
 
@@ -103,4 +110,93 @@ public class AttributesConverter extends AbstractJSONObjectConverter<Attributes>
         res.put("nodes", nodes);
         return res;
     }
+
+    @Override
+    public Attributes fromJSON(Reader r) throws JSONConverterException {
+        return fromJSON(new JSONStreamReader(r));
+    }
+
+    /**
+     * Read the attributes while reading the document.
+     *
+     * @param in the reader, positioned before the attributes
+     * @return the attributes
+     * @throws JSONConverterException if the attributes cannot be read
+     */
+    public Attributes fromJSON(JSONStreamReader in) throws JSONConverterException {
+        Attributes attrs = new DefaultAttributes();
+        try {
+            in.beginObject();
+            while (in.hasNext()) {
+                String k = in.nextName();
+                if ("vms".equals(k)) {
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        putAttributes(attrs, getOrMakeVM(Integer.parseInt(in.nextName())), in);
+                    }
+                    in.endObject();
+                } else if ("nodes".equals(k)) {
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        putAttributes(attrs, getOrMakeNode(Integer.parseInt(in.nextName())), in);
+                    }
+                    in.endObject();
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+        } catch (ClassCastException ex) {
+            throw new JSONConverterException(ex);
+        }
+        return attrs;
+    }
+
+    private static void putAttributes(Attributes attrs, Element e, JSONStreamReader in) throws JSONConverterException {
+        in.beginObject();
+        while (in.hasNext()) {
+            String key = in.nextName();
+            putAttribute(attrs, e, key, in.nextValue());
+        }
+        in.endObject();
+    }
+
+    @Override
+    public void toJSON(Attributes attributes, Appendable w) throws JSONConverterException, IOException {
+        toJSON(attributes, new JSONStreamWriter(w));
+    }
+
+    /**
+     * Write attributes without building their JSON object.
+     *
+     * @param attributes the attributes to write
+     * @param out        the output
+     * @throws IOException if an error occurred while writing
+     */
+    public void toJSON(Attributes attributes, JSONStreamWriter out) throws IOException {
+        out.beginObject();
+        out.name("vms").beginObject();
+        for (Element e : attributes.getDefined()) {
+            if (e instanceof VM) {
+                attributesToJSON(attributes, e, out);
+            }
+        }
+        out.endObject();
+        out.name("nodes").beginObject();
+        for (Element e : attributes.getDefined()) {
+            if (e instanceof Node) {
+                attributesToJSON(attributes, e, out);
+            }
+        }
+        out.endObject();
+        out.endObject();
+    }
+
+    private static void attributesToJSON(Attributes attributes, Element e, JSONStreamWriter out) throws IOException {
+        out.name(Integer.toString(e.id())).beginObject();
+        for (String k : attributes.getKeys(e)) {
+            out.name(k).value(attributes.get(e, k));
+        }
+        out.endObject();
+    }
 }
@@ -22,13 +22,23 @@ import net.minidev.json.JSONArray;
 import net.minidev.json.JSONObject;
 import org.btrplace.json.AbstractJSONObjectConverter;
 import org.btrplace.json.JSONConverterException;
+import org.btrplace.json.JSONStreamReader;
+import org.btrplace.json.JSONStreamWriter;
 import org.btrplace.json.model.constraint.ConstraintsConverter;
 import org.btrplace.model.Instance;
 import org.btrplace.model.Model;
 import org.btrplace.model.constraint.OptConstraint;
+import org.btrplace.model.constraint.SatConstraint;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * A JSON converter for {@link org.btrplace.model.Instance}.
+ * Readers and writers process the model in a streaming fashion,
+ * see {@link ModelConverter#fromJSON(JSONStreamReader)}.
  *
  * @author Fabien Hermenier
  */
@@ -56,4 +66,87 @@ public class InstanceConverter extends AbstractJSONObjectConverter<Instance> {
         ob.put("objective", cstrc.toJSON(instance.getOptConstraint()));
         return ob;
     }
+
+    @Override
+    public Instance fromJSON(Reader r) throws JSONConverterException {
+        return fromJSON(new JSONStreamReader(r));
+    }
+
+    /**
+     * Build the instance while reading the document.
+     * The constraints are converted once the model is known,
+     * they are buffered otherwise.
+     *
+     * @param in the reader, positioned before the instance
+     * @return the resulting instance
+     * @throws JSONConverterException if the instance cannot be read
+     */
+    public Instance fromJSON(JSONStreamReader in) throws JSONConverterException {
+        ModelConverter moc = new ModelConverter();
+        ConstraintsConverter cConverter = ConstraintsConverter.newBundle();
+        Model mo = null;
+        List<SatConstraint> cstrs = null;
+        JSONArray pending = null;
+        JSONObject objective = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String k = in.nextName();
+            switch (k) {
+                case "model":
+                    mo = moc.fromJSON(in);
+                    cConverter.setModel(mo);
+                    break;
+                case "constraints":
+                    if (mo == null) {
+                        pending = (JSONArray) in.nextValue();
+                    } else {
+                        cstrs = new ArrayList<>();
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            cstrs.add((SatConstraint) cConverter.fromJSON(in.nextObject()));
+                        }
+                        in.endArray();
+                    }
+                    break;
+                case "objective":
+                    objective = in.nextObject();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if (mo == null) {
+            throw new JSONConverterException("Missing key 'model'");
+        }
+        if (pending != null) {
+            cstrs = cConverter.listFromJSON(pending);
+        }
+        if (cstrs == null) {
+            throw new JSONConverterException("Missing key 'constraints'");
+        }
+        if (objective == null) {
+            throw new JSONConverterException("Missing key 'objective'");
+        }
+        return new Instance(mo, cstrs, (OptConstraint) cConverter.fromJSON(objective));
+    }
+
+    @Override
+    public void toJSON(Instance instance, Appendable w) throws JSONConverterException, IOException {
+        ModelConverter moc = new ModelConverter();
+        ConstraintsConverter cstrc = ConstraintsConverter.newBundle();
+        JSONStreamWriter out = new JSONStreamWriter(w);
+        out.beginObject();
+        out.name("model");
+        moc.toJSON(instance.getModel(), out);
+        out.name("constraints").beginArray();
+        for (SatConstraint c : instance.getSatConstraints()) {
+            out.value(cstrc.toJSON(c));
+        }
+        out.endArray();
+        out.name("objective").value(cstrc.toJSON(instance.getOptConstraint()));
+        out.endObject();
+    }
 }
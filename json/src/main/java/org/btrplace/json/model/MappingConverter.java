@@ -21,10 +21,16 @@ package org.btrplace.json.model;
 import net.minidev.json.JSONObject;
 import org.btrplace.json.AbstractJSONObjectConverter;
 import org.btrplace.json.JSONConverterException;
+import org.btrplace.json.JSONStreamReader;
+import org.btrplace.json.JSONStreamWriter;
+import org.btrplace.model.Element;
 import org.btrplace.model.Mapping;
 import org.btrplace.model.Node;
 import org.btrplace.model.VM;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Collection;
 import java.util.Map;
 
 
@@ -80,4 +86,136 @@ public class MappingConverter extends AbstractJSONObjectConverter<Mapping> {
 
         return c;
     }
+
+    @Override
+    public Mapping fromJSON(Reader r) throws JSONConverterException {
+        return fromJSON(new JSONStreamReader(r));
+    }
+
+    /**
+     * Fill the mapping of the model while reading the document.
+     *
+     * @param in the reader, positioned before the mapping
+     * @return the mapping of the model
+     * @throws JSONConverterException if the mapping cannot be read
+     */
+    public Mapping fromJSON(JSONStreamReader in) throws JSONConverterException {
+        if (getModel() == null) {
+            throw new JSONConverterException("Unable to extract VMs without a model to use as a reference");
+        }
+        Mapping c = getModel().getMapping();
+        boolean offlines = false, readies = false, onlines = false;
+        in.beginObject();
+        while (in.hasNext()) {
+            String k = in.nextName();
+            switch (k) {
+                case "offlineNodes":
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        c.addOfflineNode(getOrMakeNode(in.nextInt()));
+                    }
+                    in.endArray();
+                    offlines = true;
+                    break;
+                case "readyVMs":
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        c.addReadyVM(getOrMakeVM(in.nextInt()));
+                    }
+                    in.endArray();
+                    readies = true;
+                    break;
+                case "onlineNodes":
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        Node u = getOrMakeNode(Integer.parseInt(in.nextName()));
+                        c.addOnlineNode(u);
+                        onlineNodeFromJSON(c, u, in);
+                    }
+                    in.endObject();
+                    onlines = true;
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        checkRead(offlines, "offlineNodes");
+        checkRead(readies, "readyVMs");
+        checkRead(onlines, "onlineNodes");
+        return c;
+    }
+
+    private void onlineNodeFromJSON(Mapping c, Node u, JSONStreamReader in) throws JSONConverterException {
+        boolean runnings = false, sleepings = false;
+        in.beginObject();
+        while (in.hasNext()) {
+            String k = in.nextName();
+            if ("runningVMs".equals(k)) {
+                in.beginArray();
+                while (in.hasNext()) {
+                    c.addRunningVM(getOrMakeVM(in.nextInt()), u);
+                }
+                in.endArray();
+                runnings = true;
+            } else if ("sleepingVMs".equals(k)) {
+                in.beginArray();
+                while (in.hasNext()) {
+                    c.addSleepingVM(getOrMakeVM(in.nextInt()), u);
+                }
+                in.endArray();
+                sleepings = true;
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        checkRead(runnings, "runningVMs");
+        checkRead(sleepings, "sleepingVMs");
+    }
+
+    private static void checkRead(boolean read, String k) throws JSONConverterException {
+        if (!read) {
+            throw new JSONConverterException("Missing key '" + k + "'");
+        }
+    }
+
+    @Override
+    public void toJSON(Mapping c, Appendable w) throws JSONConverterException, IOException {
+        toJSON(c, new JSONStreamWriter(w));
+    }
+
+    /**
+     * Write a mapping without building its JSON object.
+     *
+     * @param c   the mapping to write
+     * @param out the output
+     * @throws IOException if an error occurred while writing
+     */
+    public void toJSON(Mapping c, JSONStreamWriter out) throws IOException {
+        out.beginObject();
+        out.name("offlineNodes");
+        elementsToJSON(c.getOfflineNodes(), out);
+        out.name("readyVMs");
+        elementsToJSON(c.getReadyVMs(), out);
+        out.name("onlineNodes").beginObject();
+        for (Node n : c.getOnlineNodes()) {
+            out.name(Integer.toString(n.id())).beginObject();
+            out.name("runningVMs");
+            elementsToJSON(c.getRunningVMs(n), out);
+            out.name("sleepingVMs");
+            elementsToJSON(c.getSleepingVMs(n), out);
+            out.endObject();
+        }
+        out.endObject();
+        out.endObject();
+    }
+
+    private static void elementsToJSON(Collection<? extends Element> s, JSONStreamWriter out) throws IOException {
+        out.beginArray();
+        for (Element e : s) {
+            out.value(e.id());
+        }
+        out.endArray();
+    }
 }
@@ -22,14 +22,22 @@ import net.minidev.json.JSONArray;
 import net.minidev.json.JSONObject;
 import org.btrplace.json.AbstractJSONObjectConverter;
 import org.btrplace.json.JSONConverterException;
+import org.btrplace.json.JSONStreamReader;
+import org.btrplace.json.JSONStreamWriter;
 import org.btrplace.json.model.view.ModelViewsConverter;
 import org.btrplace.model.DefaultModel;
 import org.btrplace.model.Model;
 import org.btrplace.model.view.ModelView;
 
+import java.io.IOException;
+import java.io.Reader;
+
 /**
  * Class to serialize/unSerialize a model using the JSON format.
  * By default, it embeds converters for the views bundle in {@link org.btrplace.json.model.view.ModelViewsConverter#newBundle()}
+ * <p>
+ * Readers and writers are processed in a streaming fashion: the mapping and the attributes
+ * are built on the fly while each view is materialised separately.
  *
  * @author Fabien Hermenier
  */
@@ -107,4 +115,80 @@ public class ModelConverter extends AbstractJSONObjectConverter<Model> {
         }
         return i;
     }
+
+    @Override
+    public Model fromJSON(Reader r) throws JSONConverterException {
+        return fromJSON(new JSONStreamReader(r));
+    }
+
+    /**
+     * Build the model while reading the document.
+     *
+     * @param in the reader, positioned before the model
+     * @return the resulting model
+     * @throws JSONConverterException if the model cannot be read
+     */
+    public Model fromJSON(JSONStreamReader in) throws JSONConverterException {
+        Model i = new DefaultModel();
+        cfgParser.setModel(i);
+        attrsParser.setModel(i);
+        viewsConverter.setModel(i);
+        boolean mapping = false;
+        in.beginObject();
+        while (in.hasNext()) {
+            String k = in.nextName();
+            switch (k) {
+                case "mapping":
+                    cfgParser.fromJSON(in);
+                    mapping = true;
+                    break;
+                case "attributes":
+                    i.setAttributes(attrsParser.fromJSON(in));
+                    break;
+                case "views":
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        i.attach(viewsConverter.fromJSON(in.nextObject()));
+                    }
+                    in.endArray();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        if (!mapping) {
+            throw new JSONConverterException("Missing required mapping as a value of the key 'mapping'");
+        }
+        return i;
+    }
+
+    @Override
+    public void toJSON(Model i, Appendable w) throws JSONConverterException, IOException {
+        toJSON(i, new JSONStreamWriter(w));
+    }
+
+    /**
+     * Write a model without building its whole JSON object.
+     *
+     * @param i   the model to write
+     * @param out the output
+     * @throws JSONConverterException if a view cannot be converted
+     * @throws IOException            if an error occurred while writing
+     */
+    public void toJSON(Model i, JSONStreamWriter out) throws JSONConverterException, IOException {
+        cfgParser.setModel(i);
+        attrsParser.setModel(i);
+        out.beginObject();
+        out.name("mapping");
+        cfgParser.toJSON(i.getMapping(), out);
+        out.name("attributes");
+        attrsParser.toJSON(i.getAttributes(), out);
+        out.name("views").beginArray();
+        for (ModelView v : i.getViews()) {
+            out.value(viewsConverter.toJSON(v));
+        }
+        out.endArray();
+        out.endObject();
+    }
 }
@@ -161,7 +161,7 @@ public class ConstraintsConverter extends AbstractJSONObjectConverter<Constraint
 
     @Override
     public List<SatConstraint> listFromJSON(File path) throws IOException, JSONConverterException {
-        try (BufferedReader in = new BufferedReader(new FileReader(path))) {
+        try (Reader in = makeIn(path)) {
             return listFromJSON(in);
         }
 
@@ -200,7 +200,7 @@ public class ConstraintsConverter extends AbstractJSONObjectConverter<Constraint
 
     @Override
     public void toJSON(Collection<SatConstraint> e, File path) throws JSONConverterException, IOException {
-        try (FileWriter out = new FileWriter(path)) {
+        try (Writer out = makeOut(path)) {
             toJSON(e, out);
         }
     }
@@ -146,7 +146,7 @@ public class ModelViewsConverter extends AbstractJSONObjectConverter<ModelView>
 
     @Override
     public List<ModelView> listFromJSON(File path) throws IOException, JSONConverterException {
-        try (BufferedReader in = new BufferedReader(new FileReader(path))) {
+        try (Reader in = makeIn(path)) {
             return listFromJSON(in);
         }
 
@@ -185,7 +185,7 @@ public class ModelViewsConverter extends AbstractJSONObjectConverter<ModelView>
 
     @Override
     public void toJSON(Collection<ModelView> e, File path) throws JSONConverterException, IOException {
-        try (FileWriter out = new FileWriter(path)) {
+        try (Writer out = makeOut(path)) {
             toJSON(e, out);
         }
     }
@@ -22,12 +22,17 @@ import net.minidev.json.JSONArray;
 import net.minidev.json.JSONObject;
 import org.btrplace.json.AbstractJSONObjectConverter;
 import org.btrplace.json.JSONConverterException;
+import org.btrplace.json.JSONStreamReader;
+import org.btrplace.json.JSONStreamWriter;
 import org.btrplace.json.model.ModelConverter;
 import org.btrplace.model.Model;
 import org.btrplace.plan.DefaultReconfigurationPlan;
 import org.btrplace.plan.ReconfigurationPlan;
 import org.btrplace.plan.event.Action;
 
+import java.io.IOException;
+import java.io.Reader;
+
 /**
  * JSON converter for {@link ReconfigurationPlan}.
  *
@@ -99,4 +104,76 @@ public class ReconfigurationPlanConverter extends AbstractJSONObjectConverter<Re
         return ob;
     }
 
+    @Override
+    public ReconfigurationPlan fromJSON(Reader r) throws JSONConverterException {
+        return fromJSON(new JSONStreamReader(r));
+    }
+
+    /**
+     * Build the plan while reading the document.
+     * The actions are converted once the origin model is known,
+     * they are buffered otherwise.
+     *
+     * @param in the reader, positioned before the plan
+     * @return the resulting plan
+     * @throws JSONConverterException if the plan cannot be read
+     */
+    public ReconfigurationPlan fromJSON(JSONStreamReader in) throws JSONConverterException {
+        ActionConverter ac = new ActionConverter();
+        ReconfigurationPlan plan = null;
+        JSONArray pending = null;
+        boolean actions = false;
+        in.beginObject();
+        while (in.hasNext()) {
+            String k = in.nextName();
+            if ("origin".equals(k)) {
+                Model m = mc.fromJSON(in);
+                ac.setModel(m);
+                plan = new DefaultReconfigurationPlan(m);
+            } else if ("actions".equals(k)) {
+                actions = true;
+                if (plan == null) {
+                    pending = (JSONArray) in.nextValue();
+                } else {
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        plan.add(ac.fromJSON(in.nextObject()));
+                    }
+                    in.endArray();
+                }
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if (plan == null) {
+            throw new JSONConverterException("Key 'origin' is expected to extract the source model from the plan");
+        }
+        if (!actions) {
+            throw new JSONConverterException("Key 'actions' is expected to extract the list of actions from the plan");
+        }
+        if (pending != null) {
+            for (Action a : ac.listFromJSON(pending)) {
+                plan.add(a);
+            }
+        }
+        return plan;
+    }
+
+    @Override
+    public void toJSON(ReconfigurationPlan plan, Appendable w) throws JSONConverterException, IOException {
+        setModel(plan.getOrigin());
+        ActionConverter ac = new ActionConverter();
+        JSONStreamWriter out = new JSONStreamWriter(w);
+        out.beginObject();
+        out.name("origin");
+        mc.toJSON(plan.getOrigin(), out);
+        out.name("actions").beginArray();
+        for (Action a : plan.getActions()) {
+            out.value(ac.toJSON(a));
+        }
+        out.endArray();
+        out.endObject();
+    }
 }
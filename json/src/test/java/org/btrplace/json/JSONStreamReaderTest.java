@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.json;
+
+import net.minidev.json.JSONObject;
+import net.minidev.json.parser.JSONParser;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.StringReader;
+
+/**
+ * Unit tests for {@link JSONStreamReader}.
+ */
+public class JSONStreamReaderTest {
+
+    @Test
+    public void testAsParser() throws Exception {
+        String buf = "{\"i\": 5, \"l\": 12345678901, \"d\": -1.5e2, \"s\": \"a\\\"b\\u00e9\\n\", " +
+                "\"b\": [true, false, null], \"o\": {\"x\": {}, \"y\": []}}";
+        Object expected = new JSONParser(JSONParser.MODE_RFC4627).parse(buf);
+        JSONObject o = new JSONStreamReader(new StringReader(buf)).nextObject();
+        Assert.assertEquals(o, expected);
+        Assert.assertEquals(o.get("i").getClass(), Integer.class);
+        Assert.assertEquals(o.get("l").getClass(), Long.class);
+        Assert.assertEquals(o.get("d").getClass(), Double.class);
+    }
+
+    @Test
+    public void testPull() throws JSONConverterException {
+        JSONStreamReader in = new JSONStreamReader(new StringReader("{\"a\":[1, 2 ,3], \"skip\": {\"b\":[{}]}, \"c\":\"d\"}"));
+        in.beginObject();
+        Assert.assertTrue(in.hasNext());
+        Assert.assertEquals(in.nextName(), "a");
+        in.beginArray();
+        int sum = 0;
+        while (in.hasNext()) {
+            sum += in.nextInt();
+        }
+        in.endArray();
+        Assert.assertEquals(sum, 6);
+        Assert.assertTrue(in.hasNext());
+        Assert.assertEquals(in.nextName(), "skip");
+        in.skipValue();
+        Assert.assertTrue(in.hasNext());
+        Assert.assertEquals(in.nextName(), "c");
+        Assert.assertEquals(in.nextString(), "d");
+        Assert.assertFalse(in.hasNext());
+        in.endObject();
+    }
+
+    @DataProvider(name = "getMalformed")
+    public Object[][] getMalformed() {
+        return new Object[][]{
+                {"{\"a\":1 \"b\":2}"},
+                {"{a:1}"},
+                {"{\"a\":1"},
+                {"[1,]"},
+                {"{\"a\":tru}"},
+                {"{\"a\":\"\\x\"}"},
+        };
+    }
+
+    @Test(dataProvider = "getMalformed", expectedExceptions = {JSONConverterException.class})
+    public void testMalformed(String buf) throws JSONConverterException {
+        new JSONStreamReader(new StringReader(buf)).nextValue();
+    }
+}
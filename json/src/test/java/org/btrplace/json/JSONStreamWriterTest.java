@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.json;
+
+import net.minidev.json.JSONArray;
+import net.minidev.json.JSONObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+
+/**
+ * Unit tests for {@link JSONStreamWriter}.
+ */
+public class JSONStreamWriterTest {
+
+    @Test
+    public void testWrite() throws IOException {
+        StringBuilder b = new StringBuilder();
+        JSONObject o = new JSONObject();
+        o.put("s", "a\"b");
+        JSONStreamWriter out = new JSONStreamWriter(b);
+        out.beginObject();
+        out.name("a").beginArray().value(1).value(2).endArray();
+        out.name("b").beginObject().endObject();
+        out.name("c").value(o);
+        out.name("d").beginArray().beginArray().endArray().value(new JSONArray()).endArray();
+        out.endObject();
+        Assert.assertEquals(b.toString(), "{\"a\":[1,2],\"b\":{},\"c\":{\"s\":\"a\\\"b\"},\"d\":[[],[]]}");
+    }
+}
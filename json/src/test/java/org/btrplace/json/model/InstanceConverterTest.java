@@ -18,6 +18,8 @@
 
 package org.btrplace.json.model;
 
+import net.minidev.json.parser.JSONParser;
+import net.minidev.json.parser.ParseException;
 import org.btrplace.json.JSONConverterException;
 import org.btrplace.model.*;
 import org.btrplace.model.constraint.MinMTTR;
@@ -27,9 +29,10 @@ import org.btrplace.model.constraint.SatConstraint;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
-import java.io.IOException;
+import java.io.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Unit tests for {@link InstanceConverter}.
@@ -60,4 +63,69 @@ public class InstanceConverterTest {
         Assert.assertEquals(i, res);
     }
 
+    private static Instance makeInstance() {
+        Model mo = new DefaultModel();
+        Mapping ma = mo.getMapping();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        ma.addOnlineNode(n1);
+        ma.addOfflineNode(n2);
+        ma.addRunningVM(vm1, n1);
+        ma.addSleepingVM(vm2, n1);
+        mo.getAttributes().put(vm1, "template", "small");
+        mo.getAttributes().put(n1, "boot", 7);
+        mo.getAttributes().put(n1, "ratio", 1.5);
+        List<SatConstraint> cstrs = new ArrayList<>();
+        cstrs.add(new Online(n1));
+        cstrs.add(new Running(vm1));
+        return new Instance(mo, cstrs, new MinMTTR());
+    }
+
+    @Test
+    public void testGzip() throws JSONConverterException, IOException {
+        Instance i = makeInstance();
+        InstanceConverter conv = new InstanceConverter();
+        File f = File.createTempFile("instance", ".json.gz");
+        f.deleteOnExit();
+        conv.toJSON(i, f);
+        try (InputStream in = new GZIPInputStream(new FileInputStream(f))) {
+            Assert.assertTrue(in.read() >= 0);
+        }
+        Assert.assertEquals(conv.fromJSON(f), i);
+
+        //Compression is detected from the content, not the extension
+        File r = File.createTempFile("instance", ".json");
+        r.deleteOnExit();
+        Assert.assertTrue(f.renameTo(r));
+        Assert.assertEquals(conv.fromJSON(r), i);
+    }
+
+    @Test
+    public void testStreamingAsDOM() throws JSONConverterException, IOException, ParseException {
+        Instance i = makeInstance();
+        InstanceConverter conv = new InstanceConverter();
+        StringBuilder b = new StringBuilder();
+        conv.toJSON(i, b);
+        //Same document than the DOM-based serialisation
+        Assert.assertEquals(new JSONParser(JSONParser.MODE_RFC4627).parse(b.toString()),
+                conv.toJSON(i));
+        Assert.assertEquals(conv.fromJSON(conv.toJSON(i)), i);
+    }
+
+    @Test
+    public void testUnorderedKeys() throws JSONConverterException {
+        Instance i = makeInstance();
+        InstanceConverter conv = new InstanceConverter();
+        String buf = "{\"objective\":" + conv.toJSON(i).get("objective") +
+                ",\"constraints\":" + conv.toJSON(i).get("constraints") +
+                ",\"model\":" + new ModelConverter().toJSONString(i.getModel()) + "}";
+        Assert.assertEquals(conv.fromJSON(buf), i);
+    }
+
+    @Test(expectedExceptions = {JSONConverterException.class})
+    public void testMissingModel() throws JSONConverterException {
+        new InstanceConverter().fromJSON("{\"constraints\":[], \"objective\":{\"id\":\"minimizeMTTR\"}}");
+    }
 }
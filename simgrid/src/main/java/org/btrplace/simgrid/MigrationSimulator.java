@@ -0,0 +1,445 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.simgrid;
+
+import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import org.btrplace.model.Attributes;
+import org.btrplace.model.Node;
+import org.btrplace.model.VM;
+import org.btrplace.model.view.net.NetworkView;
+import org.btrplace.model.view.net.Port;
+import org.btrplace.model.view.net.Switch;
+import org.btrplace.plan.ReconfigurationPlan;
+import org.btrplace.plan.event.Action;
+import org.btrplace.plan.event.MigrateVM;
+
+import java.util.*;
+
+/**
+ * A flow-level simulator to replay the migrations of a reconfiguration plan over a network topology.
+ * <p>
+ * Each migration is a flow that goes through the input ports and the switches of its path.
+ * The bandwidth is shared among the active flows using a max-min fairness, a flow never exceeds the
+ * bandwidth reserved by its {@link MigrateVM} action, nor the capacity of the elements it crosses.
+ * The bandwidth is shared again each time a migration starts or completes.
+ * <p>
+ * A migration follows the pre-copy model. The memory used by the VM is copied first, then the pages dirtied
+ * in the meantime, then the hot pages. The VMs must then have the attributes {@code memUsed} (MB),
+ * {@code dirtyRate} (MB/s), {@code maxDirtySize} (MB) and {@code maxDirtyDuration} (s).
+ * The arithmetic of the scheduler is reproduced: the throughput in MB/s is the bandwidth divided by
+ * {@link #BANDWIDTH_RATIO} and rounded down, and the rate the hot pages are dirtied at is
+ * {@code maxDirtySize / maxDirtyDuration} rounded down. With a constant bandwidth, the simulated duration
+ * of a migration then equals the duration estimated by the scheduler before it is rounded to the second.
+ * <p>
+ * An action starts at its planned moment, or once all its dependencies are completed if this happens later.
+ * The actions other than the migrations keep their planned duration.
+ * The paths of the migrations are cached, so a same simulator should be used to evaluate several plans
+ * over a same topology.
+ */
+public class MigrationSimulator {
+
+    /**
+     * The ratio between a bandwidth in Mb/s and the throughput of a migration in MB/s.
+     */
+    public static final double BANDWIDTH_RATIO = 9;
+
+    private static final double EPSILON = 1e-9;
+
+    private NetworkView net;
+
+    private int topologyVersion = -1;
+
+    /**
+     * The identifier of each network element that may limit a flow.
+     */
+    private Map<Object, Integer> elements;
+
+    private TDoubleArrayList capacities;
+
+    /**
+     * The network elements crossed by each path, by source and destination node.
+     */
+    private TLongObjectHashMap<int[]> paths;
+
+    /**
+     * Make a new simulator.
+     *
+     * @param net the network topology
+     */
+    public MigrationSimulator(NetworkView net) {
+        this.net = net;
+    }
+
+    /**
+     * Simulate a reconfiguration plan.
+     *
+     * @param plan the plan to simulate. Its source model provides the attributes of the migrated VMs
+     * @return the simulated moments of the actions
+     * @throws IllegalArgumentException if a memory attribute of a migrated VM is missing or is not a number
+     */
+    public SimulationResult simulate(ReconfigurationPlan plan) {
+        if (topologyVersion != net.getTopologyVersion()) {
+            topologyVersion = net.getTopologyVersion();
+            elements = new HashMap<>();
+            capacities = new TDoubleArrayList();
+            paths = new TLongObjectHashMap<>();
+        }
+        Attributes attrs = plan.getOrigin().getAttributes();
+        SimulationResult res = new SimulationResult(plan);
+
+        // The actions waiting for their dependencies, and the actions to start once they complete
+        Map<Action, Integer> waiting = new HashMap<>();
+        Map<Action, List<Action>> dependents = new HashMap<>();
+        PriorityQueue<Event> events = new PriorityQueue<>();
+        for (Action a : plan) {
+            Set<Action> deps = plan.getDirectDependencies(a);
+            if (deps.isEmpty()) {
+                events.add(new Event(a.getStart(), a, true));
+            } else {
+                waiting.put(a, deps.size());
+                for (Action d : deps) {
+                    dependents.computeIfAbsent(d, k -> new ArrayList<>()).add(a);
+                }
+            }
+        }
+
+        List<Flow> flows = new ArrayList<>();
+        boolean reshare = false;
+        double now = 0;
+        while (true) {
+            if (reshare) {
+                share(flows);
+                reshare = false;
+            }
+            // The next moment something happens
+            double next = events.isEmpty() ? Double.POSITIVE_INFINITY : events.peek().time;
+            Flow first = null;
+            for (Flow f : flows) {
+                double t = now + f.timeToPhaseEnd();
+                if (t < next) {
+                    next = t;
+                    first = f;
+                }
+            }
+            if (next == Double.POSITIVE_INFINITY) {
+                // Nothing left, or the remaining migrations never converge
+                break;
+            }
+            for (Flow f : flows) {
+                f.advance(next - now);
+            }
+            now = next;
+
+            if (first != null) {
+                first.remaining = 0;
+                if (first.nextPhase(now)) {
+                    flows.remove(first);
+                    reshare = true;
+                    complete(first.action, now, res, waiting, dependents, events);
+                }
+            }
+            while (!events.isEmpty() && events.peek().time <= now) {
+                Event e = events.poll();
+                if (!e.start) {
+                    complete(e.action, now, res, waiting, dependents, events);
+                } else if (e.action instanceof MigrateVM) {
+                    res.setStart(e.action, now);
+                    flows.add(makeFlow((MigrateVM) e.action, attrs, now));
+                    reshare = true;
+                } else {
+                    res.setStart(e.action, now);
+                    events.add(new Event(now + e.action.getEnd() - e.action.getStart(), e.action, false));
+                }
+            }
+        }
+        return res;
+    }
+
+    private static void complete(Action a, double now, SimulationResult res, Map<Action, Integer> waiting,
+                                 Map<Action, List<Action>> dependents, PriorityQueue<Event> events) {
+        res.setEnd(a, now);
+        List<Action> next = dependents.get(a);
+        if (next == null) {
+            return;
+        }
+        for (Action d : next) {
+            int nb = waiting.get(d) - 1;
+            waiting.put(d, nb);
+            if (nb == 0) {
+                events.add(new Event(Math.max(d.getStart(), now), d, true));
+            }
+        }
+    }
+
+    private Flow makeFlow(MigrateVM a, Attributes attrs, double now) {
+        VM vm = a.getVM();
+        Flow f = new Flow(a, path(a.getSourceNode(), a.getDestinationNode()), now);
+        f.cap = a.getBandwidth() == Integer.MAX_VALUE ? Double.POSITIVE_INFINITY : a.getBandwidth();
+        f.remaining = getAttribute(attrs, vm, "memUsed");
+        f.dirtyRate = getAttribute(attrs, vm, "dirtyRate");
+        f.hotSize = getAttribute(attrs, vm, "maxDirtySize");
+        f.hotDuration = getAttribute(attrs, vm, "maxDirtyDuration");
+        f.hotRate = f.hotDuration > 0 ? Math.floor(f.hotSize / f.hotDuration) : 0;
+        return f;
+    }
+
+    private static double getAttribute(Attributes attrs, VM vm, String k) {
+        Object v = attrs.get(vm, k);
+        if (!(v instanceof Number)) {
+            throw new IllegalArgumentException("Attribute '" + k + "' of VM '" + vm + "' must be a number");
+        }
+        return ((Number) v).doubleValue();
+    }
+
+    /**
+     * Get the network elements that limit the flows between two nodes.
+     * These are the input ports, limited by the slowest side of their link, and the switches having a limited capacity.
+     */
+    private int[] path(Node src, Node dst) {
+        long key = ((long) src.id() << 32) | (dst.id() & 0xffffffffL);
+        int[] p = paths.get(key);
+        if (p != null) {
+            return p;
+        }
+        List<Port> ports = src.equals(dst) ? Collections.emptyList() : net.getPath(src, dst);
+        if (ports == null) {
+            ports = Collections.emptyList();
+        }
+        Map<Port, Integer> positions = new IdentityHashMap<>();
+        for (int i = 0; i < ports.size(); i++) {
+            positions.putIfAbsent(ports.get(i), i);
+        }
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (int i = 0; i < ports.size(); i++) {
+            Port port = ports.get(i);
+            Integer remote = positions.get(port.getRemote());
+            if (positions.get(port) == i && remote != null && i < remote) {
+                ids.add(element(port, Math.min(port.getBandwidth(), port.getRemote().getBandwidth())));
+            }
+            if (port.getHost() instanceof Switch && ((Switch) port.getHost()).getCapacity() > 0) {
+                Switch sw = (Switch) port.getHost();
+                ids.add(element(sw, sw.getCapacity()));
+            }
+        }
+        p = new int[ids.size()];
+        int i = 0;
+        for (int id : ids) {
+            p[i++] = id;
+        }
+        paths.put(key, p);
+        return p;
+    }
+
+    private int element(Object elem, double capacity) {
+        Integer id = elements.get(elem);
+        if (id == null) {
+            id = capacities.size();
+            elements.put(elem, id);
+            capacities.add(capacity);
+        }
+        return id;
+    }
+
+    /**
+     * Share the bandwidth among the flows using a progressive filling.
+     * The rate of all the unfrozen flows is raised evenly until a flow reaches its cap or an element
+     * gets saturated. The flows that reached their cap or that cross a saturated element are then frozen.
+     */
+    private void share(List<Flow> flows) {
+        double[] free = capacities.toArray();
+        int[] users = new int[free.length];
+        List<Flow> unfrozen = new ArrayList<>(flows);
+        for (Flow f : flows) {
+            f.rate = 0;
+            for (int e : f.elements) {
+                users[e]++;
+            }
+        }
+        while (!unfrozen.isEmpty()) {
+            double delta = Double.POSITIVE_INFINITY;
+            for (Flow f : unfrozen) {
+                delta = Math.min(delta, f.cap - f.rate);
+                for (int e : f.elements) {
+                    delta = Math.min(delta, free[e] / users[e]);
+                }
+            }
+            if (delta == Double.POSITIVE_INFINITY) {
+                // Nothing limits the remaining flows
+                for (Flow f : unfrozen) {
+                    f.rate = Double.MAX_VALUE;
+                }
+                return;
+            }
+            for (Flow f : unfrozen) {
+                f.rate += delta;
+                for (int e : f.elements) {
+                    free[e] -= delta;
+                }
+            }
+            List<Flow> frozen = new ArrayList<>();
+            for (Iterator<Flow> ite = unfrozen.iterator(); ite.hasNext(); ) {
+                Flow f = ite.next();
+                if (f.rate >= f.cap - EPSILON * f.cap || saturates(f, free)) {
+                    frozen.add(f);
+                    ite.remove();
+                }
+            }
+            for (Flow f : frozen) {
+                for (int e : f.elements) {
+                    users[e]--;
+                }
+            }
+        }
+    }
+
+    private boolean saturates(Flow f, double[] free) {
+        for (int e : f.elements) {
+            if (free[e] <= EPSILON * capacities.get(e)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The start of an action, or the end of an action that is not a migration.
+     */
+    private static class Event implements Comparable<Event> {
+
+        private final double time;
+
+        private final Action action;
+
+        private final boolean start;
+
+        Event(double t, Action a, boolean start) {
+            time = t;
+            action = a;
+            this.start = start;
+        }
+
+        @Override
+        public int compareTo(Event e) {
+            return Double.compare(time, e.time);
+        }
+    }
+
+    /**
+     * A migration in progress.
+     */
+    private static class Flow {
+
+        private static final int COPY = 0;
+
+        private static final int COLD = 1;
+
+        private static final int HOT = 2;
+
+        private final MigrateVM action;
+
+        private final int[] elements;
+
+        private final double start;
+
+        private double cap;
+
+        private double rate;
+
+        private double dirtyRate;
+
+        private double hotSize;
+
+        private double hotDuration;
+
+        private double hotRate;
+
+        private int phase = COPY;
+
+        /**
+         * The amount of memory to transfer to end the current phase, in MB.
+         */
+        private double remaining;
+
+        Flow(MigrateVM a, int[] elements, double start) {
+            this.action = a;
+            this.elements = elements;
+            this.start = start;
+        }
+
+        private double throughput() {
+            return Math.floor(rate / BANDWIDTH_RATIO);
+        }
+
+        /**
+         * The rate the memory to transfer decreases at, in MB/s.
+         */
+        private double drain() {
+            switch (phase) {
+                case COPY:
+                    return throughput();
+                case COLD:
+                    return throughput() - dirtyRate;
+                default:
+                    return throughput() - hotRate;
+            }
+        }
+
+        double timeToPhaseEnd() {
+            if (remaining <= 0) {
+                return 0;
+            }
+            double d = drain();
+            return d > 0 ? remaining / d : Double.POSITIVE_INFINITY;
+        }
+
+        void advance(double dt) {
+            if (dt > 0) {
+                remaining = Math.max(0, remaining - drain() * dt);
+            }
+        }
+
+        /**
+         * Go to the next phase.
+         *
+         * @param now the current moment
+         * @return {@code true} iff the migration is completed
+         */
+        boolean nextPhase(double now) {
+            if (phase == COPY) {
+                double copy = now - start;
+                if (copy > hotDuration) {
+                    // The cold pages dirtied during the copy, and the hot pages
+                    phase = COLD;
+                    remaining = hotSize + (copy - hotDuration) * dirtyRate;
+                } else {
+                    phase = HOT;
+                    remaining = hotRate * copy;
+                }
+                return false;
+            } else if (phase == COLD) {
+                // The hot pages dirtied again while they are transferred
+                phase = HOT;
+                remaining = throughput() > hotRate ? hotSize * hotRate / throughput() : hotSize;
+                return false;
+            }
+            return true;
+        }
+    }
+}
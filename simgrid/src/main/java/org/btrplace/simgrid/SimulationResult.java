@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.simgrid;
+
+import org.btrplace.plan.ReconfigurationPlan;
+import org.btrplace.plan.event.Action;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The moments of the actions of a reconfiguration plan, as simulated by a {@link MigrationSimulator}.
+ * The moments are expressed in seconds.
+ * An action that never completes, for example a migration that does not converge or an action that depends on it,
+ * ends at {@link Double#POSITIVE_INFINITY}.
+ */
+public class SimulationResult {
+
+    private ReconfigurationPlan plan;
+
+    private Map<Action, Double> starts;
+
+    private Map<Action, Double> ends;
+
+    /**
+     * Make a new result.
+     *
+     * @param plan the simulated plan
+     */
+    public SimulationResult(ReconfigurationPlan plan) {
+        this.plan = plan;
+        starts = new HashMap<>();
+        ends = new HashMap<>();
+    }
+
+    /**
+     * Get the simulated plan.
+     *
+     * @return the plan
+     */
+    public ReconfigurationPlan getPlan() {
+        return plan;
+    }
+
+    /**
+     * Set the moment an action started.
+     *
+     * @param a the action
+     * @param t the moment
+     */
+    public void setStart(Action a, double t) {
+        starts.put(a, t);
+    }
+
+    /**
+     * Set the moment an action ended.
+     *
+     * @param a the action
+     * @param t the moment
+     */
+    public void setEnd(Action a, double t) {
+        ends.put(a, t);
+    }
+
+    /**
+     * Get the moment an action started.
+     *
+     * @param a the action
+     * @return the moment. {@link Double#POSITIVE_INFINITY} if the action never started
+     */
+    public double getStart(Action a) {
+        Double t = starts.get(a);
+        return t == null ? Double.POSITIVE_INFINITY : t;
+    }
+
+    /**
+     * Get the moment an action ended.
+     *
+     * @param a the action
+     * @return the moment. {@link Double#POSITIVE_INFINITY} if the action never ended
+     */
+    public double getEnd(Action a) {
+        Double t = ends.get(a);
+        return t == null ? Double.POSITIVE_INFINITY : t;
+    }
+
+    /**
+     * Get the duration of an action.
+     *
+     * @param a the action
+     * @return the duration. {@link Double#POSITIVE_INFINITY} if the action never ended
+     */
+    public double getDuration(Action a) {
+        return getEnd(a) - getStart(a);
+    }
+
+    /**
+     * Get the moment the last action ended.
+     *
+     * @return the makespan. {@link Double#POSITIVE_INFINITY} if an action never ended
+     */
+    public double getMakespan() {
+        double makespan = 0;
+        for (Action a : plan) {
+            makespan = Math.max(makespan, getEnd(a));
+        }
+        return makespan;
+    }
+
+    /**
+     * Check if all the actions ended.
+     *
+     * @return {@code true} iff the makespan is finite
+     */
+    public boolean isCompleted() {
+        return ends.size() == plan.getSize();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder b = new StringBuilder();
+        for (Action a : plan) {
+            b.append(String.format("%s: [%.2f, %.2f]%n", a, getStart(a), getEnd(a)));
+        }
+        return b.append(String.format("makespan: %.2f", getMakespan())).toString();
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2014 University Nice Sophia Antipolis
+ *
+ * This file is part of btrplace.
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.btrplace.simgrid;
+
+import org.btrplace.model.*;
+import org.btrplace.model.view.net.NetworkView;
+import org.btrplace.model.view.net.Switch;
+import org.btrplace.plan.DefaultReconfigurationPlan;
+import org.btrplace.plan.ReconfigurationPlan;
+import org.btrplace.plan.event.MigrateVM;
+import org.btrplace.plan.event.ShutdownNode;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link MigrationSimulator}.
+ */
+public class MigrationSimulatorTest {
+
+    private Model mo;
+
+    private Node n1, n2, n3;
+
+    private NetworkView makeModel() {
+        return makeModel(900);
+    }
+
+    private NetworkView makeModel(int bw) {
+        mo = new DefaultModel();
+        n1 = mo.newNode();
+        n2 = mo.newNode();
+        n3 = mo.newNode();
+        mo.getMapping().addOnlineNode(n1);
+        mo.getMapping().addOnlineNode(n2);
+        mo.getMapping().addOnlineNode(n3);
+        NetworkView net = new NetworkView();
+        Switch sw = net.newSwitch();
+        sw.connect(bw, n1, n2, n3);
+        mo.attach(net);
+        return net;
+    }
+
+    private VM makeVM(int memUsed, double dirtyRate, int maxDirtySize, int maxDirtyDuration) {
+        VM v = mo.newVM();
+        mo.getMapping().addRunningVM(v, n1);
+        Attributes attrs = mo.getAttributes();
+        attrs.put(v, "memUsed", memUsed);
+        attrs.put(v, "dirtyRate", dirtyRate);
+        attrs.put(v, "maxDirtySize", maxDirtySize);
+        attrs.put(v, "maxDirtyDuration", maxDirtyDuration);
+        return v;
+    }
+
+    @Test
+    public void testPreCopyDuration() {
+        NetworkView net = makeModel();
+        VM v = makeVM(1000, 5, 20, 2);
+        ReconfigurationPlan plan = new DefaultReconfigurationPlan(mo);
+        MigrateVM m = new MigrateVM(v, n1, n2, 0, 11, 900);
+        plan.add(m);
+
+        SimulationResult res = new MigrationSimulator(net).simulate(plan);
+        //The 900 Mb/s link transfers 100 MB/s, 10 seconds to copy the memory
+        double expected = 10 + (20 + 8 * 5.0) / (100 - 5) + (20 / 100.0) * (10 / (100 - 10.0));
+        Assert.assertEquals(res.getStart(m), 0, 1e-9);
+        Assert.assertEquals(res.getEnd(m), expected, 1e-6);
+        Assert.assertEquals(res.getMakespan(), expected, 1e-6);
+        Assert.assertTrue(res.isCompleted());
+    }
+
+    @Test
+    public void testSchedulerArithmetic() {
+        NetworkView net = makeModel(1000);
+        VM v = makeVM(1000, 5, 10, 3);
+        ReconfigurationPlan plan = new DefaultReconfigurationPlan(mo);
+        MigrateVM m = new MigrateVM(v, n1, n2, 0, 11, 1000);
+        plan.add(m);
+
+        SimulationResult res = new MigrationSimulator(net).simulate(plan);
+        //As in the scheduler, 1000 Mb/s transfer 111 MB/s and the hot pages are dirtied at 3 MB/s
+        double copy = 1000 / 111.0;
+        double expected = copy + (10 + (copy - 3) * 5) / (111 - 5) + (10 / 111.0) * (3 / (111 - 3.0));
+        Assert.assertEquals(res.getEnd(m), expected, 1e-6);
+        Assert.assertEquals(Math.round(res.getEnd(m)), 9);
+    }
+
+    @Test
+    public void testFairSharing() {
+        NetworkView net = makeModel();
+        VM v1 = makeVM(450, 0, 0, 1);
+        VM v2 = makeVM(900, 0, 0, 1);
+        ReconfigurationPlan plan = new DefaultReconfigurationPlan(mo);
+        MigrateVM m1 = new MigrateVM(v1, n1, n2, 0, 5);
+        MigrateVM m2 = new MigrateVM(v2, n1, n3, 0, 9);
+        plan.add(m1);
+        plan.add(m2);
+
+        SimulationResult res = new MigrationSimulator(net).simulate(plan);
+        //Both share the uplink of n1 until m1 completes, then m2 gets the whole link
+        Assert.assertEquals(res.getEnd(m1), 9, 1e-6);
+        Assert.assertEquals(res.getEnd(m2), 13.5, 1e-6);
+        Assert.assertEquals(res.getMakespan(), 13.5, 1e-6);
+    }
+
+    @Test
+    public void testReservedBandwidth() {
+        NetworkView net = makeModel();
+        VM v1 = makeVM(900, 0, 0, 1);
+        VM v2 = makeVM(900, 0, 0, 1);
+        ReconfigurationPlan plan = new DefaultReconfigurationPlan(mo);
+        MigrateVM m1 = new MigrateVM(v1, n1, n2, 0, 9);
+        MigrateVM m2 = new MigrateVM(v2, n1, n3, 0, 27, 300);
+        plan.add(m1);
+        plan.add(m2);
+
+        SimulationResult res = new MigrationSimulator(net).simulate(plan);
+        //m2 never exceeds its 300 Mb/s (33 MB/s), m1 gets the remaining 600 Mb/s (66 MB/s)
+        Assert.assertEquals(res.getEnd(m1), 900 / 66.0, 1e-6);
+        Assert.assertEquals(res.getEnd(m2), 900 / 33.0, 1e-6);
+    }
+
+    @Test
+    public void testDelayedDependencies() {
+        NetworkView net = makeModel();
+        VM v = makeVM(900, 0, 0, 1);
+        ReconfigurationPlan plan = new DefaultReconfigurationPlan(mo);
+        MigrateVM m = new MigrateVM(v, n1, n2, 0, 5);
+        ShutdownNode s = new ShutdownNode(n1, 5, 8);
+        plan.add(m);
+        plan.add(s);
+
+        SimulationResult res = new MigrationSimulator(net).simulate(plan);
+        //The migration lasts 9 seconds, so the shutdown is delayed
+        Assert.assertEquals(res.getEnd(m), 9, 1e-6);
+        Assert.assertEquals(res.getStart(s), 9, 1e-6);
+        Assert.assertEquals(res.getEnd(s), 12, 1e-6);
+        Assert.assertEquals(res.getMakespan(), 12, 1e-6);
+    }
+
+    @Test
+    public void testNoConvergence() {
+        NetworkView net = makeModel();
+        VM v = makeVM(1000, 200, 20, 2);
+        ReconfigurationPlan plan = new DefaultReconfigurationPlan(mo);
+        MigrateVM m = new MigrateVM(v, n1, n2, 0, 10);
+        ShutdownNode s = new ShutdownNode(n1, 10, 15);
+        plan.add(m);
+        plan.add(s);
+
+        SimulationResult res = new MigrationSimulator(net).simulate(plan);
+        //The memory is dirtied faster than it is transferred
+        Assert.assertFalse(res.isCompleted());
+        Assert.assertEquals(res.getEnd(m), Double.POSITIVE_INFINITY);
+        Assert.assertEquals(res.getStart(s), Double.POSITIVE_INFINITY);
+        Assert.assertEquals(res.getMakespan(), Double.POSITIVE_INFINITY);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testMissingAttribute() {
+        NetworkView net = makeModel();
+        VM v = mo.newVM();
+        mo.getMapping().addRunningVM(v, n1);
+        ReconfigurationPlan plan = new DefaultReconfigurationPlan(mo);
+        plan.add(new MigrateVM(v, n1, n2, 0, 10));
+        new MigrationSimulator(net).simulate(plan);
+    }
+}